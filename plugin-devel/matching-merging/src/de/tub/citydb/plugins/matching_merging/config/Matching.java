@@ -34,13 +34,15 @@ import javax.xml.bind.annotation.XmlType;
 
 @XmlType(name="MatchingType", propOrder={
 		"tolerance",
-		"lineage"
+		"lineage",
+		"tiles"
 })		
 public class Matching {
 	@XmlElement(required=true)
 	private double tolerance = 0.001;
 	@XmlElement(required=true)
 	private String lineage = "";
+	private Integer tiles;
 
 	public double getTolerance() {
 		return tolerance;
@@ -58,4 +60,17 @@ public class Matching {
 		if (lineage != null)
 			this.lineage = lineage;
 	}
+
+	public boolean isSetTiles() {
+		return tiles != null;
+	}
+
+	public Integer getTiles() {
+		return tiles;
+	}
+
+	public void setTiles(Integer tiles) {
+		if (tiles != null && tiles > 0)
+			this.tiles = tiles;
+	}
 }
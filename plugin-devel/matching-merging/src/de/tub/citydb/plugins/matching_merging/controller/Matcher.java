@@ -34,6 +34,13 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import de.tub.citydb.api.controller.DatabaseController;
@@ -200,11 +207,7 @@ public class Matcher implements EventHandler {
 				logController.info("Computing 2D projection of candidate buildings.");
 				eventDispatcher.triggerEvent(new StatusDialogMessage(Util.I18N.getString("match.match.dialog.unionCand"), this));		
 
-				cstmt = conn.prepareCall("{CALL geodb_match.aggregate_geometry(?, ?, ?)}");
-				cstmt.setString(1, "MATCH_CAND_PROJECTED");
-				cstmt.setDouble(2, tolerance); //tolerance
-				cstmt.setInt(3, 1); //aggregate building
-				cstmt.executeUpdate();
+				aggregateGeometry("MATCH_CAND_PROJECTED", tolerance, conn);
 
 				eventDispatcher.triggerEvent(new StatusDialogProgressBar(4, 9, this));
 			}
@@ -267,11 +270,7 @@ public class Matcher implements EventHandler {
 				logController.info("Computing 2D projection of master buildings.");
 				eventDispatcher.triggerEvent(new StatusDialogMessage(Util.I18N.getString("match.match.dialog.unionMaster"), this));				
 
-				cstmt = conn.prepareCall("{CALL geodb_match.aggregate_geometry(?, ?, ?)}");
-				cstmt.setString(1, "MATCH_MASTER_PROJECTED"); 
-				cstmt.setDouble(2, tolerance); //tolerance
-				cstmt.setInt(3, 1); //aggregate buildings
-				cstmt.executeUpdate();
+				aggregateGeometry("MATCH_MASTER_PROJECTED", tolerance, conn);
 
 				eventDispatcher.triggerEvent(new StatusDialogProgressBar(8, 10, this));
 			}
@@ -342,6 +341,105 @@ public class Matcher implements EventHandler {
 		}
 	}
 
+	private void aggregateGeometry(final String tableName, final double tolerance, Connection conn) throws SQLException {
+		ConfigImpl config = plugin.getConfig();
+		final Workspace workspace = config.getWorkspace();
+		int tiles = config.getMatching().isSetTiles() ? 
+				config.getMatching().getTiles() : Math.min(Runtime.getRuntime().availableProcessors(), 4);
+
+		CallableStatement cstmt = null;
+		ExecutorService service = null;
+
+		try {
+			// assign buildings to spatial tiles of equal size
+			cstmt = conn.prepareCall("{CALL geodb_match.prepare_aggregation(?, ?, ?)}");
+			cstmt.setString(1, tableName);
+			cstmt.setInt(2, tiles);
+			cstmt.setInt(3, 1); //aggregate buildings
+			cstmt.executeUpdate();
+			cstmt.close();
+
+			// the tiles are aggregated by separate sessions
+			if (!conn.getAutoCommit())
+				conn.commit();
+
+			service = Executors.newFixedThreadPool(tiles);
+			List<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (int tile = 1; tile <= tiles; tile++) {
+				final int tileNo = tile;
+				results.add(service.submit(new Callable<Void>() {
+					public Void call() throws SQLException {
+						aggregateGeometryTile(tableName, tileNo, tolerance, workspace);
+						return null;
+					}
+				}));
+			}
+
+			try {
+				for (Future<Void> result : results)
+					result.get();
+			} catch (InterruptedException e) {
+				throw new SQLException("Interrupted while aggregating geometries.");
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof SQLException)
+					throw (SQLException)e.getCause();
+
+				throw new SQLException(e.getCause());
+			}
+
+			cstmt = conn.prepareCall("{CALL geodb_match.finish_aggregation(?)}");
+			cstmt.setString(1, tableName);
+			cstmt.executeUpdate();
+		} finally {
+			if (service != null)
+				service.shutdownNow();
+
+			if (cstmt != null) {
+				try {
+					cstmt.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+		}
+	}
+
+	private void aggregateGeometryTile(String tableName, int tileNo, double tolerance, Workspace workspace) throws SQLException {
+		Connection conn = null;
+		CallableStatement cstmt = null;
+
+		try {
+			conn = databaseController.getConnection();
+			databaseController.getActiveDatabaseAdapter().getWorkspaceManager().gotoWorkspace(conn, workspace.getName(), workspace.getTimestamp());
+
+			cstmt = conn.prepareCall("{CALL geodb_match.aggregate_geometry_tile(?, ?, ?, ?)}");
+			cstmt.setString(1, tableName);
+			cstmt.setInt(2, tileNo);
+			cstmt.setDouble(3, tolerance); //tolerance
+			cstmt.setInt(4, 1); //aggregate buildings
+			cstmt.executeUpdate();
+
+			if (!conn.getAutoCommit())
+				conn.commit();
+		} finally {
+			if (cstmt != null) {
+				try {
+					cstmt.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+
+			if (conn != null) {
+				try {
+					conn.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+		}
+	}
+
 	public boolean calcRelevantMatches() {		
 		logController.info("Adapting minimum overlap thresholds.");
 
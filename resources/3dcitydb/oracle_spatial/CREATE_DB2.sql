@@ -83,6 +83,7 @@ COMMIT;
 @@SCHEMA/TABLES/RELIEF/RELIEF_FEAT_TO_REL_COMP.sql
 @@SCHEMA/TABLES/RELIEF/RELIEF_FEATURE.sql
 @@SCHEMA/TABLES/RELIEF/TIN_RELIEF.sql
+@@SCHEMA/TABLES/RELIEF/TIN_RELIEF_LOD.sql
 @@SCHEMA/TABLES/ORTHOPHOTO/ORTHOPHOTO_RDT.sql;
 @@SCHEMA/TABLES/ORTHOPHOTO/ORTHOPHOTO.sql;
 @@SCHEMA/TABLES/ORTHOPHOTO/ORTHOPHOTO_RDT_IMP.sql;
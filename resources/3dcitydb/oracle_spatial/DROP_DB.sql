@@ -184,6 +184,9 @@ ALTER TABLE THEMATIC_SURFACE DROP CONSTRAINT "THEMATIC_SURFACE_FK1";
 ALTER TABLE TIN_RELIEF DROP CONSTRAINT "TIN_RELIEF_SURFACE_GEOMETRY_FK";
 ALTER TABLE TIN_RELIEF DROP CONSTRAINT "TIN_RELIEF_RELIEF_COMPONENT_FK";
 
+ALTER TABLE TIN_RELIEF_LOD DROP CONSTRAINT "TIN_RELIEF_LOD_TIN_RELIEF_FK";
+ALTER TABLE TIN_RELIEF_LOD DROP CONSTRAINT "TIN_RELIEF_LOD_SURF_GEOM_FK";
+
 ALTER TABLE TRAFFIC_AREA DROP CONSTRAINT "TRAFFIC_AREA_CITYOBJECT_FK";
 ALTER TABLE TRAFFIC_AREA DROP CONSTRAINT "TRAFFIC_AREA_FK";
 ALTER TABLE TRAFFIC_AREA DROP CONSTRAINT "TRAFFIC_AREA_FK1";
@@ -299,6 +302,8 @@ DROP TABLE THEMATIC_SURFACE CASCADE CONSTRAINTS;
 
 DROP TABLE TIN_RELIEF CASCADE CONSTRAINTS;
 
+DROP TABLE TIN_RELIEF_LOD CASCADE CONSTRAINTS;
+
 DROP TABLE TRAFFIC_AREA CASCADE CONSTRAINTS;
 
 DROP TABLE TRANSPORTATION_COMPLEX CASCADE CONSTRAINTS;
@@ -136,6 +136,7 @@ AS
   procedure post_delete_relief_feature(relief_feature_rec relief_feature%rowtype);
   procedure pre_delete_relief_component(relief_component_rec relief_component%rowtype);
   procedure post_delete_relief_component(relief_component_rec relief_component%rowtype);
+  procedure pre_delete_tin_relief(tin_relief_rec tin_relief%rowtype);
   procedure post_delete_tin_relief(tin_relief_rec tin_relief%rowtype);
 
   function is_not_referenced(table_name varchar2, check_column varchar2, check_id number, not_column varchar2, not_id number) return boolean;
@@ -1106,9 +1107,25 @@ AS
   /*
     internal: delete from TIN_RELIEF
   */
+  procedure pre_delete_tin_relief(tin_relief_rec tin_relief%rowtype)
+  is
+    cursor tin_relief_lod_cur is
+      select lod_level, surface_geometry_id from tin_relief_lod where tin_relief_id=tin_relief_rec.id;
+  begin
+    -- delete decimated levels of detail
+    for rec in tin_relief_lod_cur loop
+      execute immediate 'delete from tin_relief_lod where tin_relief_id=:1 and lod_level=:2' using tin_relief_rec.id, rec.lod_level;
+      intern_delete_surface_geometry(rec.surface_geometry_id);
+    end loop;
+  exception
+    when others then
+      dbms_output.put_line('pre_delete_tin_relief (id: ' || tin_relief_rec.id || '): ' || SQLERRM);
+  end;
+
   procedure delete_tin_relief(tin_relief_rec tin_relief%rowtype)
   is
   begin
+    pre_delete_tin_relief(tin_relief_rec);
     execute immediate 'delete from tin_relief where id=:1' using tin_relief_rec.id;
     post_delete_tin_relief(tin_relief_rec);    
   exception
@@ -87,6 +87,14 @@ create table match_collect_geom
       root_id number,
       geometry mdsys.sdo_geometry) 
       nologging;
+
+drop table match_tile;
+create table match_tile 
+      (id number,
+      parent_id number,
+      root_id number,
+      tile number) 
+      nologging;
       
 truncate table match_tmp_building;
 drop table match_tmp_building;
@@ -109,6 +117,9 @@ AS
   procedure collect_geometry(lod number);
   procedure rectify_geometry(tolerance number := 0.001);
   procedure aggregate_geometry(table_name varchar2, tolerance number := 0.001, aggregate_building number := 1);
+  procedure prepare_aggregation(table_name varchar2, tiles number := 1, aggregate_building number := 1);
+  procedure aggregate_geometry_tile(table_name varchar2, tile_no number, tolerance number := 0.001, aggregate_building number := 1);
+  procedure finish_aggregation(table_name varchar2);
   procedure join_cand_master(lod_cand number, lineage cityobject.lineage%type, lod_master number, tolerance number := 0.001);
 	procedure create_relevant_matches(delta_cand number, delta_master number);
   procedure clear_matching_tables;
@@ -276,11 +287,24 @@ AS
   end;
 
   procedure aggregate_geometry(table_name varchar2, tolerance number := 0.001, aggregate_building number := 1)
+  is
+  begin
+    prepare_aggregation(table_name, 1, aggregate_building);
+    aggregate_geometry_tile(table_name, 1, tolerance, aggregate_building);
+    finish_aggregation(table_name);
+  end;
+
+  /*
+  * assigns the buildings of match_collect_geom to spatial tiles of equal size
+  * so that the tiles can be aggregated concurrently by separate sessions
+  */
+  procedure prepare_aggregation(table_name varchar2, tiles number := 1, aggregate_building number := 1)
   is
     log varchar2(4000);
   begin
-    -- truncate table
+    -- truncate tables
     execute immediate 'truncate table '||table_name;
+    execute immediate 'truncate table match_tile';
     
     -- drop spatial indexes   
     if match_cand_projected_spx.table_name = table_name then
@@ -290,42 +314,50 @@ AS
     end if;
    
     if aggregate_building > 0 then    
-      declare
-        cursor root_id_cur is
-          select distinct root_id
-          from match_tmp_building;
-          
-      begin
-        log := geodb_idx.create_index(match_collect_root_id_idx, false, 'nologging');
+      log := geodb_idx.create_index(match_collect_root_id_idx, false, 'nologging');
       
-        for root_id_rec in root_id_cur loop
-          execute immediate 'insert into '||table_name||' (id, parent_id, root_id, geometry)
-            values (:1, null, :2, :3)' 
-            using root_id_rec.root_id, 
-                  root_id_rec.root_id, 
-                  aggregate_geometry_by_id(root_id_rec.root_id, tolerance, 1);          
-        end loop;
-      end;
+      execute immediate 'insert into match_tile (id, parent_id, root_id, tile)
+        select g.root_id, null, g.root_id, 
+               ntile(:1) over (order by sdo_geom.sdo_min_mbr_ordinate(c.envelope, 1) + sdo_geom.sdo_max_mbr_ordinate(c.envelope, 1),
+                                        sdo_geom.sdo_min_mbr_ordinate(c.envelope, 2) + sdo_geom.sdo_max_mbr_ordinate(c.envelope, 2))
+          from (select distinct root_id from match_collect_geom) g, cityobject c
+          where c.id = g.root_id'
+        using tiles;
     else
-      declare
-        cursor id_cur is
-          select distinct id, parent_id, root_id 
-          from match_tmp_building;
-          
-      begin
-        log := geodb_idx.create_index(match_collect_id_idx, false, 'nologging');
+      log := geodb_idx.create_index(match_collect_id_idx, false, 'nologging');
       
-        for id_rec in id_cur loop
-          execute immediate 'insert into '||table_name||' (id, parent_id, root_id, geometry)
-            values (:1, :2, :3, :4)' 
-            using id_rec.id, 
-                  id_rec.parent_id, 
-                  id_rec.root_id, 
-                  aggregate_geometry_by_id(id_rec.id, tolerance, 0);          
-        end loop;
-      end;
+      execute immediate 'insert into match_tile (id, parent_id, root_id, tile)
+        select g.id, g.parent_id, g.root_id, 
+               ntile(:1) over (order by sdo_geom.sdo_min_mbr_ordinate(c.envelope, 1) + sdo_geom.sdo_max_mbr_ordinate(c.envelope, 1),
+                                        sdo_geom.sdo_min_mbr_ordinate(c.envelope, 2) + sdo_geom.sdo_max_mbr_ordinate(c.envelope, 2))
+          from (select distinct id, parent_id, root_id from match_collect_geom) g, cityobject c
+          where c.id = g.id'
+        using tiles;
     end if;
-    
+  end;
+
+  procedure aggregate_geometry_tile(table_name varchar2, tile_no number, tolerance number := 0.001, aggregate_building number := 1)
+  is
+    cursor tile_cur is
+      select id, parent_id, root_id
+      from match_tile
+      where tile = tile_no;
+      
+  begin
+    for tile_rec in tile_cur loop
+      execute immediate 'insert into '||table_name||' (id, parent_id, root_id, geometry)
+        values (:1, :2, :3, :4)' 
+        using tile_rec.id, 
+              tile_rec.parent_id, 
+              tile_rec.root_id, 
+              aggregate_geometry_by_id(tile_rec.id, tolerance, aggregate_building);          
+    end loop;
+  end;
+
+  procedure finish_aggregation(table_name varchar2)
+  is
+    log varchar2(4000);
+  begin
     -- clean up aggregate table
     execute immediate 'delete from '||table_name||' where geometry is null';
     
@@ -424,6 +456,7 @@ AS
     execute immediate 'truncate table match_cand_projected';
     execute immediate 'truncate table match_collect_geom';
     execute immediate 'truncate table match_tmp_building';
+    execute immediate 'truncate table match_tile';
     execute immediate 'truncate table merge_collect_geom';
     execute immediate 'truncate table merge_container_ids';
   exception
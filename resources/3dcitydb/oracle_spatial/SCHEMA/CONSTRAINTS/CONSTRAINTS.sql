@@ -546,6 +546,17 @@ ADD CONSTRAINT TIN_RELIEF_RELIEF_COMPONENT_FK FOREIGN KEY (ID)
 REFERENCES RELIEF_COMPONENT (ID) ENABLE;
 
 
+--//TIN_RELIEF_LOD CONSTRAINT
+
+ALTER TABLE TIN_RELIEF_LOD
+ADD CONSTRAINT TIN_RELIEF_LOD_TIN_RELIEF_FK FOREIGN KEY (TIN_RELIEF_ID)
+REFERENCES TIN_RELIEF (ID) ENABLE;
+
+ALTER TABLE TIN_RELIEF_LOD
+ADD CONSTRAINT TIN_RELIEF_LOD_SURF_GEOM_FK FOREIGN KEY (SURFACE_GEOMETRY_ID)
+REFERENCES SURFACE_GEOMETRY (ID) ENABLE;
+
+
 --//TRAFFIC_AREA CONSTRAINT
 
 ALTER TABLE TRAFFIC_AREA
@@ -53,6 +53,8 @@ CREATE INDEX BUILDING_INSTALLATION_FKX4 ON BUILDING_INSTALLATION (BUILDING_ID);
 
 CREATE INDEX CITYOBJECT_FKX ON CITYOBJECT (CLASS_ID);
 CREATE INDEX CITYOBJECT_INX ON CITYOBJECT (GMLID, GMLID_CODESPACE);
+CREATE INDEX CITYOBJECT_INX1 ON CITYOBJECT (LAST_MODIFICATION_DATE);
+CREATE INDEX CITYOBJECT_INX2 ON CITYOBJECT (TERMINATION_DATE);
 
 CREATE INDEX CITYOBJECTGROUP_FKX ON CITYOBJECTGROUP (SURFACE_GEOMETRY_ID);
 CREATE INDEX CITYOBJECTGROUP_FKX1 ON CITYOBJECTGROUP (PARENT_CITYOBJECT_ID);
@@ -134,6 +136,8 @@ CREATE INDEX THEMATIC_SURFACE_FKX4 ON THEMATIC_SURFACE (LOD4_MULTI_SURFACE_ID);
 
 CREATE INDEX TIN_RELIEF_FKX ON TIN_RELIEF (SURFACE_GEOMETRY_ID);
 
+CREATE INDEX TIN_RELIEF_LOD_FKX ON TIN_RELIEF_LOD (SURFACE_GEOMETRY_ID);
+
 CREATE INDEX TRAFFIC_AREA_FKX ON TRAFFIC_AREA (LOD2_MULTI_SURFACE_ID);
 CREATE INDEX TRAFFIC_AREA_FKX1 ON TRAFFIC_AREA (LOD3_MULTI_SURFACE_ID);
 CREATE INDEX TRAFFIC_AREA_FKX2 ON TRAFFIC_AREA (LOD4_MULTI_SURFACE_ID);
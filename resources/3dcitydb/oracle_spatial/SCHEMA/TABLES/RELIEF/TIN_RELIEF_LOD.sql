@@ -0,0 +1,44 @@
+-- TIN_RELIEF_LOD.sql
+--
+-- Authors:     Prof. Dr. Thomas H. Kolbe <thomas.kolbe@tum.de>
+--              Gerhard König <gerhard.koenig@tu-berlin.de>
+--              Claus Nagel <cnagel@virtualcitysystems.de>
+--              Alexandra Stadler <stadler@igg.tu-berlin.de>
+--
+-- Copyright:   (c) 2007-2008  Institute for Geodesy and Geoinformation Science,
+--                             Technische Universit�t Berlin, Germany
+--                             http://www.igg.tu-berlin.de
+--
+--              This skript is free software under the LGPL Version 2.1.
+--              See the GNU Lesser General Public License at
+--              http://www.gnu.org/copyleft/lgpl.html
+--              for more details.
+-------------------------------------------------------------------------------
+-- About:
+--
+--
+-------------------------------------------------------------------------------
+--
+-- ChangeLog:
+--
+-- Version | Date       | Description                               | Author
+-- 2.1.0     2026-10-19   decimated levels of detail of TINs
+--
+-- DROP TABLE TIN_RELIEF_LOD CASCADE CONSTRAINT PURGE;
+
+CREATE TABLE TIN_RELIEF_LOD
+(
+TIN_RELIEF_ID NUMBER NOT NULL,
+LOD_LEVEL NUMBER NOT NULL,
+TOLERANCE BINARY_DOUBLE NOT NULL,
+SURFACE_GEOMETRY_ID NUMBER NOT NULL
+)
+;
+ALTER TABLE TIN_RELIEF_LOD
+ADD CONSTRAINT TIN_RELIEF_LOD_PK PRIMARY KEY
+(
+TIN_RELIEF_ID,
+LOD_LEVEL
+)
+ ENABLE
+;
\ No newline at end of file
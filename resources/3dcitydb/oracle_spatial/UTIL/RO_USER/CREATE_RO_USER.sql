@@ -139,6 +139,7 @@ BEGIN
       EXECUTE IMMEDIATE 'grant select on ' || UPPER('&SCHEMA_OWNER') || '.TEXTUREPARAM to ' || v_role;
       EXECUTE IMMEDIATE 'grant select on ' || UPPER('&SCHEMA_OWNER') || '.THEMATIC_SURFACE to ' || v_role;
       EXECUTE IMMEDIATE 'grant select on ' || UPPER('&SCHEMA_OWNER') || '.TIN_RELIEF to ' || v_role;
+      EXECUTE IMMEDIATE 'grant select on ' || UPPER('&SCHEMA_OWNER') || '.TIN_RELIEF_LOD to ' || v_role;
       EXECUTE IMMEDIATE 'grant select on ' || UPPER('&SCHEMA_OWNER') || '.TRAFFIC_AREA to ' || v_role;
       EXECUTE IMMEDIATE 'grant select on ' || UPPER('&SCHEMA_OWNER') || '.TRANSPORTATION_COMPLEX to ' || v_role;
       EXECUTE IMMEDIATE 'grant select on ' || UPPER('&SCHEMA_OWNER') || '.WATERBODY to ' || v_role;
@@ -172,6 +173,7 @@ BEGIN
   EXECUTE IMMEDIATE 'create or replace synonym ' || v_readOnlyName || '.ORTHOPHOTO_IMP for ' || v_schemaOwnerName || '.ORTHOPHOTO_IMP';
   EXECUTE IMMEDIATE 'create or replace synonym ' || v_readOnlyName || '.ORTHOPHOTO for ' || v_schemaOwnerName || '.ORTHOPHOTO';
   EXECUTE IMMEDIATE 'create or replace synonym ' || v_readOnlyName || '.TIN_RELIEF for ' || v_schemaOwnerName || '.TIN_RELIEF';
+  EXECUTE IMMEDIATE 'create or replace synonym ' || v_readOnlyName || '.TIN_RELIEF_LOD for ' || v_schemaOwnerName || '.TIN_RELIEF_LOD';
   EXECUTE IMMEDIATE 'create or replace synonym ' || v_readOnlyName || '.RELIEF_FEATURE for ' || v_schemaOwnerName || '.RELIEF_FEATURE';
   EXECUTE IMMEDIATE 'create or replace synonym ' || v_readOnlyName || '.RELIEF_FEAT_TO_REL_COMP for ' || v_schemaOwnerName || '.RELIEF_FEAT_TO_REL_COMP';
   EXECUTE IMMEDIATE 'create or replace synonym ' || v_readOnlyName || '.RELIEF_COMPONENT for ' || v_schemaOwnerName || '.RELIEF_COMPONENT';
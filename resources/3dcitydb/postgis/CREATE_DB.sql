@@ -84,6 +84,7 @@ INSERT INTO DATABASE_SRS(SRID,GML_SRS_NAME) VALUES (:SRS_NO,:'GMLSRSNAME');
 \i SCHEMA/TABLES/RELIEF/RELIEF_FEAT_TO_REL_COMP.sql
 \i SCHEMA/TABLES/RELIEF/RELIEF_FEATURE.sql
 \i SCHEMA/TABLES/RELIEF/TIN_RELIEF.sql
+\i SCHEMA/TABLES/RELIEF/TIN_RELIEF_LOD.sql
 \i SCHEMA/TABLES/ORTHOPHOTO/ORTHOPHOTO.sql;
 \i SCHEMA/TABLES/TRANSPORTATION/TRANSPORTATION_COMPLEX.sql
 \i SCHEMA/TABLES/TRANSPORTATION/TRAFFIC_AREA.sql
@@ -173,6 +173,9 @@ ALTER TABLE THEMATIC_SURFACE DROP CONSTRAINT THEMATIC_SURFACE_FK1;
 ALTER TABLE TIN_RELIEF DROP CONSTRAINT TIN_RELIEF_SURFACE_GEOMETRY_FK;
 ALTER TABLE TIN_RELIEF DROP CONSTRAINT TIN_RELIEF_RELIEF_COMPONENT_FK;
 
+ALTER TABLE TIN_RELIEF_LOD DROP CONSTRAINT TIN_RELIEF_LOD_TIN_RELIEF_FK;
+ALTER TABLE TIN_RELIEF_LOD DROP CONSTRAINT TIN_RELIEF_LOD_SURF_GEOM_FK;
+
 ALTER TABLE TRAFFIC_AREA DROP CONSTRAINT TRAFFIC_AREA_CITYOBJECT_FK;
 ALTER TABLE TRAFFIC_AREA DROP CONSTRAINT TRAFFIC_AREA_FK;
 ALTER TABLE TRAFFIC_AREA DROP CONSTRAINT TRAFFIC_AREA_FK1;
@@ -242,6 +245,7 @@ DROP TABLE SURFACE_GEOMETRY CASCADE;
 DROP TABLE TEXTUREPARAM CASCADE;
 DROP TABLE THEMATIC_SURFACE CASCADE;
 DROP TABLE TIN_RELIEF CASCADE;
+DROP TABLE TIN_RELIEF_LOD CASCADE;
 DROP TABLE TRAFFIC_AREA CASCADE;
 DROP TABLE TRANSPORTATION_COMPLEX CASCADE;
 DROP TABLE WATERBODY CASCADE;
@@ -1493,6 +1493,7 @@ DECLARE
 BEGIN
   EXECUTE 'SELECT * FROM tin_relief WHERE id=$1' INTO tin_relief_rec USING tin_relief_id;
 
+  PERFORM geodb_pkg.del_pre_delete_tin_relief(tin_relief_id);
   EXECUTE 'DELETE FROM tin_relief WHERE id=$1' USING tin_relief_id;
   PERFORM geodb_pkg.del_post_delete_tin_relief(tin_relief_id, tin_relief_rec.surface_geometry_id);
 
@@ -1506,6 +1507,24 @@ $$
 LANGUAGE plpgsql;
 
 
+CREATE OR REPLACE FUNCTION geodb_pkg.del_pre_delete_tin_relief(tin_relief_id INTEGER) RETURNS SETOF void AS
+$$
+DECLARE
+  tin_relief_lod_rec RECORD;
+BEGIN
+  -- delete decimated levels of detail
+  FOR tin_relief_lod_rec IN EXECUTE 'DELETE FROM tin_relief_lod WHERE tin_relief_id=$1 RETURNING surface_geometry_id' USING tin_relief_id LOOP
+    PERFORM geodb_pkg.del_delete_surface_geometry(tin_relief_lod_rec.surface_geometry_id);
+  END LOOP;
+
+  EXCEPTION
+    WHEN OTHERS THEN
+      RAISE NOTICE 'pre_delete_tin_relief (id: %): %', tin_relief_id, SQLERRM;
+END; 
+$$ 
+LANGUAGE plpgsql;
+
+
 CREATE OR REPLACE FUNCTION geodb_pkg.del_post_delete_tin_relief(
   tin_relief_id INTEGER,
   tin_surface_geometry_id INTEGER
@@ -106,6 +106,14 @@ CREATE TABLE geodb_pkg.match_collect_geom(
   geometry GEOMETRY
 );
 
+DROP TABLE IF EXISTS geodb_pkg.match_tile;
+CREATE TABLE geodb_pkg.match_tile(
+  id INTEGER,
+  parent_id INTEGER,
+  root_id INTEGER,
+  tile INTEGER
+);
+
 
 /*****************************************************************
 * FUNCTIONs for Matching
@@ -274,6 +282,22 @@ LANGUAGE plpgsql;
 CREATE OR REPLACE FUNCTION geodb_pkg.match_aggregate_geometry(tab_name VARCHAR, aggregate_building INTEGER DEFAULT 1)
 RETURNS SETOF void AS
 $$
+BEGIN
+  PERFORM geodb_pkg.match_prepare_aggregation(tab_name, 1, aggregate_building);
+  PERFORM geodb_pkg.match_aggregate_geometry_tile(tab_name, 1, aggregate_building);
+  PERFORM geodb_pkg.match_finish_aggregation(tab_name);
+END;
+$$ 
+LANGUAGE plpgsql;
+
+
+/*
+* assigns the buildings of match_collect_geom to spatial tiles of equal size
+* so that the tiles can be aggregated concurrently by separate sessions
+*/
+CREATE OR REPLACE FUNCTION geodb_pkg.match_prepare_aggregation(tab_name VARCHAR, tiles INTEGER DEFAULT 1, aggregate_building INTEGER DEFAULT 1)
+RETURNS SETOF void AS
+$$
 DECLARE
   log VARCHAR(4000);
   match_cand_projected_spx geodb_pkg.index_obj;
@@ -286,8 +310,9 @@ BEGIN
   match_collect_id_idx := geodb_pkg.idx_construct_normal('match_collect_id_idx', 'geodb_pkg.match_collect_geom', 'id');
   match_collect_root_id_idx := geodb_pkg.idx_construct_normal('match_collect_root_id_idx', 'geodb_pkg.match_collect_geom', 'root_id');
   
-  -- TRUNCATE TABLE
+  -- TRUNCATE TABLEs
   EXECUTE 'TRUNCATE TABLE '||tab_name;
+  EXECUTE 'TRUNCATE TABLE geodb_pkg.match_tile';
 
   -- drop spatial indexes   
   IF (match_cand_projected_spx).table_name = tab_name THEN
@@ -297,36 +322,57 @@ BEGIN
   END IF;
 
   IF aggregate_building > 0 then    
-    DECLARE
-      root_id_cur CURSOR FOR
-        SELECT DISTINCT root_id FROM match_tmp_building;
-
-    BEGIN
-      log := geodb_pkg.idx_create_index(match_collect_root_id_idx);
-
-      FOR root_id_rec IN root_id_cur LOOP
-        EXECUTE 'INSERT INTO '||tab_name||' (id, parent_id, root_id, geometry)
-          VALUES ($1, null, $2, $3)' 
-          USING root_id_rec.root_id, root_id_rec.root_id, 
-            (geodb_pkg.match_aggregate_geometry_by_id(root_id_rec.root_id, 1));          
-      END LOOP;
-    END;
+    log := geodb_pkg.idx_create_index(match_collect_root_id_idx);
+
+    EXECUTE 'INSERT INTO geodb_pkg.match_tile (id, parent_id, root_id, tile)
+      SELECT g.root_id, null, g.root_id, 
+             ntile($1) OVER (ORDER BY ST_XMin(c.envelope) + ST_XMax(c.envelope), ST_YMin(c.envelope) + ST_YMax(c.envelope))
+        FROM (SELECT DISTINCT root_id FROM geodb_pkg.match_collect_geom) g, cityobject c
+        WHERE c.id = g.root_id'
+      USING tiles;
   ELSE
-    DECLARE
-      id_cur CURSOR FOR
-        SELECT DISTINCT id, parent_id, root_id FROM match_tmp_building;
-
-    BEGIN
-      log := geodb_pkg.idx_create_index(match_collect_id_idx);
-
-      FOR id_rec IN id_cur LOOP
-        EXECUTE 'INSERT INTO '||tab_name||' (id, parent_id, root_id, geometry)
-          VALUES ($1, $2, $3, $4)' 
-          USING id_rec.id, id_rec.parent_id, id_rec.root_id, 
-              (geodb_pkg.match_aggregate_geometry_by_id(id_rec.id, 0));          
-      END LOOP;
-    END;
+    log := geodb_pkg.idx_create_index(match_collect_id_idx);
+
+    EXECUTE 'INSERT INTO geodb_pkg.match_tile (id, parent_id, root_id, tile)
+      SELECT g.id, g.parent_id, g.root_id, 
+             ntile($1) OVER (ORDER BY ST_XMin(c.envelope) + ST_XMax(c.envelope), ST_YMin(c.envelope) + ST_YMax(c.envelope))
+        FROM (SELECT DISTINCT id, parent_id, root_id FROM geodb_pkg.match_collect_geom) g, cityobject c
+        WHERE c.id = g.id'
+      USING tiles;
   END IF;
+END;
+$$ 
+LANGUAGE plpgsql;
+
+
+CREATE OR REPLACE FUNCTION geodb_pkg.match_aggregate_geometry_tile(tab_name VARCHAR, tile_no INTEGER, aggregate_building INTEGER DEFAULT 1)
+RETURNS SETOF void AS
+$$
+DECLARE
+  tile_cur CURSOR FOR
+    SELECT id, parent_id, root_id FROM geodb_pkg.match_tile WHERE tile = tile_no;
+BEGIN
+  FOR tile_rec IN tile_cur LOOP
+    EXECUTE 'INSERT INTO '||tab_name||' (id, parent_id, root_id, geometry)
+      VALUES ($1, $2, $3, $4)' 
+      USING tile_rec.id, tile_rec.parent_id, tile_rec.root_id, 
+        (geodb_pkg.match_aggregate_geometry_by_id(tile_rec.id, aggregate_building));          
+  END LOOP;
+END;
+$$ 
+LANGUAGE plpgsql;
+
+
+CREATE OR REPLACE FUNCTION geodb_pkg.match_finish_aggregation(tab_name VARCHAR)
+RETURNS SETOF void AS
+$$
+DECLARE
+  log VARCHAR(4000);
+  match_cand_projected_spx geodb_pkg.index_obj;
+  match_master_projected_spx geodb_pkg.index_obj;
+BEGIN
+  match_cand_projected_spx := geodb_pkg.idx_construct_spatial_2d('match_cand_projected_spx', 'geodb_pkg.MATCH_CAND_PROJECTED', 'geometry');
+  match_master_projected_spx := geodb_pkg.idx_construct_spatial_2d('match_master_projected_spx', 'geodb_pkg.MATCH_MASTER_PROJECTED', 'geometry');
 
   -- clean up aggregate table
   EXECUTE 'DELETE FROM '||tab_name||' WHERE geometry IS NULL';
@@ -442,6 +488,7 @@ BEGIN
   EXECUTE 'TRUNCATE TABLE geodb_pkg.match_cand_projected';
   EXECUTE 'TRUNCATE TABLE geodb_pkg.match_collect_geom';
   EXECUTE 'TRUNCATE TABLE match_tmp_building';
+  EXECUTE 'TRUNCATE TABLE geodb_pkg.match_tile';
   EXECUTE 'TRUNCATE TABLE geodb_pkg.merge_collect_geom';
   EXECUTE 'TRUNCATE TABLE geodb_pkg.merge_container_ids';
 
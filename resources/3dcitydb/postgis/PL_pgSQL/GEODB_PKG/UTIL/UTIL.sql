@@ -437,6 +437,8 @@ BEGIN
   PERFORM geodb_pkg.util_on_delete_action('THEMATIC_SURFACE','THEMATIC_SURFACE_FK2','LOD4_MULTI_SURFACE_ID','SURFACE_GEOMETRY','ID',on_delete_param);
   PERFORM geodb_pkg.util_on_delete_action('TIN_RELIEF','TIN_RELIEF_SURFACE_GEOMETRY_FK','SURFACE_GEOMETRY_ID','SURFACE_GEOMETRY','ID',on_delete_param);
   PERFORM geodb_pkg.util_on_delete_action('TIN_RELIEF','TIN_RELIEF_RELIEF_COMPONENT_FK','ID','RELIEF_COMPONENT','ID',on_delete_param);
+  PERFORM geodb_pkg.util_on_delete_action('TIN_RELIEF_LOD','TIN_RELIEF_LOD_TIN_RELIEF_FK','TIN_RELIEF_ID','TIN_RELIEF','ID',on_delete_param);
+  PERFORM geodb_pkg.util_on_delete_action('TIN_RELIEF_LOD','TIN_RELIEF_LOD_SURF_GEOM_FK','SURFACE_GEOMETRY_ID','SURFACE_GEOMETRY','ID',on_delete_param);
   PERFORM geodb_pkg.util_on_delete_action('TRAFFIC_AREA','TRAFFIC_AREA_CITYOBJECT_FK','ID','CITYOBJECT','ID',on_delete_param);
   PERFORM geodb_pkg.util_on_delete_action('TRAFFIC_AREA','TRAFFIC_AREA_FK','LOD2_MULTI_SURFACE_ID','SURFACE_GEOMETRY','ID',on_delete_param);
   PERFORM geodb_pkg.util_on_delete_action('TRAFFIC_AREA','TRAFFIC_AREA_FK1','LOD3_MULTI_SURFACE_ID','SURFACE_GEOMETRY','ID',on_delete_param);
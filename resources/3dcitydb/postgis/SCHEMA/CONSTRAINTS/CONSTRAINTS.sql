@@ -661,6 +661,19 @@ REFERENCES RELIEF_COMPONENT (ID)
 ON UPDATE CASCADE ON DELETE RESTRICT;
 
 
+--//TIN_RELIEF_LOD CONSTRAINT
+
+ALTER TABLE TIN_RELIEF_LOD
+ADD CONSTRAINT TIN_RELIEF_LOD_TIN_RELIEF_FK FOREIGN KEY (TIN_RELIEF_ID)
+REFERENCES TIN_RELIEF (ID)
+ON UPDATE CASCADE ON DELETE RESTRICT;
+
+ALTER TABLE TIN_RELIEF_LOD
+ADD CONSTRAINT TIN_RELIEF_LOD_SURF_GEOM_FK FOREIGN KEY (SURFACE_GEOMETRY_ID)
+REFERENCES SURFACE_GEOMETRY (ID)
+ON UPDATE CASCADE ON DELETE RESTRICT;
+
+
 --//TRAFFIC_AREA CONSTRAINT
 
 ALTER TABLE TRAFFIC_AREA
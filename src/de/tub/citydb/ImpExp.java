@@ -60,6 +60,8 @@ import de.tub.citydb.api.plugin.extension.config.ConfigExtension;
 import de.tub.citydb.api.plugin.extension.config.PluginConfig;
 import de.tub.citydb.api.registry.ObjectRegistry;
 import de.tub.citydb.cmd.ImpExpCmd;
+import de.tub.citydb.cmd.ImpExpDaemon;
+import de.tub.citydb.cmd.JAXBContextProvider;
 import de.tub.citydb.config.Config;
 import de.tub.citydb.config.ConfigUtil;
 import de.tub.citydb.config.controller.PluginConfigControllerImpl;
@@ -111,10 +113,20 @@ public class ImpExp {
 	@Option(name="-kmlExport", usage="export KML/COLLADA data to this file\n(shell version only)", metaVar="fileName")
 	private String kmlExportFile;
 
+	@Option(name="-delete", usage="delete all buildings with this lineage\n(shell version only)", metaVar="lineage")
+	private String deleteLineage;
+
+	@Option(name="-daemon", usage="to keep running in a shell environment and execute\njobs received on a local port. a job consists of\nthe token stored in the file \"daemon.token\" of\nthe user folder and the command line arguments of\na shell command, one per line, followed by an\nempty line")
+	private boolean daemon;
+
+	@Option(name="-port", usage="local port to receive jobs on (default: " + ImpExpDaemon.DEFAULT_PORT + ")\n(daemon version only)", metaVar="port")
+	private int port = ImpExpDaemon.DEFAULT_PORT;
+
 	@Option(name="-noSplash")
 	private boolean noSplash;
 
 	private final Logger LOG = Logger.getInstance();
+	private JAXBContextProvider contextProvider;
 	private JAXBBuilder jaxbBuilder;
 	private JAXBContext kmlContext, colladaContext, projectContext, guiContext;
 	private PluginService pluginService;
@@ -165,6 +177,9 @@ public class ImpExp {
 			System.exit(0);			
 		}
 
+		if (daemon)
+			shell = true;
+
 		if (shell) {
 			byte commands = 0;
 
@@ -176,15 +191,23 @@ public class ImpExp {
 				++commands;
 			if (kmlExportFile != null)
 				++commands;
+			if (deleteLineage != null)
+				++commands;
+
+			if (daemon && commands > 0) {
+				System.out.println("Commands \"-import\", \"-export\", \"-kmlExport\", \"-delete\" and \"-validate\" may not be mixed with \"-daemon\"");
+				printUsage(parser, System.out);
+				System.exit(1);
+			}
 
-			if (commands == 0) {
-				System.out.println("Choose either command \"-import\", \"-export\", \"-kmlExport\" or \"-validate\" for shell version");
+			if (commands == 0 && !daemon) {
+				System.out.println("Choose either command \"-import\", \"-export\", \"-kmlExport\", \"-delete\" or \"-validate\" for shell version");
 				printUsage(parser, System.out);
 				System.exit(1);
 			}
 
 			if (commands > 1) {
-				System.out.println("Commands \"-import\", \"-export\", \"-kmlExport\" and \"-validate\" may not be mixed");
+				System.out.println("Commands \"-import\", \"-export\", \"-kmlExport\", \"-delete\" and \"-validate\" may not be mixed");
 				printUsage(parser, System.out);
 				System.exit(1);
 			}
@@ -292,16 +315,20 @@ public class ImpExp {
 		// set internal proxy selector as default
 		ProxySelector.setDefault(InternalProxySelector.getInstance(config));
 
-		// create JAXB contexts
-		try {
-			// create citygml4j builder and register in object registry
-			jaxbBuilder = new JAXBBuilder();
-			registry.setCityGMLBuilder(jaxbBuilder);
+		// create JAXB contexts. shell commands only create 
+		// the contexts they need when they are executed
+		contextProvider = new JAXBContextProvider();
 
-			kmlContext = JAXBContext.newInstance("net.opengis.kml._2", Thread.currentThread().getContextClassLoader());
-			colladaContext = JAXBContext.newInstance("org.collada._2005._11.colladaschema", Thread.currentThread().getContextClassLoader());
+		try {
 			projectContext = JAXBContext.newInstance(projectConfigClasses.toArray(new Class<?>[]{}));
-			guiContext = JAXBContext.newInstance(Gui.class);
+
+			if (!shell) {
+				// the citygml4j builder is registered in the object registry
+				jaxbBuilder = contextProvider.getCityGMLBuilder();
+				kmlContext = contextProvider.getKmlContext();
+				colladaContext = contextProvider.getColladaContext();
+				guiContext = JAXBContext.newInstance(Gui.class);
+			}
 		} catch (JAXBException e) {
 			LOG.error("Application environment could not be initialized. Please check the following stack trace.");
 			LOG.error("Aborting...");
@@ -510,10 +537,22 @@ public class ImpExp {
 			return;
 		}	
 
+		if (daemon) {
+			// keep contexts and database connections warm between jobs
+			try {
+				new ImpExpDaemon(contextProvider, projectContext, config, projectFile, port).run();
+			} catch (IOException e) {
+				LOG.error("Failed to run daemon on port " + port + ": " + e.getMessage());
+				System.exit(1);
+			}
+
+			System.exit(0);
+		}
+
 		if (validateFile != null) {
 			new Thread() {
 				public void run() {
-					new ImpExpCmd(jaxbBuilder, config).doValidate(validateFile);
+					new ImpExpCmd(contextProvider, config).doValidate(validateFile);
 				}
 			}.start();
 
@@ -523,7 +562,7 @@ public class ImpExp {
 		if (importFile != null) {
 			new Thread() {
 				public void run() {
-					new ImpExpCmd(jaxbBuilder, config).doImport(importFile);
+					new ImpExpCmd(contextProvider, config).doImport(importFile);
 				}
 			}.start();
 
@@ -535,7 +574,7 @@ public class ImpExp {
 
 			new Thread() {
 				public void run() {
-					new ImpExpCmd(jaxbBuilder, config).doExport();
+					new ImpExpCmd(contextProvider, config).doExport();
 				}
 			}.start();
 
@@ -547,9 +586,17 @@ public class ImpExp {
 
 			new Thread() {
 				public void run() {
-					new ImpExpCmd(kmlContext,
-							colladaContext,
-							config).doKmlExport();
+					new ImpExpCmd(contextProvider, config).doKmlExport();
+				}
+			}.start();
+
+			return;
+		}
+
+		if (deleteLineage != null) {
+			new Thread() {
+				public void run() {
+					new ImpExpCmd(contextProvider, config).doDelete(deleteLineage);
 				}
 			}.start();
 
@@ -585,6 +632,8 @@ public class ImpExp {
 		out.println("            (default: to execute gui version)");
 		out.println("   or  java -jar 3dcitydb-impexp.jar -shell [-command] [-options]");
 		out.println("            (to execute shell version)");
+		out.println("   or  java -jar 3dcitydb-impexp.jar -daemon [-port port] [-options]");
+		out.println("            (to execute shell commands received on a local port)");
 		out.println();
 		out.println("where options include:");
 		parser.printUsage(System.out);
@@ -0,0 +1,163 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.api.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class MemoryBudget {
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final MemoryBudget parent;
+	private final long capacity;
+	private long used;
+
+	public MemoryBudget(long capacity) {
+		this(null, capacity);
+	}
+
+	// a share of a parent budget. bytes are accounted on both budgets, so 
+	// a single producer cannot take away the whole parent budget from the
+	// downstream stages that have to drain it
+	public MemoryBudget(MemoryBudget parent, long capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Memory budget must be greater than zero.");
+
+		this.parent = parent;
+		this.capacity = capacity;
+	}
+
+	public long getCapacity() {
+		return capacity;
+	}
+
+	public long getUsed() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			return used;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// an item larger than the whole budget is admitted as soon
+	// as the budget is completely free. otherwise it would block forever
+	public void acquire(long bytes) {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			while (used > 0 && used + bytes > capacity)
+				available.awaitUninterruptibly();
+
+			used += bytes;
+		} finally {
+			lock.unlock();
+		}
+
+		if (parent != null)
+			parent.acquire(bytes);
+	}
+
+	public boolean tryAcquire(long bytes) {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			if (used > 0 && used + bytes > capacity)
+				return false;
+
+			used += bytes;
+		} finally {
+			lock.unlock();
+		}
+
+		if (parent != null && !parent.tryAcquire(bytes)) {
+			releaseLocal(bytes);
+			return false;
+		}
+
+		return true;
+	}
+
+	public boolean tryAcquire(long bytes, long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		long deadline = System.nanoTime() + nanos;
+		final ReentrantLock lock = this.lock;
+		lock.lockInterruptibly();
+		try {
+			while (used > 0 && used + bytes > capacity) {
+				if (nanos <= 0)
+					return false;
+
+				nanos = available.awaitNanos(nanos);
+			}
+
+			used += bytes;
+		} finally {
+			lock.unlock();
+		}
+
+		if (parent != null) {
+			boolean success = false;
+			try {
+				success = parent.tryAcquire(bytes, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			} finally {
+				if (!success)
+					releaseLocal(bytes);
+			}
+
+			return success;
+		}
+
+		return true;
+	}
+
+	public void release(long bytes) {
+		if (bytes <= 0)
+			return;
+
+		releaseLocal(bytes);
+		if (parent != null)
+			parent.release(bytes);
+	}
+
+	private void releaseLocal(long bytes) {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			used = Math.max(0, used - bytes);
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -43,6 +44,9 @@ import de.tub.citydb.api.controller.LogController;
 import de.tub.citydb.api.registry.ObjectRegistry;
 
 public class WorkerPool<T> {
+	// the pool of the current worker thread. used to detect workers that are
+	// blocked because the queue of a subsequent pipeline stage is full
+	private static final ThreadLocal<WorkerPool<?>> currentPool = new ThreadLocal<WorkerPool<?>>();
 	private final ReentrantLock mainLock = new ReentrantLock();
 
 	private final LogController log;
@@ -67,6 +71,8 @@ public class WorkerPool<T> {
 	private final int queueSize;
 	private final boolean daemon;
 	private int poolSize;
+	private List<Worker<T>> retiredWorkers = new ArrayList<Worker<T>>();
+	private final AtomicInteger blockedWorkers = new AtomicInteger();
 	private byte poolSizeAdaptationFailure;
 	private byte threadNo;
 
@@ -79,17 +85,25 @@ public class WorkerPool<T> {
 		private final Condition flushed;
 
 		private final E[] workItems;
+		private final WorkWeigher<? super E> weigher;
+		private final MemoryBudget memoryBudget;
+		private final long[] weights;
 		private int putIndex;
 		private int takeIndex;
 		private int count;
+		private int idle;
 		private volatile boolean blockAndFlush;
 
 		public WorkQueue(int capacity) {
 			this(capacity, false);
 		}
 
-		@SuppressWarnings("unchecked")
 		public WorkQueue(int capacity, boolean fair) {
+			this(capacity, fair, null, null);
+		}
+
+		@SuppressWarnings("unchecked")
+		public WorkQueue(int capacity, boolean fair, WorkWeigher<? super E> weigher, MemoryBudget memoryBudget) {
 			lock = new ReentrantLock(fair);
 			notEmpty = lock.newCondition();
 			notFull = lock.newCondition();
@@ -100,14 +114,44 @@ public class WorkerPool<T> {
 				throw new IllegalArgumentException();
 
 			workItems = (E[]) new Object[capacity];
+
+			// items are weighed only if they are accounted against a memory budget
+			if (weigher != null && memoryBudget != null) {
+				this.weigher = weigher;
+				this.memoryBudget = memoryBudget;
+				weights = new long[capacity];
+			} else {
+				this.weigher = null;
+				this.memoryBudget = null;
+				weights = null;
+			}
 		}
 
 		final int inc(int i) {
 			return (++i == workItems.length) ? 0 : i;
 		}
 
-		private void insert(E work) {
+		private long weigh(E work) {
+			return weigher != null ? Math.max(0, weigher.weigh(work)) : 0;
+		}
+
+		private boolean acquire(long weight) {
+			if (memoryBudget != null)
+				return memoryBudget.tryAcquire(weight);
+
+			return true;
+		}
+
+		private void release(long weight) {
+			if (memoryBudget != null)
+				memoryBudget.release(weight);
+		}
+
+		private void insert(E work, long weight) {
 			workItems[putIndex] = work;
+			if (weights != null)
+				weights[putIndex] = weight;
+
 			putIndex = inc(putIndex);
 			++count;
 			notEmpty.signal();
@@ -117,6 +161,9 @@ public class WorkerPool<T> {
 			final E[] workItems = this.workItems;
 			E work = workItems[takeIndex];
 			workItems[takeIndex] = null;
+			if (weights != null)
+				release(weights[takeIndex]);
+
 			takeIndex = inc(takeIndex);
 			--count;
 			notFull.signal();
@@ -127,6 +174,9 @@ public class WorkerPool<T> {
 
 		private void removeAt(int i) {
 			final E[] workItems = this.workItems;
+			if (weights != null)
+				release(weights[i]);
+
 			if (i == takeIndex) {
 				workItems[i] = null;
 				takeIndex = inc(takeIndex);
@@ -135,6 +185,9 @@ public class WorkerPool<T> {
 					int nexti = inc(i);
 					if (nexti != putIndex) {
 						workItems[i] = workItems[nexti];
+						if (weights != null)
+							weights[i] = weights[nexti];
+
 						i = nexti;
 					} else {
 						workItems[i] = null;
@@ -154,16 +207,24 @@ public class WorkerPool<T> {
 			if (work == null)
 				throw new NullPointerException();
 
+			return offer(work, weigh(work));
+		}
+
+		private boolean offer(E work, long weight) {
+			if (!acquire(weight))
+				return false;
+
 			final ReentrantLock lock = this.lock;
 			lock.lock();
 			try {
 				if (blockAndFlush)
 					flushed.awaitUninterruptibly();
 
-				if (count == workItems.length)
+				if (count == workItems.length) {
+					release(weight);
 					return false;
-				else {
-					insert(work);
+				} else {
+					insert(work, weight);
 					return true;
 				}
 			} finally {
@@ -176,7 +237,17 @@ public class WorkerPool<T> {
 				throw new NullPointerException();
 
 			long nanos = unit.toNanos(timeout);
+			long weight = weigh(work);
+			if (memoryBudget != null) {
+				long start = System.nanoTime();
+				if (!memoryBudget.tryAcquire(weight, nanos, TimeUnit.NANOSECONDS))
+					return false;
+
+				nanos -= System.nanoTime() - start;
+			}
+
 			final ReentrantLock lock = this.lock;
+			boolean inserted = false;
 			lock.lockInterruptibly();
 			try {
 				if (blockAndFlush)
@@ -184,7 +255,8 @@ public class WorkerPool<T> {
 
 				for (;;) {
 					if (count != workItems.length) {
-						insert(work);
+						insert(work, weight);
+						inserted = true;
 						return true;
 					}
 
@@ -199,6 +271,9 @@ public class WorkerPool<T> {
 					}
 				}
 			} finally {
+				if (!inserted)
+					release(weight);
+
 				lock.unlock();
 			}
 		}
@@ -207,6 +282,15 @@ public class WorkerPool<T> {
 			if (work == null)
 				throw new NullPointerException();
 
+			put(work, weigh(work));
+		}
+
+		private void put(E work, long weight) {
+			// block on the memory budget before locking the queue 
+			// so that consumers can still take work from it
+			if (memoryBudget != null)
+				memoryBudget.acquire(weight);
+
 			final E[] workItems = this.workItems;
 			final ReentrantLock lock = this.lock;
 			lock.lock();
@@ -217,7 +301,7 @@ public class WorkerPool<T> {
 				while (count == workItems.length)
 					notFull.awaitUninterruptibly();
 
-				insert(work);
+				insert(work, weight);
 			} finally {
 				lock.unlock();
 			}
@@ -252,10 +336,13 @@ public class WorkerPool<T> {
 						return null;
 
 					try {
+						++idle;
 						nanos = notEmpty.awaitNanos(nanos);
 					} catch (InterruptedException ie) {
 						notEmpty.signal();
 						throw ie;
+					} finally {
+						--idle;
 					}
 				}
 			} finally {
@@ -268,11 +355,14 @@ public class WorkerPool<T> {
 			lock.lockInterruptibly();
 			try {
 				try {
+					++idle;
 					while (count == 0)
 						notEmpty.await();
 				} catch (InterruptedException ie) {
 					notEmpty.signal();
 					throw ie;
+				} finally {
+					--idle;
 				}
 
 				E work = extract();
@@ -326,6 +416,32 @@ public class WorkerPool<T> {
 			}
 		}
 
+		// fill level of the queue with respect to both its capacity and its memory budget
+		public double occupancy() {
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				double occupancy = (double)count / workItems.length;
+				if (memoryBudget != null)
+					occupancy = Math.max(occupancy, (double)memoryBudget.getUsed() / memoryBudget.getCapacity());
+
+				return Math.min(1, occupancy);
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		// number of consumers waiting for work
+		public int idleCount() {
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				return idle;
+			} finally {
+				lock.unlock();
+			}
+		}
+
 		public int remainingCapacity() {
 			final ReentrantLock lock = this.lock;
 			lock.lock();
@@ -355,6 +471,9 @@ public class WorkerPool<T> {
 				int k = count;
 				while (k-- > 0) {
 					workItems[i] = null;
+					if (weights != null)
+						release(weights[i]);
+
 					i = inc(i);
 				}
 
@@ -382,6 +501,9 @@ public class WorkerPool<T> {
 				while (n < max) {
 					collection.add(workItems[i]);
 					workItems[i] = null;
+					if (weights != null)
+						release(weights[i]);
+
 					i = inc(i);
 					++n;
 				}
@@ -409,7 +531,9 @@ public class WorkerPool<T> {
 			WorkerFactory<T> workerFactory,
 			int queueSize,
 			boolean fair,
-			boolean daemon) {
+			boolean daemon,
+			WorkWeigher<? super T> weigher,
+			MemoryBudget memoryBudget) {
 		if (corePoolSize <= 0)
 			throw new IllegalArgumentException("Core pool size must be greater than zero.");
 		
@@ -429,12 +553,23 @@ public class WorkerPool<T> {
 
 		// setting up work queue and workers map
 		this.queueSize = queueSize;
-		workQueue = new WorkQueue<T>(queueSize, fair);
+		workQueue = new WorkQueue<T>(queueSize, fair, weigher, memoryBudget);
 		workers = new ConcurrentHashMap<Worker<T>, Object>(maximumPoolSize);
 
 		log = ObjectRegistry.getInstance().getLogController();
 	}
 
+	public WorkerPool(String poolName,
+			int corePoolSize,
+			int maximumPoolSize,
+			PoolSizeAdaptationStrategy adaptationStrategy,
+			WorkerFactory<T> workerFactory,
+			int queueSize,
+			boolean fair,
+			boolean daemon) {
+		this(poolName, corePoolSize, maximumPoolSize, adaptationStrategy, workerFactory, queueSize, fair, daemon, null, null);
+	}
+
 	public WorkerPool(String poolName,
 			int corePoolSize,
 			int maximumPoolSize,
@@ -468,10 +603,15 @@ public class WorkerPool<T> {
 
 		try {
 			if (poolSize < maximumPoolSize && runState == RUNNING) {
-				Worker<T> worker = workerFactory.createWorker();
+				final Worker<T> worker = workerFactory.createWorker();
 
 				if (worker != null) {
-					Thread workerThread = new Thread(worker);
+					Thread workerThread = new Thread(new Runnable() {
+						public void run() {
+							currentPool.set(WorkerPool.this);
+							worker.run();
+						}
+					});
 					workerThread.setName(poolName + " " + threadNo++);
 					workerThread.setDaemon(daemon);
 					if (contextClassLoader != null)
@@ -567,11 +707,24 @@ public class WorkerPool<T> {
 		if (work == null)
 			throw new NullPointerException();
 
+		// weigh the work item only once
+		long weight = workQueue.weigh(work);
+
 		if (poolSize >= corePoolSize || !addIfUnderCorePoolSize(work)) {
-			if (runState == RUNNING && !workQueue.offer(work)) {
+			if (runState == RUNNING && !workQueue.offer(work, weight)) {
 				if (!addIfUnderMaximumPoolSize(work)) {
-					if (runState == RUNNING)
-						workQueue.put(work);
+					if (runState == RUNNING) {
+						WorkerPool<?> producer = currentPool.get();
+						if (producer != null)
+							producer.blockedWorkers.incrementAndGet();
+
+						try {
+							workQueue.put(work, weight);
+						} finally {
+							if (producer != null)
+								producer.blockedWorkers.decrementAndGet();
+						}
+					}
 				}
 			}
 		}
@@ -793,6 +946,11 @@ public class WorkerPool<T> {
 		try {
 			for (Worker<T> worker : workers.keySet())
 				worker.getThread().join();
+
+			for (Worker<T> worker : retiredWorkers)
+				worker.getThread().join();
+
+			retiredWorkers.clear();
 		} finally {
 			mainLock.unlock();
 		}
@@ -852,9 +1010,13 @@ public class WorkerPool<T> {
 			if (extra > 0 && poolSize > maximumPoolSize) {
 				Iterator<Entry<Worker<T>, Object>> it = workers.entrySet().iterator();
 				while (it.hasNext() && extra-- > 0 && poolSize > maximumPoolSize) {
-					it.next().getKey().interruptIfIdle();
+					Worker<T> worker = it.next().getKey();
+					worker.interruptIfIdle();
 					it.remove();
 					--poolSize;
+
+					// busy workers finish their current work first
+					retiredWorkers.add(worker);
 				}
 			}
 		} finally {
@@ -899,6 +1061,14 @@ public class WorkerPool<T> {
 		return state == SHUTDOWN || state == STOP;
 	}
 
+	public int getIdleWorkerCount() {
+		return workQueue.idleCount();
+	}
+
+	public int getBlockedWorkerCount() {
+		return blockedWorkers.get();
+	}
+
 	public int getPoolSize() {
 		return poolSize;
 	}
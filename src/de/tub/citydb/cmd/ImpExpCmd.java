@@ -36,9 +36,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import javax.xml.bind.JAXBContext;
-
-import org.citygml4j.builder.jaxb.JAXBBuilder;
+import javax.xml.bind.JAXBException;
 
 import de.tub.citydb.api.database.DatabaseConfigurationException;
 import de.tub.citydb.api.database.DatabaseSrs;
@@ -46,63 +44,67 @@ import de.tub.citydb.api.event.EventDispatcher;
 import de.tub.citydb.api.registry.ObjectRegistry;
 import de.tub.citydb.config.Config;
 import de.tub.citydb.config.project.database.DBConnection;
+import de.tub.citydb.config.project.database.DBReplica;
 import de.tub.citydb.config.project.exporter.ExportFilterConfig;
 import de.tub.citydb.database.DatabaseConnectionPool;
 import de.tub.citydb.log.Logger;
 import de.tub.citydb.modules.citygml.exporter.controller.Exporter;
 import de.tub.citydb.modules.citygml.importer.controller.Importer;
 import de.tub.citydb.modules.citygml.importer.controller.XMLValidator;
+import de.tub.citydb.modules.database.controller.BulkDeleter;
 import de.tub.citydb.modules.kml.controller.KmlExporter;
 
 public class ImpExpCmd {
 	private final Logger LOG = Logger.getInstance();
 	private final DatabaseConnectionPool dbPool;
-	private JAXBBuilder cityGMLBuilder;
-	private JAXBContext jaxbKmlContext;
-	private JAXBContext jaxbColladaContext;
+	private final JAXBContextProvider contextProvider;
 	private Config config;
 
-	public ImpExpCmd(JAXBBuilder cityGMLBuilder, Config config) {
-		this.cityGMLBuilder = cityGMLBuilder;
-		this.config = config;
-		dbPool = DatabaseConnectionPool.getInstance();
-	}
-
-	public ImpExpCmd(JAXBContext jaxbKmlContext,
-			JAXBContext jaxbColladaContext,
-			Config config) {
-		this.jaxbKmlContext = jaxbKmlContext;
-		this.jaxbColladaContext = jaxbColladaContext;
+	public ImpExpCmd(JAXBContextProvider contextProvider, Config config) {
+		this.contextProvider = contextProvider;
 		this.config = config;
 		dbPool = DatabaseConnectionPool.getInstance();
 	}
 
-	public void doImport(String importFiles) {
+	public boolean doImport(String importFiles) {
 		// prepare list of files to be validated
 		List<File> files = getFiles(importFiles, ";");
 		if (files.size() == 0) {
 			LOG.error("Invalid list of files to be imported");
 			LOG.error("Aborting...");
-			return;
+			return false;
 		}
 		
 		initDBPool();
 		if (!dbPool.isConnected()) {
 			LOG.error("Aborting...");
-			return;
+			return false;
 		}
 
 		LOG.info("Initializing database import...");
 
 		config.getInternal().setImportFiles(files.toArray(new File[0]));
 		EventDispatcher eventDispatcher = ObjectRegistry.getInstance().getEventDispatcher();
-		Importer importer = new Importer(cityGMLBuilder, dbPool, config, eventDispatcher);
-		boolean success = importer.doProcess();
+		Importer importer = null;
+		try {
+			importer = new Importer(contextProvider.getCityGMLBuilder(), dbPool, config, eventDispatcher);
+		} catch (JAXBException e) {
+			LOG.error("Failed to initialize CityGML context: " + e.getMessage());
+			LOG.error("Aborting...");
+			return false;
+		}
 
+		boolean success = false;
 		try {
-			eventDispatcher.flushEvents();
-		} catch (InterruptedException e) {
-			//
+			success = importer.doProcess();
+
+			try {
+				eventDispatcher.flushEvents();
+			} catch (InterruptedException e) {
+				//
+			}
+		} finally {
+			importer.cleanup();
 		}
 
 		if (success) {
@@ -110,15 +112,17 @@ public class ImpExpCmd {
 		} else {
 			LOG.warn("Database import aborted.");
 		}
+
+		return success;
 	}
 
-	public void doValidate(String validateFiles) {
+	public boolean doValidate(String validateFiles) {
 		// prepare list of files to be validated
 		List<File> files = getFiles(validateFiles, ";");
 		if (files.size() == 0) {
 			LOG.error("Invalid list of files to be validated");
 			LOG.error("Aborting...");
-			return;
+			return false;
 		}
 		
 		LOG.info("Initializing XML validation...");
@@ -139,25 +143,40 @@ public class ImpExpCmd {
 		} else {
 			LOG.warn("XML validation aborted.");
 		}
+
+		return success;
 	}
 
-	public void doExport() {
+	public boolean doExport() {
 		initDBPool();
 		if (!dbPool.isConnected()) {
 			LOG.error("Aborting...");
-			return;
+			return false;
 		}
 
 		LOG.info("Initializing database export...");
 
 		EventDispatcher eventDispatcher = ObjectRegistry.getInstance().getEventDispatcher();
-		Exporter exporter = new Exporter(cityGMLBuilder, dbPool, config, eventDispatcher);
-		boolean success = exporter.doProcess();
+		Exporter exporter = null;
+		try {
+			exporter = new Exporter(contextProvider.getCityGMLBuilder(), dbPool, config, eventDispatcher);
+		} catch (JAXBException e) {
+			LOG.error("Failed to initialize CityGML context: " + e.getMessage());
+			LOG.error("Aborting...");
+			return false;
+		}
 
+		boolean success = false;
 		try {
-			eventDispatcher.flushEvents();
-		} catch (InterruptedException e) {
-			//
+			success = exporter.doProcess();
+
+			try {
+				eventDispatcher.flushEvents();
+			} catch (InterruptedException e) {
+				//
+			}
+		} finally {
+			exporter.cleanup();
 		}
 		
 		if (success) {
@@ -165,40 +184,55 @@ public class ImpExpCmd {
 		} else {
 			LOG.warn("Database export aborted.");
 		}
+
+		return success;
 	}
 
-	public void doKmlExport() {
+	public boolean doKmlExport() {
 		initDBPool();
 		if (!dbPool.isConnected()) {
 			LOG.error("Aborting...");
-			return;
+			return false;
 		}
 
 		LOG.info("Initializing database export...");
 
 		EventDispatcher eventDispatcher = ObjectRegistry.getInstance().getEventDispatcher();
-		KmlExporter kmlExporter = new KmlExporter(jaxbKmlContext, jaxbColladaContext, dbPool, config, eventDispatcher);
-		ExportFilterConfig filter = config.getProject().getKmlExporter().getFilter();
-		if (filter.isSetComplexFilter()) {
-			try {
-				kmlExporter.calculateRowsColumnsAndDelta();
-			}
-			catch (SQLException sqle) {
-				String srsDescription = filter.getComplexFilter().getBoundingBox().getSrs() == null ?
-										"": filter.getComplexFilter().getBoundingBox().getSrs().getDescription() + ": ";
-				String message = sqle.getMessage().indexOf("\n") > -1? // cut ORA- stack traces
-								 sqle.getMessage().substring(0, sqle.getMessage().indexOf("\n")): sqle.getMessage();
-				LOG.error(srsDescription + message);
-				LOG.warn("Database export aborted.");
-				return;
-			}
+		KmlExporter kmlExporter = null;
+		try {
+			kmlExporter = new KmlExporter(contextProvider.getKmlContext(), contextProvider.getColladaContext(), dbPool, config, eventDispatcher);
+		} catch (JAXBException e) {
+			LOG.error("Failed to initialize KML/COLLADA context: " + e.getMessage());
+			LOG.error("Aborting...");
+			return false;
 		}
-		boolean success = kmlExporter.doProcess();
 
+		boolean success = false;
 		try {
-			eventDispatcher.flushEvents();
-		} catch (InterruptedException e) {
-			//
+			ExportFilterConfig filter = config.getProject().getKmlExporter().getFilter();
+			if (filter.isSetComplexFilter()) {
+				try {
+					kmlExporter.calculateRowsColumnsAndDelta();
+				}
+				catch (SQLException sqle) {
+					String srsDescription = filter.getComplexFilter().getBoundingBox().getSrs() == null ?
+											"": filter.getComplexFilter().getBoundingBox().getSrs().getDescription() + ": ";
+					String message = sqle.getMessage().indexOf("\n") > -1? // cut ORA- stack traces
+									 sqle.getMessage().substring(0, sqle.getMessage().indexOf("\n")): sqle.getMessage();
+					LOG.error(srsDescription + message);
+					LOG.warn("Database export aborted.");
+					return false;
+				}
+			}
+			success = kmlExporter.doProcess();
+
+			try {
+				eventDispatcher.flushEvents();
+			} catch (InterruptedException e) {
+				//
+			}
+		} finally {
+			kmlExporter.cleanup();
 		}
 		
 		if (success) {
@@ -206,6 +240,33 @@ public class ImpExpCmd {
 		} else {
 			LOG.warn("Database export aborted.");
 		}
+
+		return success;
+	}
+
+	public boolean doDelete(String lineage) {
+		initDBPool();
+		if (!dbPool.isConnected()) {
+			LOG.error("Aborting...");
+			return false;
+		}
+
+		LOG.info("Initializing deletion of buildings...");
+
+		try {
+			long buildings = new BulkDeleter(dbPool, config).deleteBuildingsByLineage(lineage.trim());
+			if (buildings < 0) {
+				LOG.warn("Deletion of buildings aborted.");
+				return false;
+			}
+		} catch (SQLException e) {
+			LOG.error("SQL error while deleting buildings: " + e.getMessage());
+			LOG.warn("Deletion of buildings aborted.");
+			return false;
+		}
+
+		LOG.info("Deletion of buildings successfully finished.");
+		return true;
 	}
 
 	private void initDBPool() {	
@@ -217,8 +278,26 @@ public class ImpExpCmd {
 			return;
 		}
 
-		LOG.info("Connecting to database profile '" + conn.getDescription() + "'.");
 		conn.setInternalPassword(conn.getPassword());
+		for (DBReplica replica : conn.getReplicas())
+			replica.setInternalPassword(replica.getPassword());
+
+		// keep using a warm connection pool to the same database
+		if (isConnectedTo(conn)) {
+			LOG.info("Reusing connection to database profile '" + conn.getDescription() + "'.");
+			dbPool.getActiveDatabaseAdapter().setConnectionDetails(conn);
+
+			try {
+				for (DatabaseSrs refSys : config.getProject().getDatabase().getReferenceSystems())
+					dbPool.getActiveDatabaseAdapter().getUtil().getSrsInfo(refSys);
+
+				return;
+			} catch (SQLException e) {
+				LOG.warn("Failed to reuse database connection: " + e.getMessage());
+			}
+		}
+
+		LOG.info("Connecting to database profile '" + conn.getDescription() + "'.");
 
 		try {
 			dbPool.connect(config);
@@ -240,6 +319,60 @@ public class ImpExpCmd {
 		} 
 	}
 	
+	private boolean isConnectedTo(DBConnection conn) {
+		if (!dbPool.isConnected())
+			return false;
+
+		DBConnection active = dbPool.getActiveDatabaseAdapter().getConnectionDetails();
+		return active != null && 
+				active.getDatabaseType() == conn.getDatabaseType() &&
+				equals(active.getServer(), conn.getServer()) &&
+				equals(active.getPort(), conn.getPort()) &&
+				equals(active.getSid(), conn.getSid()) &&
+				equals(active.getUser(), conn.getUser()) &&
+				equals(active.getInternalPassword(), conn.getInternalPassword()) &&
+				Arrays.equals(getPoolSettings(active), getPoolSettings(conn)) &&
+				hasSameReplicas(active, conn);
+	}
+
+	// a pool created with different settings is not reused
+	private Object[] getPoolSettings(DBConnection conn) {
+		return new Object[]{
+				conn.getInitialSize(), conn.getMaxActive(), conn.getMaxIdle(), conn.getMinIdle(), conn.getMaxWait(),
+				conn.getTestOnBorrow(), conn.getTestOnReturn(), conn.getTestWhileIdle(), conn.getValidationQuery(),
+				conn.getValidatorClassName(), conn.getTimeBetweenEvictionRunsMillis(), conn.getNumTestsPerEvictionRun(),
+				conn.getMinEvictableIdleTimeMillis(), conn.getRemoveAbandoned(), conn.getRemoveAbandonedTimeout(),
+				conn.getLogAbandoned(), conn.getConnectionProperties(), conn.getInitSQL(), conn.getValidationInterval(),
+				conn.getJmxEnabled(), conn.getFairQueue(), conn.getAbandonWhenPercentageFull(), conn.getMaxAge(),
+				conn.getUseEquals(), conn.getSuspectTimeout(), conn.getReplicaSelection()
+		};
+	}
+
+	private boolean hasSameReplicas(DBConnection active, DBConnection conn) {
+		List<DBReplica> activeReplicas = active.getReplicas();
+		List<DBReplica> replicas = conn.getReplicas();
+		if (activeReplicas.size() != replicas.size())
+			return false;
+
+		for (int i = 0; i < replicas.size(); i++) {
+			DBReplica a = activeReplicas.get(i);
+			DBReplica b = replicas.get(i);
+
+			if (!equals(a.getServer(), b.getServer()) ||
+					!equals(a.getPort(), b.getPort()) ||
+					!equals(a.getSid(), b.getSid()) ||
+					!equals(a.getUser(), b.getUser()) ||
+					!equals(a.getInternalPassword(), b.getInternalPassword()))
+				return false;
+		}
+
+		return true;
+	}
+
+	private boolean equals(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
 	private List<File> getFiles(String fileNames, String delim) {
 		List<File> files = new ArrayList<File>();
 		
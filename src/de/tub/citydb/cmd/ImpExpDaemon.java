@@ -0,0 +1,277 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.cmd;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import de.tub.citydb.config.Config;
+import de.tub.citydb.config.ConfigUtil;
+import de.tub.citydb.config.internal.Internal;
+import de.tub.citydb.config.project.Project;
+import de.tub.citydb.log.Logger;
+
+public class ImpExpDaemon {
+	public static final int DEFAULT_PORT = 9933;
+	public static final String SHUTDOWN = "-shutdown";
+	public static final String TOKEN_FILE = Internal.USER_PATH + File.separator + "daemon.token";
+	private static final int READ_TIMEOUT = 30000;
+
+	private final Logger LOG = Logger.getInstance();
+	private final JAXBContextProvider contextProvider;
+	private final JAXBContext projectContext;
+	private final Config config;
+	private final File defaultProjectFile;
+	private final int port;
+
+	private byte[] token;
+	private volatile boolean shouldRun = true;
+
+	public ImpExpDaemon(JAXBContextProvider contextProvider, JAXBContext projectContext, Config config, File defaultProjectFile, int port) {
+		this.contextProvider = contextProvider;
+		this.projectContext = projectContext;
+		this.config = config;
+		this.defaultProjectFile = defaultProjectFile;
+		this.port = port;
+	}
+
+	public void run() throws IOException {
+		token = createToken();
+
+		// only accept jobs from the local machine
+		ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getByName(null));
+		LOG.info("Waiting for jobs on local port " + port + ".");
+		LOG.info("Jobs have to start with the token stored in '" + TOKEN_FILE + "'.");
+
+		try {
+			while (shouldRun) {
+				Socket socket = serverSocket.accept();
+
+				try {
+					// a client which does not send its job must not block the daemon
+					socket.setSoTimeout(READ_TIMEOUT);
+					handleJob(socket);
+				} catch (IOException e) {
+					LOG.error("Failed to process job: " + e.getMessage());
+				} finally {
+					try {
+						socket.close();
+					} catch (IOException e) {
+						//
+					}
+				}
+			}
+		} finally {
+			serverSocket.close();
+		}
+
+		LOG.info("Daemon stopped.");
+	}
+
+	private void handleJob(Socket socket) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
+
+		// the first line holds the token, followed by one command 
+		// line argument per line, terminated by an empty line
+		String line = reader.readLine();
+		if (line == null || !MessageDigest.isEqual(token, line.getBytes("UTF-8"))) {
+			LOG.warn("Rejected job with invalid token.");
+			writer.println("FAILURE");
+			return;
+		}
+
+		List<String> args = new ArrayList<String>();
+		while ((line = reader.readLine()) != null && line.length() > 0)
+			args.add(line);
+
+		if (args.size() == 1 && args.get(0).equals(SHUTDOWN)) {
+			LOG.info("Received shutdown request.");
+			shouldRun = false;
+			writer.println("SUCCESS");
+			return;
+		}
+
+		StringBuilder msg = new StringBuilder("Received job: ");
+		for (String arg : args)
+			msg.append(arg).append(' ');
+
+		LOG.info(msg.toString());
+
+		boolean success = false;
+		try {
+			success = runJob(args.toArray(new String[args.size()]));
+		} catch (RuntimeException e) {
+			LOG.error("Job failed with unexpected error: " + e.getMessage());
+		}
+
+		LOG.flush();
+		writer.println(success ? "SUCCESS" : "FAILURE");
+	}
+
+	// a new token is created on every start. it can only be read by the owner of the daemon
+	private byte[] createToken() throws IOException {
+		byte[] random = new byte[32];
+		new SecureRandom().nextBytes(random);
+
+		StringBuilder hex = new StringBuilder();
+		for (byte b : random)
+			hex.append(String.format("%02x", b));
+
+		File tokenFile = new File(TOKEN_FILE);
+		if (!tokenFile.getParentFile().exists() && !tokenFile.getParentFile().mkdirs())
+			throw new IOException("Failed to create folder for token file '" + tokenFile + "'.");
+
+		tokenFile.delete();
+		if (!tokenFile.createNewFile())
+			throw new IOException("Failed to create token file '" + tokenFile + "'.");
+
+		// access rights are restricted before the token is written
+		if (!tokenFile.setReadable(false, false) || !tokenFile.setReadable(true, true) ||
+				!tokenFile.setWritable(false, false) || !tokenFile.setWritable(true, true))
+			LOG.warn("Failed to restrict access rights of token file '" + tokenFile + "' to its owner.");
+
+		OutputStream out = new FileOutputStream(tokenFile);
+		try {
+			out.write(hex.toString().getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+
+		return hex.toString().getBytes("UTF-8");
+	}
+
+	private boolean runJob(String[] args) {
+		Job job = new Job();
+		CmdLineParser parser = new CmdLineParser(job);
+
+		try {
+			parser.parseArgument(args);			
+		} catch (CmdLineException e) {
+			LOG.error("Invalid job arguments: " + e.getMessage());
+			return false;
+		}
+
+		byte commands = 0;
+		if (job.validateFile != null)
+			++commands;
+		if (job.importFile != null)
+			++commands;
+		if (job.exportFile != null)
+			++commands;
+		if (job.kmlExportFile != null)
+			++commands;
+		if (job.deleteLineage != null)
+			++commands;
+
+		if (commands != 1) {
+			LOG.error("A job must contain exactly one of the commands \"-import\", \"-export\", \"-kmlExport\", \"-delete\" or \"-validate\"");
+			return false;
+		}
+
+		// every job starts with freshly loaded project settings
+		File projectFile = job.configFile != null ? job.configFile : defaultProjectFile;
+		try {
+			Object object = ConfigUtil.unmarshal(projectFile, projectContext);
+			if (!(object instanceof Project)) {
+				LOG.error("Failed to read project settings file '" + projectFile + '\'');
+				return false;
+			}
+
+			config.setProject((Project)object);
+		} catch (IOException e) {
+			LOG.error("Failed to read project settings file '" + projectFile + '\'');
+			return false;
+		} catch (JAXBException e) {
+			LOG.error("Project settings '" + projectFile + "' could not be loaded: " + e.getMessage());
+			return false;
+		}
+
+		ImpExpCmd cmd = new ImpExpCmd(contextProvider, config);
+
+		if (job.validateFile != null)
+			return cmd.doValidate(job.validateFile);
+
+		if (job.importFile != null)
+			return cmd.doImport(job.importFile);
+
+		if (job.exportFile != null) {
+			config.getInternal().setExportFileName(job.exportFile);
+			return cmd.doExport();
+		}
+
+		if (job.deleteLineage != null)
+			return cmd.doDelete(job.deleteLineage);
+
+		config.getInternal().setExportFileName(job.kmlExportFile);
+		return cmd.doKmlExport();
+	}
+
+	private static final class Job {
+		@Option(name="-config")
+		private File configFile;
+
+		@Option(name="-import")
+		private String importFile;
+
+		@Option(name="-validate")
+		private String validateFile;
+
+		@Option(name="-export")
+		private String exportFile;
+
+		@Option(name="-kmlExport")
+		private String kmlExportFile;
+
+		@Option(name="-delete")
+		private String deleteLineage;
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.cmd;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.citygml4j.builder.jaxb.JAXBBuilder;
+
+import de.tub.citydb.api.registry.ObjectRegistry;
+
+public class JAXBContextProvider {
+	private JAXBBuilder cityGMLBuilder;
+	private JAXBContext kmlContext;
+	private JAXBContext colladaContext;
+
+	// contexts are expensive to build, so they are only created on first use
+	public synchronized JAXBBuilder getCityGMLBuilder() throws JAXBException {
+		if (cityGMLBuilder == null) {
+			cityGMLBuilder = new JAXBBuilder();
+			ObjectRegistry.getInstance().setCityGMLBuilder(cityGMLBuilder);
+		}
+
+		return cityGMLBuilder;
+	}
+
+	public synchronized JAXBContext getKmlContext() throws JAXBException {
+		if (kmlContext == null)
+			kmlContext = JAXBContext.newInstance("net.opengis.kml._2", Thread.currentThread().getContextClassLoader());
+
+		return kmlContext;
+	}
+
+	public synchronized JAXBContext getColladaContext() throws JAXBException {
+		if (colladaContext == null)
+			colladaContext = JAXBContext.newInstance("org.collada._2005._11.colladaschema", Thread.currentThread().getContextClassLoader());
+
+		return colladaContext;
+	}
+
+}
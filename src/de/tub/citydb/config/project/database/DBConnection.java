@@ -29,8 +29,12 @@
  */
 package de.tub.citydb.config.project.database;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlID;
 import javax.xml.bind.annotation.XmlSchemaType;
 import javax.xml.bind.annotation.XmlTransient;
@@ -49,7 +53,8 @@ import de.tub.citydb.api.database.DatabaseType;
 		"sid",
 		"user",
 		"password",
-		"savePassword"
+		"savePassword",
+		"replicas"
 		})
 public class DBConnection implements DatabaseConnectionDetails, Comparable<DBConnection> {
 	@XmlAttribute
@@ -72,6 +77,9 @@ public class DBConnection implements DatabaseConnectionDetails, Comparable<DBCon
 	@XmlElement(required=true)
 	private String password = "";
 	private Boolean savePassword = false;
+	@XmlElementWrapper(name="replicas")
+	@XmlElement(name="replica")
+	private List<DBReplica> replicas;
 	
 	@XmlAttribute
 	private Integer initialSize = 0;
@@ -123,6 +131,8 @@ public class DBConnection implements DatabaseConnectionDetails, Comparable<DBCon
 	private Boolean useEquals;
 	@XmlAttribute
 	private Integer suspectTimeout;
+	@XmlAttribute
+	private ReplicaSelectionMode replicaSelection;
 	
 	@XmlTransient
 	private String internalPassword;
@@ -432,6 +442,29 @@ public class DBConnection implements DatabaseConnectionDetails, Comparable<DBCon
 	public void setSuspectTimeout(Integer suspectTimeout) {
 		this.suspectTimeout = suspectTimeout;
 	}
+
+	public boolean isSetReplicas() {
+		return replicas != null && !replicas.isEmpty();
+	}
+
+	public List<DBReplica> getReplicas() {
+		if (replicas == null)
+			replicas = new ArrayList<DBReplica>();
+
+		return replicas;
+	}
+
+	public void setReplicas(List<DBReplica> replicas) {
+		this.replicas = replicas;
+	}
+
+	public ReplicaSelectionMode getReplicaSelection() {
+		return replicaSelection != null ? replicaSelection : ReplicaSelectionMode.ROUND_ROBIN;
+	}
+
+	public void setReplicaSelection(ReplicaSelectionMode replicaSelection) {
+		this.replicaSelection = replicaSelection;
+	}
 	
 	@Override
 	public String toString() {
@@ -40,7 +40,10 @@ import de.tub.citydb.config.project.general.FeatureClassMode;
 		"boundingBoxFeatureClass",
 		"boundingBoxSrs",
 		"spatialIndex",
-		"normalIndex"
+		"normalIndex",
+		"deleteLineage",
+		"deleteThreads",
+		"deleteDeactivateIndexes"
 })
 public class DBOperation {
 	private DBOperationType lastUsed = DBOperationType.REPORT;
@@ -49,6 +52,9 @@ public class DBOperation {
 	private DatabaseSrs boundingBoxSrs = DatabaseSrs.createDefaultSrs();
 	private boolean spatialIndex;
 	private boolean normalIndex;
+	private String deleteLineage = "";
+	private Integer deleteThreads;
+	private boolean deleteDeactivateIndexes;
 	
 	public DBOperation() {
 	}
@@ -92,5 +98,33 @@ public class DBOperation {
 	public void setNormalIndex(boolean normalIndex) {
 		this.normalIndex = normalIndex;
 	}
+
+	public String getDeleteLineage() {
+		return deleteLineage;
+	}
+
+	public void setDeleteLineage(String deleteLineage) {
+		this.deleteLineage = deleteLineage;
+	}
+
+	public boolean isSetDeleteThreads() {
+		return deleteThreads != null && deleteThreads > 0;
+	}
+
+	public Integer getDeleteThreads() {
+		return deleteThreads;
+	}
+
+	public void setDeleteThreads(Integer deleteThreads) {
+		this.deleteThreads = deleteThreads;
+	}
+
+	public boolean isSetDeleteDeactivateIndexes() {
+		return deleteDeactivateIndexes;
+	}
+
+	public void setDeleteDeactivateIndexes(boolean deleteDeactivateIndexes) {
+		this.deleteDeactivateIndexes = deleteDeactivateIndexes;
+	}
 	
 }
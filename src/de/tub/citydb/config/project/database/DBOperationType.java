@@ -41,7 +41,9 @@ public enum DBOperationType {
     @XmlEnumValue("boundingBox")
     BOUNDING_BOX("boundingBox"),
     @XmlEnumValue("indexes")
-    INDEXES("indexes");
+    INDEXES("indexes"),
+    @XmlEnumValue("delete")
+    DELETE("delete");
 
     private final String value;
 
@@ -29,7 +29,11 @@
  */
 package de.tub.citydb.config.project.database;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlSchemaType;
 import javax.xml.bind.annotation.XmlType;
 
@@ -38,7 +42,9 @@ import de.tub.citydb.config.internal.Internal;
 @XmlType(name="UpdateBatchingType", propOrder={
 		"featureBatchValue",
 		"gmlIdLookupServerBatchValue",
-		"tempBatchValue"
+		"tempBatchValue",
+		"useAdaptiveBatchSize",
+		"writerBatchSizes"
 		})
 public class UpdateBatching {
 	@XmlElement(required=true, defaultValue="20")
@@ -50,6 +56,10 @@ public class UpdateBatching {
 	@XmlElement(required=true, defaultValue="1000")
 	@XmlSchemaType(name="positiveInteger")
 	private Integer tempBatchValue = 1000;
+	private Boolean useAdaptiveBatchSize = false;
+	@XmlElement(name="writer")
+	@XmlElementWrapper(name="writerBatchSizes")
+	private List<WriterBatchSize> writerBatchSizes;
 	
 	public UpdateBatching() {
 	}
@@ -83,5 +93,31 @@ public class UpdateBatching {
 				tempBatchValue <= Internal.DB_MAX_BATCH_SIZE)
 			this.tempBatchValue = tempBatchValue;
 	}
+
+	public boolean isSetUseAdaptiveBatchSize() {
+		if (useAdaptiveBatchSize != null)
+			return useAdaptiveBatchSize.booleanValue();
+
+		return false;
+	}
+
+	public Boolean getUseAdaptiveBatchSize() {
+		return useAdaptiveBatchSize;
+	}
+
+	public void setUseAdaptiveBatchSize(Boolean useAdaptiveBatchSize) {
+		this.useAdaptiveBatchSize = useAdaptiveBatchSize;
+	}
+
+	public List<WriterBatchSize> getWriterBatchSizes() {
+		if (writerBatchSizes == null)
+			writerBatchSizes = new ArrayList<WriterBatchSize>();
+
+		return writerBatchSizes;
+	}
+
+	public void setWriterBatchSizes(List<WriterBatchSize> writerBatchSizes) {
+		this.writerBatchSizes = writerBatchSizes;
+	}
 	
 }
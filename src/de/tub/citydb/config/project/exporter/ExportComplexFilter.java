@@ -32,17 +32,21 @@ package de.tub.citydb.config.project.exporter;
 import javax.xml.bind.annotation.XmlType;
 
 import de.tub.citydb.config.project.filter.AbstractComplexFilter;
+import de.tub.citydb.config.project.filter.DeltaExport;
 import de.tub.citydb.config.project.filter.FilterBoundingBox;
 import de.tub.citydb.config.project.filter.TiledBoundingBox;
 
 @XmlType(name="ExportComplexFilterType", propOrder={
-		"boundingBox"
+		"boundingBox",
+		"deltaExport"
 })
 public class ExportComplexFilter extends AbstractComplexFilter {
 	private TiledBoundingBox boundingBox;
+	private DeltaExport deltaExport;
 
 	public ExportComplexFilter() {
 		boundingBox = new TiledBoundingBox();
+		deltaExport = new DeltaExport();
 	}
 
 	@Override
@@ -72,4 +76,13 @@ public class ExportComplexFilter extends AbstractComplexFilter {
 			this.boundingBox = boundingBox;
 	}
 
+	public DeltaExport getDeltaExport() {
+		return deltaExport;
+	}
+
+	public void setDeltaExport(DeltaExport deltaExport) {
+		if (deltaExport != null)
+			this.deltaExport = deltaExport;
+	}
+
 }
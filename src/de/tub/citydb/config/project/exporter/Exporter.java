@@ -44,6 +44,7 @@ import de.tub.citydb.config.project.system.System;
 		"filter",
 		"cityGMLVersion",
 		"xlink",
+		"useDecimatedTinRelief",
 		"system"
 })
 public class Exporter {
@@ -55,6 +56,7 @@ public class Exporter {
 	private ExportFilterConfig filter;
 	private CityGMLVersionType cityGMLVersion = CityGMLVersionType.v1_0_0;
 	private XLink xlink;
+	private Boolean useDecimatedTinRelief = false;
 	private System system;
 
 	public Exporter() {
@@ -128,6 +130,21 @@ public class Exporter {
 			this.xlink = xlink;
 	}
 
+	public boolean isSetUseDecimatedTinRelief() {
+		if (useDecimatedTinRelief != null)
+			return useDecimatedTinRelief.booleanValue();
+
+		return false;
+	}
+
+	public Boolean getUseDecimatedTinRelief() {
+		return useDecimatedTinRelief;
+	}
+
+	public void setUseDecimatedTinRelief(Boolean useDecimatedTinRelief) {
+		this.useDecimatedTinRelief = useDecimatedTinRelief;
+	}
+
 	public System getSystem() {
 		return system;
 	}
@@ -43,6 +43,8 @@ import de.tub.citydb.config.project.system.System;
 		"appearances",
 		"filter",
 		"affineTransformation",
+		"tinDecimation",
+		"spatialSorting",
 		"indexes",
 		"xmlValidation",
 		"system"
@@ -55,6 +57,8 @@ public class Importer {
 	private ImportAppearance appearances;
 	private ImportFilterConfig filter;
 	private AffineTransformation affineTransformation;
+	private TinDecimation tinDecimation;
+	private SpatialSorting spatialSorting;
 	private Index indexes;
 	private XMLValidation xmlValidation;
 	private System system;
@@ -67,6 +71,8 @@ public class Importer {
 		appearances = new ImportAppearance();
 		filter = new ImportFilterConfig();
 		affineTransformation = new AffineTransformation();
+		tinDecimation = new TinDecimation();
+		spatialSorting = new SpatialSorting();
 		indexes = new Index();
 		xmlValidation = new XMLValidation();
 		system = new System();
@@ -156,6 +162,24 @@ public class Importer {
 		this.affineTransformation = affineTransformation;
 	}
 
+	public TinDecimation getTinDecimation() {
+		return tinDecimation;
+	}
+
+	public void setTinDecimation(TinDecimation tinDecimation) {
+		if (tinDecimation != null)
+			this.tinDecimation = tinDecimation;
+	}
+
+	public SpatialSorting getSpatialSorting() {
+		return spatialSorting;
+	}
+
+	public void setSpatialSorting(SpatialSorting spatialSorting) {
+		if (spatialSorting != null)
+			this.spatialSorting = spatialSorting;
+	}
+
 	public System getSystem() {
 		return system;
 	}
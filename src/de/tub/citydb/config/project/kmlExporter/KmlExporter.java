@@ -76,6 +76,9 @@ import de.tub.citydb.config.project.system.System;
 		"showBoundingBox",
 		"showTileBorders",
 		"autoTileSideLength",
+		"regionation",
+		"useDecimatedTinRelief",
+		"modelFormat",
 		"oneFilePerObject",
 		"singleObjectRegionSize",
 		"viewRefreshMode",
@@ -88,6 +91,8 @@ import de.tub.citydb.config.project.system.System;
 		"altitudeOffsetMode",
 		"altitudeOffsetValue",
 		"callGElevationService",
+		"useLocalDEM",
+		"localDEMPath",
 		"useOriginalZCoords",
 		"system"
 })
@@ -145,6 +150,9 @@ public class KmlExporter {
 	private boolean showBoundingBox;
 	private boolean showTileBorders;
 	private double autoTileSideLength;
+	private boolean regionation;
+	private boolean useDecimatedTinRelief;
+	private ModelFormat modelFormat;
 	private boolean oneFilePerObject;
 	private double singleObjectRegionSize;
 	private String viewRefreshMode;
@@ -157,6 +165,8 @@ public class KmlExporter {
 	private AltitudeOffsetMode altitudeOffsetMode;
 	private double altitudeOffsetValue;
 	private boolean callGElevationService;
+	private boolean useLocalDEM;
+	private String localDEMPath;
 	private boolean useOriginalZCoords;
 	private System system;
 
@@ -198,6 +208,9 @@ public class KmlExporter {
 		showBoundingBox = true;
 		showTileBorders = true;
 		autoTileSideLength = 125.0;
+		regionation = false;
+		useDecimatedTinRelief = false;
+		modelFormat = ModelFormat.COLLADA;
 		oneFilePerObject = false;
 		singleObjectRegionSize = 50.0;
 		viewRefreshMode = "onRegion";
@@ -210,6 +223,8 @@ public class KmlExporter {
 		setAltitudeOffsetMode(AltitudeOffsetMode.GENERIC_ATTRIBUTE);
 		altitudeOffsetValue = 0;
 		callGElevationService = true;
+		useLocalDEM = false;
+		localDEMPath = "";
 		setUseOriginalZCoords(false);
 		system = new System();
 	}
@@ -393,6 +408,23 @@ public class KmlExporter {
 		return callGElevationService;
 	}
 
+	public void setUseLocalDEM(boolean useLocalDEM) {
+		this.useLocalDEM = useLocalDEM;
+	}
+
+	public boolean isUseLocalDEM() {
+		return useLocalDEM;
+	}
+
+	public void setLocalDEMPath(String localDEMPath) {
+		if (localDEMPath != null)
+			this.localDEMPath = localDEMPath;
+	}
+
+	public String getLocalDEMPath() {
+		return localDEMPath;
+	}
+
 	public void setAutoTileSideLength(double autoTileSideLength) {
 		this.autoTileSideLength = autoTileSideLength;
 	}
@@ -401,6 +433,30 @@ public class KmlExporter {
 		return autoTileSideLength;
 	}
 
+	public void setUseDecimatedTinRelief(boolean useDecimatedTinRelief) {
+		this.useDecimatedTinRelief = useDecimatedTinRelief;
+	}
+
+	public boolean isUseDecimatedTinRelief() {
+		return useDecimatedTinRelief;
+	}
+
+	public void setModelFormat(ModelFormat modelFormat) {
+		this.modelFormat = modelFormat;
+	}
+
+	public ModelFormat getModelFormat() {
+		return modelFormat != null ? modelFormat : ModelFormat.COLLADA;
+	}
+
+	public void setRegionation(boolean regionation) {
+		this.regionation = regionation;
+	}
+
+	public boolean isRegionation() {
+		return regionation;
+	}
+
 	public void setWriteJSONFile(boolean writeJSONFile) {
 		this.writeJSONFile = writeJSONFile;
 	}
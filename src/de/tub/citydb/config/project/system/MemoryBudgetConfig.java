@@ -0,0 +1,80 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.config.project.system;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlSchemaType;
+import javax.xml.bind.annotation.XmlType;
+
+@XmlType(name="MemoryBudgetType", propOrder={
+		"size"
+		})
+public class MemoryBudgetConfig {
+	@XmlAttribute(required=false)
+	private Boolean active = false;
+	@XmlSchemaType(name="nonNegativeInteger")
+	private Integer size = 0;
+	
+	public MemoryBudgetConfig() {
+	}
+
+	public boolean isSet() {
+		if (active != null)
+			return active.booleanValue();
+		
+		return false;
+	}
+
+	public Boolean getActive() {
+		return active;
+	}
+
+	public void setActive(Boolean active) {
+		this.active = active;
+	}
+
+	// size in MB. 0 uses a quarter of the maximum heap size
+	public Integer getSize() {
+		return size;
+	}
+
+	public void setSize(Integer size) {
+		if (size != null && size >= 0)
+			this.size = size;
+	}
+
+	public long getSizeInBytes() {
+		if (size == null || size == 0)
+			return Runtime.getRuntime().maxMemory() / 4;
+
+		return size * 1024L * 1024L;
+	}
+
+}
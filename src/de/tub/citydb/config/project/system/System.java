@@ -34,17 +34,23 @@ import javax.xml.bind.annotation.XmlType;
 
 @XmlType(name="SystemType", propOrder={
 		"gmlIdLookupServer",
-		"threadPool"
+		"threadPool",
+		"splitter",
+		"memoryBudget"
 })
 public class System {
 	@XmlElement(required=true)
 	private GmlIdLookupServer gmlIdLookupServer;
 	@XmlElement(required=true)
 	private ThreadPool threadPool;
+	private Splitter splitter;
+	private MemoryBudgetConfig memoryBudget;
 
 	public System() {
 		gmlIdLookupServer = new GmlIdLookupServer();
 		threadPool = new ThreadPool();
+		splitter = new Splitter();
+		memoryBudget = new MemoryBudgetConfig();
 	}
 
 	public GmlIdLookupServer getGmlIdLookupServer() {
@@ -65,5 +71,23 @@ public class System {
 			this.threadPool = threadPool;
 	}
 
+	public Splitter getSplitter() {
+		return splitter;
+	}
+
+	public void setSplitter(Splitter splitter) {
+		if (splitter != null)
+			this.splitter = splitter;
+	}
+
+	public MemoryBudgetConfig getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	public void setMemoryBudget(MemoryBudgetConfig memoryBudget) {
+		if (memoryBudget != null)
+			this.memoryBudget = memoryBudget;
+	}
+
 
 }
@@ -33,11 +33,34 @@ import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlType;
 
 @XmlType(name="ThreadPoolType", propOrder={
-		"defaultPool"		
+		"defaultPool",
+		"parserPool",
+		"databasePool",
+		"xlinkPool",
+		"resolverPool",
+		"writerPool",
+		"prefetchPool",
+		"useAutoTuning"
 })
 public class ThreadPool {
 	@XmlElement(name="default", required=true)
 	private ThreadPoolConfig defaultPool;
+	// optional settings per pipeline stage. stages without 
+	// own settings are derived from the default pool
+	@XmlElement(name="parser")
+	private ThreadPoolConfig parserPool;
+	@XmlElement(name="database")
+	private ThreadPoolConfig databasePool;
+	@XmlElement(name="xlink")
+	private ThreadPoolConfig xlinkPool;
+	@XmlElement(name="resolver")
+	private ThreadPoolConfig resolverPool;
+	@XmlElement(name="writer")
+	private ThreadPoolConfig writerPool;
+	@XmlElement(name="prefetch")
+	private ThreadPoolConfig prefetchPool;
+	@XmlElement(defaultValue="false")
+	private Boolean useAutoTuning = false;
 
 	public ThreadPool() {
 		defaultPool = new ThreadPoolConfig();
@@ -51,6 +74,92 @@ public class ThreadPool {
 		if (defaultPool != null)
 			this.defaultPool = defaultPool;
 	}
-	
-	
+
+	public boolean isSetParserPool() {
+		return parserPool != null;
+	}
+
+	public ThreadPoolConfig getParserPool() {
+		return parserPool;
+	}
+
+	public void setParserPool(ThreadPoolConfig parserPool) {
+		this.parserPool = parserPool;
+	}
+
+	public boolean isSetDatabasePool() {
+		return databasePool != null;
+	}
+
+	public ThreadPoolConfig getDatabasePool() {
+		return databasePool;
+	}
+
+	public void setDatabasePool(ThreadPoolConfig databasePool) {
+		this.databasePool = databasePool;
+	}
+
+	public boolean isSetXlinkPool() {
+		return xlinkPool != null;
+	}
+
+	public ThreadPoolConfig getXlinkPool() {
+		return xlinkPool;
+	}
+
+	public void setXlinkPool(ThreadPoolConfig xlinkPool) {
+		this.xlinkPool = xlinkPool;
+	}
+
+	public boolean isSetResolverPool() {
+		return resolverPool != null;
+	}
+
+	public ThreadPoolConfig getResolverPool() {
+		return resolverPool;
+	}
+
+	public void setResolverPool(ThreadPoolConfig resolverPool) {
+		this.resolverPool = resolverPool;
+	}
+
+	public boolean isSetWriterPool() {
+		return writerPool != null;
+	}
+
+	public ThreadPoolConfig getWriterPool() {
+		return writerPool;
+	}
+
+	public void setWriterPool(ThreadPoolConfig writerPool) {
+		this.writerPool = writerPool;
+	}
+
+	public boolean isSetPrefetchPool() {
+		return prefetchPool != null;
+	}
+
+	public ThreadPoolConfig getPrefetchPool() {
+		return prefetchPool;
+	}
+
+	public void setPrefetchPool(ThreadPoolConfig prefetchPool) {
+		this.prefetchPool = prefetchPool;
+	}
+
+	public boolean isSetUseAutoTuning() {
+		if (useAutoTuning != null)
+			return useAutoTuning.booleanValue();
+
+		return false;
+	}
+
+	public Boolean getUseAutoTuning() {
+		return useAutoTuning;
+	}
+
+	public void setUseAutoTuning(Boolean useAutoTuning) {
+		this.useAutoTuning = useAutoTuning;
+	}
+
 }
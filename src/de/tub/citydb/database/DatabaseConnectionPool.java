@@ -31,6 +31,8 @@ package de.tub.citydb.database;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -38,6 +40,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.tomcat.jdbc.pool.DataSource;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
@@ -50,18 +53,25 @@ import de.tub.citydb.api.registry.ObjectRegistry;
 import de.tub.citydb.config.Config;
 import de.tub.citydb.config.internal.Internal;
 import de.tub.citydb.config.project.database.DBConnection;
+import de.tub.citydb.config.project.database.DBReplica;
+import de.tub.citydb.config.project.database.ReplicaSelectionMode;
 import de.tub.citydb.database.adapter.AbstractDatabaseAdapter;
 import de.tub.citydb.database.adapter.DatabaseAdapterFactory;
 import de.tub.citydb.event.DatabaseConnectionStateEventImpl;
+import de.tub.citydb.log.Logger;
 
 public class DatabaseConnectionPool {
 	private static DatabaseConnectionPool instance = new DatabaseConnectionPool();
 	private static final int LOGIN_TIMEOUT = 120;
 
+	private final Logger LOG = Logger.getInstance();
 	private final String poolName = DefaultGMLIdManager.getInstance().generateUUID();
 	private final EventDispatcher eventDispatcher;
+	private final AtomicInteger nextReplica = new AtomicInteger(0);
 	private AbstractDatabaseAdapter databaseAdapter;
 	private DataSource dataSource;
+	private DataSource[] replicas = new DataSource[0];
+	private ReplicaSelectionMode replicaSelection = ReplicaSelectionMode.ROUND_ROBIN;
 
 	private DatabaseConnectionPool() {
 		// just to thwart instantiation
@@ -102,12 +112,83 @@ public class DatabaseConnectionPool {
 		databaseAdapter = DatabaseAdapterFactory.getInstance().createDatabaseAdapter(conn.getDatabaseType());
 
 		// general pool properties
+		PoolProperties properties = createPoolProperties(conn, 
+				databaseAdapter.getJDBCUrl(conn.getServer(), conn.getPort(), conn.getSid()), 
+				conn.getUser(), 
+				conn.getInternalPassword(), 
+				poolName);
+
+		// create new data source
+		dataSource = new DataSource(properties);
+
+		try {
+			// create connection pool
+			dataSource.createPool();
+			databaseAdapter.setConnectionDetails(conn);
+
+			// retrieve connection metadata
+			databaseAdapter.setConnectionMetaData(databaseAdapter.getUtil().getDatabaseInfo());
+
+			// check whether user-defined reference systems are supported
+			for (DatabaseSrs refSys : config.getProject().getDatabase().getReferenceSystems())
+				databaseAdapter.getUtil().getSrsInfo(refSys);
+
+		} catch (SQLException e) {
+			disconnect();
+			throw e;
+		}
+
+		// read-only replicas of the database are optional. a replica that 
+		// cannot be reached is skipped and reads fall back to the primary
+		if (conn.isSetReplicas())
+			connectReplicas(conn);
+
+		// fire property change events
+		eventDispatcher.triggerSyncEvent(new DatabaseConnectionStateEventImpl(false, true, this));
+	}
+
+	private void connectReplicas(DBConnection conn) {
+		List<DataSource> replicaList = new ArrayList<DataSource>();
+		replicaSelection = conn.getReplicaSelection();
+
+		for (DBReplica replica : conn.getReplicas()) {
+			if (replica.getServer() == null || replica.getServer().trim().length() == 0)
+				continue;
+
+			String url = databaseAdapter.getJDBCUrl(replica.getServer(), 
+					replica.isSetPort() ? replica.getPort() : conn.getPort(), 
+					replica.isSetSid() ? replica.getSid() : conn.getSid());
+
+			PoolProperties properties = createPoolProperties(conn, url, 
+					replica.isSetUser() ? replica.getUser() : conn.getUser(), 
+					replica.isSetInternalPassword() ? replica.getInternalPassword() : conn.getInternalPassword(), 
+					poolName + "_replica" + replicaList.size());
+
+			// workspaces cannot be entered within read-only transactions
+			if (!databaseAdapter.hasVersioningSupport())
+				properties.setDefaultReadOnly(true);
+
+			DataSource replicaSource = new DataSource(properties);
+			try {
+				replicaSource.createPool();
+				replicaList.add(replicaSource);
+				LOG.info("Connected to read-only replica '" + replica.getServer() + "'.");
+			} catch (SQLException e) {
+				replicaSource.close(true);
+				LOG.warn("Failed to connect to replica '" + replica.getServer() + "': " + e.getMessage());
+			}
+		}
+
+		replicas = replicaList.toArray(new DataSource[replicaList.size()]);
+	}
+
+	private PoolProperties createPoolProperties(DBConnection conn, String url, String user, String password, String name) {
 		PoolProperties properties = new PoolProperties();
-		properties.setUrl(databaseAdapter.getJDBCUrl(conn.getServer(), conn.getPort(), conn.getSid()));
+		properties.setUrl(url);
 		properties.setDriverClassName(databaseAdapter.getConnectionFactoryClassName());
-		properties.setUsername(conn.getUser());
-		properties.setPassword(conn.getInternalPassword());
-		properties.setName(poolName);
+		properties.setUsername(user);
+		properties.setPassword(password);
+		properties.setName(name);
 		properties.setDefaultAutoCommit(true);
 
 		// set user-definable pool properties	
@@ -140,28 +221,7 @@ public class DatabaseConnectionPool {
 		// pool maintenance
 		properties.setJdbcInterceptors("StatementFinalizer");
 
-		// create new data source
-		dataSource = new DataSource(properties);
-
-		try {
-			// create connection pool
-			dataSource.createPool();
-			databaseAdapter.setConnectionDetails(conn);
-
-			// retrieve connection metadata
-			databaseAdapter.setConnectionMetaData(databaseAdapter.getUtil().getDatabaseInfo());
-
-			// check whether user-defined reference systems are supported
-			for (DatabaseSrs refSys : config.getProject().getDatabase().getReferenceSystems())
-				databaseAdapter.getUtil().getSrsInfo(refSys);
-
-		} catch (SQLException e) {
-			disconnect();
-			throw e;
-		}
-
-		// fire property change events
-		eventDispatcher.triggerSyncEvent(new DatabaseConnectionStateEventImpl(false, true, this));
+		return properties;
 	}
 
 	public AbstractDatabaseAdapter getActiveDatabaseAdapter() {
@@ -211,13 +271,45 @@ public class DatabaseConnectionPool {
 		return dataSource.getConnection();
 	}
 
+	public Connection getReadOnlyConnection() throws SQLException {
+		if (!isConnected())
+			throw new SQLException("Database is not connected.");
+
+		DataSource[] replicas = this.replicas;
+		if (replicas.length == 0)
+			return dataSource.getConnection();
+
+		DataSource replica = null;
+		if (replicaSelection == ReplicaSelectionMode.LEAST_CONNECTIONS) {
+			for (DataSource candidate : replicas) {
+				if (replica == null || candidate.getActive() < replica.getActive())
+					replica = candidate;
+			}
+		} else
+			replica = replicas[(nextReplica.getAndIncrement() & Integer.MAX_VALUE) % replicas.length];
+
+		try {
+			return replica.getConnection();
+		} catch (SQLException e) {
+			LOG.warn("Failed to get connection from replica, using primary database: " + e.getMessage());
+			return dataSource.getConnection();
+		}
+	}
+
+	public int getNumberOfReplicas() {
+		return replicas.length;
+	}
+
 	public boolean isConnected() {
 		return dataSource != null && dataSource.getPool() != null && !dataSource.getPool().isClosed();
 	}
 
 	public synchronized void purge() {
-		if (isConnected())
+		if (isConnected()) {
 			dataSource.purge();
+			for (DataSource replica : replicas)
+				replica.purge();
+		}
 	}
 
 	public synchronized void disconnect() {
@@ -226,6 +318,11 @@ public class DatabaseConnectionPool {
 		dataSource.close(true);
 		dataSource = null;
 
+		for (DataSource replica : replicas)
+			replica.close(true);
+
+		replicas = new DataSource[0];
+
 		if (databaseAdapter != null)
 			databaseAdapter = null;
 
@@ -30,6 +30,7 @@ public abstract class AbstractSQLAdapter {
 	
 	public abstract boolean requiresPseudoTableInSelect();
 	public abstract String getPseudoTableName();
+	public abstract String getLimitedQuery(String query, int limit);
 	public abstract String getBoundingBoxPredicate(String attributeName, BoundingBox bbox, boolean overlap);
 	public abstract boolean spatialPredicateRequiresNoIndexHint();
 	public abstract String getHierarchicalGeometryQuery();
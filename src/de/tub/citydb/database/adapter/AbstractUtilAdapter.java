@@ -3,11 +3,14 @@ package de.tub.citydb.database.adapter;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import org.citygml4j.model.citygml.CityGMLClass;
@@ -296,6 +299,10 @@ public abstract class AbstractUtilAdapter implements DatabaseUtil {
 			}
 		}
 	}
+
+	public BoundingBox transformBoundingBox(BoundingBox bbox, DatabaseSrs sourceSrs, DatabaseSrs targetSrs, Connection connection) throws SQLException {
+		return transformBBox(bbox, sourceSrs, targetSrs, connection);
+	}
 	
 	public int get2DSrid(DatabaseSrs srs) throws SQLException {
 		if (!srs.is3D())
@@ -431,6 +438,170 @@ public abstract class AbstractUtilAdapter implements DatabaseUtil {
 		}
 	}
 
+	public Date getCurrentDateAndTime() throws SQLException {
+		Connection conn = null;
+		Statement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			conn = databaseAdapter.connectionPool.getConnection();
+
+			AbstractSQLAdapter sqlAdapter = databaseAdapter.getSQLAdapter();
+			StringBuilder query = new StringBuilder("select ").append(sqlAdapter.resolveDatabaseOperationName("date.current_date_and_time"));
+			if (sqlAdapter.requiresPseudoTableInSelect())
+				query.append(" from ").append(sqlAdapter.getPseudoTableName());
+
+			stmt = conn.createStatement();
+			rs = stmt.executeQuery(query.toString());
+
+			if (rs.next()) 
+				return new Date(rs.getTimestamp(1).getTime());
+			else
+				throw new SQLException("Failed to query the current date and time of the database.");
+
+		} finally {
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+
+				rs = null;
+			}
+
+			if (stmt != null) {
+				try {
+					stmt.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+
+				stmt = null;
+			}
+
+			if (conn != null) {
+				try {
+					conn.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+
+				conn = null;
+			}
+		}
+	}
+
+	public boolean containsModifiedCityObjects(Date since, BoundingBox bbox, Workspace workspace) throws SQLException {
+		Connection conn = null;
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			conn = databaseAdapter.connectionPool.getConnection();
+			if (databaseAdapter.hasVersioningSupport())
+				databaseAdapter.getWorkspaceManager().gotoWorkspace(conn, workspace);
+
+			// both date columns are indexed, so we only have to look for a single row. parameters are cast 
+			// to the column type to keep the indexes usable. dates are compared inclusively since
+			// some databases store them without time
+			StringBuilder query = new StringBuilder("select co.ID from CITYOBJECT co where ")
+			.append("(co.LAST_MODIFICATION_DATE >= cast(? as date) or co.TERMINATION_DATE >= cast(? as date))");
+
+			if (bbox != null)
+				query.append(" and ").append(databaseAdapter.getSQLAdapter().getBoundingBoxPredicate("ENVELOPE", "co", bbox, true));
+
+			stmt = conn.prepareStatement(databaseAdapter.getSQLAdapter().getLimitedQuery(query.toString(), 1));
+			stmt.setTimestamp(1, new Timestamp(since.getTime()));
+			stmt.setTimestamp(2, new Timestamp(since.getTime()));
+			rs = stmt.executeQuery();
+
+			return rs.next();
+		} finally {
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+
+				rs = null;
+			}
+
+			if (stmt != null) {
+				try {
+					stmt.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+
+				stmt = null;
+			}
+
+			if (conn != null) {
+				try {
+					conn.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+
+				conn = null;
+			}
+		}
+	}
+
+	public long countCityObjects(BoundingBox bbox, Workspace workspace) throws SQLException {
+		Connection conn = null;
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			conn = databaseAdapter.connectionPool.getConnection();
+			if (databaseAdapter.hasVersioningSupport())
+				databaseAdapter.getWorkspaceManager().gotoWorkspace(conn, workspace);
+
+			// hard deletes leave no trace in the date columns, but change the number of rows
+			StringBuilder query = new StringBuilder("select count(*) from CITYOBJECT co");
+			if (bbox != null)
+				query.append(" where ").append(databaseAdapter.getSQLAdapter().getBoundingBoxPredicate("ENVELOPE", "co", bbox, true));
+
+			stmt = conn.prepareStatement(query.toString());
+			rs = stmt.executeQuery();
+
+			return rs.next() ? rs.getLong(1) : 0;
+		} finally {
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+
+				rs = null;
+			}
+
+			if (stmt != null) {
+				try {
+					stmt.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+
+				stmt = null;
+			}
+
+			if (conn != null) {
+				try {
+					conn.close();
+				} catch (SQLException e) {
+					throw e;
+				}
+
+				conn = null;
+			}
+		}
+	}
+
 	public void interruptDatabaseOperation() {
 		isInterrupted = true;
 
@@ -105,6 +105,11 @@ public class SQLAdapter extends AbstractSQLAdapter {
 		return "";
 	}
 
+	@Override
+	public String getLimitedQuery(String query, int limit) {
+		return query + " limit " + limit;
+	}
+
 	@Override
 	public String getBoundingBoxPredicate(String attributeName, BoundingBox bbox, boolean overlap) {
 		// not required for cache tables
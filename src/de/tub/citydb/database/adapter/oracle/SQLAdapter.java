@@ -138,6 +138,11 @@ public class SQLAdapter extends AbstractSQLAdapter {
 		return "dual";
 	}
 
+	@Override
+	public String getLimitedQuery(String query, int limit) {
+		return "select * from (" + query + ") where rownum <= " + limit;
+	}
+
 	@Override
 	public String getBoundingBoxPredicate(String attributeName, BoundingBox bbox, boolean overlap) {
 		StringBuilder geometry = new StringBuilder()
@@ -666,6 +666,10 @@ public final class ImpExpGui extends JFrame implements ViewController, EventHand
 		private final JTextArea ta;
 		private final Charset encoding;
 
+		// output is collected and appended to the console in chunks on the EDT
+		private final StringBuilder pending = new StringBuilder();
+		private boolean isScheduled;
+
 		public JTextAreaOutputStream (JTextArea ta, OutputStream stream, Charset encoding) {
 			super(stream);
 			this.ta = ta;
@@ -674,35 +678,48 @@ public final class ImpExpGui extends JFrame implements ViewController, EventHand
 
 		@Override
 		public void write(final byte[] b) {
-			try {
-				ta.append(new String(b, encoding));
-			} catch (Error e) {
-				//
-			}
-
-			flush();
+			write(b, 0, b.length);
 		}
 
 		@Override
 		public void write(final byte b[], final int off, final int len) {
-			try {
-				ta.append(new String(b, off, len, encoding));
-			} catch (Error e) {
-				//
-			} 
+			synchronized (pending) {
+				pending.append(new String(b, off, len, encoding));
+				if (isScheduled)
+					return;
 
-			flush();
-		}
+				isScheduled = true;
+			}
 
-		public void flush() {
 			SwingUtilities.invokeLater(new Runnable() {
 				public void run() {
-					ta.setCaretPosition(ta.getDocument().getLength());	
-					if (ta.getLineCount() > MAX_DOC_LENGTH)
-						ta.setText("...truncating console output after " + MAX_DOC_LENGTH + " log messages...");
+					appendPending();
 				}
 			});
 		}
+
+		public void flush() {
+			// output is flushed by the EDT
+		}
+
+		private void appendPending() {
+			String text = null;
+			synchronized (pending) {
+				text = pending.toString();
+				pending.setLength(0);
+				isScheduled = false;
+			}
+
+			try {
+				ta.append(text);
+			} catch (Error e) {
+				//
+			}
+
+			ta.setCaretPosition(ta.getDocument().getLength());	
+			if (ta.getLineCount() > MAX_DOC_LENGTH)
+				ta.setText("...truncating console output after " + MAX_DOC_LENGTH + " log messages...");
+		}
 	}
 
 	private final class ConsolePopupMenuWrapper {
@@ -0,0 +1,87 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+final class LogRingBuffer<T> {
+	private final AtomicReferenceArray<T> slots;
+	private final int capacity;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong(0);
+	private volatile long head = 0;
+
+	LogRingBuffer(int capacity) {
+		// round capacity up to a power of two
+		int size = 1;
+		while (size < capacity)
+			size <<= 1;
+
+		this.capacity = size;
+		mask = size - 1;
+		slots = new AtomicReferenceArray<T>(size);
+	}
+
+	// may be called by any number of producer threads
+	boolean offer(T element) {
+		long index;
+
+		do {
+			index = tail.get();
+			if (index - head >= capacity)
+				return false;
+		} while (!tail.compareAndSet(index, index + 1));
+
+		slots.lazySet((int)(index & mask), element);
+		return true;
+	}
+
+	// must only be called by a single consumer thread
+	T poll() {
+		int slot = (int)(head & mask);
+		T element = slots.get(slot);
+		if (element == null)
+			return null;
+
+		slots.lazySet(slot, null);
+		head = head + 1;
+		return element;
+	}
+
+	long getTail() {
+		return tail.get();
+	}
+
+	long getHead() {
+		return head;
+	}
+
+}
@@ -34,7 +34,14 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import de.tub.citydb.api.controller.LogController;
 import de.tub.citydb.api.log.LogLevel;
@@ -42,17 +49,46 @@ import de.tub.citydb.api.log.LogLevel;
 public class Logger implements LogController {
 	private static Logger INSTANCE = new Logger();
 
-	private LogLevel consoleLogLevel = LogLevel.INFO;
-	private LogLevel fileLogLevel = LogLevel.INFO;
-
-	private Calendar cal;
-	private DecimalFormat df = new DecimalFormat("00");
-
-	private boolean isLogToFile = false;
+	private static final int BUFFER_SIZE = 8192;
+	private static final int MAX_BATCH_SIZE = 512;
+	private static final long IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(50);
+	private static final long FLUSH_TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+	private static final int MAX_LOGGED_ERRORS = 10;
+	private static final int MAX_SUMMARY_IDS = 10;
+	private static final long SUMMARY_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	private volatile LogLevel consoleLogLevel = LogLevel.INFO;
+	private volatile LogLevel fileLogLevel = LogLevel.INFO;
+
+	private final LogRingBuffer<LogMessage> buffer = new LogRingBuffer<LogMessage>(BUFFER_SIZE);
+	private final Thread writerThread;
+	private volatile boolean isWriterIdle = false;
+	private volatile long processed = 0;
+
+	// only accessed by the writer thread
+	private final Calendar cal = Calendar.getInstance();
+	private final DecimalFormat df = new DecimalFormat("00");
+
+	private final Object fileLock = new Object();
+	private volatile boolean isLogToFile = false;
 	private BufferedWriter logFile;
 
+	private final ConcurrentHashMap<String, ErrorSummary> errorSummaries = new ConcurrentHashMap<String, ErrorSummary>();
+	private final AtomicLong lastSummary = new AtomicLong(System.currentTimeMillis());
+
 	private Logger() {
 		// just to thwart instantiation
+		writerThread = new Thread(new LogWriter(), "log_writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+
+		// make sure pending messages are written before the JVM terminates
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				flush();
+			}
+		});
 	}
 
 	public static Logger getInstance() {
@@ -77,44 +113,13 @@ public class Logger implements LogController {
 		return fileLogLevel;
 	}
 
-	private String getPrefix(LogLevel type) {
-		cal = Calendar.getInstance();
-
-		int h = cal.get(Calendar.HOUR_OF_DAY);
-		int m = cal.get(Calendar.MINUTE);
-		int s = cal.get(Calendar.SECOND);
-
-		StringBuffer prefix = new StringBuffer()
-		.append("[")
-		.append(df.format(h))
-		.append(":")
-		.append(df.format(m))
-		.append(":")
-		.append(df.format(s))
-		.append(" ")
-		.append(type.value())
-		.append("] ");
-
-		return prefix.toString();
-	}
-
 	@Override
 	public void log(LogLevel type, String msg) {
-		StringBuffer buffer = new StringBuffer(getPrefix(type));
-		buffer.append(msg);
-
-		if (consoleLogLevel.ordinal() >= type.ordinal())
-			System.out.println(buffer.toString());
-
-		if (isLogToFile && fileLogLevel.ordinal() >= type.ordinal()) {
-			try {
-				logFile.write(buffer.toString());
-				logFile.newLine();
-				logFile.flush();
-			} catch (IOException e) {
-				//
-			}
-		}
+		boolean toConsole = consoleLogLevel.ordinal() >= type.ordinal();
+		boolean toFile = isLogToFile && fileLogLevel.ordinal() >= type.ordinal();
+
+		if (toConsole || toFile)
+			enqueue(new LogMessage(type, msg, toConsole, toFile));
 	}
 
 	@Override
@@ -137,34 +142,67 @@ public class Logger implements LogController {
 		log(LogLevel.ERROR, msg);
 	}
 
+	// logs an error caused by a single feature. only the first occurrences of 
+	// an error message are logged completely, further ones are counted and
+	// reported as summary together with the first affected gml:ids 
+	public void featureError(String msg, String gmlId, String cause) {
+		String key = msg + ": " + cause;
+
+		ErrorSummary summary = errorSummaries.get(key);
+		if (summary == null) {
+			ErrorSummary tmp = new ErrorSummary(msg, cause);
+			summary = errorSummaries.putIfAbsent(key, tmp);
+			if (summary == null)
+				summary = tmp;
+		}
+
+		if (summary.count.incrementAndGet() <= MAX_LOGGED_ERRORS)
+			error(msg + " with gml:id '" + gmlId + "': " + cause);
+		else {
+			summary.addSuppressed(gmlId);
+
+			// report suppressed errors from time to time
+			long last = lastSummary.get();
+			long now = System.currentTimeMillis();
+			if (now - last > SUMMARY_INTERVAL && lastSummary.compareAndSet(last, now))
+				logErrorSummaries(false);
+		}
+	}
+
+	public void flushErrorSummaries() {
+		logErrorSummaries(true);
+	}
+
+	private void logErrorSummaries(boolean clear) {
+		Iterator<ErrorSummary> iter = errorSummaries.values().iterator();
+		while (iter.hasNext()) {
+			ErrorSummary summary = iter.next();
+			if (clear)
+				iter.remove();
+
+			String report = summary.report();
+			if (report != null)
+				error(report);
+		}
+	}
+
 	@Override
 	public void all(LogLevel type, String message) {
-		StringBuffer buffer = new StringBuffer(getPrefix(type));
-		buffer.append(message);
-
-		if (consoleLogLevel.ordinal() >= type.ordinal())
-			System.out.println(buffer.toString());
+		boolean toConsole = consoleLogLevel.ordinal() >= type.ordinal();
+		boolean toFile = fileLogLevel.ordinal() >= type.ordinal();
 
-		if (fileLogLevel.ordinal() >= type.ordinal())
-			writeToFile(buffer.toString());
+		if (toConsole || toFile)
+			enqueue(new LogMessage(type, message, toConsole, toFile));
 	}
 
 	@Override
 	public void print(String msg) {
-		System.out.println(msg);
-		writeToFile(msg);
+		enqueue(new LogMessage(null, msg, true, true));
 	}
 
 	public void writeToFile(String msg) {
-		if (isLogToFile) {
-			try {
-				logFile.write(msg);
-				logFile.newLine();
-				logFile.flush();
-			} catch (IOException e) {
-				//
-			}
-		}
+		if (isLogToFile)
+			enqueue(new LogMessage(null, msg, false, true));
 	}
 
 	public void logToFile(boolean isLogToFile) {		
@@ -184,10 +222,12 @@ public class Logger implements LogController {
 			info("Writing log messages to file: '" + file.getAbsolutePath() + "'");
 			detachLogFile();
 
-			logFile = new BufferedWriter(new FileWriter(file, file.exists()));
-			isLogToFile = true;
+			synchronized (fileLock) {
+				logFile = new BufferedWriter(new FileWriter(file, file.exists()));
+				isLogToFile = true;
+			}
 		} catch (IOException e) {
-			error("Failed to open log file '" + logFile + "': " + e.getMessage());
+			error("Failed to open log file '" + file + "': " + e.getMessage());
 			error("Not writing log messages to file");
 			return false;
 		}
@@ -197,34 +237,198 @@ public class Logger implements LogController {
 
 	public void detachLogFile() {
 		if (logFile != null) {
-			try {
-				warn("Stopped writing log messages to log file.");
-				logFile.close();
-			} catch (IOException e) {
-				//
-			} finally {
-				logFile = null;
-				isLogToFile = false;
+			warn("Stopped writing log messages to log file.");
+			flush();
+
+			synchronized (fileLock) {
+				try {
+					if (logFile != null)
+						logFile.close();
+				} catch (IOException e) {
+					//
+				} finally {
+					logFile = null;
+					isLogToFile = false;
+				}
 			}
 		}
 	}
 
+	// blocks until all messages logged so far have been written
+	public void flush() {
+		long target = buffer.getTail();
+		long deadline = System.nanoTime() + FLUSH_TIMEOUT;
+
+		while (processed < target && writerThread.isAlive() && System.nanoTime() < deadline) {
+			LockSupport.unpark(writerThread);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+	}
+
+	private void enqueue(LogMessage message) {
+		// the caller has to wait if the writer cannot keep up
+		while (!buffer.offer(message)) {
+			LockSupport.unpark(writerThread);
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+		}
+
+		if (isWriterIdle)
+			LockSupport.unpark(writerThread);
+	}
+
+	private String getPrefix(LogLevel type, long timestamp) {
+		cal.setTimeInMillis(timestamp);
+
+		int h = cal.get(Calendar.HOUR_OF_DAY);
+		int m = cal.get(Calendar.MINUTE);
+		int s = cal.get(Calendar.SECOND);
+
+		StringBuilder prefix = new StringBuilder()
+		.append("[")
+		.append(df.format(h))
+		.append(":")
+		.append(df.format(m))
+		.append(":")
+		.append(df.format(s))
+		.append(" ")
+		.append(type.value())
+		.append("] ");
+
+		return prefix.toString();
+	}
+
 	private String getDefaultLogFile() {
-		cal = Calendar.getInstance();
+		Calendar cal = Calendar.getInstance();
 
 		int m = cal.get(Calendar.MONTH) + 1;
 		int d = cal.get(Calendar.DATE);
 		int y = cal.get(Calendar.YEAR);
 
-		StringBuffer defaultLog = new StringBuffer("log_3dcitydb_impexp_");
+		StringBuilder defaultLog = new StringBuilder("log_3dcitydb_impexp_");
 		defaultLog.append(y);
 		defaultLog.append('-');
-		defaultLog.append(df.format(m));
+		defaultLog.append(new DecimalFormat("00").format(m));
 		defaultLog.append('-');
-		defaultLog.append(df.format(d));
+		defaultLog.append(new DecimalFormat("00").format(d));
 		defaultLog.append(".log");
 
 		return defaultLog.toString();
 	}
 
+	private final class LogWriter implements Runnable {
+		private final StringBuilder console = new StringBuilder();
+		private final StringBuilder file = new StringBuilder();
+
+		@Override
+		public void run() {
+			while (true) {
+				LogMessage message = buffer.poll();
+
+				if (message == null) {
+					isWriterIdle = true;
+					if (buffer.getHead() == buffer.getTail())
+						LockSupport.parkNanos(IDLE_WAIT);
+
+					isWriterIdle = false;
+					continue;
+				}
+
+				// write messages in batches
+				int count = 0;
+				do {
+					String line = message.type != null ? 
+							getPrefix(message.type, message.timestamp) + message.message : message.message;
+
+					if (message.toConsole)
+						console.append(line).append(LINE_SEPARATOR);
+
+					if (message.toFile)
+						file.append(line).append(LINE_SEPARATOR);
+				} while (++count < MAX_BATCH_SIZE && (message = buffer.poll()) != null);
+
+				write();
+				processed = buffer.getHead();
+			}
+		}
+
+		private void write() {
+			if (console.length() > 0) {
+				System.out.print(console);
+				console.setLength(0);
+			}
+
+			if (file.length() > 0) {
+				synchronized (fileLock) {
+					if (logFile != null) {
+						try {
+							logFile.append(file);
+							logFile.flush();
+						} catch (IOException e) {
+							//
+						}
+					}
+				}
+
+				file.setLength(0);
+			}
+		}
+	}
+
+	private static final class LogMessage {
+		private final LogLevel type;
+		private final String message;
+		private final long timestamp;
+		private final boolean toConsole;
+		private final boolean toFile;
+
+		private LogMessage(LogLevel type, String message, boolean toConsole, boolean toFile) {
+			this.type = type;
+			this.message = message;
+			this.toConsole = toConsole;
+			this.toFile = toFile;
+			timestamp = System.currentTimeMillis();
+		}
+	}
+
+	private static final class ErrorSummary {
+		private final String msg;
+		private final String cause;
+		private final AtomicLong count = new AtomicLong(0);
+		private final List<String> gmlIds = new ArrayList<String>(MAX_SUMMARY_IDS);
+		private long suppressed;
+
+		private ErrorSummary(String msg, String cause) {
+			this.msg = msg;
+			this.cause = cause;
+		}
+
+		private synchronized void addSuppressed(String gmlId) {
+			suppressed++;
+			if (gmlIds.size() < MAX_SUMMARY_IDS)
+				gmlIds.add(gmlId);
+		}
+
+		private synchronized String report() {
+			if (suppressed == 0)
+				return null;
+
+			StringBuilder report = new StringBuilder()
+			.append(msg).append(": ").append(cause)
+			.append(" (").append(suppressed).append(" further occurrences, e.g. for gml:id ");
+
+			for (int i = 0; i < gmlIds.size(); i++) {
+				if (i > 0)
+					report.append(", ");
+
+				report.append("'").append(gmlIds.get(i)).append("'");
+			}
+
+			report.append(")");
+
+			suppressed = 0;
+			gmlIds.clear();
+			return report.toString();
+		}
+	}
+
 }
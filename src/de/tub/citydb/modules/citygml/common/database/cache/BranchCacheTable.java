@@ -39,6 +39,7 @@ import de.tub.citydb.database.adapter.AbstractSQLAdapter;
 import de.tub.citydb.modules.citygml.common.database.cache.model.CacheTableModelEnum;
 
 public class BranchCacheTable extends AbstractCacheTable {
+	private final CacheManager cacheManager;
 	private final CacheTable main;
 	private final CacheTableModelEnum model;
 	private final ReentrantLock mainLock = new ReentrantLock();
@@ -46,9 +47,14 @@ public class BranchCacheTable extends AbstractCacheTable {
 	private volatile boolean isCreated = false;
 	private List<CacheTable> branches;
 
-	protected BranchCacheTable(CacheTableModelEnum model, Connection connection, AbstractSQLAdapter sqlAdapter) {
+	protected BranchCacheTable(CacheTableModelEnum model, CacheManager cacheManager, AbstractSQLAdapter sqlAdapter) {
+		this(model, cacheManager, cacheManager.nextConnection(), sqlAdapter);
+	}
+
+	private BranchCacheTable(CacheTableModelEnum model, CacheManager cacheManager, Connection connection, AbstractSQLAdapter sqlAdapter) {
 		super(connection, sqlAdapter);
 		this.model = model;
+		this.cacheManager = cacheManager;
 
 		main = new CacheTable(model, connection, sqlAdapter, false);
 		branches = new ArrayList<CacheTable>();
@@ -99,7 +105,8 @@ public class BranchCacheTable extends AbstractCacheTable {
 
 		try {
 			if (isCreated) {
-				CacheTable branch = new CacheTable(model, connection, sqlAdapter, false);	
+				// every branch works on its own connection
+				CacheTable branch = new CacheTable(model, cacheManager.nextConnection(), sqlAdapter, false);	
 				branch.create();
 				branches.add(branch);
 
@@ -120,7 +127,7 @@ public class BranchCacheTable extends AbstractCacheTable {
 
 		try {
 			if (isCreated) {
-				CacheTable branch = new CacheTable(model, connection, sqlAdapter, false);	
+				CacheTable branch = new CacheTable(model, cacheManager.nextConnection(), sqlAdapter, false);	
 				branch.createAndIndex();
 				branches.add(branch);
 
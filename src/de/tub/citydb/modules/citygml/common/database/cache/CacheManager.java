@@ -35,6 +35,7 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.citygml4j.util.gmlid.DefaultGMLIdManager;
 
@@ -48,7 +49,8 @@ import de.tub.citydb.modules.citygml.common.database.cache.model.CacheTableModel
 public class CacheManager {
 	private final Logger LOG = Logger.getInstance();
 	private final AbstractSQLAdapter sqlAdapter;	
-	private final Connection connection;	
+	private final Connection[] connections;
+	private final AtomicInteger nextConnection = new AtomicInteger(0);
 
 	private String cacheDir;
 
@@ -58,7 +60,10 @@ public class CacheManager {
 	public CacheManager(DatabaseConnectionPool dbPool, int concurrencyLevel, Config config) throws SQLException, IOException {
 		if (config.getProject().getGlobal().getCache().isUseDatabase()) {
 			sqlAdapter = dbPool.getActiveDatabaseAdapter().getSQLAdapter();
-			connection = dbPool.getConnection();
+
+			// pooled connections are needed by the import and export workers,
+			// so the database cache keeps working on a single connection
+			connections = new Connection[]{ dbPool.getConnection() };
 		}
 
 		else {
@@ -75,10 +80,28 @@ public class CacheManager {
 			}
 
 			cacheDir = tempDir.getAbsolutePath() + File.separator + DefaultGMLIdManager.getInstance().generateUUID("");		
-			connection = DriverManager.getConnection(h2Adapter.getJDBCUrl(cacheDir + File.separator + "tmp", -1, null), "sa", "");			
+			String url = h2Adapter.getJDBCUrl(cacheDir + File.separator + "tmp", -1, null) + ";MULTI_THREADED=1";
+
+			// cache tables are striped over several sessions of a multi-threaded H2 database.
+			// every table is only accessed through the session it has been created on, 
+			// so table locks never block between sessions
+			connections = new Connection[Math.max(1, concurrencyLevel)];
+			try {
+				for (int i = 0; i < connections.length; i++)
+					connections[i] = DriverManager.getConnection(url, "sa", "");
+			} catch (SQLException e) {
+				try {
+					closeConnections();
+				} catch (SQLException sqlEx) {
+					//
+				}
+
+				throw e;
+			}
 		}
 
-		connection.setAutoCommit(false);
+		for (Connection connection : connections)
+			connection.setAutoCommit(false);
 
 		cacheTables = new ConcurrentHashMap<CacheTableModelEnum, CacheTable>(CacheTableModelEnum.values().length, 0.75f, concurrencyLevel);
 		branchCacheTables = new ConcurrentHashMap<CacheTableModelEnum, BranchCacheTable>(CacheTableModelEnum.values().length, 0.75f, concurrencyLevel);
@@ -116,6 +139,14 @@ public class CacheManager {
 		return branchCacheTable;
 	}
 
+	public int getNumberOfConnections() {
+		return connections.length;
+	}
+
+	protected Connection nextConnection() {
+		return connections[(nextConnection.getAndIncrement() & Integer.MAX_VALUE) % connections.length];
+	}
+
 	public CacheTable getCacheTable(CacheTableModelEnum type) {		
 		return cacheTables.get(type);
 	}
@@ -147,7 +178,7 @@ public class CacheManager {
 			cacheTables.clear();
 			branchCacheTables.clear();
 
-			connection.close();
+			closeConnections();
 
 			if (cacheDir != null) {
 				try {
@@ -162,7 +193,7 @@ public class CacheManager {
 	private CacheTable getOrCreateCacheTable(CacheTableModelEnum model) {
 		CacheTable cacheTable = cacheTables.get(model);
 		if (cacheTable == null) {
-			CacheTable tmp = new CacheTable(model, connection, sqlAdapter);
+			CacheTable tmp = new CacheTable(model, nextConnection(), sqlAdapter);
 			cacheTable = cacheTables.putIfAbsent(model, tmp);
 			if (cacheTable == null)
 				cacheTable = tmp;
@@ -174,7 +205,7 @@ public class CacheManager {
 	private BranchCacheTable gerOrCreateBranchCacheTable(CacheTableModelEnum model) {
 		BranchCacheTable branchCacheTable = branchCacheTables.get(model);
 		if (branchCacheTable == null) {
-			BranchCacheTable tmp = new BranchCacheTable(model, connection, sqlAdapter);
+			BranchCacheTable tmp = new BranchCacheTable(model, this, sqlAdapter);
 			branchCacheTable = branchCacheTables.putIfAbsent(model, tmp);
 			if (branchCacheTable == null)
 				branchCacheTable = tmp;
@@ -183,6 +214,24 @@ public class CacheManager {
 		return branchCacheTable;
 	}
 
+	private void closeConnections() throws SQLException {
+		SQLException exception = null;
+
+		for (Connection connection : connections) {
+			if (connection == null)
+				continue;
+
+			try {
+				connection.close();
+			} catch (SQLException e) {
+				exception = e;
+			}
+		}
+
+		if (exception != null)
+			throw exception;
+	}
+
 	private File checkTempDir(String tempDir) throws IOException {
 		if (tempDir == null || tempDir.trim().length() == 0)
 			throw new IOException("No temp directory for local cache provided.");
@@ -32,6 +32,8 @@ package de.tub.citydb.modules.citygml.common.database.xlink;
 public class DBXlinkLibraryObject implements DBXlink {
 	long id;
 	String fileURI;
+	// file content read ahead of the database upload
+	byte[] content;
 
 	public DBXlinkLibraryObject(long id, String fileURI) {
 		this.id = id;
@@ -54,6 +56,18 @@ public class DBXlinkLibraryObject implements DBXlink {
 		this.fileURI = fileURI;
 	}
 
+	public boolean isSetContent() {
+		return content != null;
+	}
+
+	public byte[] getContent() {
+		return content;
+	}
+
+	public void setContent(byte[] content) {
+		this.content = content;
+	}
+
 	@Override
 	public String getGmlId() {
 		// we do not have a gml:id, but fileURI is our identifier
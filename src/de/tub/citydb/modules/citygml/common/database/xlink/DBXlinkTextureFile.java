@@ -33,6 +33,8 @@ public class DBXlinkTextureFile implements DBXlink {
 	long id;
 	String fileURI;
 	DBXlinkTextureFileEnum type;
+	// file content read ahead of the database upload
+	byte[] content;
 
 	public DBXlinkTextureFile(long id, String fileURI, DBXlinkTextureFileEnum type) {
 		this.id = id;
@@ -64,6 +66,18 @@ public class DBXlinkTextureFile implements DBXlink {
 		this.type = type;
 	}
 
+	public boolean isSetContent() {
+		return content != null;
+	}
+
+	public byte[] getContent() {
+		return content;
+	}
+
+	public void setContent(byte[] content) {
+		this.content = content;
+	}
+
 	@Override
 	public String getGmlId() {
 		// we do not have a gml:id, but fileURI is our identifier
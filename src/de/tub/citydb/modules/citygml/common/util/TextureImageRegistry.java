@@ -0,0 +1,107 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.citygml.common.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TextureImageRegistry<T> {
+	private final ConcurrentHashMap<String, T> images;
+	private final char[] HEX = "0123456789abcdef".toCharArray();
+
+	public TextureImageRegistry() {
+		images = new ConcurrentHashMap<String, T>();
+	}
+
+	public MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform has to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public String digest(InputStream in) throws IOException {
+		MessageDigest digest = createDigest();
+		byte[] buffer = new byte[8192];
+		int read;
+
+		while ((read = in.read(buffer)) != -1)
+			digest.update(buffer, 0, read);
+
+		return toString(digest);
+	}
+
+	public String digest(byte[] content) {
+		MessageDigest digest = createDigest();
+		digest.update(content);
+
+		return toString(digest);
+	}
+
+	public String toString(MessageDigest digest) {
+		byte[] hash = digest.digest();
+		char[] hex = new char[hash.length * 2];
+
+		for (int i = 0; i < hash.length; i++) {
+			hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+			hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+		}
+
+		return new String(hex);
+	}
+
+	// returns the value already stored for the content hash or 
+	// null if the value has been registered for the first time
+	public T register(String hash, T value) {
+		return images.putIfAbsent(hash, value);
+	}
+
+	public T lookup(String hash) {
+		return images.get(hash);
+	}
+
+	public void unregister(String hash, T value) {
+		images.remove(hash, value);
+	}
+
+	public int size() {
+		return images.size();
+	}
+
+	public void clear() {
+		images.clear();
+	}
+
+}
@@ -34,6 +34,7 @@ import java.sql.SQLException;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.citygml4j.builder.jaxb.JAXBBuilder;
+import org.citygml4j.model.citygml.CityGMLClass;
 import org.citygml4j.util.xml.SAXEventBuffer;
 import org.citygml4j.xml.io.writer.CityGMLWriteException;
 import org.xml.sax.SAXException;
@@ -62,6 +63,7 @@ import de.tub.citydb.modules.citygml.exporter.database.content.DBSolitaryVegetat
 import de.tub.citydb.modules.citygml.exporter.database.content.DBSplittingResult;
 import de.tub.citydb.modules.citygml.exporter.database.content.DBTransportationComplex;
 import de.tub.citydb.modules.citygml.exporter.database.content.DBWaterBody;
+import de.tub.citydb.modules.citygml.exporter.database.gmlid.ExportedIdBitmap;
 import de.tub.citydb.modules.common.event.CounterEvent;
 import de.tub.citydb.modules.common.event.CounterType;
 import de.tub.citydb.modules.common.event.FeatureCounterEvent;
@@ -84,6 +86,7 @@ public class DBExportWorker implements Worker<DBSplittingResult> {
 	private final WorkerPool<SAXEventBuffer> ioWriterPool;
 	private final WorkerPool<DBXlink> xlinkExporterPool;
 	private final DBGmlIdLookupServerManager lookupServerManager;
+	private final ExportedIdBitmap exportedIds;
 	private final CacheManager cacheManager;
 	private final ExportFilter exportFilter;
 	private final Config config;
@@ -97,6 +100,7 @@ public class DBExportWorker implements Worker<DBSplittingResult> {
 			WorkerPool<SAXEventBuffer> ioWriterPool,
 			WorkerPool<DBXlink> xlinkExporterPool,
 			DBGmlIdLookupServerManager lookupServerManager,
+			ExportedIdBitmap exportedIds,
 			CacheManager cacheManager,
 			ExportFilter exportFilter,
 			Config config,
@@ -106,6 +110,7 @@ public class DBExportWorker implements Worker<DBSplittingResult> {
 		this.ioWriterPool = ioWriterPool;
 		this.xlinkExporterPool = xlinkExporterPool;
 		this.lookupServerManager = lookupServerManager;
+		this.exportedIds = exportedIds;
 		this.cacheManager = cacheManager;
 		this.exportFilter = exportFilter;
 		this.config = config;
@@ -114,7 +119,7 @@ public class DBExportWorker implements Worker<DBSplittingResult> {
 	}
 
 	private void init() throws SQLException, SAXException {
-		connection = dbConnectionPool.getConnection();
+		connection = dbConnectionPool.getReadOnlyConnection();
 
 		// try and change workspace the connections if needed
 		if (dbConnectionPool.getActiveDatabaseAdapter().hasVersioningSupport()) {
@@ -223,9 +228,12 @@ public class DBExportWorker implements Worker<DBSplittingResult> {
 			try {
 				boolean success = false;
 
-				if (work.isCheckIfAlreadyExported())
-					if (dbExporterManager.lookupAndPutGmlId(work.getGmlId(), work.getPrimaryKey(), work.getCityObjectType()))
-						return;						
+				// remember every top-level feature so that group members which
+				// have already been written are not exported a second time. global
+				// appearances are skipped since their ids are not CITYOBJECT ids
+				if (work.getCityObjectType() != CityGMLClass.APPEARANCE)
+					if (!exportedIds.add(work.getPrimaryKey()) && work.isCheckIfAlreadyExported())
+						return;
 
 				switch (work.getCityObjectType()) {
 				case BUILDING:
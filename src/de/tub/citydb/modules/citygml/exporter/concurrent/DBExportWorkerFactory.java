@@ -46,6 +46,7 @@ import de.tub.citydb.modules.citygml.common.database.cache.CacheManager;
 import de.tub.citydb.modules.citygml.common.database.gmlid.DBGmlIdLookupServerManager;
 import de.tub.citydb.modules.citygml.common.database.xlink.DBXlink;
 import de.tub.citydb.modules.citygml.exporter.database.content.DBSplittingResult;
+import de.tub.citydb.modules.citygml.exporter.database.gmlid.ExportedIdBitmap;
 import de.tub.citydb.modules.common.filter.ExportFilter;
 
 public class DBExportWorkerFactory implements WorkerFactory<DBSplittingResult> {
@@ -56,6 +57,7 @@ public class DBExportWorkerFactory implements WorkerFactory<DBSplittingResult> {
 	private final WorkerPool<SAXEventBuffer> ioWriterPool;
 	private final WorkerPool<DBXlink> xlinkExporterPool;
 	private final DBGmlIdLookupServerManager lookupServerManager;
+	private final ExportedIdBitmap exportedIds;
 	private final CacheManager cacheManager;
 	private final ExportFilter exportFilter;
 	private final Config config;
@@ -67,6 +69,7 @@ public class DBExportWorkerFactory implements WorkerFactory<DBSplittingResult> {
 			WorkerPool<SAXEventBuffer> ioWriterPool,
 			WorkerPool<DBXlink> xlinkExporterPool,
 			DBGmlIdLookupServerManager lookupServerManager,
+			ExportedIdBitmap exportedIds,
 			CacheManager cacheManager,
 			ExportFilter exportFilter,
 			Config config,
@@ -76,6 +79,7 @@ public class DBExportWorkerFactory implements WorkerFactory<DBSplittingResult> {
 		this.ioWriterPool = ioWriterPool;
 		this.xlinkExporterPool = xlinkExporterPool;
 		this.lookupServerManager = lookupServerManager;
+		this.exportedIds = exportedIds;
 		this.cacheManager = cacheManager;
 		this.exportFilter = exportFilter;
 		this.config = config;
@@ -93,6 +97,7 @@ public class DBExportWorkerFactory implements WorkerFactory<DBSplittingResult> {
 					ioWriterPool,
 					xlinkExporterPool,
 					lookupServerManager,
+					exportedIds,
 					cacheManager,
 					exportFilter,
 					config,
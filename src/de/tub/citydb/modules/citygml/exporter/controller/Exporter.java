@@ -33,11 +33,16 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.sql.SQLException;
+import java.util.Date;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.xml.namespace.QName;
+
 import org.citygml4j.builder.jaxb.JAXBBuilder;
 import org.citygml4j.builder.jaxb.xml.io.writer.JAXBModelWriter;
 import org.citygml4j.builder.jaxb.xml.io.writer.JAXBOutputFactory;
@@ -73,6 +78,8 @@ import de.tub.citydb.config.project.filter.TileNameSuffixMode;
 import de.tub.citydb.config.project.filter.TileSuffixMode;
 import de.tub.citydb.config.project.filter.Tiling;
 import de.tub.citydb.config.project.filter.TilingMode;
+import de.tub.citydb.config.project.system.ThreadPool;
+import de.tub.citydb.config.project.system.ThreadPoolConfig;
 import de.tub.citydb.database.DatabaseConnectionPool;
 import de.tub.citydb.database.IndexStatusInfo.IndexType;
 import de.tub.citydb.log.Logger;
@@ -86,7 +93,10 @@ import de.tub.citydb.modules.citygml.exporter.concurrent.DBExportXlinkWorkerFact
 import de.tub.citydb.modules.citygml.exporter.database.content.DBSplitter;
 import de.tub.citydb.modules.citygml.exporter.database.content.DBSplittingResult;
 import de.tub.citydb.modules.citygml.exporter.database.gmlid.ExportCache;
-import de.tub.citydb.modules.common.concurrent.IOWriterWorkerFactory;
+import de.tub.citydb.modules.citygml.exporter.database.gmlid.ExportedIdBitmap;
+import de.tub.citydb.modules.common.concurrent.IOSegmentSinkWorkerFactory;
+import de.tub.citydb.modules.common.concurrent.IOSegmentWriterWorkerFactory;
+import de.tub.citydb.modules.common.concurrent.WorkerPoolTuner;
 import de.tub.citydb.modules.common.event.EventType;
 import de.tub.citydb.modules.common.event.FeatureCounterEvent;
 import de.tub.citydb.modules.common.event.GeometryCounterEvent;
@@ -94,10 +104,12 @@ import de.tub.citydb.modules.common.event.InterruptEvent;
 import de.tub.citydb.modules.common.event.StatusDialogMessage;
 import de.tub.citydb.modules.common.event.StatusDialogTitle;
 import de.tub.citydb.modules.common.filter.ExportFilter;
+import de.tub.citydb.modules.common.filter.feature.ModificationDateFilter;
 import de.tub.citydb.util.Util;
 
 public class Exporter implements EventHandler {
 	private final Logger LOG = Logger.getInstance();
+	private final char[] LINE_SEPARATOR = System.getProperty("line.separator").toCharArray();
 
 	private final JAXBBuilder jaxbBuilder;
 	private final DatabaseConnectionPool dbPool;
@@ -109,10 +121,13 @@ public class Exporter implements EventHandler {
 	private AtomicBoolean isInterrupted = new AtomicBoolean(false);
 
 	private WorkerPool<DBSplittingResult> dbWorkerPool;
-	private SingleWorkerPool<SAXEventBuffer> ioWriterPool;
+	private WorkerPool<SAXEventBuffer> ioWriterPool;
+	private SingleWorkerPool<ByteBuffer> ioSinkPool;
 	private WorkerPool<DBXlink> xlinkExporterPool;
+	private WorkerPoolTuner poolTuner;
 	private CacheManager cacheManager;
 	private DBGmlIdLookupServerManager lookupServerManager;
+	private ExportedIdBitmap exportedIds;
 	private ExportFilter exportFilter;
 	private boolean useTiling;
 
@@ -143,8 +158,16 @@ public class Exporter implements EventHandler {
 		Database database = config.getProject().getDatabase();
 
 		// worker pool settings
-		int minThreads = system.getThreadPool().getDefaultPool().getMinThreads();
-		int maxThreads = system.getThreadPool().getDefaultPool().getMaxThreads();
+		ThreadPool threadPool = system.getThreadPool();
+		ThreadPoolConfig databasePool = threadPool.isSetDatabasePool() ? threadPool.getDatabasePool() : threadPool.getDefaultPool();
+		int minThreads = databasePool.getMinThreads();
+		int maxThreads = databasePool.getMaxThreads();
+
+		// writer and xlink stages default to half of the database workers
+		int minWriterThreads = threadPool.isSetWriterPool() ? threadPool.getWriterPool().getMinThreads() : 1;
+		int maxWriterThreads = threadPool.isSetWriterPool() ? threadPool.getWriterPool().getMaxThreads() : Math.max(1, maxThreads / 2);
+		int minXlinkThreads = threadPool.isSetXlinkPool() ? threadPool.getXlinkPool().getMinThreads() : 1;
+		int maxXlinkThreads = threadPool.isSetXlinkPool() ? threadPool.getXlinkPool().getMaxThreads() : Math.max(1, maxThreads / 2);
 
 		// calc queueSize
 		// how to properly calculate?
@@ -258,6 +281,34 @@ public class Exporter implements EventHandler {
 		int rows = useTiling ? tiling.getRows() : 1;  
 		int columns = useTiling ? tiling.getColumns() : 1;
 
+		// delta export: only files containing modified or terminated city objects are regenerated
+		ModificationDateFilter modificationDateFilter = exportFilter.getModificationDateFilter();
+		File watermarkFile = new File(folderName + File.separator + fileName + ".watermark");
+		Date exportTime = null;
+		int skippedFiles = 0;
+
+		if (modificationDateFilter.isActive()) {
+			try {
+				exportTime = dbPool.getActiveDatabaseAdapter().getUtil().getCurrentDateAndTime();
+				if (modificationDateFilter.loadWatermark(watermarkFile))
+					LOG.info("Using watermark of previous export from file '" + watermarkFile.getName() + "'.");
+			} catch (SQLException e) {
+				LOG.error("Database error while querying the current date and time: " + e.getMessage());
+				return false;
+			} catch (IOException e) {
+				LOG.error("Failed to read watermark file '" + watermarkFile.getName() + "': " + e.getMessage());
+				return false;
+			}
+
+			if (modificationDateFilter.getFilterState() != null)
+				LOG.info("Only exporting files containing city objects modified since " + modificationDateFilter.getFilterState() + ".");
+			else
+				LOG.info("No previous export found. All files will be exported.");
+		}
+
+		// bitmap of exported city objects shared by all export workers
+		exportedIds = new ExportedIdBitmap();
+
 		for (int i = 0; shouldRun && i < rows; i++) {
 			for (int j = 0; shouldRun && j < columns; j++) {
 
@@ -313,6 +364,31 @@ public class Exporter implements EventHandler {
 					else // no tiling
 						file = new File(folderName + File.separator + fileName + '.' + fileExtension);
 
+					// leave files untouched which do not contain modified city objects. hard deletes are
+					// detected by comparing the number of city objects with the one of the previous export
+					Date since = modificationDateFilter.getFilterState();
+					if (modificationDateFilter.isActive()) {
+						try {
+							BoundingBox bbox = getDeltaBoundingBox();
+							boolean unmodified = since != null && file.exists();
+
+							if (modificationDateFilter.isSetWatermark()) {
+								long objectCount = dbPool.getActiveDatabaseAdapter().getUtil().countCityObjects(bbox, workspace);
+								unmodified &= Long.valueOf(objectCount).equals(modificationDateFilter.getObjectCount(file));
+								modificationDateFilter.setObjectCount(file, objectCount);
+							}
+
+							if (unmodified && !dbPool.getActiveDatabaseAdapter().getUtil().containsModifiedCityObjects(since, bbox, workspace)) {
+								LOG.debug("Skipping unmodified file '" + file.getName() + "'.");
+								skippedFiles++;
+								continue;
+							}
+						} catch (SQLException e) {
+							LOG.error("Database error while querying modified city objects: " + e.getMessage());
+							return false;
+						}
+					}
+
 					config.getInternal().setExportFileName(file.getAbsolutePath());
 					File path = new File(file.getAbsolutePath());
 					internalConfig.setExportPath(path.getParent());
@@ -368,9 +444,12 @@ public class Exporter implements EventHandler {
 					}
 
 					// open file for writing
+					FileChannel fileChannel = null;
 					try {
-						OutputStreamWriter fileWriter = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+						FileOutputStream outputStream = new FileOutputStream(file);
+						OutputStreamWriter fileWriter = new OutputStreamWriter(outputStream, "UTF-8");
 						saxWriter.setOutput(fileWriter);
+						fileChannel = outputStream.getChannel();
 					} catch (IOException ioE) {
 						LOG.error("Failed to open file '" + fileName + "' for writing: " + ioE.getMessage());
 						return false;
@@ -416,23 +495,38 @@ public class Exporter implements EventHandler {
 						return false;
 					}
 
+					// gml:ids are cached per tile, so reset the exported city objects as well
+					exportedIds.clear();
+
 					// create worker pools
 					// here we have an open issue: queue sizes are fix...
 					xlinkExporterPool = new WorkerPool<DBXlink>(
 							"xlink_exporter_pool",
-							1,
-							Math.max(1, maxThreads / 2),
+							minXlinkThreads,
+							maxXlinkThreads,
 							PoolSizeAdaptationStrategy.AGGRESSIVE,
 							new DBExportXlinkWorkerFactory(dbPool, config, eventDispatcher),
 							300,
 							false);
 
-					ioWriterPool = new SingleWorkerPool<SAXEventBuffer>(
-							"citygml_writer_pool",
-							new IOWriterWorkerFactory(saxWriter),
+					ioSinkPool = new SingleWorkerPool<ByteBuffer>(
+							"citygml_sink_pool",
+							new IOSegmentSinkWorkerFactory(fileChannel),
 							100,
 							false);
 
+					ioWriterPool = new WorkerPool<SAXEventBuffer>(
+							"citygml_writer_pool",
+							minWriterThreads,
+							maxWriterThreads,
+							PoolSizeAdaptationStrategy.AGGRESSIVE,
+							new IOSegmentWriterWorkerFactory(
+									saxWriter, 
+									ioSinkPool, 
+									new QName(moduleContext.getModule(CityGMLModuleType.CORE).getNamespaceURI(), "CityModel")),
+									100,
+									false);
+
 					dbWorkerPool = new WorkerPool<DBSplittingResult>(
 							"db_exporter_pool",
 							minThreads,
@@ -444,6 +538,7 @@ public class Exporter implements EventHandler {
 									ioWriterPool,
 									xlinkExporterPool,
 									lookupServerManager,
+									exportedIds,
 									cacheManager,
 									exportFilter,
 									config,
@@ -453,6 +548,7 @@ public class Exporter implements EventHandler {
 					
 					// prestart pool workers
 					xlinkExporterPool.prestartCoreWorkers();
+					ioSinkPool.prestartCoreWorkers();
 					ioWriterPool.prestartCoreWorkers();
 					dbWorkerPool.prestartCoreWorkers();
 					
@@ -462,6 +558,15 @@ public class Exporter implements EventHandler {
 						return false;
 					}
 
+					// move threads between the stages while exporting
+					if (threadPool.isSetUseAutoTuning()) {
+						poolTuner = new WorkerPoolTuner();
+						poolTuner.register(dbWorkerPool);
+						poolTuner.register(ioWriterPool);
+						poolTuner.register(xlinkExporterPool);
+						poolTuner.start();
+					}
+
 					// ok, preparations done. inform user...
 					LOG.info("Exporting to file: " + file.getAbsolutePath());
 
@@ -479,8 +584,10 @@ public class Exporter implements EventHandler {
 						return false;
 					}
 
-					// flush writer to make sure header has been written
+					// close the start tag of the root element and flush writer 
+					// to make sure header has been written before segments are appended
 					try {
+						saxWriter.characters(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
 						saxWriter.flush();
 					} catch (SAXException e) {
 						LOG.error("I/O error: " + e.getMessage());
@@ -507,12 +614,18 @@ public class Exporter implements EventHandler {
 						return false;
 					}
 
+					if (poolTuner != null) {
+						poolTuner.stop();
+						poolTuner = null;
+					}
+
 					try {
 						dbWorkerPool.shutdownAndWait();
 						if (shouldRun)
 							xlinkExporterPool.shutdownAndWait();
 
 						ioWriterPool.shutdownAndWait();
+						ioSinkPool.shutdownAndWait();
 					} catch (InterruptedException e) {
 						LOG.error("Internal error: " + e.getMessage());
 					}
@@ -581,6 +694,11 @@ public class Exporter implements EventHandler {
 					geometryCounterMap.clear();
 				} finally {
 					// clean up
+					if (poolTuner != null) {
+						poolTuner.stop();
+						poolTuner = null;
+					}
+
 					if (xlinkExporterPool != null && !xlinkExporterPool.isTerminated())
 						xlinkExporterPool.shutdownNow();
 
@@ -589,6 +707,9 @@ public class Exporter implements EventHandler {
 
 					if (ioWriterPool != null && !ioWriterPool.isTerminated())
 						ioWriterPool.shutdownNow();
+
+					if (ioSinkPool != null && !ioSinkPool.isTerminated())
+						ioSinkPool.shutdownNow();
 					
 					if (cacheManager != null) {
 						try {
@@ -604,12 +725,25 @@ public class Exporter implements EventHandler {
 					lookupServerManager = null;
 					xlinkExporterPool = null;
 					ioWriterPool = null;
+					ioSinkPool = null;
 					dbWorkerPool = null;
 					dbSplitter = null;
 				}
 			}
 		}
 
+		if (skippedFiles > 0)
+			LOG.info(skippedFiles + " file(s) without modified city objects have been left untouched.");
+
+		// remember the start of this export for the next delta export
+		if (shouldRun && exportTime != null) {
+			try {
+				modificationDateFilter.storeWatermark(watermarkFile, exportTime);
+			} catch (IOException e) {
+				LOG.error("Failed to write watermark file '" + watermarkFile.getName() + "': " + e.getMessage());
+			}
+		}
+
 		// show totally exported features
 		if (useTiling && (rows > 1 || columns > 1)) {
 			if (!totalFeatureCounterMap.isEmpty()) {
@@ -629,6 +763,22 @@ public class Exporter implements EventHandler {
 		return shouldRun;
 	}
 
+	private BoundingBox getDeltaBoundingBox() throws SQLException {
+		BoundingBox bbox = null;
+
+		// restrict the query to the current tile if spatial indexes are available
+		if (exportFilter.getBoundingBoxFilter().isActive() && 
+				dbPool.getActiveDatabaseAdapter().getUtil().isIndexEnabled("CITYOBJECT", "ENVELOPE")) {
+			bbox = exportFilter.getBoundingBoxFilter().getFilterState();
+
+			DatabaseSrs dbSrs = dbPool.getActiveDatabaseAdapter().getConnectionMetaData().getReferenceSystem();
+			if (bbox != null && bbox.getSrs().getSrid() != dbSrs.getSrid())
+				bbox = dbPool.getActiveDatabaseAdapter().getUtil().transformBoundingBox(bbox, bbox.getSrs(), dbSrs);
+		}
+
+		return bbox;
+	}
+
 	@Override
 	public void handleEvent(Event e) throws Exception {
 		if (e.getEventType() == EventType.FEATURE_COUNTER) {
@@ -59,10 +59,13 @@ import org.citygml4j.model.gml.measures.Length;
 import org.citygml4j.util.gmlid.DefaultGMLIdManager;
 import org.citygml4j.xml.io.writer.CityGMLWriteException;
 
+import de.tub.citydb.api.database.DatabaseSrs;
+import de.tub.citydb.api.geometry.BoundingBox;
 import de.tub.citydb.api.geometry.GeometryObject;
 import de.tub.citydb.config.Config;
 import de.tub.citydb.log.Logger;
 import de.tub.citydb.modules.common.filter.ExportFilter;
+import de.tub.citydb.modules.common.filter.feature.BoundingBoxFilter;
 import de.tub.citydb.modules.common.filter.feature.FeatureClassFilter;
 import de.tub.citydb.util.Util;
 
@@ -74,11 +77,15 @@ public class DBReliefFeature implements DBExporter {
 	private final Connection connection;
 
 	private PreparedStatement psReliefFeature;
+	private PreparedStatement psTinReliefLod;
 
 	private DBSurfaceGeometry surfaceGeometryExporter;
 	private DBCityObject cityObjectExporter;
 	private DBOtherGeometry geometryExporter;
 	private FeatureClassFilter featureClassFilter;
+	private BoundingBoxFilter boundingBoxFilter;
+	private BoundingBox toleranceBoundingBox;
+	private double tinTolerance;
 
 	private boolean useXLink;
 	private boolean appendOldGmlId;
@@ -91,6 +98,7 @@ public class DBReliefFeature implements DBExporter {
 		this.config = config;
 		this.dbExporterManager = dbExporterManager;
 		this.featureClassFilter = exportFilter.getFeatureClassFilter();
+		this.boundingBoxFilter = exportFilter.getBoundingBoxFilter();
 
 		init();
 	}
@@ -141,6 +149,10 @@ public class DBReliefFeature implements DBExporter {
 			psReliefFeature = connection.prepareStatement(query.toString());
 		}
 
+		// decimated TIN levels are chosen according to the size of the bounding box
+		if (config.getProject().getExporter().isSetUseDecimatedTinRelief() && boundingBoxFilter.isActive())
+			psTinReliefLod = connection.prepareStatement("select SURFACE_GEOMETRY_ID from TIN_RELIEF_LOD where TIN_RELIEF_ID=? and TOLERANCE<=? order by LOD_LEVEL desc");
+
 		surfaceGeometryExporter = (DBSurfaceGeometry)dbExporterManager.getDBExporter(DBExporterEnum.SURFACE_GEOMETRY);
 		cityObjectExporter = (DBCityObject)dbExporterManager.getDBExporter(DBExporterEnum.CITYOBJECT);
 		geometryExporter = (DBOtherGeometry)dbExporterManager.getDBExporter(DBExporterEnum.OTHER_GEOMETRY);
@@ -310,6 +322,9 @@ public class DBReliefFeature implements DBExporter {
 					TinProperty tinProperty = new TinProperty();
 					TriangulatedSurface triangulatedSurface = null;
 					if (surfaceGeometryId != 0) {
+						if (psTinReliefLod != null)
+							surfaceGeometryId = getDecimatedSurfaceGeometryId(rs.getLong("TR_ID"), surfaceGeometryId);
+
 						DBSurfaceGeometryResult geometry = surfaceGeometryExporter.read(surfaceGeometryId);
 
 						// check for null until we have implemented rectifiedgridcoverage
@@ -427,9 +442,43 @@ public class DBReliefFeature implements DBExporter {
 		}
 	}
 
+	private long getDecimatedSurfaceGeometryId(long tinReliefId, long surfaceGeometryId) throws SQLException {
+		ResultSet rs = null;
+
+		try {
+			psTinReliefLod.setLong(1, tinReliefId);
+			psTinReliefLod.setDouble(2, getTinTolerance());
+			rs = psTinReliefLod.executeQuery();
+
+			return rs.next() ? rs.getLong(1) : surfaceGeometryId;
+		} finally {
+			if (rs != null)
+				rs.close();
+		}
+	}
+
+	// the tolerances of the decimated levels are given in database units, whereas 
+	// the filter bounding box is in the target SRS of a coordinate transformation
+	private double getTinTolerance() throws SQLException {
+		BoundingBox bbox = boundingBoxFilter.getFilterState();
+		if (bbox != toleranceBoundingBox) {
+			toleranceBoundingBox = bbox;
+
+			DatabaseSrs databaseSrs = dbExporterManager.getDatabaseAdapter().getConnectionMetaData().getReferenceSystem();
+			if (bbox.getSrs() != null && bbox.getSrs().isSupported() && bbox.getSrs().getSrid() != databaseSrs.getSrid())
+				bbox = dbExporterManager.getDatabaseAdapter().getUtil().transformBoundingBox(bbox, bbox.getSrs(), databaseSrs, connection);
+
+			tinTolerance = Util.getTinTolerance(bbox);
+		}
+
+		return tinTolerance;
+	}
+
 	@Override
 	public void close() throws SQLException {
 		psReliefFeature.close();
+		if (psTinReliefLod != null)
+			psTinReliefLod.close();
 	}
 
 	@Override
@@ -36,6 +36,12 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.citygml4j.model.citygml.CityGMLClass;
 
@@ -66,6 +72,7 @@ import de.tub.citydb.util.Util;
 
 public class DBSplitter {
 	private final Logger LOG = Logger.getInstance();
+	private final int KEYSET_PAGE_SIZE = 10000;
 
 	private final DatabaseConnectionPool dbConnectionPool;
 	private final WorkerPool<DBSplittingResult> dbWorkerPool;
@@ -76,6 +83,7 @@ public class DBSplitter {
 
 	private Connection connection;
 	private long elementCounter;
+	private int scanPartitions;
 
 	private Long firstElement;
 	private Long lastElement;
@@ -109,7 +117,7 @@ public class DBSplitter {
 	}
 
 	private void init(ExportFilter exportFilter, CacheManager cacheManager) throws SQLException {
-		connection = dbConnectionPool.getConnection();
+		connection = dbConnectionPool.getReadOnlyConnection();
 
 		// try and change workspace for connection
 		if (dbConnectionPool.getActiveDatabaseAdapter().hasVersioningSupport()) {
@@ -138,6 +146,7 @@ public class DBSplitter {
 		boundingBoxFilter = exportFilter.getBoundingBoxFilter();
 
 		expFilterConfig = config.getProject().getExporter().getFilter();
+		scanPartitions = config.getProject().getExporter().getSystem().getSplitter().getScanPartitions();
 	}
 
 	private void initFilter() throws SQLException {
@@ -244,9 +253,6 @@ public class DBSplitter {
 		if (!shouldRun)
 			return;
 
-		Statement stmt = null;
-		ResultSet rs = null;
-
 		List<String> queryList = new ArrayList<String>();
 
 		// build query strings...
@@ -306,9 +312,6 @@ public class DBSplitter {
 				if (bboxFilter != null)
 					query.append("and ").append(bboxFilter);
 
-				if (featureCounterFilter.isActive())
-					query.append("order by co.ID");
-
 				queryList.add(query.toString());
 			}
 
@@ -341,9 +344,6 @@ public class DBSplitter {
 					if (bboxFilter != null)
 						query.append("and ").append(bboxFilter);
 
-					if (featureCounterFilter.isActive())
-						query.append("order by ID");
-
 					queryList.add(query.toString());
 				}				
 			}
@@ -352,35 +352,107 @@ public class DBSplitter {
 		if (queryList.size() == 0)
 			return;
 
-		try {
+		if (featureCounterFilter.isActive())
+			queryCityObjectByKeyset(queryList);
+		else if (scanPartitions > 1 && !expFilterConfig.isSetSimpleFilter())
+			queryCityObjectByPartitions(queryList);
+		else
+			elementCounter += new DBSplitterPartition(connection, queryList, null, null).call();
+	}
 
+	private void queryCityObjectByKeyset(List<String> queryList) throws SQLException {
+		// the feature counter filter requires a stable order of the results. we page
+		// through the results along the primary key instead of sorting the entire result set
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+
+		try {
 			for (String query : queryList) {
-				stmt = connection.createStatement();				
-				rs = stmt.executeQuery(query);
+				long lastId = Long.MIN_VALUE;
+				boolean hasMore = true;
 
-				while (rs.next() && shouldRun) {
-					elementCounter++;
+				while (hasMore && shouldRun) {
+					int limit = KEYSET_PAGE_SIZE;
+					if (lastElement != null)
+						limit = (int)Math.max(1, Math.min(KEYSET_PAGE_SIZE, lastElement - elementCounter));
 
-					if (firstElement != null && elementCounter < firstElement)
-						continue;
+					String pageQuery = dbConnectionPool.getActiveDatabaseAdapter().getSQLAdapter().getLimitedQuery(
+							query + " and co.ID > ? order by co.ID", limit);
 
-					if (lastElement != null && elementCounter > lastElement)
-						break;
+					stmt = connection.prepareStatement(pageQuery);
+					stmt.setLong(1, lastId);
+					rs = stmt.executeQuery();
 
-					long primaryKey = rs.getLong(1);
-					int classId = rs.getInt(2);
-					CityGMLClass cityObjectType = Util.classId2cityObject(classId);
+					int rows = 0;
+					while (rs.next() && shouldRun) {
+						rows++;
+						elementCounter++;
 
-					// set initial context...
-					DBSplittingResult splitter = new DBSplittingResult(primaryKey, cityObjectType);
-					dbWorkerPool.addWork(splitter);
+						long primaryKey = rs.getLong(1);
+						lastId = primaryKey;
+
+						if (firstElement != null && elementCounter < firstElement)
+							continue;
+
+						if (lastElement != null && elementCounter > lastElement) {
+							rows = 0;
+							break;
+						}
+
+						int classId = rs.getInt(2);
+						CityGMLClass cityObjectType = Util.classId2cityObject(classId);
+
+						// set initial context...
+						DBSplittingResult splitter = new DBSplittingResult(primaryKey, cityObjectType);
+						dbWorkerPool.addWork(splitter);
+					}
+
+					rs.close();
+					stmt.close();
+
+					hasMore = rows == limit && (lastElement == null || elementCounter < lastElement);
 				}
 
-				rs.close();
-				stmt.close();
+				if (lastElement != null && elementCounter >= lastElement)
+					break;
+			}
+		} finally {
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (SQLException sqlEx) {
+					throw sqlEx;
+				}
+
+				rs = null;
+			}
+
+			if (stmt != null) {
+				try {
+					stmt.close();
+				} catch (SQLException sqlEx) {
+					throw sqlEx;
+				}
+
+				stmt = null;
+			}
+		}
+	}
+
+	private void queryCityObjectByPartitions(List<String> queryList) throws SQLException {
+		Statement stmt = null;
+		ResultSet rs = null;
+		long minId = 0;
+		long maxId = 0;
+
+		// retrieve the range of primary keys to be split into partitions
+		try {
+			stmt = connection.createStatement();
+			rs = stmt.executeQuery("select min(ID), max(ID) from CITYOBJECT");
+			if (rs.next()) {
+				minId = rs.getLong(1);
+				maxId = rs.getLong(2);
 			}
-		} catch (SQLException sqlEx) {
-			throw sqlEx;
 		} finally {
 			if (rs != null) {
 				try {
@@ -402,6 +474,80 @@ public class DBSplitter {
 				stmt = null;
 			}
 		}
+
+		long range = maxId - minId + 1;
+		int partitions = (int)Math.max(1, Math.min(scanPartitions, range));
+
+		// every partition is scanned on a separate connection. the first partition
+		// reuses the connection of the splitter
+		List<Connection> connections = new ArrayList<Connection>();
+		connections.add(connection);
+
+		try {
+			for (int i = 1; i < partitions; i++) {
+				try {
+					Connection partitionConnection = dbConnectionPool.getReadOnlyConnection();
+					connections.add(partitionConnection);
+
+					// try and change workspace for connection
+					if (dbConnectionPool.getActiveDatabaseAdapter().hasVersioningSupport()) {
+						dbConnectionPool.getActiveDatabaseAdapter().getWorkspaceManager().gotoWorkspace(
+								partitionConnection, 
+								config.getProject().getDatabase().getWorkspaces().getExportWorkspace());
+					}
+				} catch (SQLException e) {
+					LOG.warn("Failed to acquire database connection for partitioned query: " + e.getMessage());
+					LOG.warn("Continuing with " + connections.size() + " partition(s).");
+					break;
+				}
+			}
+
+			partitions = connections.size();
+			long partitionSize = range / partitions;
+
+			ExecutorService service = Executors.newFixedThreadPool(partitions, new ThreadFactory() {
+				private int threadNo;
+
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r);
+					t.setName("db_splitter " + threadNo++);
+					t.setDaemon(true);
+					return t;
+				}
+			});
+
+			try {
+				List<Future<Long>> results = new ArrayList<Future<Long>>();
+				for (int i = 0; i < partitions; i++) {
+					long lower = minId + i * partitionSize;
+					long upper = i == partitions - 1 ? maxId : lower + partitionSize - 1;
+					results.add(service.submit(new DBSplitterPartition(connections.get(i), queryList, lower, upper)));
+				}
+
+				for (Future<Long> result : results)
+					elementCounter += result.get();
+
+			} catch (InterruptedException e) {
+				shouldRun = false;
+			} catch (ExecutionException e) {
+				shouldRun = false;
+				if (e.getCause() instanceof SQLException)
+					throw (SQLException)e.getCause();
+
+				throw new SQLException(e.getCause());
+			} finally {
+				service.shutdown();
+			}
+
+		} finally {
+			for (int i = 1; i < connections.size(); i++) {
+				try {
+					connections.get(i).close();
+				} catch (SQLException sqlEx) {
+					//
+				}
+			}
+		}
 	}
 
 	private void queryCityObjectGroups() throws SQLException {
@@ -515,7 +661,7 @@ public class DBSplitter {
 					}
 
 					// set initial context...
-					DBSplittingResult splitter = new DBSplittingResult(gmlId, memberId, cityObjectType);
+					DBSplittingResult splitter = new DBSplittingResult(memberId, cityObjectType);
 					splitter.setCheckIfAlreadyExported(true);
 					dbWorkerPool.addWork(splitter);
 				} 
@@ -635,4 +781,75 @@ public class DBSplitter {
 			}
 		}
 	}
+
+	private final class DBSplitterPartition implements Callable<Long> {
+		private final Connection connection;
+		private final List<String> queryList;
+		private final Long lowerId;
+		private final Long upperId;
+
+		private DBSplitterPartition(Connection connection, List<String> queryList, Long lowerId, Long upperId) {
+			this.connection = connection;
+			this.queryList = queryList;
+			this.lowerId = lowerId;
+			this.upperId = upperId;
+		}
+
+		@Override
+		public Long call() throws SQLException {
+			PreparedStatement stmt = null;
+			ResultSet rs = null;
+			long counter = 0;
+
+			try {
+				for (String query : queryList) {
+					if (lowerId != null && upperId != null) {
+						stmt = connection.prepareStatement(query + " and co.ID between ? and ?");
+						stmt.setLong(1, lowerId);
+						stmt.setLong(2, upperId);
+					} else
+						stmt = connection.prepareStatement(query);
+
+					rs = stmt.executeQuery();
+
+					while (rs.next() && shouldRun) {
+						counter++;
+
+						long primaryKey = rs.getLong(1);
+						int classId = rs.getInt(2);
+						CityGMLClass cityObjectType = Util.classId2cityObject(classId);
+
+						// set initial context...
+						DBSplittingResult splitter = new DBSplittingResult(primaryKey, cityObjectType);
+						dbWorkerPool.addWork(splitter);
+					}
+
+					rs.close();
+					stmt.close();
+				}
+			} finally {
+				if (rs != null) {
+					try {
+						rs.close();
+					} catch (SQLException sqlEx) {
+						throw sqlEx;
+					}
+
+					rs = null;
+				}
+
+				if (stmt != null) {
+					try {
+						stmt.close();
+					} catch (SQLException sqlEx) {
+						throw sqlEx;
+					}
+
+					stmt = null;
+				}
+			}
+
+			return counter;
+		}
+	}
 }
@@ -0,0 +1,105 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.citygml.exporter.database.gmlid;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ExportedIdBitmap {
+	// database ids are split into a high part selecting a container and
+	// a low part addressing a single bit within that container. containers
+	// are only allocated for id ranges that are actually used.
+	private static final int CONTAINER_BITS = 12;
+	private static final int CONTAINER_SIZE = 1 << CONTAINER_BITS;
+	private static final int CONTAINER_MASK = CONTAINER_SIZE - 1;
+	private static final int WORDS_PER_CONTAINER = CONTAINER_SIZE >>> 6;
+
+	private final ConcurrentMap<Long, AtomicLongArray> containers;
+	private final AtomicLong cardinality;
+
+	public ExportedIdBitmap() {
+		containers = new ConcurrentHashMap<Long, AtomicLongArray>();
+		cardinality = new AtomicLong();
+	}
+
+	public boolean add(long id) {
+		AtomicLongArray container = getContainer(id, true);
+		int index = (int)(id & CONTAINER_MASK);
+		int word = index >>> 6;
+		long mask = 1L << (index & 63);
+
+		// lock-free test-and-set of the bit
+		while (true) {
+			long current = container.get(word);
+			if ((current & mask) != 0)
+				return false;
+
+			if (container.compareAndSet(word, current, current | mask)) {
+				cardinality.incrementAndGet();
+				return true;
+			}
+		}
+	}
+
+	public boolean contains(long id) {
+		AtomicLongArray container = getContainer(id, false);
+		if (container == null)
+			return false;
+
+		int index = (int)(id & CONTAINER_MASK);
+		return (container.get(index >>> 6) & (1L << (index & 63))) != 0;
+	}
+
+	public long size() {
+		return cardinality.get();
+	}
+
+	public void clear() {
+		containers.clear();
+		cardinality.set(0);
+	}
+
+	private AtomicLongArray getContainer(long id, boolean create) {
+		Long key = id >> CONTAINER_BITS;
+		AtomicLongArray container = containers.get(key);
+
+		if (container == null && create) {
+			container = new AtomicLongArray(WORDS_PER_CONTAINER);
+			AtomicLongArray previous = containers.putIfAbsent(key, container);
+			if (previous != null)
+				container = previous;
+		}
+
+		return container;
+	}
+
+}
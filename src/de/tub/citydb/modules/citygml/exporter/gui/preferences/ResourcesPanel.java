@@ -37,6 +37,7 @@ import java.text.DecimalFormat;
 import java.text.ParseException;
 
 import javax.swing.BorderFactory;
+import javax.swing.JCheckBox;
 import javax.swing.JFormattedTextField;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -45,6 +46,7 @@ import javax.swing.border.TitledBorder;
 import de.tub.citydb.config.Config;
 import de.tub.citydb.config.internal.Internal;
 import de.tub.citydb.config.project.system.GmlIdLookupServerConfig;
+import de.tub.citydb.config.project.system.Splitter;
 import de.tub.citydb.config.project.system.ThreadPoolConfig;
 import de.tub.citydb.gui.factory.PopupMenuDecorator;
 import de.tub.citydb.gui.preferences.AbstractPreferencesComponent;
@@ -58,6 +60,9 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 	private JFormattedTextField expResMinThreadsText;
 	private JLabel expResMaxThreadsLabel;
 	private JFormattedTextField expResMaxThreadsText;	
+	private JCheckBox expResAutoTuningCheck;
+	private JLabel expResScanPartitionsLabel;
+	private JFormattedTextField expResScanPartitionsText;
 	private JLabel expResGeomLabel;
 	private JFormattedTextField expResGeomCacheText;
 	private JLabel expResGeomCacheLabel;	
@@ -83,9 +88,11 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		ThreadPoolConfig threadPool = config.getProject().getExporter().getSystem().getThreadPool().getDefaultPool();
 		GmlIdLookupServerConfig geometry = config.getProject().getExporter().getSystem().getGmlIdLookupServer().getGeometry();
 		GmlIdLookupServerConfig feature = config.getProject().getExporter().getSystem().getGmlIdLookupServer().getFeature();
+		Splitter splitter = config.getProject().getExporter().getSystem().getSplitter();
 
 		try { expResMinThreadsText.commitEdit(); } catch (ParseException e) { }
 		try { expResMaxThreadsText.commitEdit(); } catch (ParseException e) { }
+		try { expResScanPartitionsText.commitEdit(); } catch (ParseException e) { }
 		try { expResGeomCacheText.commitEdit(); } catch (ParseException e) { }
 		try { expResGeomDrainText.commitEdit(); } catch (ParseException e) { }
 		try { expResGeomPartText.commitEdit(); } catch (ParseException e) { }
@@ -95,6 +102,8 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		
 		if (((Number)expResMinThreadsText.getValue()).intValue() != threadPool.getMinThreads()) return true;
 		if (((Number)expResMaxThreadsText.getValue()).intValue() != threadPool.getMaxThreads()) return true;
+		if (expResAutoTuningCheck.isSelected() != config.getProject().getExporter().getSystem().getThreadPool().isSetUseAutoTuning()) return true;
+		if (((Number)expResScanPartitionsText.getValue()).intValue() != splitter.getScanPartitions()) return true;
 		if (((Number)expResGeomCacheText.getValue()).intValue() != geometry.getCacheSize()) return true;
 		if (((Number)expResGeomDrainText.getValue()).intValue() != (int)(geometry.getPageFactor() * 100)) return true;
 		if (((Number)expResGeomPartText.getValue()).intValue() != geometry.getPartitions()) return true;
@@ -110,6 +119,8 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		block2 = new JPanel();
 		expResMinThreadsLabel = new JLabel();
 		expResMaxThreadsLabel = new JLabel();
+		expResAutoTuningCheck = new JCheckBox();
+		expResScanPartitionsLabel = new JLabel();
 		expResGeomLabel = new JLabel();
 		expResGeomCacheLabel = new JLabel();	
 		expResGeomDrainLabel = new JLabel();
@@ -124,6 +135,7 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		threeIntFormat.setMinimumIntegerDigits(1);
 		expResMinThreadsText = new JFormattedTextField(threeIntFormat);
 		expResMaxThreadsText = new JFormattedTextField(threeIntFormat);
+		expResScanPartitionsText = new JFormattedTextField(threeIntFormat);
 		expResGeomDrainText = new JFormattedTextField(threeIntFormat);
 		expResFeatDrainText = new JFormattedTextField(threeIntFormat);
 		expResGeomPartText = new JFormattedTextField(threeIntFormat);
@@ -135,7 +147,7 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		expResGeomCacheText = new JFormattedTextField(cacheEntryFormat);
 		expResFeatCacheText = new JFormattedTextField(cacheEntryFormat);
 		
-		PopupMenuDecorator.getInstance().decorate(expResMinThreadsText, expResMaxThreadsText, expResGeomDrainText, 
+		PopupMenuDecorator.getInstance().decorate(expResMinThreadsText, expResMaxThreadsText, expResScanPartitionsText, expResGeomDrainText, 
 				expResFeatDrainText, expResGeomPartText, expResFeatPartText, expResGeomCacheText, expResFeatCacheText);
 		
 		expResMinThreadsText.addPropertyChangeListener(new PropertyChangeListener() {
@@ -149,6 +161,12 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 				checkNonNegative(expResMaxThreadsText, 1);
 			}
 		});
+
+		expResScanPartitionsText.addPropertyChangeListener(new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent evt) {
+				checkNonNegative(expResScanPartitionsText, 1);
+			}
+		});
 		
 		expResGeomCacheText.addPropertyChangeListener(new PropertyChangeListener() {
 			public void propertyChange(PropertyChangeEvent evt) {
@@ -195,6 +213,9 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 			block1.add(expResMinThreadsText, GuiUtil.setConstraints(1,0,1.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
 			block1.add(expResMaxThreadsLabel, GuiUtil.setConstraints(0,1,0.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
 			block1.add(expResMaxThreadsText, GuiUtil.setConstraints(1,1,1.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
+			block1.add(expResScanPartitionsLabel, GuiUtil.setConstraints(0,2,0.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
+			block1.add(expResScanPartitionsText, GuiUtil.setConstraints(1,2,1.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
+			block1.add(expResAutoTuningCheck, GuiUtil.setConstraints(0,3,2,1,1.0,1.0,GridBagConstraints.BOTH,0,0,5,5));
 		}
 
 		add(block2, GuiUtil.setConstraints(0,1,1.0,0.0,GridBagConstraints.BOTH,5,0,5,0));
@@ -237,6 +258,8 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 
 		expResMinThreadsLabel.setText(Internal.I18N.getString("common.pref.resources.label.minThreads"));
 		expResMaxThreadsLabel.setText(Internal.I18N.getString("common.pref.resources.label.maxThreads"));
+		expResAutoTuningCheck.setText(Internal.I18N.getString("common.pref.resources.label.autoTuning"));
+		expResScanPartitionsLabel.setText(Internal.I18N.getString("common.pref.resources.label.scanPartitions"));
 
 		expResGeomLabel.setText(Internal.I18N.getString("common.pref.resources.label.geometry"));
 		expResGeomCacheLabel.setText(Internal.I18N.getString("common.pref.resources.label.geometry.entry"));
@@ -256,6 +279,8 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 
 		expResMinThreadsText.setValue(threadPool.getMinThreads());
 		expResMaxThreadsText.setValue(threadPool.getMaxThreads());
+		expResAutoTuningCheck.setSelected(config.getProject().getExporter().getSystem().getThreadPool().isSetUseAutoTuning());
+		expResScanPartitionsText.setValue(config.getProject().getExporter().getSystem().getSplitter().getScanPartitions());
 		expResGeomCacheText.setValue(geometry.getCacheSize());
 		expResFeatCacheText.setValue(feature.getCacheSize());		
 		expResGeomDrainText.setValue((int)(geometry.getPageFactor() * 100));
@@ -280,6 +305,15 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		
 		threadPool.setMinThreads(minThreads);
 		threadPool.setMaxThreads(maxThreads);
+		config.getProject().getExporter().getSystem().getThreadPool().setUseAutoTuning(expResAutoTuningCheck.isSelected());
+
+		int scanPartitions = ((Number)expResScanPartitionsText.getValue()).intValue();
+		if (scanPartitions < 1) {
+			scanPartitions = 1;
+			expResScanPartitionsText.setValue(scanPartitions);
+		}
+
+		config.getProject().getExporter().getSystem().getSplitter().setScanPartitions(scanPartitions);
 
 		geometry.setCacheSize(((Number)expResGeomCacheText.getValue()).intValue());			
 		feature.setCacheSize(((Number)expResFeatCacheText.getValue()).intValue());
@@ -31,6 +31,8 @@ package de.tub.citydb.modules.citygml.importer.concurrent;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.citygml4j.builder.jaxb.JAXBBuilder;
@@ -77,6 +79,8 @@ import de.tub.citydb.modules.citygml.importer.database.content.DBReliefFeature;
 import de.tub.citydb.modules.citygml.importer.database.content.DBSolitaryVegetatObject;
 import de.tub.citydb.modules.citygml.importer.database.content.DBTransportationComplex;
 import de.tub.citydb.modules.citygml.importer.database.content.DBWaterBody;
+import de.tub.citydb.modules.citygml.importer.util.BatchRecorder;
+import de.tub.citydb.modules.citygml.importer.util.BatchSizeController;
 import de.tub.citydb.modules.common.event.CounterEvent;
 import de.tub.citydb.modules.common.event.CounterType;
 import de.tub.citydb.modules.common.event.FeatureCounterEvent;
@@ -104,7 +108,11 @@ public class DBImportWorker implements Worker<CityGML> {
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 	private final ImportFilter importFilter;
+	private final BatchSizeController batchSizeController;
 	private Connection batchConn;
+	private BatchRecorder batchRecorder;
+	private List<String> batchFeatures = new ArrayList<String>();
+	private boolean isFeatureStarted;
 	private DBImporterManager dbImporterManager;
 	private int updateCounter = 0;
 	private int commitAfter = 20;
@@ -119,6 +127,7 @@ public class DBImportWorker implements Worker<CityGML> {
 			WorkerPool<DBXlink> tmpXlinkPool,
 			DBGmlIdLookupServerManager lookupServerManager,
 			ImportFilter importFilter,
+			BatchSizeController batchSizeController,
 			Config config,
 			EventDispatcher eventDispatcher) throws SQLException {
 		this.dbConnectionPool = dbConnectionPool;
@@ -126,6 +135,7 @@ public class DBImportWorker implements Worker<CityGML> {
 		this.tmpXlinkPool = tmpXlinkPool;
 		this.lookupServerManager = lookupServerManager;
 		this.importFilter = importFilter;
+		this.batchSizeController = batchSizeController;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 
@@ -149,13 +159,17 @@ public class DBImportWorker implements Worker<CityGML> {
 		featureGmlIdFilter = importFilter.getGmlIdFilter();
 		featureGmlNameFilter = importFilter.getGmlNameFilter();		
 
+		// the importers work on a recording connection so that a failed batch can be replayed
+		batchRecorder = new BatchRecorder(batchConn);
+
 		dbImporterManager = new DBImporterManager(
-				batchConn,
+				batchRecorder.getConnection(),
 				dbConnectionPool.getActiveDatabaseAdapter(),
 				jaxbBuilder,
 				config,
 				tmpXlinkPool,
 				lookupServerManager,
+				batchSizeController,
 				eventDispatcher);
 
 		Integer commitAfterProp = database.getUpdateBatching().getFeatureBatchValue();
@@ -221,10 +235,7 @@ public class DBImportWorker implements Worker<CityGML> {
 			}
 
 			try {
-				dbImporterManager.executeBatch();
-				batchConn.commit();
-
-				eventDispatcher.triggerEvent(new CounterEvent(CounterType.TOPLEVEL_FEATURE, updateCounter, this));
+				commitBatch();
 			} catch (SQLException sqlEx) {
 				LOG.error("SQL error: " + sqlEx.getMessage());
 			}
@@ -255,11 +266,14 @@ public class DBImportWorker implements Worker<CityGML> {
 		runLock.lock();
 
 		try {
+			isFeatureStarted = false;
+
 			try {
 				long id = 0;
 
 				if (work.getCityGMLClass() == CityGMLClass.APPEARANCE) {
 					// global appearances
+					startFeature(work);
 					DBAppearance dbAppearance = (DBAppearance)dbImporterManager.getDBImporter(DBImporterEnum.APPEARANCE);
 					if (dbAppearance != null)
 						id = dbAppearance.insert((Appearance)work, CityGMLClass.CITY_MODEL, 0);
@@ -314,6 +328,7 @@ public class DBImportWorker implements Worker<CityGML> {
 						return;
 
 					// if the cityobject did pass all filters, let us furhter work on it
+					startFeature(work);
 					switch (work.getCityGMLClass()) {
 					case BUILDING:
 						DBBuilding dbBuilding = (DBBuilding)dbImporterManager.getDBImporter(DBImporterEnum.BUILDING);
@@ -389,21 +404,23 @@ public class DBImportWorker implements Worker<CityGML> {
 				AbstractFeature feature = (AbstractFeature)work;
 
 				if (feature.isSetId())
-					LOG.error("SQL error for feature with gml:id '" + feature.getId() + "': " + sqlEx.getMessage());
+					LOG.featureError("SQL error for feature", feature.getId(), sqlEx.getMessage());
 				else
 					LOG.error("SQL error: " + sqlEx.getMessage());
 
+				try {
+					if (isFeatureStarted)
+						abortFeature();
+				} catch (SQLException e) {
+					LOG.error("SQL error: " + e.getMessage());
+				}
+
 				return;
 			}
 
 			try {
-				if (updateCounter == commitAfter) {
-					dbImporterManager.executeBatch();
-					batchConn.commit();
-
-					eventDispatcher.triggerEvent(new CounterEvent(CounterType.TOPLEVEL_FEATURE, updateCounter, this));
-					updateCounter = 0;
-				}
+				if (updateCounter == commitAfter)
+					commitBatch();
 			} catch (SQLException sqlEx) {
 				// uh, batch update did not work. this is serious...
 				LOG.error("SQL error: " + sqlEx.getMessage());
@@ -414,4 +431,100 @@ public class DBImportWorker implements Worker<CityGML> {
 			runLock.unlock();
 		}
 	}
+
+	private void startFeature(CityGML work) {
+		AbstractFeature feature = (AbstractFeature)work;
+		batchRecorder.setTag(batchFeatures.size());
+		batchFeatures.add(feature.isSetId() ? feature.getId() : null);
+		isFeatureStarted = true;
+	}
+
+	private void commitBatch() throws SQLException {
+		int failed = 0;
+
+		try {
+			try {
+				dbImporterManager.executeBatch();
+				batchConn.commit();
+			} catch (SQLException sqlEx) {
+				// uh, batch update did not work. so let us try and isolate
+				// the erroneous features by re-executing halves of the batch
+				batchConn.rollback();
+				failed = bisectBatch(0, batchFeatures.size(), sqlEx);
+			}
+
+			finishBatch(failed);
+		} finally {
+			batchRecorder.reset();
+			batchFeatures.clear();
+		}
+	}
+
+	// a feature whose insert failed may have left rows in the batches. a flush 
+	// during its insert may also have failed because of rows of other features.
+	// so the rows of the failed feature are discarded, the transaction is rolled 
+	// back and the remaining features of the batch are re-executed
+	private void abortFeature() throws SQLException {
+		int failed = 0;
+
+		try {
+			int tag = batchFeatures.size() - 1;
+			batchRecorder.discard(tag);
+			batchFeatures.remove(tag);
+			batchConn.rollback();
+
+			if (!batchFeatures.isEmpty())
+				failed = executeBatch(0, batchFeatures.size());
+
+			finishBatch(failed);
+		} finally {
+			batchRecorder.reset();
+			batchFeatures.clear();
+		}
+	}
+
+	private void finishBatch(int failed) {
+		if (failed > 0)
+			LOG.warn(failed + " of " + batchFeatures.size() + " feature(s) of a batch could not be imported.");
+
+		eventDispatcher.triggerEvent(new CounterEvent(CounterType.TOPLEVEL_FEATURE, Math.max(0, updateCounter - failed), this));
+		updateCounter = 0;
+	}
+
+	private int bisectBatch(int from, int to, SQLException cause) throws SQLException {
+		if (to - from == 1) {
+			String gmlId = batchFeatures.get(from);
+			if (gmlId != null)
+				LOG.featureError("Batch update failed for feature", gmlId, cause.getMessage());
+			else
+				LOG.error("Batch update failed: " + cause.getMessage());
+
+			return 1;
+		}
+
+		int failed = 0;
+		int middle = (from + to) >>> 1;
+
+		for (int[] range : new int[][]{ { from, middle }, { middle, to } }) {
+			if (range[0] != range[1])
+				failed += executeBatch(range[0], range[1]);
+		}
+
+		return failed;
+	}
+
+	private int executeBatch(int from, int to) throws SQLException {
+		try {
+			batchRecorder.replay(from, to);
+			dbImporterManager.executeBatch();
+			batchConn.commit();
+			return 0;
+		} catch (SQLException sqlEx) {
+			batchConn.rollback();
+			if (batchConn.isClosed())
+				throw sqlEx;
+
+			return bisectBatch(from, to, sqlEx);
+		}
+	}
 }
@@ -43,6 +43,7 @@ import de.tub.citydb.database.DatabaseConnectionPool;
 import de.tub.citydb.log.Logger;
 import de.tub.citydb.modules.citygml.common.database.gmlid.DBGmlIdLookupServerManager;
 import de.tub.citydb.modules.citygml.common.database.xlink.DBXlink;
+import de.tub.citydb.modules.citygml.importer.util.BatchSizeController;
 import de.tub.citydb.modules.common.filter.ImportFilter;
 
 public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
@@ -53,6 +54,7 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 	private final WorkerPool<DBXlink> xlinkWorkerPool;
 	private final DBGmlIdLookupServerManager lookupServerManager;
 	private final ImportFilter importFilter;
+	private final BatchSizeController batchSizeController;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
@@ -61,6 +63,7 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 			WorkerPool<DBXlink> xlinkWorkerPool,
 			DBGmlIdLookupServerManager lookupServerManager,
 			ImportFilter importFilter,
+			BatchSizeController batchSizeController,
 			Config config,
 			EventDispatcher eventDispatcher) {
 		this.dbConnectionPool = dbConnectionPool;
@@ -68,6 +71,7 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 		this.xlinkWorkerPool = xlinkWorkerPool;
 		this.lookupServerManager = lookupServerManager;
 		this.importFilter = importFilter;
+		this.batchSizeController = batchSizeController;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
@@ -82,6 +86,7 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 					xlinkWorkerPool, 
 					lookupServerManager,
 					importFilter,
+					batchSizeController,
 					config, 
 					eventDispatcher);
 		} catch (SQLException e) {
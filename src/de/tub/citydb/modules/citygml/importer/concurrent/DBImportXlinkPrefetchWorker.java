@@ -0,0 +1,223 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.citygml.importer.concurrent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.tub.citydb.api.concurrent.Worker;
+import de.tub.citydb.api.concurrent.WorkerPool;
+import de.tub.citydb.api.concurrent.WorkerPool.WorkQueue;
+import de.tub.citydb.config.Config;
+import de.tub.citydb.log.Logger;
+import de.tub.citydb.modules.citygml.common.database.xlink.DBXlink;
+import de.tub.citydb.modules.citygml.common.database.xlink.DBXlinkLibraryObject;
+import de.tub.citydb.modules.citygml.common.database.xlink.DBXlinkTextureFile;
+
+public class DBImportXlinkPrefetchWorker implements Worker<DBXlink> {
+	private final Logger LOG = Logger.getInstance();
+
+	// instance members needed for WorkPool
+	private volatile boolean shouldRun = true;
+	private ReentrantLock runLock = new ReentrantLock();
+	private WorkQueue<DBXlink> workQueue = null;
+	private DBXlink firstWork;
+	private Thread workerThread = null;
+
+	// instance members needed to do work
+	private final WorkerPool<DBXlink> xlinkResolverPool;
+	private final long maxContentSize;
+	private final String localPath;
+	private final boolean replacePathSeparator;
+
+	public DBImportXlinkPrefetchWorker(WorkerPool<DBXlink> xlinkResolverPool,
+			long maxContentSize,
+			Config config) {
+		this.xlinkResolverPool = xlinkResolverPool;
+		this.maxContentSize = maxContentSize;
+
+		localPath = config.getInternal().getImportPath();
+		replacePathSeparator = File.separatorChar == '/';
+	}
+
+	@Override
+	public Thread getThread() {
+		return workerThread;
+	}
+
+	@Override
+	public void interrupt() {
+		shouldRun = false;
+		workerThread.interrupt();
+	}
+
+	@Override
+	public void interruptIfIdle() {
+		final ReentrantLock runLock = this.runLock;
+		shouldRun = false;
+
+		if (runLock.tryLock()) {
+			try {
+				workerThread.interrupt();
+			} finally {
+				runLock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public void setFirstWork(DBXlink firstWork) {
+		this.firstWork = firstWork;
+	}
+
+	@Override
+	public void setThread(Thread workerThread) {
+		this.workerThread = workerThread;
+	}
+
+	@Override
+	public void setWorkQueue(WorkQueue<DBXlink> workQueue) {
+		this.workQueue = workQueue;
+	}
+
+	@Override
+	public void run() {
+		if (firstWork != null && shouldRun) {
+			doWork(firstWork);
+			firstWork = null;
+		}
+
+		while (shouldRun) {
+			try {
+				DBXlink work = workQueue.take();				
+				doWork(work);
+			} catch (InterruptedException ie) {
+				// re-check state
+			}
+		}
+	}
+
+	private void doWork(DBXlink work) {
+		final ReentrantLock runLock = this.runLock;
+		runLock.lock();
+
+		try {
+			if (work instanceof DBXlinkTextureFile) {
+				DBXlinkTextureFile xlink = (DBXlinkTextureFile)work;
+				String fileName = resolve(xlink.getFileURI());
+				byte[] content = read(fileName);
+				if (content != null) {
+					xlink.setFileURI(fileName);
+					xlink.setContent(content);
+				}
+			} else if (work instanceof DBXlinkLibraryObject) {
+				DBXlinkLibraryObject xlink = (DBXlinkLibraryObject)work;
+				String fileName = resolve(xlink.getFileURI());
+				byte[] content = read(fileName);
+				if (content != null) {
+					xlink.setFileURI(fileName);
+					xlink.setContent(content);
+				}
+			}
+
+			// the resolver is responsible for reporting unreadable files
+			xlinkResolverPool.addWork(work);
+		} finally {
+			runLock.unlock();
+		}
+	}
+
+	private String resolve(String fileName) {
+		try {
+			return new URL(fileName).toString();
+		} catch (MalformedURLException malURL) {
+			if (replacePathSeparator)
+				fileName = fileName.replace("\\", "/");
+
+			File file = new File(fileName);
+			if (!file.isAbsolute())
+				fileName = localPath + File.separator + file.getPath();
+
+			return fileName;
+		}
+	}
+
+	private byte[] read(String fileName) {
+		InputStream stream = null;
+
+		try {
+			try {
+				stream = new URL(fileName).openStream();
+				ByteArrayOutputStream content = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = stream.read(buffer)) != -1) {
+					content.write(buffer, 0, read);
+					if (content.size() > maxContentSize)
+						return null;
+				}
+
+				return content.size() > 0 ? content.toByteArray() : null;
+			} catch (MalformedURLException malURL) {
+				File file = new File(fileName);
+				long length = file.length();
+				if (!file.isFile() || !file.canRead() || length == 0 || length > maxContentSize)
+					return null;
+
+				stream = new FileInputStream(file);
+				FileChannel channel = ((FileInputStream)stream).getChannel();
+				ByteBuffer buffer = ByteBuffer.allocate((int)length);
+				while (buffer.hasRemaining() && channel.read(buffer) != -1);
+
+				return buffer.hasRemaining() ? null : buffer.array();
+			}
+		} catch (IOException e) {
+			LOG.debug("Failed to prefetch file '" + fileName + "': " + e.getMessage());
+			return null;
+		} finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+					//
+				}
+			}
+		}
+	}
+
+}
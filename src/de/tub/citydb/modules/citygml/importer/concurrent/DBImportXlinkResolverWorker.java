@@ -67,6 +67,8 @@ import de.tub.citydb.modules.citygml.importer.database.xlink.resolver.XlinkTextu
 import de.tub.citydb.modules.citygml.importer.database.xlink.resolver.XlinkTextureImage;
 import de.tub.citydb.modules.citygml.importer.database.xlink.resolver.XlinkTextureParam;
 import de.tub.citydb.modules.citygml.importer.database.xlink.resolver.XlinkWorldFile;
+import de.tub.citydb.modules.citygml.importer.util.BatchSizeController;
+import de.tub.citydb.modules.citygml.importer.util.TextureImageDeduplicator;
 import de.tub.citydb.modules.common.filter.ImportFilter;
 
 public class DBImportXlinkResolverWorker implements Worker<DBXlink> {
@@ -85,6 +87,8 @@ public class DBImportXlinkResolverWorker implements Worker<DBXlink> {
 	private final DBGmlIdLookupServerManager lookupServerManager;
 	private final CacheManager cacheManager;
 	private final ImportFilter importFilter;
+	private final BatchSizeController batchSizeController;
+	private final TextureImageDeduplicator textureImageDeduplicator;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
@@ -98,6 +102,8 @@ public class DBImportXlinkResolverWorker implements Worker<DBXlink> {
 			DBGmlIdLookupServerManager lookupServerManager, 
 			CacheManager cacheManager, 
 			ImportFilter importFilter, 
+			BatchSizeController batchSizeController,
+			TextureImageDeduplicator textureImageDeduplicator,
 			Config config, 
 			EventDispatcher eventDispatcher) throws SQLException {
 		this.dbPool = dbPool;
@@ -105,6 +111,8 @@ public class DBImportXlinkResolverWorker implements Worker<DBXlink> {
 		this.lookupServerManager = lookupServerManager;
 		this.cacheManager = cacheManager;
 		this.importFilter = importFilter;
+		this.batchSizeController = batchSizeController;
+		this.textureImageDeduplicator = textureImageDeduplicator;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 
@@ -134,6 +142,8 @@ public class DBImportXlinkResolverWorker implements Worker<DBXlink> {
 				lookupServerManager,
 				cacheManager,
 				importFilter,
+				batchSizeController,
+				textureImageDeduplicator,
 				config,
 				eventDispatcher);
 	}
@@ -41,6 +41,8 @@ import de.tub.citydb.log.Logger;
 import de.tub.citydb.modules.citygml.common.database.cache.CacheManager;
 import de.tub.citydb.modules.citygml.common.database.gmlid.DBGmlIdLookupServerManager;
 import de.tub.citydb.modules.citygml.common.database.xlink.DBXlink;
+import de.tub.citydb.modules.citygml.importer.util.BatchSizeController;
+import de.tub.citydb.modules.citygml.importer.util.TextureImageDeduplicator;
 import de.tub.citydb.modules.common.filter.ImportFilter;
 
 public class DBImportXlinkResolverWorkerFactory implements WorkerFactory<DBXlink> {
@@ -51,6 +53,8 @@ public class DBImportXlinkResolverWorkerFactory implements WorkerFactory<DBXlink
 	private final DBGmlIdLookupServerManager lookupServerManager;
 	private final CacheManager cacheManager;
 	private final ImportFilter importFilter;
+	private final BatchSizeController batchSizeController;
+	private final TextureImageDeduplicator textureImageDeduplicator;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
@@ -59,6 +63,8 @@ public class DBImportXlinkResolverWorkerFactory implements WorkerFactory<DBXlink
 			DBGmlIdLookupServerManager lookupServerManager, 
 			CacheManager cacheManager, 
 			ImportFilter importFilter, 
+			BatchSizeController batchSizeController,
+			TextureImageDeduplicator textureImageDeduplicator,
 			Config config, 
 			EventDispatcher eventDispatcher) {
 		this.dbPool = dbPool;
@@ -66,6 +72,8 @@ public class DBImportXlinkResolverWorkerFactory implements WorkerFactory<DBXlink
 		this.lookupServerManager = lookupServerManager;
 		this.cacheManager = cacheManager;
 		this.importFilter = importFilter;
+		this.batchSizeController = batchSizeController;
+		this.textureImageDeduplicator = textureImageDeduplicator;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
@@ -80,6 +88,8 @@ public class DBImportXlinkResolverWorkerFactory implements WorkerFactory<DBXlink
 					lookupServerManager, 
 					cacheManager, 
 					importFilter,
+					batchSizeController,
+					textureImageDeduplicator,
 					config, 
 					eventDispatcher);
 		} catch (SQLException e) {
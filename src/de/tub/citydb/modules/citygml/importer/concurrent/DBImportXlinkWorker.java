@@ -61,6 +61,7 @@ import de.tub.citydb.modules.citygml.importer.database.xlink.importer.DBXlinkImp
 import de.tub.citydb.modules.citygml.importer.database.xlink.importer.DBXlinkImporterTextureAssociation;
 import de.tub.citydb.modules.citygml.importer.database.xlink.importer.DBXlinkImporterTextureFile;
 import de.tub.citydb.modules.citygml.importer.database.xlink.importer.DBXlinkImporterTextureParam;
+import de.tub.citydb.modules.citygml.importer.util.BatchSizeController;
 
 public class DBImportXlinkWorker implements Worker<DBXlink> {
 	private final Logger LOG = Logger.getInstance();
@@ -80,10 +81,11 @@ public class DBImportXlinkWorker implements Worker<DBXlink> {
 
 	public DBImportXlinkWorker(DatabaseConnectionPool dbPool,
 			CacheManager cacheManager, 
+			BatchSizeController batchSizeController,
 			Config config, 
 			EventDispatcher eventDispatcher) {
 		this.config = config;
-		dbXlinkManager = new DBXlinkImporterManager(cacheManager, dbPool.getActiveDatabaseAdapter(), eventDispatcher);
+		dbXlinkManager = new DBXlinkImporterManager(cacheManager, dbPool.getActiveDatabaseAdapter(), batchSizeController, eventDispatcher);
 		
 		init(dbPool);		
 	}
@@ -36,22 +36,25 @@ import de.tub.citydb.config.Config;
 import de.tub.citydb.database.DatabaseConnectionPool;
 import de.tub.citydb.modules.citygml.common.database.cache.CacheManager;
 import de.tub.citydb.modules.citygml.common.database.xlink.DBXlink;
+import de.tub.citydb.modules.citygml.importer.util.BatchSizeController;
 
 public class DBImportXlinkWorkerFactory implements WorkerFactory<DBXlink> {
 	private final DatabaseConnectionPool dbPool;
 	private final CacheManager cacheManager;
+	private final BatchSizeController batchSizeController;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
-	public DBImportXlinkWorkerFactory(DatabaseConnectionPool dbPool, CacheManager cacheManager, Config config, EventDispatcher eventDispatcher) {
+	public DBImportXlinkWorkerFactory(DatabaseConnectionPool dbPool, CacheManager cacheManager, BatchSizeController batchSizeController, Config config, EventDispatcher eventDispatcher) {
 		this.dbPool = dbPool;
 		this.cacheManager = cacheManager;
+		this.batchSizeController = batchSizeController;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
 
 	@Override
 	public Worker<DBXlink> createWorker() {
-		return new DBImportXlinkWorker(dbPool, cacheManager, config, eventDispatcher);
+		return new DBImportXlinkWorker(dbPool, cacheManager, batchSizeController, config, eventDispatcher);
 	}
 }
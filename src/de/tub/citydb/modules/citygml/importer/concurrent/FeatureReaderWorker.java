@@ -42,6 +42,7 @@ import de.tub.citydb.api.concurrent.WorkerPool.WorkQueue;
 import de.tub.citydb.api.event.EventDispatcher;
 import de.tub.citydb.config.Config;
 import de.tub.citydb.log.Logger;
+import de.tub.citydb.modules.citygml.importer.util.SpatialFeatureSorter;
 import de.tub.citydb.modules.common.event.InterruptEnum;
 import de.tub.citydb.modules.common.event.InterruptEvent;
 
@@ -57,13 +58,16 @@ public class FeatureReaderWorker implements Worker<XMLChunk> {
 
 	// instance members needed to do work
 	private final WorkerPool<CityGML> dbWorkerPool;
+	private final SpatialFeatureSorter spatialSorter;
 	private final EventDispatcher eventDispatcher;
 	private final boolean useValidation;
 
 	public FeatureReaderWorker(WorkerPool<CityGML> dbWorkerPool,
+			SpatialFeatureSorter spatialSorter,
 			Config config,
 			EventDispatcher eventDispatcher) {
 		this.dbWorkerPool = dbWorkerPool;
+		this.spatialSorter = spatialSorter;
 		this.eventDispatcher = eventDispatcher;
 
 		useValidation = config.getProject().getImporter().getXMLValidation().isSetUseXMLValidation();
@@ -133,8 +137,12 @@ public class FeatureReaderWorker implements Worker<XMLChunk> {
 		try {
 			try {
 				CityGML cityGML = work.unmarshal();
-				if (!useValidation || work.hasPassedXMLValidation())
-					dbWorkerPool.addWork(cityGML);
+				if (!useValidation || work.hasPassedXMLValidation()) {
+					if (spatialSorter != null)
+						spatialSorter.addWork(cityGML);
+					else
+						dbWorkerPool.addWork(cityGML);
+				}
 			} catch (UnmarshalException e) {
 				if (!useValidation || work.hasPassedXMLValidation()) {
 					StringBuilder msg = new StringBuilder();				
@@ -37,22 +37,26 @@ import de.tub.citydb.api.concurrent.WorkerFactory;
 import de.tub.citydb.api.concurrent.WorkerPool;
 import de.tub.citydb.api.event.EventDispatcher;
 import de.tub.citydb.config.Config;
+import de.tub.citydb.modules.citygml.importer.util.SpatialFeatureSorter;
 
 public class FeatureReaderWorkerFactory implements WorkerFactory<XMLChunk> {
 	private final WorkerPool<CityGML> dbWorkerPool;
+	private final SpatialFeatureSorter spatialSorter;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
 	public FeatureReaderWorkerFactory(WorkerPool<CityGML> dbWorkerPool,
+			SpatialFeatureSorter spatialSorter,
 			Config config,
 			EventDispatcher eventDispatcher) {
 		this.dbWorkerPool = dbWorkerPool;
+		this.spatialSorter = spatialSorter;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
 
 	@Override
 	public Worker<XMLChunk> createWorker() {
-		return new FeatureReaderWorker(dbWorkerPool, config, eventDispatcher);
+		return new FeatureReaderWorker(dbWorkerPool, spatialSorter, config, eventDispatcher);
 	}
 }
@@ -29,8 +29,12 @@
  */
 package de.tub.citydb.modules.citygml.importer.controller;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -54,7 +58,9 @@ import org.citygml4j.xml.io.reader.CityGMLReader;
 import org.citygml4j.xml.io.reader.FeatureReadMode;
 import org.citygml4j.xml.io.reader.XMLChunk;
 
+import de.tub.citydb.api.concurrent.MemoryBudget;
 import de.tub.citydb.api.concurrent.PoolSizeAdaptationStrategy;
+import de.tub.citydb.api.concurrent.WorkWeigher;
 import de.tub.citydb.api.concurrent.WorkerPool;
 import de.tub.citydb.api.event.Event;
 import de.tub.citydb.api.event.EventDispatcher;
@@ -68,6 +74,8 @@ import de.tub.citydb.config.project.general.AffineTransformation;
 import de.tub.citydb.config.project.importer.ImportGmlId;
 import de.tub.citydb.config.project.importer.Index;
 import de.tub.citydb.config.project.importer.XMLValidation;
+import de.tub.citydb.config.project.system.ThreadPool;
+import de.tub.citydb.config.project.system.ThreadPoolConfig;
 import de.tub.citydb.database.DatabaseConnectionPool;
 import de.tub.citydb.database.IndexStatusInfo;
 import de.tub.citydb.database.IndexStatusInfo.IndexInfoObject;
@@ -81,13 +89,22 @@ import de.tub.citydb.modules.citygml.common.database.cache.model.CacheTableModel
 import de.tub.citydb.modules.citygml.common.database.gmlid.DBGmlIdLookupServerEnum;
 import de.tub.citydb.modules.citygml.common.database.gmlid.DBGmlIdLookupServerManager;
 import de.tub.citydb.modules.citygml.common.database.xlink.DBXlink;
+import de.tub.citydb.modules.citygml.common.database.xlink.DBXlinkLibraryObject;
+import de.tub.citydb.modules.citygml.common.database.xlink.DBXlinkTextureFile;
 import de.tub.citydb.modules.citygml.importer.concurrent.DBImportWorkerFactory;
+import de.tub.citydb.modules.citygml.importer.concurrent.DBImportXlinkPrefetchWorkerFactory;
 import de.tub.citydb.modules.citygml.importer.concurrent.DBImportXlinkResolverWorkerFactory;
 import de.tub.citydb.modules.citygml.importer.concurrent.DBImportXlinkWorkerFactory;
 import de.tub.citydb.modules.citygml.importer.concurrent.FeatureReaderWorkerFactory;
 import de.tub.citydb.modules.citygml.importer.database.gmlid.ImportCache;
 import de.tub.citydb.modules.citygml.importer.database.xlink.resolver.DBXlinkSplitter;
 import de.tub.citydb.modules.citygml.importer.util.AffineTransformer;
+import de.tub.citydb.modules.citygml.importer.util.BatchSizeController;
+import de.tub.citydb.modules.citygml.importer.util.CityGMLWeigher;
+import de.tub.citydb.modules.citygml.importer.util.TextureImageDeduplicator;
+import de.tub.citydb.modules.citygml.importer.util.SpatialFeatureSorter;
+import de.tub.citydb.modules.citygml.importer.util.XMLChunkWeigher;
+import de.tub.citydb.modules.common.concurrent.WorkerPoolTuner;
 import de.tub.citydb.modules.common.event.CounterEvent;
 import de.tub.citydb.modules.common.event.CounterType;
 import de.tub.citydb.modules.common.event.EventType;
@@ -113,8 +130,10 @@ public class Importer implements EventHandler {
 	private WorkerPool<XMLChunk> featureWorkerPool;
 	private WorkerPool<DBXlink> tmpXlinkPool;
 	private WorkerPool<DBXlink> xlinkResolverPool;
+	private WorkerPool<DBXlink> prefetchPool;
 	private CacheManager cacheManager;
 	private DBXlinkSplitter tmpSplitter;
+	private WorkerPoolTuner poolTuner;
 	private SAXParserFactory factory;
 
 	private volatile boolean shouldRun = true;
@@ -168,13 +187,43 @@ public class Importer implements EventHandler {
 		ImportGmlId gmlId = importer.getGmlId();
 
 		// worker pool settings 
-		int minThreads = system.getThreadPool().getDefaultPool().getMinThreads();
-		int maxThreads = system.getThreadPool().getDefaultPool().getMaxThreads();
+		ThreadPool threadPool = system.getThreadPool();
+		ThreadPoolConfig parserPool = threadPool.isSetParserPool() ? threadPool.getParserPool() : threadPool.getDefaultPool();
+		ThreadPoolConfig databasePool = threadPool.isSetDatabasePool() ? threadPool.getDatabasePool() : threadPool.getDefaultPool();
+		ThreadPoolConfig xlinkPool = threadPool.isSetXlinkPool() ? threadPool.getXlinkPool() : threadPool.getDefaultPool();
+		ThreadPoolConfig resolverPool = threadPool.isSetResolverPool() ? threadPool.getResolverPool() : threadPool.getDefaultPool();
+		int minPrefetchThreads = threadPool.isSetPrefetchPool() ? threadPool.getPrefetchPool().getMinThreads() : 1;
+		int maxPrefetchThreads = threadPool.isSetPrefetchPool() ? threadPool.getPrefetchPool().getMaxThreads() : Math.max(1, Math.min(4, resolverPool.getMaxThreads()));
+
+		int maxThreads = Math.max(Math.max(parserPool.getMaxThreads(), databasePool.getMaxThreads()), 
+				Math.max(xlinkPool.getMaxThreads(), resolverPool.getMaxThreads()));
 		int queueSize = maxThreads * 2;
 
 		// gml:id lookup cache update
 		int lookupCacheBatchSize = database.getUpdateBatching().getGmlIdLookupServerBatchValue();
 
+		// batch sizes of database writers are shared by all import files
+		BatchSizeController batchSizeController = new BatchSizeController(database.getUpdateBatching(), dbPool.getActiveDatabaseAdapter().getMaxBatchSize());
+
+		// texture images with identical content are only uploaded once
+		TextureImageDeduplicator textureImageDeduplicator = new TextureImageDeduplicator();
+
+		// memory budget shared by the work queues of all pipeline stages
+		MemoryBudget memoryBudget = null;
+		WorkWeigher<DBXlink> xlinkWeigher = null;
+		if (system.getMemoryBudget().isSet()) {
+			memoryBudget = new MemoryBudget(system.getMemoryBudget().getSizeInBytes());
+			xlinkWeigher = new WorkWeigher<DBXlink>() {
+				public long weigh(DBXlink work) {
+					return 256;
+				}
+			};
+
+			// queues are bounded by the memory budget rather than by the number of items
+			queueSize = Math.max(queueSize, 10000);
+			LOG.info("Limiting pipeline queues to a memory budget of " + (memoryBudget.getCapacity() >> 20) + " MB.");
+		}
+
 		// checking workspace
 		Workspace workspace = database.getWorkspaces().getImportWorkspace();
 		if (shouldRun && dbPool.getActiveDatabaseAdapter().hasVersioningSupport() && 
@@ -373,42 +422,74 @@ public class Importer implements EventHandler {
 					continue;
 				}
 
+				// the parser and database stages only get a share of the memory budget.
+				// the xlink stage does not produce further work and can always drain 
+				// the budget. so the pipeline cannot stall on a full budget
+				XMLChunkWeigher chunkWeigher = null;
+				MemoryBudget chunkBudget = null;
+				MemoryBudget featureBudget = null;
+				if (memoryBudget != null) {
+					chunkWeigher = new XMLChunkWeigher();
+					chunkBudget = new MemoryBudget(memoryBudget, memoryBudget.getCapacity() / 3);
+					featureBudget = new MemoryBudget(memoryBudget, memoryBudget.getCapacity() / 2);
+				}
+
 				// creating worker pools needed for data import
 				// this pool is for registering xlinks
 				tmpXlinkPool = new WorkerPool<DBXlink>(
 						"xlink_importer_pool",
-						minThreads,
-						maxThreads,
+						xlinkPool.getMinThreads(),
+						xlinkPool.getMaxThreads(),
 						PoolSizeAdaptationStrategy.AGGRESSIVE,
-						new DBImportXlinkWorkerFactory(dbPool, cacheManager, config, eventDispatcher),
+						new DBImportXlinkWorkerFactory(dbPool, cacheManager, batchSizeController, config, eventDispatcher),
 						queueSize,
-						false);
+						false,
+						true,
+						xlinkWeigher,
+						memoryBudget);
 
 				// this pool basically works on the data import
 				dbWorkerPool = new WorkerPool<CityGML>(
 						"db_importer_pool",
-						minThreads,
-						maxThreads,
+						databasePool.getMinThreads(),
+						databasePool.getMaxThreads(),
 						PoolSizeAdaptationStrategy.AGGRESSIVE,
 						new DBImportWorkerFactory(dbPool, 
 								jaxbBuilder,
 								tmpXlinkPool, 
 								lookupServerManager, 
 								importFilter,
+								batchSizeController,
 								config, 
 								eventDispatcher),
 								queueSize,
-								false);
+								false,
+								true,
+								memoryBudget != null ? new CityGMLWeigher() : null,
+								featureBudget);
+
+				// optionally, features are passed to the dbworker pool in spatially sorted windows
+				// buffered windows are limited to the share of the memory budget left by the parser and database stages
+				SpatialFeatureSorter spatialSorter = null;
+				if (importer.getSpatialSorting().isSet()) {
+					if (memoryBudget != null)
+						spatialSorter = new SpatialFeatureSorter(dbWorkerPool, importer.getSpatialSorting().getWindowSize(), new CityGMLWeigher(), memoryBudget.getCapacity() / 6);
+					else
+						spatialSorter = new SpatialFeatureSorter(dbWorkerPool, importer.getSpatialSorting().getWindowSize());
+				}
 
 				// this worker pool unmarshals the input file and passes xml chunks to the dbworker pool
 				featureWorkerPool = new WorkerPool<XMLChunk>(
 						"citygml_parser_pool",
-						minThreads,
-						maxThreads,
+						parserPool.getMinThreads(),
+						parserPool.getMaxThreads(),
 						PoolSizeAdaptationStrategy.AGGRESSIVE,
-						new FeatureReaderWorkerFactory(dbWorkerPool, config, eventDispatcher),
+						new FeatureReaderWorkerFactory(dbWorkerPool, spatialSorter, config, eventDispatcher),
 						queueSize,
-						false);
+						false,
+						true,
+						chunkWeigher,
+						chunkBudget);
 
 				// prestart threads
 				tmpXlinkPool.prestartCoreWorkers();
@@ -421,10 +502,26 @@ public class Importer implements EventHandler {
 					return false;
 				}
 
+				// move threads between the stages while parsing
+				if (threadPool.isSetUseAutoTuning()) {
+					poolTuner = new WorkerPoolTuner();
+					poolTuner.register(featureWorkerPool);
+					poolTuner.register(dbWorkerPool);
+					poolTuner.register(tmpXlinkPool);
+					poolTuner.start();
+				}
+
 				// ok, preparation done. inform user and start parsing the input file
 				CityGMLReader reader = null;
+				InputStream stream = null;
 				try {
-					reader = in.createFilteredCityGMLReader(in.createCityGMLReader(file), inputFilter);	
+					if (chunkWeigher != null) {
+						// the weigher has to see the bytes consumed by the parser
+						stream = chunkWeigher.wrap(new BufferedInputStream(new FileInputStream(file)));
+						reader = in.createFilteredCityGMLReader(in.createCityGMLReader(file.toURI().toString(), stream), inputFilter);
+					} else
+						reader = in.createFilteredCityGMLReader(in.createCityGMLReader(file), inputFilter);	
+
 					LOG.info("Importing file: " + file.toString());						
 
 					while (shouldRun && reader.hasNext()) {
@@ -444,23 +541,50 @@ public class Importer implements EventHandler {
 					}					
 				} catch (CityGMLReadException e) {
 					LOG.error("Fatal CityGML parser error: " + e.getCause().getMessage());
+					if (stream != null) {
+						try {
+							stream.close();
+						} catch (IOException ioE) {
+							//
+						}
+					}
+
+					continue;
+				} catch (IOException e) {
+					LOG.error("Failed to open input file: " + e.getMessage());
 					continue;
 				}
 
 				// we are done with parsing. so shutdown the workers
 				// xlink pool is not shutdown because we need it afterwards
+				if (poolTuner != null) {
+					poolTuner.stop();
+					poolTuner = null;
+				}
+
 				try {
 					featureWorkerPool.shutdownAndWait();
 				} catch (InterruptedException ie) {
 					//
 				}
 
+				if (spatialSorter != null && shouldRun)
+					spatialSorter.flush();
+
 				try {
 					reader.close();
 				} catch (CityGMLReadException e) {
 					//
 				}
 
+				if (stream != null) {
+					try {
+						stream.close();
+					} catch (IOException e) {
+						//
+					}
+				}
+
 				try {
 					dbWorkerPool.shutdownAndWait();
 					tmpXlinkPool.join();
@@ -471,30 +595,75 @@ public class Importer implements EventHandler {
 				if (shouldRun) {
 					runState = XLINK_RESOLVING;
 
+					// prefetched file contents waiting for their upload are bounded by
+					// a byte budget which is part of the global memory budget if available
+					long prefetchSize = Math.min(64L << 20, Runtime.getRuntime().maxMemory() / 8);
+					MemoryBudget prefetchBudget = memoryBudget != null ?
+							new MemoryBudget(memoryBudget, Math.min(prefetchSize, memoryBudget.getCapacity() / 4)) :
+								new MemoryBudget(prefetchSize);
+
+					WorkWeigher<DBXlink> resolverWeigher = new WorkWeigher<DBXlink>() {
+						public long weigh(DBXlink work) {
+							if (work instanceof DBXlinkTextureFile && ((DBXlinkTextureFile)work).isSetContent())
+								return ((DBXlinkTextureFile)work).getContent().length + 256;
+							else if (work instanceof DBXlinkLibraryObject && ((DBXlinkLibraryObject)work).isSetContent())
+								return ((DBXlinkLibraryObject)work).getContent().length + 256;
+
+							return 256;
+						}
+					};
+
 					// get an xlink resolver pool
 					LOG.info("Resolving XLink references.");
 					xlinkResolverPool = new WorkerPool<DBXlink>(
 							"xlink_resolver_pool",
-							minThreads,
-							maxThreads,
+							resolverPool.getMinThreads(),
+							resolverPool.getMaxThreads(),
 							PoolSizeAdaptationStrategy.AGGRESSIVE,
 							new DBImportXlinkResolverWorkerFactory(dbPool, 
 									tmpXlinkPool, 
 									lookupServerManager, 
 									cacheManager, 
 									importFilter,
+									batchSizeController,
+									textureImageDeduplicator,
 									config, 
 									eventDispatcher),
-									queueSize,
-									false);
+									Math.max(queueSize, 10000),
+									false,
+									true,
+									resolverWeigher,
+									prefetchBudget);
 					
 					// prestart its workers
 					xlinkResolverPool.prestartCoreWorkers();
 
+					// texture images and library objects are read ahead of their upload
+					prefetchPool = new WorkerPool<DBXlink>(
+							"xlink_prefetch_pool",
+							minPrefetchThreads,
+							maxPrefetchThreads,
+							PoolSizeAdaptationStrategy.AGGRESSIVE,
+							new DBImportXlinkPrefetchWorkerFactory(xlinkResolverPool, 
+									prefetchBudget.getCapacity(),
+									config),
+									queueSize,
+									false);
+
+					prefetchPool.prestartCoreWorkers();
+
+					if (threadPool.isSetUseAutoTuning()) {
+						poolTuner = new WorkerPoolTuner();
+						poolTuner.register(xlinkResolverPool);
+						poolTuner.register(tmpXlinkPool);
+						poolTuner.start();
+					}
+
 					// we also need a splitter which extracts the data from the temp tables
 					tmpSplitter = new DBXlinkSplitter(cacheManager, 
 							xlinkResolverPool, 
 							tmpXlinkPool,
+							prefetchPool,
 							eventDispatcher);
 
 					// resolve xlinks
@@ -506,12 +675,21 @@ public class Importer implements EventHandler {
 					}
 
 					// shutdown worker pools
+					if (poolTuner != null) {
+						poolTuner.stop();
+						poolTuner = null;
+					}
+
 					try {
+						prefetchPool.shutdownAndWait();
 						xlinkResolverPool.shutdownAndWait();
 						tmpXlinkPool.shutdownAndWait();
 					} catch (InterruptedException iE) {
 						//
 					}
+
+					if (shouldRun && textureImageDeduplicator.getDuplicateCount() > 0)
+						copyDuplicateTextureImages(textureImageDeduplicator);
 				} else {
 					// at least shutdown tmp xlink pool
 					try {
@@ -552,6 +730,11 @@ public class Importer implements EventHandler {
 				xmlValidationErrorCounter = 0;
 			} finally {
 				// clean up
+				if (poolTuner != null) {
+					poolTuner.stop();
+					poolTuner = null;
+				}
+
 				if (featureWorkerPool != null && !featureWorkerPool.isTerminated())
 					featureWorkerPool.shutdownNow();
 
@@ -561,6 +744,9 @@ public class Importer implements EventHandler {
 				if (tmpXlinkPool != null && !tmpXlinkPool.isTerminated())
 					tmpXlinkPool.shutdownNow();
 
+				if (prefetchPool != null && !prefetchPool.isTerminated())
+					prefetchPool.shutdownNow();
+
 				if (xlinkResolverPool != null && !xlinkResolverPool.isTerminated())
 					xlinkResolverPool.shutdownNow();
 				
@@ -580,6 +766,7 @@ public class Importer implements EventHandler {
 				dbWorkerPool = null;
 				featureWorkerPool = null;
 				xlinkResolverPool = null;
+				prefetchPool = null;
 				tmpSplitter = null;				
 			}
 		} 	
@@ -625,6 +812,9 @@ public class Importer implements EventHandler {
 			}
 		}
 
+		// report errors that have not been logged individually
+		LOG.flushErrorSummaries();
+
 		// show imported features
 		if (!featureCounterMap.isEmpty()) {
 			LOG.info("Imported CityGML features:");
@@ -639,9 +829,48 @@ public class Importer implements EventHandler {
 		if (geometryObjects != 0)
 			LOG.info("Processed geometry objects: " + geometryObjects);
 
+		// show batch sizes chosen by the database writers
+		batchSizeController.report();
+
 		return shouldRun;
 	}
 
+	private void copyDuplicateTextureImages(TextureImageDeduplicator textureImageDeduplicator) {
+		LOG.info("Copying " + textureImageDeduplicator.getDuplicateCount() + " duplicate texture image(s) within the database.");
+		Database database = config.getProject().getDatabase();
+		Connection connection = null;
+
+		try {
+			connection = dbPool.getConnection();
+			connection.setAutoCommit(false);
+
+			if (dbPool.getActiveDatabaseAdapter().hasVersioningSupport()) {
+				Workspace workspace = database.getWorkspaces().getImportWorkspace();
+				dbPool.getActiveDatabaseAdapter().getWorkspaceManager().gotoWorkspace(connection, workspace);
+			}
+
+			textureImageDeduplicator.copyDuplicates(connection, database.getUpdateBatching().getFeatureBatchValue());
+			if (textureImageDeduplicator.getSkippedCount() > 0)
+				LOG.warn("Skipped " + textureImageDeduplicator.getSkippedCount() + " duplicate texture image(s) whose source image is missing in the database.");
+		} catch (SQLException e) {
+			LOG.error("SQL error while copying duplicate texture images: " + e.getMessage());
+			try {
+				if (connection != null)
+					connection.rollback();
+			} catch (SQLException sqlEx) {
+				//
+			}
+		} finally {
+			if (connection != null) {
+				try {
+					connection.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+		}
+	}
+
 	// react on events we are receiving via the eventDispatcher
 	@Override
 	public void handleEvent(Event e) throws Exception {
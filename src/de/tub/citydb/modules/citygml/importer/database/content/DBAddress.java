@@ -296,7 +296,7 @@ public class DBAddress implements DBImporter {
 				psAddress.setNull(9, Types.CLOB);
 
 			psAddress.addBatch();
-			if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+			if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.ADDRESS))
 				dbImporterManager.executeBatch(DBImporterEnum.ADDRESS);
 
 			// enable xlinks
@@ -56,7 +56,7 @@ public class DBAddressToBuilding implements DBImporter {
 		psAddressToBuilding.setLong(2, addressId);
 
 		psAddressToBuilding.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.ADDRESS_TO_BUILDING))
 			dbImporterManager.executeBatch(DBImporterEnum.ADDRESS_TO_BUILDING);
 	}
 	
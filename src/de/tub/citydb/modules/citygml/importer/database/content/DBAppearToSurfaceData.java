@@ -56,7 +56,7 @@ public class DBAppearToSurfaceData implements DBImporter {
 		psAppearToSurfaceData.setLong(2, appearanceId);
 
 		psAppearToSurfaceData.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.APPEAR_TO_SURFACE_DATA))
 			dbImporterManager.executeBatch(DBImporterEnum.APPEAR_TO_SURFACE_DATA);
 	}
 
@@ -159,7 +159,7 @@ public class DBAppearance implements DBImporter {
 		}
 
 		psAppearance.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.APPEARANCE))
 			dbImporterManager.executeBatch(DBImporterEnum.APPEARANCE);
 
 		// surfaceData members
@@ -538,7 +538,7 @@ public class DBBuilding implements DBImporter {
 		}
 
 		psBuilding.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.BUILDING))
 			dbImporterManager.executeBatch(DBImporterEnum.BUILDING);
 
 		// BoundarySurfaces
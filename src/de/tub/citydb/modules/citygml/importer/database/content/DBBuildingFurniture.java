@@ -217,7 +217,7 @@ public class DBBuildingFurniture implements DBImporter {
 			psBuildingFurniture.setNull(12, Types.VARCHAR);
 
 		psBuildingFurniture.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.BUILDING_FURNITURE))
 			dbImporterManager.executeBatch(DBImporterEnum.BUILDING_FURNITURE);
 		
 		// insert local appearance
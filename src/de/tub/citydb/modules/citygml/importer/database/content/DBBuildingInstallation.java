@@ -207,7 +207,7 @@ public class DBBuildingInstallation implements DBImporter {
 		}
 
 		psBuildingInstallation.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.BUILDING_INSTALLATION))
 			dbImporterManager.executeBatch(DBImporterEnum.BUILDING_INSTALLATION);
 		
 		// insert local appearance
@@ -326,7 +326,7 @@ public class DBBuildingInstallation implements DBImporter {
 			psBuildingInstallation.setNull(13, 0);
 		
 		psBuildingInstallation.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.BUILDING_INSTALLATION))
 			dbImporterManager.executeBatch(DBImporterEnum.BUILDING_INSTALLATION);
 		
 		// insert local appearance
@@ -402,7 +402,7 @@ public class DBCityFurniture implements DBImporter {
 		}
 
 		psCityFurniture.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.CITY_FURNITURE))
 			dbImporterManager.executeBatch(DBImporterEnum.CITY_FURNITURE);
 
 		// insert local appearance
@@ -292,7 +292,7 @@ public class DBCityObject implements DBImporter {
 		}
 
 		psCityObject.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.CITYOBJECT))
 			dbImporterManager.executeBatch(DBImporterEnum.CITYOBJECT);
 
 		// genericAttributes
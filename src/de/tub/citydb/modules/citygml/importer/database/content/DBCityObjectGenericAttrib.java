@@ -153,7 +153,7 @@ public class DBCityObjectGenericAttrib implements DBImporter {
 		psGenericAttribute.setLong(9, cityObjectId);
 
 		psGenericAttribute.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.CITYOBJECT_GENERICATTRIB))
 			dbImporterManager.executeBatch(DBImporterEnum.CITYOBJECT_GENERICATTRIB);
 	}
 
@@ -174,7 +174,7 @@ public class DBCityObjectGenericAttrib implements DBImporter {
 		psGenericAttribute.setObject(8, obj);
 		
 		psGenericAttribute.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.CITYOBJECT_GENERICATTRIB))
 			dbImporterManager.executeBatch(DBImporterEnum.CITYOBJECT_GENERICATTRIB);
 	}
 
@@ -178,7 +178,7 @@ public class DBCityObjectGroup implements DBImporter {
 		psCityObjectGroup.setNull(9, 0);
 
 		psCityObjectGroup.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.CITYOBJECTGROUP))
 			dbImporterManager.executeBatch(DBImporterEnum.CITYOBJECTGROUP);		
 
 		// group parent
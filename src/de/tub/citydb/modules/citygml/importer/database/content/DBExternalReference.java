@@ -93,7 +93,7 @@ public class DBExternalReference implements DBImporter {
 		psExternalReference.setLong(4, cityObjectId);
 
 		psExternalReference.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.EXTERNAL_REFERENCE))
 			dbImporterManager.executeBatch(DBImporterEnum.EXTERNAL_REFERENCE);
 	}
 
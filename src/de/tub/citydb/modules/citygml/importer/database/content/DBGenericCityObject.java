@@ -459,7 +459,7 @@ public class DBGenericCityObject implements DBImporter {
 		}
 
 		psGenericCityObject.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.GENERIC_CITYOBJECT))
 			dbImporterManager.executeBatch(DBImporterEnum.GENERIC_CITYOBJECT);
 
 		// insert local appearance
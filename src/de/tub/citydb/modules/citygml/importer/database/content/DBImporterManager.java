@@ -59,6 +59,7 @@ import de.tub.citydb.modules.citygml.common.database.gmlid.GmlIdEntry;
 import de.tub.citydb.modules.citygml.common.database.gmlid.GmlIdLookupServer;
 import de.tub.citydb.modules.citygml.common.database.xlink.DBXlink;
 import de.tub.citydb.modules.citygml.importer.util.AffineTransformer;
+import de.tub.citydb.modules.citygml.importer.util.BatchSizeController;
 import de.tub.citydb.modules.citygml.importer.util.LocalTextureCoordinatesResolver;
 
 public class DBImporterManager {
@@ -67,6 +68,7 @@ public class DBImporterManager {
 	private final JAXBBuilder jaxbBuilder;
 	private final WorkerPool<DBXlink> tmpXlinkPool;
 	private final DBGmlIdLookupServerManager lookupServerManager;
+	private final BatchSizeController batchSizeController;
 	private final EventDispatcher eventDipatcher;
 	private final Config config;
 
@@ -87,6 +89,7 @@ public class DBImporterManager {
 			Config config,
 			WorkerPool<DBXlink> tmpXlinkPool,
 			DBGmlIdLookupServerManager lookupServerManager,
+			BatchSizeController batchSizeController,
 			EventDispatcher eventDipatcher) throws SQLException {
 		this.batchConn = batchConn;
 		this.databaseAdapter = databaseAdapter;
@@ -94,6 +97,7 @@ public class DBImporterManager {
 		this.config = config;
 		this.lookupServerManager = lookupServerManager;
 		this.tmpXlinkPool = tmpXlinkPool;
+		this.batchSizeController = batchSizeController;
 		this.eventDipatcher = eventDipatcher;
 
 		dbImporterMap = new HashMap<DBImporterEnum, DBImporter>();
@@ -118,6 +122,8 @@ public class DBImporterManager {
 		DBImporter dbImporter = dbImporterMap.get(dbImporterType);
 
 		if (dbImporter == null) {
+			Connection batchConn = batchSizeController.getConnection(this.batchConn, dbImporterType.name());
+
 			// initialize DBImporter
 			switch (dbImporterType) {
 			case SURFACE_GEOMETRY:
@@ -208,7 +214,7 @@ public class DBImporterManager {
 				dbImporter = new DBReliefFeature(batchConn, this);
 				break;
 			case RELIEF_COMPONENT:
-				dbImporter = new DBReliefComponent(batchConn, this);
+				dbImporter = new DBReliefComponent(batchConn, config, this);
 				break;
 			case RELIEF_FEAT_TO_REL_COMP:
 				dbImporter = new DBReliefFeatToRelComp(batchConn, this);
@@ -368,6 +374,10 @@ public class DBImporterManager {
 		}
 	}
 	
+	public int getBatchSize(DBImporterEnum type) {
+		return batchSizeController.getBatchSize(type.name());
+	}
+
 	public AbstractDatabaseAdapter getDatabaseAdapter() {
 		return databaseAdapter;
 	}
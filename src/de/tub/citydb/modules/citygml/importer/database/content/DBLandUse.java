@@ -215,7 +215,7 @@ public class DBLandUse implements DBImporter {
 		}
 
 		psLandUse.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.LAND_USE))
 			dbImporterManager.executeBatch(DBImporterEnum.LAND_USE);
 
 		// insert local appearance
@@ -225,7 +225,7 @@ public class DBOpening implements DBImporter {
 		}
 
 		psOpening.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.OPENING))
 			dbImporterManager.executeBatch(DBImporterEnum.OPENING);
 
 		openingToThemSurfaceImporter.insert(openingId, parentId);
@@ -56,7 +56,7 @@ public class DBOpeningToThemSurface implements DBImporter {
         psOpeningToThemSurface.setLong(2, thematicSurfaceId);
 
         psOpeningToThemSurface.addBatch();
-        if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+        if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.OPENING_TO_THEM_SURFACE))
 			dbImporterManager.executeBatch(DBImporterEnum.OPENING_TO_THEM_SURFACE);
 	}
 
@@ -295,7 +295,7 @@ public class DBPlantCover implements DBImporter {
 		}
 
 		psPlantCover.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.PLANT_COVER))
 			dbImporterManager.executeBatch(DBImporterEnum.PLANT_COVER);
 		
 		// insert local appearance
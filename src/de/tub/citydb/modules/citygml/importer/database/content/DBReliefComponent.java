@@ -33,6 +33,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.citygml4j.model.citygml.CityGMLClass;
 import org.citygml4j.model.citygml.relief.AbstractReliefComponent;
@@ -41,23 +44,33 @@ import org.citygml4j.model.citygml.relief.MassPointRelief;
 import org.citygml4j.model.citygml.relief.TINRelief;
 import org.citygml4j.model.citygml.relief.TinProperty;
 import org.citygml4j.model.gml.GMLClass;
+import org.citygml4j.model.gml.geometry.primitives.DirectPositionList;
+import org.citygml4j.model.gml.geometry.primitives.Exterior;
+import org.citygml4j.model.gml.geometry.primitives.LinearRing;
 import org.citygml4j.model.gml.geometry.primitives.Tin;
+import org.citygml4j.model.gml.geometry.primitives.Triangle;
+import org.citygml4j.model.gml.geometry.primitives.TrianglePatchArrayProperty;
 import org.citygml4j.model.gml.geometry.primitives.TriangulatedSurface;
 
 import de.tub.citydb.api.geometry.GeometryObject;
+import de.tub.citydb.config.Config;
+import de.tub.citydb.config.project.importer.TinDecimation;
 import de.tub.citydb.log.Logger;
+import de.tub.citydb.modules.citygml.importer.util.TinDecimator;
 import de.tub.citydb.util.Util;
 
 public class DBReliefComponent implements DBImporter {
 	private final Logger LOG = Logger.getInstance();
 
 	private final Connection batchConn;
+	private final Config config;
 	private final DBImporterManager dbImporterManager;
 
 	private PreparedStatement psReliefComponent;
 	private PreparedStatement psTinRelief;
 	private PreparedStatement psMassPointRelief;
 	private PreparedStatement psBreaklineRelief;
+	private PreparedStatement psTinReliefLod;
 	private DBCityObject cityObjectImporter;
 	private DBReliefFeatToRelComp reliefFeatToRelComp;
 	private DBSurfaceGeometry surfaceGeometryImporter;
@@ -66,9 +79,11 @@ public class DBReliefComponent implements DBImporter {
 	private int batchCounter;
 	private int nullGeometryType;
 	private String nullGeometryTypeName;
+	private List<Double> tolerances;
 
-	public DBReliefComponent(Connection batchConn, DBImporterManager dbImporterManager) throws SQLException {
+	public DBReliefComponent(Connection batchConn, Config config, DBImporterManager dbImporterManager) throws SQLException {
 		this.batchConn = batchConn;
+		this.config = config;
 		this.dbImporterManager = dbImporterManager;
 
 		init();
@@ -83,6 +98,13 @@ public class DBReliefComponent implements DBImporter {
 		psMassPointRelief = batchConn.prepareStatement("insert into MASSPOINT_RELIEF (ID, RELIEF_POINTS) values (?, ?)");
 		psBreaklineRelief = batchConn.prepareStatement("insert into BREAKLINE_RELIEF (ID, RIDGE_OR_VALLEY_LINES, BREAK_LINES) values (?, ?, ?)");
 
+		TinDecimation tinDecimation = config.getProject().getImporter().getTinDecimation();
+		if (tinDecimation.isSet() && !tinDecimation.getTolerances().isEmpty()) {
+			tolerances = new ArrayList<Double>(tinDecimation.getTolerances());
+			Collections.sort(tolerances);
+			psTinReliefLod = batchConn.prepareStatement("insert into TIN_RELIEF_LOD (TIN_RELIEF_ID, LOD_LEVEL, TOLERANCE, SURFACE_GEOMETRY_ID) values (?, ?, ?, ?)");
+		}
+
 		surfaceGeometryImporter = (DBSurfaceGeometry)dbImporterManager.getDBImporter(DBImporterEnum.SURFACE_GEOMETRY);
 		cityObjectImporter = (DBCityObject)dbImporterManager.getDBImporter(DBImporterEnum.CITYOBJECT);
 		reliefFeatToRelComp = (DBReliefFeatToRelComp)dbImporterManager.getDBImporter(DBImporterEnum.RELIEF_FEAT_TO_REL_COMP);
@@ -139,7 +161,7 @@ public class DBReliefComponent implements DBImporter {
 			psReliefComponent.setNull(6, nullGeometryType, nullGeometryTypeName);
 
 		psReliefComponent.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.RELIEF_COMPONENT))
 			dbImporterManager.executeBatch(DBImporterEnum.RELIEF_COMPONENT);
 
 		// fill sub-tables according to relief component type
@@ -153,6 +175,7 @@ public class DBReliefComponent implements DBImporter {
 			GeometryObject stopLines, breakLines, controlPoints;
 			stopLines = breakLines = controlPoints = null;
 			long geometryId = 0;
+			List<double[]> triangles = null;
 
 			// gml:TriangulatedSurface
 			if (tinRelief.isSetTin()) {
@@ -160,6 +183,10 @@ public class DBReliefComponent implements DBImporter {
 				TriangulatedSurface triangulatedSurface = tinProperty.getObject();
 				
 				if (triangulatedSurface != null) {
+					// the triangles have to be collected before the surface is imported 
+					if (tolerances != null)
+						triangles = getTriangles(triangulatedSurface);
+
 					geometryId = surfaceGeometryImporter.insert(triangulatedSurface, reliefComponentId);
 
 					// gml:Tin
@@ -228,6 +255,10 @@ public class DBReliefComponent implements DBImporter {
 				psTinRelief.setNull(6, 0);
 
 			psTinRelief.addBatch();
+
+			// decimated levels of detail
+			if (geometryId != 0 && triangles != null && !triangles.isEmpty())
+				insertDecimatedLevels(triangles, reliefComponentId);
 		}
 
 		else if (reliefComponent.getCityGMLClass() == CityGMLClass.MASSPOINT_RELIEF) {
@@ -295,10 +326,83 @@ public class DBReliefComponent implements DBImporter {
 		return reliefComponentId;
 	}
 
+	private void insertDecimatedLevels(List<double[]> triangles, long reliefComponentId) throws SQLException {
+		TinDecimator decimator = new TinDecimator(triangles);
+		int triangleCount = decimator.getTriangleCount();
+		int level = 0;
+
+		for (Double tolerance : tolerances) {
+			List<double[]> decimated = decimator.decimate(tolerance);
+
+			// skip levels that do not further reduce the surface
+			if (decimated.isEmpty() || decimated.size() >= triangleCount)
+				continue;
+
+			triangleCount = decimated.size();
+			TrianglePatchArrayProperty arrayProperty = new TrianglePatchArrayProperty();
+			for (double[] coords : decimated) {
+				List<Double> values = new ArrayList<Double>(12);
+				for (int i = 0; i < 12; i++)
+					values.add(coords[i % 9]);
+
+				DirectPositionList directPositionList = new DirectPositionList();
+				directPositionList.setValue(values);
+				directPositionList.setSrsDimension(3);
+
+				LinearRing linearRing = new LinearRing();
+				linearRing.setPosList(directPositionList);
+
+				Triangle triangle = new Triangle();
+				triangle.setExterior(new Exterior(linearRing));
+				arrayProperty.addTriangle(triangle);
+			}
+
+			TriangulatedSurface surface = new TriangulatedSurface();
+			surface.setTrianglePatches(arrayProperty);
+
+			long geometryId = surfaceGeometryImporter.insert(surface, reliefComponentId);
+			if (geometryId == 0)
+				continue;
+
+			psTinReliefLod.setLong(1, reliefComponentId);
+			psTinReliefLod.setInt(2, ++level);
+			psTinReliefLod.setDouble(3, tolerance);
+			psTinReliefLod.setLong(4, geometryId);
+			psTinReliefLod.addBatch();
+		}
+	}
+
+	private List<double[]> getTriangles(TriangulatedSurface triangulatedSurface) {
+		List<double[]> triangles = new ArrayList<double[]>();
+
+		if (triangulatedSurface.isSetTrianglePatches()) {
+			TrianglePatchArrayProperty arrayProperty = triangulatedSurface.getTrianglePatches();
+			if (arrayProperty.isSetTriangle()) {
+				for (Triangle trianglePatch : arrayProperty.getTriangle()) {
+					if (trianglePatch.isSetExterior() && trianglePatch.getExterior().getRing() instanceof LinearRing) {
+						List<Double> points = ((LinearRing)trianglePatch.getExterior().getRing()).toList3d();
+						if (points.size() < 9)
+							continue;
+
+						double[] triangle = new double[9];
+						for (int i = 0; i < 9; i++)
+							triangle[i] = points.get(i);
+
+						triangles.add(triangle);
+					}
+				}
+			}
+		}
+
+		return triangles;
+	}
+
 	@Override
 	public void executeBatch() throws SQLException {
 		psReliefComponent.executeBatch();
 		psTinRelief.executeBatch();
+		if (psTinReliefLod != null)
+			psTinReliefLod.executeBatch();
 		psMassPointRelief.executeBatch();
 		psBreaklineRelief.executeBatch();		
 		batchCounter = 0;
@@ -310,6 +414,8 @@ public class DBReliefComponent implements DBImporter {
 		psTinRelief.close();
 		psMassPointRelief.close();
 		psBreaklineRelief.close();
+		if (psTinReliefLod != null)
+			psTinReliefLod.close();
 	}
 
 	@Override
@@ -57,7 +57,7 @@ public class DBReliefFeatToRelComp implements DBImporter {
 		psReliefFeatToRelComp.setLong(2, reliefFeatureId);
 
 		psReliefFeatToRelComp.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.RELIEF_FEAT_TO_REL_COMP))
 			dbImporterManager.executeBatch(DBImporterEnum.RELIEF_FEAT_TO_REL_COMP);
 	}
 	
@@ -123,7 +123,7 @@ public class DBReliefFeature implements DBImporter {
 		psReliefFeature.setInt(5, reliefFeature.getLod());
 
 		psReliefFeature.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.RELIEF_FEATURE))
 			dbImporterManager.executeBatch(DBImporterEnum.RELIEF_FEATURE);
 
 		// relief component
@@ -209,7 +209,7 @@ public class DBRoom implements DBImporter {
 			psRoom.setNull(9, 0);
 
 		psRoom.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.ROOM))
 			dbImporterManager.executeBatch(DBImporterEnum.ROOM);
 
 		// BoundarySurfaces
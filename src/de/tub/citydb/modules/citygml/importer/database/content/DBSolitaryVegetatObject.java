@@ -368,7 +368,7 @@ public class DBSolitaryVegetatObject implements DBImporter {
  		}
 
 		psSolitVegObject.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.SOLITARY_VEGETAT_OBJECT))
 			dbImporterManager.executeBatch(DBImporterEnum.SOLITARY_VEGETAT_OBJECT);
 		
 		// insert local appearance
@@ -264,7 +264,7 @@ public class DBSurfaceData implements DBImporter {
 				psSurfaceData.setInt(14, 0);
 
 			psSurfaceData.addBatch();
-			if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+			if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.SURFACE_DATA))
 				dbImporterManager.executeBatch(DBImporterEnum.SURFACE_DATA);
 
 			if (material.isSetTarget()) {
@@ -337,7 +337,7 @@ public class DBSurfaceData implements DBImporter {
 			// ParameterizedTexture
 			if (abstractSurfData.getCityGMLClass() == CityGMLClass.PARAMETERIZED_TEXTURE) {
 				psSurfaceData.addBatch();
-				if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+				if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.SURFACE_DATA))
 					dbImporterManager.executeBatch(DBImporterEnum.SURFACE_DATA);
 
 				ParameterizedTexture paraTex = (ParameterizedTexture)abstractSurfData;
@@ -586,7 +586,7 @@ public class DBSurfaceData implements DBImporter {
 				}
 
 				psSurfaceData.addBatch();
-				if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+				if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.SURFACE_DATA))
 					dbImporterManager.executeBatch(DBImporterEnum.SURFACE_DATA);
 
 				if (geoTex.isSetTarget()) {
@@ -1219,7 +1219,7 @@ public class DBSurfaceGeometry implements DBImporter {
 	private void addBatch() throws SQLException {
 		psGeomElem.addBatch();
 
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize()) {
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.SURFACE_GEOMETRY)) {
 			psGeomElem.executeBatch();
 			batchCounter = 0;
 		}
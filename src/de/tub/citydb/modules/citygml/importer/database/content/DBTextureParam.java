@@ -121,7 +121,7 @@ public class DBTextureParam implements DBImporter {
 	
 	private void addBatch() throws SQLException {
 		psTextureParam.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.TEXTURE_PARAM))
 			dbImporterManager.executeBatch(DBImporterEnum.TEXTURE_PARAM);		
 	}
 
@@ -195,7 +195,7 @@ public class DBThematicSurface implements DBImporter {
 		}
 
 		psThematicSurface.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.THEMATIC_SURFACE))
 			dbImporterManager.executeBatch(DBImporterEnum.THEMATIC_SURFACE);
 
 		// Openings
@@ -194,7 +194,7 @@ public class DBTrafficArea implements DBImporter {
         psTrafficArea.setLong(12, parentId);
 
         psTrafficArea.addBatch();
-        if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+        if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.TRAFFIC_AREA))
 			dbImporterManager.executeBatch(DBImporterEnum.TRAFFIC_AREA);
         
 		// insert local appearance
@@ -322,7 +322,7 @@ public class DBTrafficArea implements DBImporter {
         psTrafficArea.setLong(12, parentId);
 
         psTrafficArea.addBatch();
-        if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+        if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.TRAFFIC_AREA))
 			dbImporterManager.executeBatch(DBImporterEnum.TRAFFIC_AREA);
         
 		// insert local appearance
@@ -298,7 +298,7 @@ public class DBTransportationComplex implements DBImporter {
         	psTransComplex.setNull(12, nullGeometryType, nullGeometryTypeName);
         
         psTransComplex.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.TRANSPORTATION_COMPLEX))
 			dbImporterManager.executeBatch(DBImporterEnum.TRANSPORTATION_COMPLEX);
 		        
         // AuxiliaryTrafficArea
@@ -56,7 +56,7 @@ public class DBWaterBodToWaterBndSrf implements DBImporter {
 		psWaterBodToWaterBndSrf.setLong(2, waterBodyId);
 
 		psWaterBodToWaterBndSrf.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.WATERBOD_TO_WATERBND_SRF))
 			dbImporterManager.executeBatch(DBImporterEnum.WATERBOD_TO_WATERBND_SRF);
 	}
 
@@ -320,7 +320,7 @@ public class DBWaterBody implements DBImporter {
 		}
 		
 		psWaterBody.addBatch();
-		if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.WATERBODY))
 			dbImporterManager.executeBatch(DBImporterEnum.WATERBODY);
 
 		// boundary surfaces
@@ -177,7 +177,7 @@ public class DBWaterBoundarySurface implements DBImporter {
         }
 
         psWaterBoundarySurface.addBatch();
-        if (++batchCounter == dbImporterManager.getDatabaseAdapter().getMaxBatchSize())
+        if (++batchCounter >= dbImporterManager.getBatchSize(DBImporterEnum.WATERBOUNDARY_SURFACE))
 			dbImporterManager.executeBatch(DBImporterEnum.WATERBOUNDARY_SURFACE);
 
         // boundary surface to waterBody
@@ -50,7 +50,7 @@ public class DBXlinkImporterBasic implements DBXlinkImporter {
 	}
 
 	private void init() throws SQLException {
-		psXlink = tempTable.getConnection().prepareStatement("insert into " + tempTable.getTableName() + 
+		psXlink = xlinkImporterManager.getConnection(tempTable, DBXlinkImporterEnum.XLINK_BASIC).prepareStatement("insert into " + tempTable.getTableName() + 
 			" (ID, FROM_TABLE, GMLID, TO_TABLE, ATTRNAME) values " +
 			"(?, ?, ?, ?, ?)");
 	}
@@ -67,7 +67,7 @@ public class DBXlinkImporterBasic implements DBXlinkImporter {
 			psXlink.setNull(5, Types.VARCHAR);
 
 		psXlink.addBatch();
-		if (++batchCounter == xlinkImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= xlinkImporterManager.getBatchSize(DBXlinkImporterEnum.XLINK_BASIC))
 			executeBatch();
 
 		return true;
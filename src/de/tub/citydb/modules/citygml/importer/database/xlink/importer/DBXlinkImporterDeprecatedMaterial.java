@@ -49,7 +49,7 @@ public class DBXlinkImporterDeprecatedMaterial implements DBXlinkImporter {
 	}
 
 	private void init() throws SQLException {
-		psXlink = tempTable.getConnection().prepareStatement("insert into " + tempTable.getTableName() + 
+		psXlink = xlinkImporterManager.getConnection(tempTable, DBXlinkImporterEnum.XLINK_DEPRECATED_MATERIAL).prepareStatement("insert into " + tempTable.getTableName() + 
 			" (ID, GMLID, SURFACE_GEOMETRY_ID) values " +
 			"(?, ?, ?)");
 	}
@@ -60,7 +60,7 @@ public class DBXlinkImporterDeprecatedMaterial implements DBXlinkImporter {
 		psXlink.setLong(3, xlinkEntry.getSurfaceGeometryId());
 
 		psXlink.addBatch();
-		if (++batchCounter == xlinkImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= xlinkImporterManager.getBatchSize(DBXlinkImporterEnum.XLINK_DEPRECATED_MATERIAL))
 			executeBatch();
 
 		return true;
@@ -49,7 +49,7 @@ public class DBXlinkImporterGroupToCityObject implements DBXlinkImporter {
 	}
 	
 	private void init() throws SQLException {
-		psXlink = tempTable.getConnection().prepareStatement("insert into " + tempTable.getTableName() + 
+		psXlink = xlinkImporterManager.getConnection(tempTable, DBXlinkImporterEnum.GROUP_TO_CITYOBJECT).prepareStatement("insert into " + tempTable.getTableName() + 
 			" (GROUP_ID, GMLID, IS_PARENT, ROLE) values " +
 			"(?, ?, ?, ?)");
 	}
@@ -61,7 +61,7 @@ public class DBXlinkImporterGroupToCityObject implements DBXlinkImporter {
 		psXlink.setString(4, xlinkEntry.getRole());
 
 		psXlink.addBatch();
-		if (++batchCounter == xlinkImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= xlinkImporterManager.getBatchSize(DBXlinkImporterEnum.GROUP_TO_CITYOBJECT))
 			executeBatch();
 
 		return true;
@@ -49,7 +49,7 @@ public class DBXlinkImporterLibraryObject implements DBXlinkImporter {
 	}
 
 	private void init() throws SQLException {
-		psXlink = tempTable.getConnection().prepareStatement("insert into " + tempTable.getTableName() + 
+		psXlink = xlinkImporterManager.getConnection(tempTable, DBXlinkImporterEnum.LIBRARY_OBJECT).prepareStatement("insert into " + tempTable.getTableName() + 
 			" (ID, FILE_URI) values " +
 			"(?, ?)");
 	}
@@ -59,7 +59,7 @@ public class DBXlinkImporterLibraryObject implements DBXlinkImporter {
 		psXlink.setString(2, xlinkEntry.getFileURI());
 
 		psXlink.addBatch();
-		if (++batchCounter == xlinkImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= xlinkImporterManager.getBatchSize(DBXlinkImporterEnum.LIBRARY_OBJECT))
 			executeBatch();
 
 		return true;
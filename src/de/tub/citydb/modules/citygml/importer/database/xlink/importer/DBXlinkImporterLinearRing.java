@@ -49,7 +49,7 @@ public class DBXlinkImporterLinearRing implements DBXlinkImporter {
 	}
 
 	private void init() throws SQLException {
-		psLinearRing = tempTable.getConnection().prepareStatement("insert into " + tempTable.getTableName() + 
+		psLinearRing = xlinkImporterManager.getConnection(tempTable, DBXlinkImporterEnum.LINEAR_RING).prepareStatement("insert into " + tempTable.getTableName() + 
 			" (GMLID, PARENT_ID, RING_NO, REVERSE) values " +
 			"(?, ?, ?, ?)");
 	}
@@ -61,7 +61,7 @@ public class DBXlinkImporterLinearRing implements DBXlinkImporter {
 		psLinearRing.setInt(4, xlinkEntry.isReverse() ? 1 : 0);
 
 		psLinearRing.addBatch();
-		if (++batchCounter == xlinkImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= xlinkImporterManager.getBatchSize(DBXlinkImporterEnum.LINEAR_RING))
 			executeBatch();
 
 		return true;
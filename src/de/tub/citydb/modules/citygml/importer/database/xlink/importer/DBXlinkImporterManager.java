@@ -29,6 +29,7 @@
  */
 package de.tub.citydb.modules.citygml.importer.database.xlink.importer;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.HashMap;
 
@@ -38,16 +39,19 @@ import de.tub.citydb.database.adapter.AbstractDatabaseAdapter;
 import de.tub.citydb.modules.citygml.common.database.cache.CacheManager;
 import de.tub.citydb.modules.citygml.common.database.cache.CacheTable;
 import de.tub.citydb.modules.citygml.common.database.cache.model.CacheTableModelEnum;
+import de.tub.citydb.modules.citygml.importer.util.BatchSizeController;
 
 public class DBXlinkImporterManager {
 	private final CacheManager dbTempTableManager;
 	private final AbstractDatabaseAdapter databaseAdapter;
+	private final BatchSizeController batchSizeController;
 	private final EventDispatcher eventDispatcher;
 	private HashMap<DBXlinkImporterEnum, DBXlinkImporter> dbImporterMap;
 
-	public DBXlinkImporterManager(CacheManager dbTempTableManager, AbstractDatabaseAdapter databaseAdapter, EventDispatcher eventDispatcher) {
+	public DBXlinkImporterManager(CacheManager dbTempTableManager, AbstractDatabaseAdapter databaseAdapter, BatchSizeController batchSizeController, EventDispatcher eventDispatcher) {
 		this.dbTempTableManager = dbTempTableManager;
 		this.databaseAdapter = databaseAdapter;
+		this.batchSizeController = batchSizeController;
 		this.eventDispatcher = eventDispatcher;
 
 		dbImporterMap = new HashMap<DBXlinkImporterEnum, DBXlinkImporter>();
@@ -134,6 +138,14 @@ public class DBXlinkImporterManager {
 		eventDispatcher.triggerEvent(event);
 	}
 	
+	public Connection getConnection(CacheTable tempTable, DBXlinkImporterEnum type) {
+		return batchSizeController.getConnection(tempTable.getConnection(), "TMP_" + type.name());
+	}
+
+	public int getBatchSize(DBXlinkImporterEnum type) {
+		return batchSizeController.getBatchSize("TMP_" + type.name());
+	}
+
 	public AbstractDatabaseAdapter getDatabaseAdapter() {
 		return databaseAdapter;
 	}
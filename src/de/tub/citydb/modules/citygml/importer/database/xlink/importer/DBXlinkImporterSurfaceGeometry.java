@@ -49,7 +49,7 @@ public class DBXlinkImporterSurfaceGeometry implements DBXlinkImporter {
 	}
 
 	private void init() throws SQLException {
-		psXlink = tempTable.getConnection().prepareStatement("insert into " + tempTable.getTableName() + 
+		psXlink = xlinkImporterManager.getConnection(tempTable, DBXlinkImporterEnum.SURFACE_GEOMETRY).prepareStatement("insert into " + tempTable.getTableName() + 
 			" (ID, PARENT_ID, ROOT_ID, REVERSE, GMLID) values " +
 			"(?, ?, ?, ?, ?)");
 	}
@@ -62,7 +62,7 @@ public class DBXlinkImporterSurfaceGeometry implements DBXlinkImporter {
 		psXlink.setString(5, xlinkEntry.getGmlId());
 
 		psXlink.addBatch();
-		if (++batchCounter == xlinkImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= xlinkImporterManager.getBatchSize(DBXlinkImporterEnum.SURFACE_GEOMETRY))
 			executeBatch();
 		
 		return true;
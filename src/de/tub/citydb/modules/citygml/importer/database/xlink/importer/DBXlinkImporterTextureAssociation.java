@@ -49,7 +49,7 @@ public class DBXlinkImporterTextureAssociation implements DBXlinkImporter {
 	}
 
 	private void init() throws SQLException {
-		psXlink = tempTable.getConnection().prepareStatement("insert into " + tempTable.getTableName() + 
+		psXlink = xlinkImporterManager.getConnection(tempTable, DBXlinkImporterEnum.XLINK_TEXTUREASSOCIATION).prepareStatement("insert into " + tempTable.getTableName() + 
 			" (SURFACE_DATA_ID, SURFACE_GEOMETRY_ID, GMLID) values " +
 			"(?, ?, ?)");
 	}
@@ -60,7 +60,7 @@ public class DBXlinkImporterTextureAssociation implements DBXlinkImporter {
 		psXlink.setString(3, xlinkEntry.getGmlId());
 
 		psXlink.addBatch();
-		if (++batchCounter == xlinkImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= xlinkImporterManager.getBatchSize(DBXlinkImporterEnum.XLINK_TEXTUREASSOCIATION))
 			executeBatch();
 
 		return true;
@@ -49,7 +49,7 @@ public class DBXlinkImporterTextureFile implements DBXlinkImporter {
 	}
 
 	private void init() throws SQLException {
-		psXlink = tempTable.getConnection().prepareStatement("insert into " + tempTable.getTableName() + 
+		psXlink = xlinkImporterManager.getConnection(tempTable, DBXlinkImporterEnum.TEXTURE_FILE).prepareStatement("insert into " + tempTable.getTableName() + 
 			" (ID, FILE_URI, TYPE) values " +
 			"(?, ?, ?)");
 	}
@@ -60,7 +60,7 @@ public class DBXlinkImporterTextureFile implements DBXlinkImporter {
 		psXlink.setInt(3, xlinkEntry.getType().ordinal());
 
 		psXlink.addBatch();
-		if (++batchCounter == xlinkImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= xlinkImporterManager.getBatchSize(DBXlinkImporterEnum.TEXTURE_FILE))
 			executeBatch();
 
 		return true;
@@ -50,7 +50,7 @@ public class DBXlinkImporterTextureParam implements DBXlinkImporter {
 	}
 
 	private void init() throws SQLException {
-		psXlink = tempTable.getConnection().prepareStatement("insert into " + tempTable.getTableName() + 
+		psXlink = xlinkImporterManager.getConnection(tempTable, DBXlinkImporterEnum.XLINK_TEXTUREPARAM).prepareStatement("insert into " + tempTable.getTableName() + 
 			" (ID, GMLID, TYPE, IS_TEXTURE_PARAMETERIZATION, TEXPARAM_GMLID, WORLD_TO_TEXTURE, TEXTURE_COORDINATES, TARGET_URI, TEXCOORDLIST_ID) values " +
 			"(?, ?, ?, ?, ?, ?, ?, ?, ?)");
 	}
@@ -87,7 +87,7 @@ public class DBXlinkImporterTextureParam implements DBXlinkImporter {
 			psXlink.setNull(9, Types.VARCHAR);
 
 		psXlink.addBatch();
-		if (++batchCounter == xlinkImporterManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= xlinkImporterManager.getBatchSize(DBXlinkImporterEnum.XLINK_TEXTUREPARAM))
 			executeBatch();
 
 		return true;
@@ -48,6 +48,8 @@ import de.tub.citydb.modules.citygml.common.database.gmlid.GmlIdEntry;
 import de.tub.citydb.modules.citygml.common.database.xlink.DBXlink;
 import de.tub.citydb.modules.citygml.importer.database.content.DBSequencer;
 import de.tub.citydb.modules.citygml.importer.database.content.DBSequencerEnum;
+import de.tub.citydb.modules.citygml.importer.util.BatchSizeController;
+import de.tub.citydb.modules.citygml.importer.util.TextureImageDeduplicator;
 import de.tub.citydb.modules.common.filter.ImportFilter;
 
 public class DBXlinkResolverManager {
@@ -56,6 +58,8 @@ public class DBXlinkResolverManager {
 	private final WorkerPool<DBXlink> tmpXlinkPool;
 	private final CacheManager dbTempTableManager;
 	private final ImportFilter importFilter;
+	private final BatchSizeController batchSizeController;
+	private final TextureImageDeduplicator textureImageDeduplicator;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
@@ -70,6 +74,8 @@ public class DBXlinkResolverManager {
 			DBGmlIdLookupServerManager lookupServerManager,
 			CacheManager dbTempTableManager,
 			ImportFilter importFilter,
+			BatchSizeController batchSizeController,
+			TextureImageDeduplicator textureImageDeduplicator,
 			Config config,
 			EventDispatcher eventDispatcher) throws SQLException {
 		this.connection = batchConn;
@@ -77,6 +83,8 @@ public class DBXlinkResolverManager {
 		this.tmpXlinkPool = tmpXlinkPool;
 		this.dbTempTableManager = dbTempTableManager;
 		this.importFilter = importFilter;
+		this.batchSizeController = batchSizeController;
+		this.textureImageDeduplicator = textureImageDeduplicator;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 
@@ -89,6 +97,8 @@ public class DBXlinkResolverManager {
 		DBXlinkResolver dbResolver = dbWriterMap.get(dbResolverType);
 
 		if (dbResolver == null) {
+			Connection connection = batchSizeController.getConnection(this.connection, "XLINK_" + dbResolverType.name());
+
 			// initialise DBWriter
 			switch (dbResolverType) {
 			case SURFACE_GEOMETRY:
@@ -117,10 +127,11 @@ public class DBXlinkResolverManager {
 					dbResolver = new XlinkTextureAssociation(connection, texAssHeapView, this);
 				break;
 			case TEXTURE_IMAGE:
-				dbResolver = new XlinkTextureImage(connection, config, this);
+				// the database specific blob upload requires the vendor statements, so do not pass the proxy
+				dbResolver = new XlinkTextureImage(this.connection, textureImageDeduplicator, config, this);
 				break;
 			case LIBRARY_OBJECT:
-				dbResolver = new XlinkLibraryObject(connection, config, this);
+				dbResolver = new XlinkLibraryObject(this.connection, config, this);
 				break;
 			case WORLD_FILE:
 				dbResolver = new XlinkWorldFile(connection, config, this);
@@ -163,6 +174,10 @@ public class DBXlinkResolverManager {
 		eventDispatcher.triggerEvent(event);
 	}
 	
+	public int getBatchSize(DBXlinkResolverEnum type) {
+		return batchSizeController.getBatchSize("XLINK_" + type.name());
+	}
+
 	public AbstractDatabaseAdapter getDatabaseAdapter() {
 		return databaseAdapter;
 	}
@@ -61,19 +61,29 @@ public class DBXlinkSplitter {
 	private final CacheManager cacheManager;
 	private final WorkerPool<DBXlink> xlinkResolverPool;
 	private final WorkerPool<DBXlink> tmpXlinkPool;
+	private final WorkerPool<DBXlink> prefetchPool;
 	private final EventDispatcher eventDispatcher;
 	private volatile boolean shouldRun = true;
 
 	public DBXlinkSplitter(CacheManager cacheManager, 
 			WorkerPool<DBXlink> xlinkResolverPool, 
 			WorkerPool<DBXlink> tmpXlinkPool, 
+			WorkerPool<DBXlink> prefetchPool,
 			EventDispatcher eventDispatcher) {
 		this.cacheManager = cacheManager;
 		this.xlinkResolverPool = xlinkResolverPool;
 		this.tmpXlinkPool = tmpXlinkPool;
+		this.prefetchPool = prefetchPool;
 		this.eventDispatcher = eventDispatcher;
 	}
 
+	public DBXlinkSplitter(CacheManager cacheManager, 
+			WorkerPool<DBXlink> xlinkResolverPool, 
+			WorkerPool<DBXlink> tmpXlinkPool, 
+			EventDispatcher eventDispatcher) {
+		this(cacheManager, xlinkResolverPool, tmpXlinkPool, null, eventDispatcher);
+	}
+
 	public void shutdown() {
 		shouldRun = false;
 	}
@@ -91,6 +101,9 @@ public class DBXlinkSplitter {
 		// just to make sure all appearance xlinks have been handled
 		// before starting to work on geometry xlinks
 		try {
+			if (prefetchPool != null)
+				prefetchPool.join();
+
 			xlinkResolverPool.join();
 			tmpXlinkPool.join();
 		} catch (InterruptedException e) {
@@ -358,7 +371,11 @@ public class DBXlinkSplitter {
 							imageURI,
 							DBXlinkTextureFileEnum.fromInt(dataType));
 					
-					xlinkResolverPool.addWork(xlink);
+					// texture images are read ahead of the database upload
+					if (prefetchPool != null && xlink.getType() == DBXlinkTextureFileEnum.TEXTURE_IMAGE)
+						prefetchPool.addWork(xlink);
+					else
+						xlinkResolverPool.addWork(xlink);
 				}
 
 				rs.close();
@@ -367,6 +384,9 @@ public class DBXlinkSplitter {
 
 			// restart xlink worker pools
 			try {
+				if (prefetchPool != null)
+					prefetchPool.join();
+
 				xlinkResolverPool.join();
 				tmpXlinkPool.join();
 			} catch (InterruptedException e) {
@@ -454,7 +474,10 @@ public class DBXlinkSplitter {
 						id,
 						imageURI);
 				
-				xlinkResolverPool.addWork(xlink);
+				if (prefetchPool != null)
+					prefetchPool.addWork(xlink);
+				else
+					xlinkResolverPool.addWork(xlink);
 			}
 		} finally {
 			if (rs != null) {
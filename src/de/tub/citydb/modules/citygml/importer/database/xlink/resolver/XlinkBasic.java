@@ -78,7 +78,7 @@ public class XlinkBasic implements DBXlinkResolver {
 	
 			ps.addBatch();
 			int counter = psBatchCounterMap.get(key);
-			if (++counter == resolverManager.getDatabaseAdapter().getMaxBatchSize()) {
+			if (++counter >= resolverManager.getBatchSize(DBXlinkResolverEnum.BASIC)) {
 				ps.executeBatch();
 				psBatchCounterMap.put(key, 0);
 			} else
@@ -88,7 +88,7 @@ public class XlinkBasic implements DBXlinkResolver {
 		if (xlink.getToTable() == TableEnum.SURFACE_GEOMETRY) {
 			psUpdateSurfGeom.setLong(1, entry.getId());
 			psUpdateSurfGeom.addBatch();
-			if (++updateBatchCounter == resolverManager.getDatabaseAdapter().getMaxBatchSize())
+			if (++updateBatchCounter >= resolverManager.getBatchSize(DBXlinkResolverEnum.BASIC))
 				executeUpdateSurfGeomBatch();
 		}
 
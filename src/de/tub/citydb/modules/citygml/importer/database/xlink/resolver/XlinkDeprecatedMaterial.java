@@ -80,7 +80,7 @@ public class XlinkDeprecatedMaterial implements DBXlinkResolver {
 		psTextureParam.setLong(3, surfaceDataEntry.getId());
 		psTextureParam.addBatch();
 		
-		if (++batchCounter == resolverManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= resolverManager.getBatchSize(DBXlinkResolverEnum.XLINK_DEPRECATED_MATERIAL))
 			executeBatch();
 
 		return true;
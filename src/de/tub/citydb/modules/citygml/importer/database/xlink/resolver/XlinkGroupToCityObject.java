@@ -114,7 +114,7 @@ public class XlinkGroupToCityObject implements DBXlinkResolver {
 			psGroupParentToCityObject.setLong(2, xlink.getGroupId());
 			
 			psGroupParentToCityObject.addBatch();
-			if (++parentBatchCounter == resolverManager.getDatabaseAdapter().getMaxBatchSize()) {
+			if (++parentBatchCounter >= resolverManager.getBatchSize(DBXlinkResolverEnum.GROUP_TO_CITYOBJECT)) {
 				psGroupParentToCityObject.executeBatch();
 				parentBatchCounter = 0;
 			}
@@ -124,7 +124,7 @@ public class XlinkGroupToCityObject implements DBXlinkResolver {
 			psGroupMemberToCityObject.setString(3, xlink.getRole());
 
 			psGroupMemberToCityObject.addBatch();
-			if (++memberBatchCounter == resolverManager.getDatabaseAdapter().getMaxBatchSize()) {
+			if (++memberBatchCounter >= resolverManager.getBatchSize(DBXlinkResolverEnum.GROUP_TO_CITYOBJECT)) {
 				psGroupMemberToCityObject.executeBatch();
 				memberBatchCounter = 0;
 			}
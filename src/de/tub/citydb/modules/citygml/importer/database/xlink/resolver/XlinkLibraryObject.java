@@ -29,6 +29,7 @@
  */
 package de.tub.citydb.modules.citygml.importer.database.xlink.resolver;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -75,30 +76,36 @@ public class XlinkLibraryObject implements DBXlinkResolver {
 		InputStream objectStream = null;
 
 		try {
-			try {
-				URL objectURL = new URL(objectFileName);
-				objectFileName = objectURL.toString();
-				objectStream = objectURL.openStream();
-			} catch (MalformedURLException malURL) {				
-				if (replacePathSeparator)
-					objectFileName = objectFileName.replace("\\", "/");
-
-				File objectFile = new File(objectFileName);
-				if (!objectFile.isAbsolute()) {
-					objectFileName = localPath + File.separator + objectFile.getPath();
-					objectFile = new File(objectFileName);
-				}
-
-				// check minimum requirements for local library object file
-				if (!objectFile.exists() || !objectFile.isFile() || !objectFile.canRead()) {
-					LOG.error("Failed to read library object file '" + objectFileName + "'.");
-					return false;
-				} else if (objectFile.length() == 0) {
-					LOG.error("Skipping 0 byte library object file '" + objectFileName + "'.");
-					return false;
+			if (xlink.isSetContent()) {
+				// the file has already been read by a prefetch worker
+				objectStream = new ByteArrayInputStream(xlink.getContent());
+				xlink.setContent(null);
+			} else {
+				try {
+					URL objectURL = new URL(objectFileName);
+					objectFileName = objectURL.toString();
+					objectStream = objectURL.openStream();
+				} catch (MalformedURLException malURL) {				
+					if (replacePathSeparator)
+						objectFileName = objectFileName.replace("\\", "/");
+
+					File objectFile = new File(objectFileName);
+					if (!objectFile.isAbsolute()) {
+						objectFileName = localPath + File.separator + objectFile.getPath();
+						objectFile = new File(objectFileName);
+					}
+
+					// check minimum requirements for local library object file
+					if (!objectFile.exists() || !objectFile.isFile() || !objectFile.canRead()) {
+						LOG.error("Failed to read library object file '" + objectFileName + "'.");
+						return false;
+					} else if (objectFile.length() == 0) {
+						LOG.error("Skipping 0 byte library object file '" + objectFileName + "'.");
+						return false;
+					}
+
+					objectStream = new FileInputStream(objectFileName);
 				}
-
-				objectStream = new FileInputStream(objectFileName);
 			}
 
 			boolean success = false;
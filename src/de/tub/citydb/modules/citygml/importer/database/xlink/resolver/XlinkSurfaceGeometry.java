@@ -130,7 +130,7 @@ public class XlinkSurfaceGeometry implements DBXlinkResolver {
 			insert(xlinkNode, xlink.getId(), xlink.getRootId());
 			psUpdateSurfGeom.setLong(1, xlinkNode.id);
 			psUpdateSurfGeom.addBatch();
-			if (++updateBatchCounter == resolverManager.getDatabaseAdapter().getMaxBatchSize())
+			if (++updateBatchCounter >= resolverManager.getBatchSize(DBXlinkResolverEnum.SURFACE_GEOMETRY))
 				executeUpdateSurfGeomBatch();
 
 			return true;
@@ -165,7 +165,7 @@ public class XlinkSurfaceGeometry implements DBXlinkResolver {
 			psMemberElem.setObject(5, obj);
 
 			psMemberElem.addBatch();
-			if (++memberBatchCounter == resolverManager.getDatabaseAdapter().getMaxBatchSize()) {
+			if (++memberBatchCounter >= resolverManager.getBatchSize(DBXlinkResolverEnum.SURFACE_GEOMETRY)) {
 				psParentElem.executeBatch();
 				psMemberElem.executeBatch();
 				
@@ -193,7 +193,7 @@ public class XlinkSurfaceGeometry implements DBXlinkResolver {
 					resolverManager.getDatabaseAdapter().getGeometryConverter().getNullGeometryTypeName());
 
 			psParentElem.addBatch();
-			if (++parentBatchCounter == resolverManager.getDatabaseAdapter().getMaxBatchSize()) {
+			if (++parentBatchCounter >= resolverManager.getBatchSize(DBXlinkResolverEnum.SURFACE_GEOMETRY)) {
 				psParentElem.executeBatch();
 				parentBatchCounter = 0;
 			}
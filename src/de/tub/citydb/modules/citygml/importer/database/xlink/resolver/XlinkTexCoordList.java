@@ -174,7 +174,7 @@ public class XlinkTexCoordList implements DBXlinkResolver {
 			psTexCoordList.setLong(3, xlink.getId());
 
 			psTexCoordList.addBatch();
-			if (++batchCounter == resolverManager.getDatabaseAdapter().getMaxBatchSize())
+			if (++batchCounter >= resolverManager.getBatchSize(DBXlinkResolverEnum.TEXCOORDLIST))
 				executeBatch();
 
 			if (xlink.getTexParamGmlId() != null) {
@@ -139,7 +139,7 @@ public class XlinkTextureAssociation implements DBXlinkResolver {
 					}
 
 					psTextureParam.addBatch();
-					if (++batchCounter == resolverManager.getDatabaseAdapter().getMaxBatchSize())
+					if (++batchCounter >= resolverManager.getBatchSize(DBXlinkResolverEnum.XLINK_TEXTUREASSOCIATION))
 						executeBatch();
 
 				} else {
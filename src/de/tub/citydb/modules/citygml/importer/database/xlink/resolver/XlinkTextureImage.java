@@ -29,6 +29,8 @@
  */
 package de.tub.citydb.modules.citygml.importer.database.xlink.resolver;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -43,6 +45,8 @@ import de.tub.citydb.config.Config;
 import de.tub.citydb.database.adapter.TextureImageImportAdapter;
 import de.tub.citydb.log.Logger;
 import de.tub.citydb.modules.citygml.common.database.xlink.DBXlinkTextureFile;
+import de.tub.citydb.modules.citygml.common.util.TextureImageRegistry;
+import de.tub.citydb.modules.citygml.importer.util.TextureImageDeduplicator;
 import de.tub.citydb.modules.common.event.CounterEvent;
 import de.tub.citydb.modules.common.event.CounterType;
 
@@ -50,6 +54,7 @@ public class XlinkTextureImage implements DBXlinkResolver {
 	private final Logger LOG = Logger.getInstance();
 
 	private final Connection externalFileConn;
+	private final TextureImageDeduplicator deduplicator;
 	private final Config config;
 	private final DBXlinkResolverManager resolverManager;
 
@@ -58,8 +63,9 @@ public class XlinkTextureImage implements DBXlinkResolver {
 	private CounterEvent counter;
 	private boolean replacePathSeparator;
 
-	public XlinkTextureImage(Connection externalFileConn, Config config, DBXlinkResolverManager resolverManager) throws SQLException {
+	public XlinkTextureImage(Connection externalFileConn, TextureImageDeduplicator deduplicator, Config config, DBXlinkResolverManager resolverManager) throws SQLException {
 		this.externalFileConn = externalFileConn;
+		this.deduplicator = deduplicator;
 		this.config = config;
 		this.resolverManager = resolverManager;
 
@@ -75,41 +81,98 @@ public class XlinkTextureImage implements DBXlinkResolver {
 	}
 
 	public boolean insert(DBXlinkTextureFile xlink) throws SQLException {
+		return insert(xlink, true);
+	}
+
+	private boolean insert(DBXlinkTextureFile xlink, boolean deduplicate) throws SQLException {
 		String imageFileName = xlink.getFileURI();
 		InputStream imageStream = null;
+		TextureImageRegistry<Long> registry = deduplicate && deduplicator != null ? deduplicator.getRegistry() : null;
+		String hash = null;
 
 		try {
-			try {
-				URL imageURL = new URL(imageFileName);
-				imageFileName = imageURL.toString();
-				imageStream = imageURL.openStream();
-			} catch (MalformedURLException malURL) {
-				if (replacePathSeparator)
-					imageFileName = imageFileName.replace("\\", "/");
-
-				File imageFile = new File(imageFileName);
-				if (!imageFile.isAbsolute()) {
-					imageFileName = localPath + File.separator + imageFile.getPath();
-					imageFile = new File(imageFileName);
+			if (xlink.isSetContent()) {
+				// the file has already been read by a prefetch worker
+				byte[] content = xlink.getContent();
+				xlink.setContent(null);
+
+				imageStream = new ByteArrayInputStream(content);
+				if (registry != null)
+					hash = registry.digest(content);
+			} else {
+				try {
+					URL imageURL = new URL(imageFileName);
+					imageFileName = imageURL.toString();
+					imageStream = imageURL.openStream();
+
+					// remote images are buffered so that they are only downloaded once
+					if (registry != null) {
+						byte[] content = readContent(imageStream);
+						imageStream = new ByteArrayInputStream(content);
+						hash = registry.digest(content);
+					}
+				} catch (MalformedURLException malURL) {
+					if (replacePathSeparator)
+						imageFileName = imageFileName.replace("\\", "/");
+
+					File imageFile = new File(imageFileName);
+					if (!imageFile.isAbsolute()) {
+						imageFileName = localPath + File.separator + imageFile.getPath();
+						imageFile = new File(imageFileName);
+					}
+
+					// check minimum requirements for local texture files
+					if (!imageFile.exists() || !imageFile.isFile() || !imageFile.canRead()) {
+						LOG.error("Failed to read texture file '" + imageFileName + "'.");
+						return false;
+					} else if (imageFile.length() == 0) {
+						LOG.error("Skipping 0 byte texture file '" + imageFileName + "'.");
+						return false;
+					}
+
+					imageStream = new FileInputStream(imageFileName);
+
+					// local images are buffered as well so that they are only read once
+					if (registry != null) {
+						byte[] content = readContent(imageStream);
+						imageStream = new ByteArrayInputStream(content);
+						hash = registry.digest(content);
+					}
 				}
+			}
 
-				// check minimum requirements for local texture files
-				if (!imageFile.exists() || !imageFile.isFile() || !imageFile.canRead()) {
-					LOG.error("Failed to read texture file '" + imageFileName + "'.");
-					return false;
-				} else if (imageFile.length() == 0) {
-					LOG.error("Skipping 0 byte texture file '" + imageFileName + "'.");
-					return false;
+			// identical content is uploaded only once and copied 
+			// within the database after all images have been imported
+			if (hash != null) {
+				Long sourceId = registry.register(hash, xlink.getId());
+				if (sourceId != null) {
+					if (deduplicator.addDuplicate(xlink, sourceId)) {
+						LOG.debug("Texture file '" + imageFileName + "' is identical to an already imported image.");
+						resolverManager.propagateEvent(counter);
+						return true;
+					}
+
+					// the upload of the identical image has failed
+					hash = null;
 				}
-
-				imageStream = new FileInputStream(imageFileName);
 			}
 
 			boolean success = false;
-			if (imageStream != null) {
-				LOG.debug("Importing texture file: " + imageFileName);
-				success = textureImportAdapter.insert(xlink.getId(), imageStream, imageFileName);
-				resolverManager.propagateEvent(counter);
+			try {
+				if (imageStream != null) {
+					LOG.debug("Importing texture file: " + imageFileName);
+					success = textureImportAdapter.insert(xlink.getId(), imageStream, imageFileName);
+					if (deduplicate)
+						resolverManager.propagateEvent(counter);
+				}
+			} finally {
+				if (!success && hash != null) {
+					registry.unregister(hash, xlink.getId());
+
+					// duplicates of the failed image are uploaded from their own files
+					for (DBXlinkTextureFile duplicate : deduplicator.removeFailedSource(xlink.getId()))
+						insert(duplicate, false);
+				}
 			}
 
 			return success;
@@ -130,6 +193,20 @@ public class XlinkTextureImage implements DBXlinkResolver {
 		}
 	}
 
+	private byte[] readContent(InputStream stream) throws IOException {
+		try {
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = stream.read(buffer)) != -1)
+				content.write(buffer, 0, read);
+
+			return content.toByteArray();
+		} finally {
+			stream.close();
+		}
+	}
+
 	@Override
 	public void executeBatch() throws SQLException {
 		// we do not have any action here
@@ -79,7 +79,7 @@ public class XlinkTextureParam implements DBXlinkResolver {
 			psTextureParam.setNull(3, Types.VARCHAR);
 
 		psTextureParam.addBatch();
-		if (++batchCounter == resolverManager.getDatabaseAdapter().getMaxBatchSize())
+		if (++batchCounter >= resolverManager.getBatchSize(DBXlinkResolverEnum.TEXTUREPARAM))
 			executeBatch();
 
 		if (xlink.getType() == DBXlinkTextureParamEnum.TEXCOORDGEN && xlink.getTexParamGmlId() != null) {
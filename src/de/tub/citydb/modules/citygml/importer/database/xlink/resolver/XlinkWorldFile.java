@@ -137,7 +137,7 @@ public class XlinkWorldFile implements DBXlinkResolver {
 						psUpdate.setLong(3, xlink.getId());
 						
 						psUpdate.addBatch();
-						if (++batchCounter == resolverManager.getDatabaseAdapter().getMaxBatchSize())
+						if (++batchCounter >= resolverManager.getBatchSize(DBXlinkResolverEnum.WORLD_FILE))
 							executeBatch();
 
 						return true;
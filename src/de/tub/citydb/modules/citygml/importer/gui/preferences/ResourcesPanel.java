@@ -31,12 +31,15 @@ package de.tub.citydb.modules.citygml.importer.gui.preferences;
 
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.text.DecimalFormat;
 import java.text.ParseException;
 
 import javax.swing.BorderFactory;
+import javax.swing.JCheckBox;
 import javax.swing.JFormattedTextField;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -46,6 +49,7 @@ import de.tub.citydb.config.Config;
 import de.tub.citydb.config.internal.Internal;
 import de.tub.citydb.config.project.database.UpdateBatching;
 import de.tub.citydb.config.project.system.GmlIdLookupServerConfig;
+import de.tub.citydb.config.project.system.MemoryBudgetConfig;
 import de.tub.citydb.config.project.system.ThreadPoolConfig;
 import de.tub.citydb.gui.factory.PopupMenuDecorator;
 import de.tub.citydb.gui.preferences.AbstractPreferencesComponent;
@@ -60,6 +64,10 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 	private JFormattedTextField impResMinThreadsText;
 	private JLabel impResMaxThreadsLabel;
 	private JFormattedTextField impResMaxThreadsText;
+	private JCheckBox impResAutoTuningCheck;
+	private JCheckBox impResMemoryBudgetCheck;
+	private JLabel impResMemoryBudgetLabel;
+	private JFormattedTextField impResMemoryBudgetText;
 	private JLabel impResTransaktLabel;
 	private JFormattedTextField impResTransaktFeatureText;
 	private JLabel impResTransaktFeatureLabel;	
@@ -67,6 +75,7 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 	private JLabel impResTransaktCacheLabel;
 	private JFormattedTextField impResTransaktTempText;
 	private JLabel impResTransaktTempLabel;
+	private JCheckBox impResAdaptiveBatchCheck;
 	private JLabel impResGeomLabel;
 	private JFormattedTextField impResGeomCacheText;
 	private JLabel impResGeomCacheLabel;	
@@ -93,9 +102,11 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		UpdateBatching commit = config.getProject().getDatabase().getUpdateBatching();
 		GmlIdLookupServerConfig geometry = config.getProject().getImporter().getSystem().getGmlIdLookupServer().getGeometry();
 		GmlIdLookupServerConfig feature = config.getProject().getImporter().getSystem().getGmlIdLookupServer().getFeature();
+		MemoryBudgetConfig memoryBudget = config.getProject().getImporter().getSystem().getMemoryBudget();
 
 		try { impResMinThreadsText.commitEdit(); } catch (ParseException e) { }
 		try { impResMaxThreadsText.commitEdit(); } catch (ParseException e) { }
+		try { impResMemoryBudgetText.commitEdit(); } catch (ParseException e) { }
 		try { impResTransaktFeatureText.commitEdit(); } catch (ParseException e) { }
 		try { impResTransaktCacheText.commitEdit(); } catch (ParseException e) { }
 		try { impResTransaktTempText.commitEdit(); } catch (ParseException e) { }
@@ -108,9 +119,13 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		
 		if (((Number)impResMinThreadsText.getValue()).intValue() != threadPool.getMinThreads()) return true;
 		if (((Number)impResMaxThreadsText.getValue()).intValue() != threadPool.getMaxThreads()) return true;
+		if (impResAutoTuningCheck.isSelected() != config.getProject().getImporter().getSystem().getThreadPool().isSetUseAutoTuning()) return true;
+		if (impResMemoryBudgetCheck.isSelected() != memoryBudget.isSet()) return true;
+		if (((Number)impResMemoryBudgetText.getValue()).intValue() != memoryBudget.getSize()) return true;
 		if (((Number)impResTransaktFeatureText.getValue()).intValue() != commit.getFeatureBatchValue()) return true;
 		if (((Number)impResTransaktCacheText.getValue()).intValue() != commit.getGmlIdLookupServerBatchValue()) return true;
 		if (((Number)impResTransaktTempText.getValue()).intValue() != commit.getTempBatchValue()) return true;
+		if (impResAdaptiveBatchCheck.isSelected() != commit.isSetUseAdaptiveBatchSize()) return true;
 		if (((Number)impResGeomCacheText.getValue()).intValue() != geometry.getCacheSize()) return true;
 		if (((Number)impResGeomDrainText.getValue()).intValue() != (int)(geometry.getPageFactor() * 100)) return true;
 		if (((Number)impResGeomPartText.getValue()).intValue() != geometry.getPartitions()) return true;
@@ -127,10 +142,14 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		block3 = new JPanel();
 		impResMinThreadsLabel = new JLabel();
 		impResMaxThreadsLabel = new JLabel();
+		impResAutoTuningCheck = new JCheckBox();
+		impResMemoryBudgetCheck = new JCheckBox();
+		impResMemoryBudgetLabel = new JLabel();
 		impResTransaktLabel = new JLabel();
 		impResTransaktFeatureLabel = new JLabel();	
 		impResTransaktCacheLabel = new JLabel();
 		impResTransaktTempLabel = new JLabel();
+		impResAdaptiveBatchCheck = new JCheckBox();
 		impResGeomLabel = new JLabel();
 		impResGeomCacheLabel = new JLabel();	
 		impResGeomDrainLabel = new JLabel();	
@@ -162,11 +181,12 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		cacheEntryFormat.setMinimumIntegerDigits(1);		
 		impResGeomCacheText = new JFormattedTextField(cacheEntryFormat);
 		impResFeatCacheText = new JFormattedTextField(cacheEntryFormat);		
+		impResMemoryBudgetText = new JFormattedTextField(batchFormat);
 
 		PopupMenuDecorator.getInstance().decorate(impResMinThreadsText, impResMaxThreadsText,
 				impResGeomDrainText, impResFeatDrainText, impResGeomPartText, impResFeatPartText,
 				impResTransaktFeatureText, impResTransaktCacheText, impResTransaktTempText,
-				impResGeomCacheText, impResFeatCacheText);
+				impResGeomCacheText, impResFeatCacheText, impResMemoryBudgetText);
 		
 		impResMinThreadsText.addPropertyChangeListener(new PropertyChangeListener() {
 			public void propertyChange(PropertyChangeEvent evt) {
@@ -180,6 +200,18 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 			}
 		});
 		
+		impResMemoryBudgetText.addPropertyChangeListener(new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent evt) {
+				checkNonNegative(impResMemoryBudgetText, 0);
+			}
+		});
+		
+		impResMemoryBudgetCheck.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				setEnabledMemoryBudget();
+			}
+		});
+		
 		impResTransaktFeatureText.addPropertyChangeListener(new PropertyChangeListener() {
 			public void propertyChange(PropertyChangeEvent evt) {
 				checkNonNegative(impResTransaktFeatureText, 20);
@@ -243,6 +275,10 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 			block1.add(impResMinThreadsText, GuiUtil.setConstraints(1,0,1.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
 			block1.add(impResMaxThreadsLabel, GuiUtil.setConstraints(0,1,0.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
 			block1.add(impResMaxThreadsText, GuiUtil.setConstraints(1,1,1.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
+			block1.add(impResMemoryBudgetCheck, GuiUtil.setConstraints(0,2,2,1,1.0,1.0,GridBagConstraints.BOTH,0,0,5,5));
+			block1.add(impResMemoryBudgetLabel, GuiUtil.setConstraints(0,3,0.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
+			block1.add(impResMemoryBudgetText, GuiUtil.setConstraints(1,3,1.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
+			block1.add(impResAutoTuningCheck, GuiUtil.setConstraints(0,4,2,1,1.0,1.0,GridBagConstraints.BOTH,0,0,5,5));
 		}
 		add(block2, GuiUtil.setConstraints(0,1,1.0,0.0,GridBagConstraints.BOTH,5,0,5,0));
 		block2.setBorder(BorderFactory.createTitledBorder(""));
@@ -255,6 +291,7 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 			block2.add(impResTransaktCacheLabel, GuiUtil.setConstraints(2,1,0.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
 			block2.add(impResTransaktTempText, GuiUtil.setConstraints(1,2,1.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
 			block2.add(impResTransaktTempLabel, GuiUtil.setConstraints(2,2,0.0,1.0,GridBagConstraints.BOTH,0,5,5,5));
+			block2.add(impResAdaptiveBatchCheck, GuiUtil.setConstraints(0,3,3,1,1.0,1.0,GridBagConstraints.BOTH,0,0,5,5));
 		}
 		add(block3, GuiUtil.setConstraints(0,2,1.0,0.0,GridBagConstraints.BOTH,5,0,5,0));
 		block3.setBorder(BorderFactory.createTitledBorder(""));
@@ -297,11 +334,15 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 
 		impResMinThreadsLabel.setText(Internal.I18N.getString("common.pref.resources.label.minThreads"));
 		impResMaxThreadsLabel.setText(Internal.I18N.getString("common.pref.resources.label.maxThreads"));
+		impResAutoTuningCheck.setText(Internal.I18N.getString("common.pref.resources.label.autoTuning"));
+		impResMemoryBudgetCheck.setText(Internal.I18N.getString("pref.import.resources.label.memoryBudget"));
+		impResMemoryBudgetLabel.setText(Internal.I18N.getString("pref.import.resources.label.memoryBudget.size"));
 		
 		impResTransaktLabel.setText(Internal.I18N.getString("pref.import.resources.label.commit"));
 		impResTransaktFeatureLabel.setText(Internal.I18N.getString("pref.import.resources.label.commit.feature"));
 		impResTransaktCacheLabel.setText(Internal.I18N.getString("pref.import.resources.label.commit.cache"));
 		impResTransaktTempLabel.setText(Internal.I18N.getString("pref.import.resources.label.commit.temp"));
+		impResAdaptiveBatchCheck.setText(Internal.I18N.getString("pref.import.resources.label.adaptiveBatchSize"));
 
 		impResGeomLabel.setText(Internal.I18N.getString("common.pref.resources.label.geometry"));
 		impResGeomCacheLabel.setText(Internal.I18N.getString("common.pref.resources.label.geometry.entry"));
@@ -319,6 +360,7 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		UpdateBatching commit = config.getProject().getDatabase().getUpdateBatching();
 		GmlIdLookupServerConfig geometry = config.getProject().getImporter().getSystem().getGmlIdLookupServer().getGeometry();
 		GmlIdLookupServerConfig feature = config.getProject().getImporter().getSystem().getGmlIdLookupServer().getFeature();
+		MemoryBudgetConfig memoryBudget = config.getProject().getImporter().getSystem().getMemoryBudget();
 
 		int commitFeature = commit.getFeatureBatchValue();
 		if (commitFeature > Internal.DB_MAX_BATCH_SIZE)
@@ -334,15 +376,21 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		
 		impResMinThreadsText.setValue(threadPool.getMinThreads());
 		impResMaxThreadsText.setValue(threadPool.getMaxThreads());
+		impResAutoTuningCheck.setSelected(config.getProject().getImporter().getSystem().getThreadPool().isSetUseAutoTuning());
+		impResMemoryBudgetCheck.setSelected(memoryBudget.isSet());
+		impResMemoryBudgetText.setValue(memoryBudget.getSize());
 		impResTransaktFeatureText.setValue(commitFeature);		
 		impResTransaktCacheText.setValue(commitCache);
 		impResTransaktTempText.setValue(commitTemp);		
+		impResAdaptiveBatchCheck.setSelected(commit.isSetUseAdaptiveBatchSize());
 		impResGeomCacheText.setValue(geometry.getCacheSize());
 		impResFeatCacheText.setValue(feature.getCacheSize());		
 		impResGeomDrainText.setValue((int)(geometry.getPageFactor() * 100));
 		impResFeatDrainText.setValue((int)(feature.getPageFactor() * 100));		
 		impResGeomPartText.setValue(geometry.getPartitions());
 		impResFeatPartText.setValue(feature.getPartitions());
+		
+		setEnabledMemoryBudget();
 	}
 
 	@Override
@@ -351,6 +399,7 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		UpdateBatching commit = config.getProject().getDatabase().getUpdateBatching();
 		GmlIdLookupServerConfig geometry = config.getProject().getImporter().getSystem().getGmlIdLookupServer().getGeometry();
 		GmlIdLookupServerConfig feature = config.getProject().getImporter().getSystem().getGmlIdLookupServer().getFeature();
+		MemoryBudgetConfig memoryBudget = config.getProject().getImporter().getSystem().getMemoryBudget();
 
 		int minThreads = ((Number)impResMinThreadsText.getValue()).intValue();
 		int maxThreads = ((Number)impResMaxThreadsText.getValue()).intValue();
@@ -380,10 +429,15 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		
 		threadPool.setMinThreads(minThreads);
 		threadPool.setMaxThreads(maxThreads);
+		config.getProject().getImporter().getSystem().getThreadPool().setUseAutoTuning(impResAutoTuningCheck.isSelected());
+		
+		memoryBudget.setActive(impResMemoryBudgetCheck.isSelected());
+		memoryBudget.setSize(((Number)impResMemoryBudgetText.getValue()).intValue());
 		
 		commit.setFeatureBatchValue(featBatch);
 		commit.setGmlIdLookupServerBatchValue(lookupBatch);
 		commit.setTempBatchValue(tempBatch);
+		commit.setUseAdaptiveBatchSize(impResAdaptiveBatchCheck.isSelected());
 
 		geometry.setCacheSize(((Number)impResGeomCacheText.getValue()).intValue());			
 		feature.setCacheSize(((Number)impResFeatCacheText.getValue()).intValue());
@@ -393,6 +447,11 @@ public class ResourcesPanel extends AbstractPreferencesComponent{
 		feature.setPartitions(((Number)impResFeatPartText.getValue()).intValue());
 	}
 	
+	private void setEnabledMemoryBudget() {
+		impResMemoryBudgetLabel.setEnabled(impResMemoryBudgetCheck.isSelected());
+		impResMemoryBudgetText.setEnabled(impResMemoryBudgetCheck.isSelected());
+	}
+	
 	@Override
 	public String getTitle() {
 		return Internal.I18N.getString("pref.tree.import.resources");
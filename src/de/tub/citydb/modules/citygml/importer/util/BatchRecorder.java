@@ -0,0 +1,203 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.citygml.importer.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class BatchRecorder {
+	private final Connection connection;
+	private final Connection proxy;
+	private final List<StatementRecorder> statements = new ArrayList<StatementRecorder>();
+
+	private int tag;
+	private boolean isReplaying;
+
+	public BatchRecorder(Connection connection) {
+		this.connection = connection;
+
+		proxy = (Connection)Proxy.newProxyInstance(
+				BatchRecorder.class.getClassLoader(), 
+				new Class<?>[]{ Connection.class }, 
+				new ConnectionHandler());
+	}
+
+	// the connection to be used by the importers. every batched row is recorded
+	// together with the current tag until reset() is called after the commit
+	public Connection getConnection() {
+		return proxy;
+	}
+
+	public void setTag(int tag) {
+		this.tag = tag;
+	}
+
+	// re-adds the recorded rows whose tag lies in [fromTag, toTag) to the batches of the statements
+	public void replay(int fromTag, int toTag) throws SQLException {
+		isReplaying = true;
+
+		for (StatementRecorder statement : statements) {
+			statement.statement.clearBatch();
+
+			for (Row row : statement.rows) {
+				if (row.tag >= fromTag && row.tag < toTag) {
+					statement.statement.clearParameters();
+					for (Parameter parameter : row.parameters)
+						invoke(parameter.method, statement.statement, parameter.args);
+
+					statement.statement.addBatch();
+				}
+			}
+		}
+	}
+
+	// discards the recorded rows whose tag is greater than or equal to fromTag
+	public void discard(int fromTag) {
+		for (StatementRecorder statement : statements) {
+			Iterator<Row> iter = statement.rows.iterator();
+			while (iter.hasNext()) {
+				if (iter.next().tag >= fromTag)
+					iter.remove();
+			}
+
+			statement.executed = Math.min(statement.executed, statement.rows.size());
+		}
+	}
+
+	// discards all recorded rows and returns to recording mode
+	public void reset() throws SQLException {
+		for (StatementRecorder statement : statements) {
+			if (isReplaying)
+				statement.statement.clearBatch();
+
+			statement.rows.clear();
+			statement.executed = 0;
+		}
+
+		tag = 0;
+		isReplaying = false;
+	}
+
+	private static Object invoke(Method method, Object target, Object[] args) throws SQLException {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof SQLException)
+				throw (SQLException)e.getCause();
+
+			throw new SQLException(e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new SQLException(e);
+		}
+	}
+
+	private final class ConnectionHandler implements InvocationHandler {
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = BatchRecorder.invoke(method, connection, args);
+
+			if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+				StatementRecorder statement = new StatementRecorder((PreparedStatement)result);
+				statements.add(statement);
+
+				return Proxy.newProxyInstance(
+						BatchRecorder.class.getClassLoader(), 
+						new Class<?>[]{ PreparedStatement.class }, 
+						statement);
+			}
+
+			return result;
+		}
+	}
+
+	private final class StatementRecorder implements InvocationHandler {
+		private final PreparedStatement statement;
+		private final List<Row> rows = new ArrayList<Row>();
+		private final Map<Integer, Parameter> parameters = new HashMap<Integer, Parameter>();
+		private int executed;
+
+		private StatementRecorder(PreparedStatement statement) {
+			this.statement = statement;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = BatchRecorder.invoke(method, statement, args);
+			if (isReplaying)
+				return result;
+
+			String name = method.getName();
+			if (name.startsWith("set") && args != null && args.length > 1 && args[0] instanceof Integer)
+				parameters.put((Integer)args[0], new Parameter(method, args));
+			else if (name.equals("addBatch") && args == null)
+				rows.add(new Row(tag, new ArrayList<Parameter>(parameters.values())));
+			else if (name.equals("clearParameters"))
+				parameters.clear();
+			else if (name.equals("executeBatch"))
+				executed = rows.size();
+			else if (name.equals("clearBatch"))
+				rows.subList(executed, rows.size()).clear();
+
+			return result;
+		}
+	}
+
+	private static final class Row {
+		private final int tag;
+		private final List<Parameter> parameters;
+
+		private Row(int tag, List<Parameter> parameters) {
+			this.tag = tag;
+			this.parameters = parameters;
+		}
+	}
+
+	private static final class Parameter {
+		private final Method method;
+		private final Object[] args;
+
+		private Parameter(Method method, Object[] args) {
+			this.method = method;
+			this.args = args;
+		}
+	}
+
+}
@@ -0,0 +1,228 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.citygml.importer.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.tub.citydb.config.project.database.UpdateBatching;
+import de.tub.citydb.config.project.database.WriterBatchSize;
+import de.tub.citydb.log.Logger;
+
+public class BatchSizeController {
+	private final Logger LOG = Logger.getInstance();
+
+	private final int MIN_BATCH_SIZE = 10;
+	private final int INITIAL_BATCH_SIZE = 100;
+	private final int ADDITIVE_INCREASE = 50;
+	private final long MAX_LATENCY = 1000000000L;
+	private final double MIN_THROUGHPUT_RATIO = 0.75;
+	private final double SMOOTHING_FACTOR = 0.3;
+
+	private final boolean isAdaptive;
+	private final int maxBatchSize;
+	private final Map<String, Integer> pinnedBatchSizes;
+	private final ConcurrentHashMap<String, Writer> writers;
+
+	public BatchSizeController(UpdateBatching updateBatching, int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+		isAdaptive = updateBatching.isSetUseAdaptiveBatchSize();
+
+		pinnedBatchSizes = new HashMap<String, Integer>();
+		for (WriterBatchSize writerBatchSize : updateBatching.getWriterBatchSizes()) {
+			if (writerBatchSize.getName() != null && writerBatchSize.getBatchSize() != null)
+				pinnedBatchSizes.put(writerBatchSize.getName(), Math.min(writerBatchSize.getBatchSize(), maxBatchSize));
+		}
+
+		writers = new ConcurrentHashMap<String, Writer>();
+	}
+
+	public boolean isAdaptive() {
+		return isAdaptive;
+	}
+
+	public int getBatchSize(String name) {
+		Writer writer = writers.get(name);
+		if (writer != null)
+			return writer.batchSize;
+
+		Integer pinned = pinnedBatchSizes.get(name);
+		return pinned != null ? pinned : maxBatchSize;
+	}
+
+	// returns a connection whose prepared statements report the latency and the
+	// number of rows of each executed batch to the given writer
+	public Connection getConnection(Connection connection, String name) {
+		if (!isAdaptive || pinnedBatchSizes.containsKey(name))
+			return connection;
+
+		Writer writer = writers.get(name);
+		if (writer == null) {
+			Writer tmp = new Writer(name);
+			writer = writers.putIfAbsent(name, tmp);
+			if (writer == null)
+				writer = tmp;
+		}
+
+		return (Connection)Proxy.newProxyInstance(
+				BatchSizeController.class.getClassLoader(), 
+				new Class<?>[]{ Connection.class }, 
+				new ConnectionHandler(connection, writer));
+	}
+
+	public void report() {
+		if (!isAdaptive || writers.isEmpty())
+			return;
+
+		LOG.info("Adaptive batch sizes of database writers (can be pinned as writerBatchSizes in the project settings):");
+		for (Writer writer : new TreeMap<String, Writer>(writers).values()) {
+			synchronized (writer) {
+				if (writer.batches == 0)
+					continue;
+
+				long rowsPerSecond = writer.nanos > 0 ? Math.round(writer.rows * 1e9 / writer.nanos) : 0;
+				LOG.info(writer.name + ": " + writer.batchSize + " (" + writer.batches + " batches, " + rowsPerSecond + " rows/s)");
+			}
+		}
+	}
+
+	private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private final class Writer {
+		private final String name;
+		private volatile int batchSize;
+		private double throughput;
+		private long batches;
+		private long rows;
+		private long nanos;
+
+		private Writer(String name) {
+			this.name = name;
+			batchSize = Math.min(INITIAL_BATCH_SIZE, maxBatchSize);
+		}
+
+		private synchronized void update(int rows, long nanos) {
+			batches++;
+			this.rows += rows;
+			this.nanos += nanos;
+
+			double current = rows * 1e9 / Math.max(nanos, 1);
+
+			// trailing and partial flushes say nothing about the batch size. so only 
+			// batches filled up to the size limit are taken into account for throughput
+			boolean isFull = rows >= batchSize;
+
+			// multiplicative decrease if a batch takes too long or throughput drops,
+			// additive increase as long as full batches keep up
+			if (nanos > MAX_LATENCY || (isFull && current < throughput * MIN_THROUGHPUT_RATIO))
+				batchSize = Math.max(MIN_BATCH_SIZE, batchSize >> 1);
+			else if (isFull)
+				batchSize = Math.min(maxBatchSize, batchSize + ADDITIVE_INCREASE);
+
+			if (isFull)
+				throughput = throughput == 0 ? current : throughput + SMOOTHING_FACTOR * (current - throughput);
+		}
+	}
+
+	private final class ConnectionHandler implements InvocationHandler {
+		private final Connection connection;
+		private final Writer writer;
+
+		private ConnectionHandler(Connection connection, Writer writer) {
+			this.connection = connection;
+			this.writer = writer;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = BatchSizeController.invoke(method, connection, args);
+
+			if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+				return Proxy.newProxyInstance(
+						BatchSizeController.class.getClassLoader(), 
+						new Class<?>[]{ PreparedStatement.class }, 
+						new StatementHandler((PreparedStatement)result, writer));
+			}
+
+			return result;
+		}
+	}
+
+	private final class StatementHandler implements InvocationHandler {
+		private final PreparedStatement statement;
+		private final Writer writer;
+		private int pending;
+
+		private StatementHandler(PreparedStatement statement, Writer writer) {
+			this.statement = statement;
+			this.writer = writer;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+
+			if (name.equals("executeBatch")) {
+				long start = System.nanoTime();
+				int rows = pending;
+				pending = 0;
+
+				Object result = BatchSizeController.invoke(method, statement, args);
+				if (rows > 0)
+					writer.update(rows, System.nanoTime() - start);
+
+				return result;
+			}
+
+			Object result = BatchSizeController.invoke(method, statement, args);
+			if (name.equals("addBatch") && args == null)
+				pending++;
+			else if (name.equals("clearBatch"))
+				pending = 0;
+
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.citygml.importer.util;
+
+import org.citygml4j.model.citygml.CityGML;
+import org.citygml4j.model.gml.base.AbstractGML;
+import org.citygml4j.model.gml.geometry.primitives.LineString;
+import org.citygml4j.model.gml.geometry.primitives.LinearRing;
+import org.citygml4j.model.gml.geometry.primitives.Point;
+import org.citygml4j.util.walker.GMLWalker;
+
+import de.tub.citydb.api.concurrent.WorkWeigher;
+
+public class CityGMLWeigher implements WorkWeigher<CityGML> {
+	// rough heap footprint of a feature without geometry and 
+	// of a single coordinate value stored as java.lang.Double
+	private final long BYTES_PER_FEATURE = 4096;
+	private final long BYTES_PER_ORDINATE = 24;
+
+	@Override
+	public long weigh(CityGML work) {
+		if (!(work instanceof AbstractGML))
+			return BYTES_PER_FEATURE;
+
+		CoordinateCounter counter = new CoordinateCounter();
+		((AbstractGML)work).accept(counter);
+
+		return BYTES_PER_FEATURE + counter.ordinates * BYTES_PER_ORDINATE;
+	}
+
+	private final class CoordinateCounter extends GMLWalker {
+		private long ordinates;
+
+		@Override
+		public void visit(LinearRing linearRing) {
+			if (linearRing.isSetPosList() && linearRing.getPosList().isSetValue())
+				ordinates += linearRing.getPosList().getValue().size();
+			else if (linearRing.isSetPosOrPointPropertyOrPointRep())
+				ordinates += linearRing.getPosOrPointPropertyOrPointRep().size() * 3;
+			else if (linearRing.isSetCoord())
+				ordinates += linearRing.getCoord().size() * 3;
+			else if (linearRing.isSetCoordinates())
+				ordinates += linearRing.toList3d().size();
+
+			super.visit(linearRing);
+		}
+
+		@Override
+		public void visit(LineString lineString) {
+			if (lineString.isSetPosList() && lineString.getPosList().isSetValue())
+				ordinates += lineString.getPosList().getValue().size();
+			else if (lineString.isSetPosOrPointPropertyOrPointRepOrCoord())
+				ordinates += lineString.getPosOrPointPropertyOrPointRepOrCoord().size() * 3;
+			else if (lineString.isSetCoordinates())
+				ordinates += lineString.toList3d().size();
+
+			super.visit(lineString);
+		}
+
+		@Override
+		public void visit(Point point) {
+			ordinates += 3;
+			super.visit(point);
+		}
+	}
+
+}
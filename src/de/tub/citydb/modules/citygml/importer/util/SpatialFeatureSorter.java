@@ -0,0 +1,213 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ *
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * The development of the 3D City Database Importer/Exporter has
+ * been financially supported by the following cooperation partners:
+ *
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.citygml.importer.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.citygml4j.geometry.BoundingBox;
+import org.citygml4j.model.citygml.CityGML;
+import org.citygml4j.model.citygml.core.AbstractCityObject;
+import org.citygml4j.model.gml.geometry.primitives.Envelope;
+
+import de.tub.citydb.api.concurrent.WorkWeigher;
+import de.tub.citydb.api.concurrent.WorkerPool;
+
+// buffers top-level features and passes them to the database workers in the order
+// of the hilbert curve through the centers of their envelopes. so rows and index entries
+// of neighbouring features are written together.
+public class SpatialFeatureSorter {
+	private final int HILBERT_SIZE = 1 << 16;
+
+	private final WorkerPool<CityGML> dbWorkerPool;
+	private final int windowSize;
+	private final WorkWeigher<? super CityGML> weigher;
+	private final long maxWindowBytes;
+	private final ReentrantLock dispatchLock = new ReentrantLock();
+	private List<SortEntry> window;
+	private long windowBytes;
+
+	public SpatialFeatureSorter(WorkerPool<CityGML> dbWorkerPool, int windowSize) {
+		this(dbWorkerPool, windowSize, null, Long.MAX_VALUE);
+	}
+
+	// if a weigher is given, a window is also closed as soon as the estimated 
+	// size of its features reaches maxWindowBytes
+	public SpatialFeatureSorter(WorkerPool<CityGML> dbWorkerPool, int windowSize, WorkWeigher<? super CityGML> weigher, long maxWindowBytes) {
+		this.dbWorkerPool = dbWorkerPool;
+		this.windowSize = windowSize;
+		this.weigher = weigher;
+		this.maxWindowBytes = maxWindowBytes;
+		window = new ArrayList<SortEntry>(windowSize);
+	}
+
+	public void addWork(CityGML work) {
+		BoundingBox bbox = getBoundingBox(work);
+		if (bbox == null) {
+			dbWorkerPool.addWork(work);
+			return;
+		}
+
+		SortEntry entry = new SortEntry(work,
+				(bbox.getLowerCorner().getX() + bbox.getUpperCorner().getX()) / 2,
+				(bbox.getLowerCorner().getY() + bbox.getUpperCorner().getY()) / 2);
+
+		long weight = weigher != null ? weigher.weigh(work) : 0;
+
+		List<SortEntry> fullWindow = null;
+		synchronized (this) {
+			window.add(entry);
+			windowBytes += weight;
+			if (window.size() >= windowSize || windowBytes >= maxWindowBytes)
+				fullWindow = takeWindow();
+		}
+
+		if (fullWindow != null)
+			dispatch(fullWindow);
+	}
+
+	public void flush() {
+		List<SortEntry> lastWindow = null;
+		synchronized (this) {
+			lastWindow = takeWindow();
+		}
+
+		dispatch(lastWindow);
+	}
+
+	private List<SortEntry> takeWindow() {
+		List<SortEntry> entries = window;
+		window = new ArrayList<SortEntry>(windowSize);
+		windowBytes = 0;
+
+		return entries;
+	}
+
+	private void dispatch(List<SortEntry> entries) {
+		if (entries.isEmpty())
+			return;
+
+		double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (SortEntry entry : entries) {
+			minX = Math.min(minX, entry.x);
+			minY = Math.min(minY, entry.y);
+			maxX = Math.max(maxX, entry.x);
+			maxY = Math.max(maxY, entry.y);
+		}
+
+		// the curve covers the extent of the window with the same resolution along both axes
+		double extent = Math.max(maxX - minX, maxY - minY);
+		double scale = extent > 0 ? (HILBERT_SIZE - 1) / extent : 0;
+		for (SortEntry entry : entries)
+			entry.key = getHilbertKey((int)((entry.x - minX) * scale), (int)((entry.y - minY) * scale));
+
+		Collections.sort(entries);
+
+		// windows are passed on as a whole
+		final ReentrantLock dispatchLock = this.dispatchLock;
+		dispatchLock.lock();
+
+		try {
+			for (SortEntry entry : entries)
+				dbWorkerPool.addWork(entry.work);
+		} finally {
+			dispatchLock.unlock();
+		}
+	}
+
+	private BoundingBox getBoundingBox(CityGML work) {
+		if (!(work instanceof AbstractCityObject))
+			return null;
+
+		// the envelope is completed as done by the import worker
+		// which then finds it already in place
+		AbstractCityObject cityObject = (AbstractCityObject)work;
+		if (!cityObject.isSetBoundedBy() || !cityObject.getBoundedBy().isSetEnvelope())
+			cityObject.calcBoundedBy(true);
+		else if (!cityObject.getBoundedBy().getEnvelope().isSetLowerCorner() ||
+				!cityObject.getBoundedBy().getEnvelope().isSetUpperCorner()){
+			Envelope envelope = cityObject.getBoundedBy().getEnvelope().convert3d();
+			if (envelope != null)
+				cityObject.getBoundedBy().setEnvelope(envelope);
+			else
+				cityObject.calcBoundedBy(true);
+		}
+
+		if (!cityObject.isSetBoundedBy() || !cityObject.getBoundedBy().isSetEnvelope())
+			return null;
+
+		return cityObject.getBoundedBy().getEnvelope().toBoundingBox();
+	}
+
+	private long getHilbertKey(int x, int y) {
+		long key = 0;
+		for (int s = HILBERT_SIZE / 2; s > 0; s /= 2) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			key += (long)s * s * ((3 * rx) ^ ry);
+
+			// rotate the quadrant
+			if (ry == 0) {
+				if (rx == 1) {
+					x = HILBERT_SIZE - 1 - x;
+					y = HILBERT_SIZE - 1 - y;
+				}
+
+				int tmp = x;
+				x = y;
+				y = tmp;
+			}
+		}
+
+		return key;
+	}
+
+	private final class SortEntry implements Comparable<SortEntry> {
+		private final CityGML work;
+		private final double x;
+		private final double y;
+		private long key;
+
+		private SortEntry(CityGML work, double x, double y) {
+			this.work = work;
+			this.x = x;
+			this.y = y;
+		}
+
+		@Override
+		public int compareTo(SortEntry other) {
+			return key < other.key ? -1 : (key == other.key ? 0 : 1);
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.citygml.importer.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.tub.citydb.modules.citygml.common.database.xlink.DBXlinkTextureFile;
+import de.tub.citydb.modules.citygml.common.util.TextureImageRegistry;
+
+public class TextureImageDeduplicator {
+	private final TextureImageRegistry<Long> registry;
+	private final Map<Long, List<DBXlinkTextureFile>> duplicates;
+	private final Set<Long> failedSources;
+	private int duplicateCount;
+	private int skipped;
+
+	public TextureImageDeduplicator() {
+		registry = new TextureImageRegistry<Long>();
+		duplicates = new HashMap<Long, List<DBXlinkTextureFile>>();
+		failedSources = new HashSet<Long>();
+	}
+
+	public TextureImageRegistry<Long> getRegistry() {
+		return registry;
+	}
+
+	// returns false if the upload of the source image has already failed.
+	// in this case, the caller has to upload the image itself
+	public synchronized boolean addDuplicate(DBXlinkTextureFile xlink, long sourceSurfaceDataId) {
+		if (failedSources.contains(sourceSurfaceDataId))
+			return false;
+
+		List<DBXlinkTextureFile> files = duplicates.get(sourceSurfaceDataId);
+		if (files == null) {
+			files = new ArrayList<DBXlinkTextureFile>();
+			duplicates.put(sourceSurfaceDataId, files);
+		}
+
+		files.add(xlink);
+		duplicateCount++;
+		return true;
+	}
+
+	// returns the duplicates registered for a source image whose upload 
+	// has failed. these duplicates have to be uploaded from their own files
+	public synchronized List<DBXlinkTextureFile> removeFailedSource(long sourceSurfaceDataId) {
+		failedSources.add(sourceSurfaceDataId);
+
+		List<DBXlinkTextureFile> files = duplicates.remove(sourceSurfaceDataId);
+		if (files == null)
+			return Collections.emptyList();
+
+		duplicateCount -= files.size();
+		return files;
+	}
+
+	public synchronized int getDuplicateCount() {
+		return duplicateCount;
+	}
+
+	public int getSkippedCount() {
+		return skipped;
+	}
+
+	// the source images are uploaded by different resolver workers. so duplicates
+	// may only be copied after all workers have committed their transactions
+	public synchronized int copyDuplicates(Connection connection, int batchSize) throws SQLException {
+		PreparedStatement ps = null;
+		int copied = 0;
+		int batchCounter = 0;
+
+		try {
+			ps = connection.prepareStatement("update SURFACE_DATA set TEX_IMAGE=(select sd.TEX_IMAGE from SURFACE_DATA sd where sd.ID=?) where ID=? " +
+					"and exists (select 1 from SURFACE_DATA sd where sd.ID=? and sd.TEX_IMAGE is not null)");
+
+			for (Map.Entry<Long, List<DBXlinkTextureFile>> entry : duplicates.entrySet()) {
+				long sourceId = entry.getKey();
+
+				for (DBXlinkTextureFile duplicate : entry.getValue()) {
+					ps.setLong(1, sourceId);
+					ps.setLong(2, duplicate.getId());
+					ps.setLong(3, sourceId);
+					ps.addBatch();
+
+					if (++batchCounter == batchSize) {
+						copied += getUpdateCount(ps.executeBatch());
+						connection.commit();
+						batchCounter = 0;
+					}
+				}
+			}
+
+			if (batchCounter > 0) {
+				copied += getUpdateCount(ps.executeBatch());
+				connection.commit();
+			}
+
+			duplicates.clear();
+			duplicateCount = 0;
+
+			return copied;
+		} finally {
+			if (ps != null)
+				ps.close();
+		}
+	}
+
+	private int getUpdateCount(int[] results) {
+		int count = 0;
+		for (int result : results) {
+			if (result > 0 || result == Statement.SUCCESS_NO_INFO)
+				count++;
+			else
+				skipped++;
+		}
+
+		return count;
+	}
+
+	public synchronized void clear() {
+		registry.clear();
+		duplicates.clear();
+		failedSources.clear();
+		duplicateCount = 0;
+		skipped = 0;
+	}
+
+}
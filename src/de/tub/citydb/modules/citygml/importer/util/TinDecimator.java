@@ -0,0 +1,374 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.citygml.importer.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// simplifies a triangulated surface by quadric error edge collapses. vertices
+// are only collapsed onto neighbouring vertices, so every decimated mesh
+// uses a subset of the original points. vertices on the border of the
+// surface are never moved to keep its outline.
+public class TinDecimator {
+	private double[] points;
+	private double[] quadrics;
+	private int[] version;
+	private boolean[] isBorder;
+	private boolean[] isRemoved;
+	private int vertexCount;
+
+	private int[] triangles;
+	private boolean[] isDeleted;
+	private int triangleCount;
+	private int liveTriangles;
+
+	private int[][] vertexTriangles;
+	private int[] vertexTriangleCount;
+
+	private final PriorityQueue<Collapse> queue = new PriorityQueue<Collapse>();
+
+	public TinDecimator(List<double[]> triangleList) {
+		HashMap<Vertex, Integer> vertexMap = new HashMap<Vertex, Integer>();
+		points = new double[triangleList.size() * 3];
+		triangles = new int[triangleList.size() * 3];
+
+		for (double[] triangle : triangleList) {
+			if (triangle.length < 9)
+				continue;
+
+			int[] ids = new int[3];
+			for (int i = 0; i < 3; i++) {
+				Vertex vertex = new Vertex(triangle[i * 3], triangle[i * 3 + 1], triangle[i * 3 + 2]);
+				Integer id = vertexMap.get(vertex);
+				if (id == null) {
+					id = vertexCount;
+					if (points.length < (vertexCount + 1) * 3)
+						points = Arrays.copyOf(points, points.length * 2);
+
+					points[vertexCount * 3] = vertex.x;
+					points[vertexCount * 3 + 1] = vertex.y;
+					points[vertexCount * 3 + 2] = vertex.z;
+					vertexMap.put(vertex, id);
+					vertexCount++;
+				}
+
+				ids[i] = id;
+			}
+
+			// skip degenerated triangles
+			if (ids[0] == ids[1] || ids[1] == ids[2] || ids[0] == ids[2])
+				continue;
+
+			triangles[triangleCount * 3] = ids[0];
+			triangles[triangleCount * 3 + 1] = ids[1];
+			triangles[triangleCount * 3 + 2] = ids[2];
+			triangleCount++;
+		}
+
+		vertexMap = null;
+		liveTriangles = triangleCount;
+		isDeleted = new boolean[triangleCount];
+		isRemoved = new boolean[vertexCount];
+		isBorder = new boolean[vertexCount];
+		version = new int[vertexCount];
+		quadrics = new double[vertexCount * 10];
+
+		vertexTriangles = new int[vertexCount][];
+		vertexTriangleCount = new int[vertexCount];
+		for (int t = 0; t < triangleCount; t++) {
+			for (int i = 0; i < 3; i++)
+				addVertexTriangle(triangles[t * 3 + i], t);
+
+			addPlaneQuadric(t);
+		}
+
+		for (int v = 0; v < vertexCount; v++)
+			isBorder[v] = getNeighbours(v).size() != vertexTriangleCount[v];
+
+		for (int v = 0; v < vertexCount; v++) {
+			for (int w : getNeighbours(v))
+				if (v < w)
+					pushCollapse(v, w);
+		}
+	}
+
+	public int getTriangleCount() {
+		return liveTriangles;
+	}
+
+	// continues the decimation until every further collapse would exceed
+	// the given distance. subsequent calls must use increasing tolerances.
+	public List<double[]> decimate(double tolerance) {
+		double maxCost = tolerance * tolerance;
+
+		while (!queue.isEmpty() && queue.peek().cost <= maxCost) {
+			Collapse collapse = queue.poll();
+			int from = collapse.from;
+			int to = collapse.to;
+
+			if (isRemoved[from] || isRemoved[to] 
+					|| version[from] != collapse.fromVersion 
+					|| version[to] != collapse.toVersion)
+				continue;
+
+			if (!isCollapsible(from, to))
+				continue;
+
+			collapse(from, to);
+		}
+
+		List<double[]> result = new ArrayList<double[]>(liveTriangles);
+		for (int t = 0; t < triangleCount; t++) {
+			if (isDeleted[t])
+				continue;
+
+			double[] triangle = new double[9];
+			for (int i = 0; i < 3; i++)
+				System.arraycopy(points, triangles[t * 3 + i] * 3, triangle, i * 3, 3);
+
+			result.add(triangle);
+		}
+
+		return result;
+	}
+
+	private void collapse(int from, int to) {
+		for (int k = vertexTriangleCount[from] - 1; k >= 0; k--) {
+			int t = vertexTriangles[from][k];
+			if (hasVertex(t, to)) {
+				isDeleted[t] = true;
+				liveTriangles--;
+				for (int i = 0; i < 3; i++) {
+					int v = triangles[t * 3 + i];
+					if (v != from)
+						removeVertexTriangle(v, t);
+				}
+			} else {
+				for (int i = 0; i < 3; i++) {
+					if (triangles[t * 3 + i] == from)
+						triangles[t * 3 + i] = to;
+				}
+
+				addVertexTriangle(to, t);
+			}
+		}
+
+		vertexTriangleCount[from] = 0;
+		vertexTriangles[from] = null;
+		isRemoved[from] = true;
+
+		for (int i = 0; i < 10; i++)
+			quadrics[to * 10 + i] += quadrics[from * 10 + i];
+
+		version[to]++;
+		for (int w : getNeighbours(to))
+			pushCollapse(to, w);
+	}
+
+	private boolean isCollapsible(int from, int to) {
+		// link condition: an inner edge must not have more than two common neighbours
+		List<Integer> fromNeighbours = getNeighbours(from);
+		int common = 0;
+		for (int w : getNeighbours(to))
+			if (fromNeighbours.contains(w))
+				common++;
+
+		if (common > 2)
+			return false;
+
+		// the triangles around the removed vertex must not flip
+		for (int k = 0; k < vertexTriangleCount[from]; k++) {
+			int t = vertexTriangles[from][k];
+			if (hasVertex(t, to))
+				continue;
+
+			double[] before = getNormal(t, -1, -1);
+			double[] after = getNormal(t, from, to);
+			double dot = before[0] * after[0] + before[1] * after[1] + before[2] * after[2];
+			if (dot <= 0 || after[0] * after[0] + after[1] * after[1] + after[2] * after[2] == 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	private void pushCollapse(int v, int w) {
+		Collapse best = null;
+		if (!isBorder[v])
+			best = new Collapse(v, w, getCost(v, w));
+
+		if (!isBorder[w]) {
+			double cost = getCost(w, v);
+			if (best == null || cost < best.cost)
+				best = new Collapse(w, v, cost);
+		}
+
+		if (best != null)
+			queue.add(best);
+	}
+
+	// error of the combined quadrics at the position of the remaining vertex
+	private double getCost(int from, int to) {
+		double x = points[to * 3];
+		double y = points[to * 3 + 1];
+		double z = points[to * 3 + 2];
+		double[] q = new double[10];
+		for (int i = 0; i < 10; i++)
+			q[i] = quadrics[from * 10 + i] + quadrics[to * 10 + i];
+
+		return Math.max(0, q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3] * x 
+				+ q[4] * y * y + 2 * q[5] * y * z + 2 * q[6] * y 
+				+ q[7] * z * z + 2 * q[8] * z 
+				+ q[9]);
+	}
+
+	private void addPlaneQuadric(int t) {
+		double[] n = getNormal(t, -1, -1);
+		double length = Math.sqrt(n[0] * n[0] + n[1] * n[1] + n[2] * n[2]);
+		if (length == 0)
+			return;
+
+		double a = n[0] / length;
+		double b = n[1] / length;
+		double c = n[2] / length;
+		int p = triangles[t * 3] * 3;
+		double d = -(a * points[p] + b * points[p + 1] + c * points[p + 2]);
+		double[] plane = new double[]{a * a, a * b, a * c, a * d, b * b, b * c, b * d, c * c, c * d, d * d};
+
+		for (int i = 0; i < 3; i++) {
+			int v = triangles[t * 3 + i];
+			for (int j = 0; j < 10; j++)
+				quadrics[v * 10 + j] += plane[j];
+		}
+	}
+
+	// normal of triangle t, optionally with vertex 'from' moved to vertex 'to'
+	private double[] getNormal(int t, int from, int to) {
+		double[][] p = new double[3][];
+		for (int i = 0; i < 3; i++) {
+			int v = triangles[t * 3 + i];
+			if (v == from)
+				v = to;
+
+			p[i] = new double[]{points[v * 3], points[v * 3 + 1], points[v * 3 + 2]};
+		}
+
+		double ux = p[1][0] - p[0][0], uy = p[1][1] - p[0][1], uz = p[1][2] - p[0][2];
+		double vx = p[2][0] - p[0][0], vy = p[2][1] - p[0][1], vz = p[2][2] - p[0][2];
+		return new double[]{uy * vz - uz * vy, uz * vx - ux * vz, ux * vy - uy * vx};
+	}
+
+	private boolean hasVertex(int t, int v) {
+		return triangles[t * 3] == v || triangles[t * 3 + 1] == v || triangles[t * 3 + 2] == v;
+	}
+
+	private List<Integer> getNeighbours(int v) {
+		List<Integer> neighbours = new ArrayList<Integer>();
+		for (int k = 0; k < vertexTriangleCount[v]; k++) {
+			int t = vertexTriangles[v][k];
+			for (int i = 0; i < 3; i++) {
+				int w = triangles[t * 3 + i];
+				if (w != v && !neighbours.contains(w))
+					neighbours.add(w);
+			}
+		}
+
+		return neighbours;
+	}
+
+	private void addVertexTriangle(int v, int t) {
+		if (vertexTriangles[v] == null)
+			vertexTriangles[v] = new int[6];
+		else if (vertexTriangles[v].length == vertexTriangleCount[v])
+			vertexTriangles[v] = Arrays.copyOf(vertexTriangles[v], vertexTriangleCount[v] * 2);
+
+		vertexTriangles[v][vertexTriangleCount[v]++] = t;
+	}
+
+	private void removeVertexTriangle(int v, int t) {
+		for (int k = 0; k < vertexTriangleCount[v]; k++) {
+			if (vertexTriangles[v][k] == t) {
+				vertexTriangles[v][k] = vertexTriangles[v][--vertexTriangleCount[v]];
+				return;
+			}
+		}
+	}
+
+	private final class Collapse implements Comparable<Collapse> {
+		private final int from;
+		private final int to;
+		private final int fromVersion;
+		private final int toVersion;
+		private final double cost;
+
+		private Collapse(int from, int to, double cost) {
+			this.from = from;
+			this.to = to;
+			this.cost = cost;
+			fromVersion = version[from];
+			toVersion = version[to];
+		}
+
+		public int compareTo(Collapse other) {
+			return Double.compare(cost, other.cost);
+		}
+	}
+
+	private static final class Vertex {
+		private final double x, y, z;
+
+		private Vertex(double x, double y, double z) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Vertex))
+				return false;
+
+			Vertex other = (Vertex)obj;
+			return x == other.x && y == other.y && z == other.z;
+		}
+
+		@Override
+		public int hashCode() {
+			long bits = Double.doubleToLongBits(x);
+			bits = bits * 31 + Double.doubleToLongBits(y);
+			bits = bits * 31 + Double.doubleToLongBits(z);
+			return (int)(bits ^ (bits >>> 32));
+		}
+	}
+
+}
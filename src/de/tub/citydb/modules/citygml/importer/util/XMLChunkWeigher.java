@@ -0,0 +1,88 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.citygml.importer.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.citygml4j.xml.io.reader.XMLChunk;
+
+import de.tub.citydb.api.concurrent.WorkWeigher;
+
+public class XMLChunkWeigher implements WorkWeigher<XMLChunk> {
+	// buffered SAX events take roughly three times the size of the parsed bytes
+	private final int EXPANSION_FACTOR = 3;
+
+	private long bytesRead;
+	private long bytesWeighed;
+
+	// XML chunks do not reveal their size. so we count the bytes consumed
+	// from the input file between two chunks. this requires that the chunks
+	// are weighed in the order they are read and by the reading thread
+	public InputStream wrap(InputStream in) {
+		return new FilterInputStream(in) {
+
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b != -1)
+					bytesRead++;
+
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = super.read(b, off, len);
+				if (n > 0)
+					bytesRead += n;
+
+				return n;
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				long skipped = super.skip(n);
+				bytesRead += skipped;
+				return skipped;
+			}
+		};
+	}
+
+	@Override
+	public long weigh(XMLChunk work) {
+		long bytes = bytesRead - bytesWeighed;
+		bytesWeighed = bytesRead;
+
+		return bytes * EXPANSION_FACTOR;
+	}
+
+}
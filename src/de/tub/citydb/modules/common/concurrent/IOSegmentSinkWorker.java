@@ -0,0 +1,128 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.common.concurrent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.tub.citydb.api.concurrent.Worker;
+import de.tub.citydb.api.concurrent.WorkerPool.WorkQueue;
+import de.tub.citydb.log.Logger;
+
+public class IOSegmentSinkWorker implements Worker<ByteBuffer> {
+	private final Logger LOG = Logger.getInstance();
+
+	// instance members needed for WorkPool
+	private volatile boolean shouldRun = true;
+	private ReentrantLock runLock = new ReentrantLock();
+	private WorkQueue<ByteBuffer> workQueue = null;
+	private ByteBuffer firstWork;
+	private Thread workerThread = null;
+
+	// instance members needed to do work
+	private final WritableByteChannel channel;
+
+	public IOSegmentSinkWorker(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	@Override
+	public Thread getThread() {
+		return workerThread;
+	}
+
+	@Override
+	public void interrupt() {
+		shouldRun = false;
+		workerThread.interrupt();
+	}
+
+	@Override
+	public void interruptIfIdle() {
+		final ReentrantLock runLock = this.runLock;
+		shouldRun = false;
+
+		if (runLock.tryLock()) {
+			try {
+				workerThread.interrupt();
+			} finally {
+				runLock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public void setFirstWork(ByteBuffer firstWork) {
+		this.firstWork = firstWork;
+	}
+
+	@Override
+	public void setThread(Thread workerThread) {
+		this.workerThread = workerThread;
+	}
+
+	@Override
+	public void setWorkQueue(WorkQueue<ByteBuffer> workQueue) {
+		this.workQueue = workQueue;
+	}
+
+	@Override
+	public void run() {
+		if (firstWork != null && shouldRun) {
+			doWork(firstWork);
+			firstWork = null;
+		}
+
+		while (shouldRun) {
+			try {
+				ByteBuffer work = workQueue.take();
+				doWork(work);
+			} catch (InterruptedException ie) {
+				// re-check state
+			}
+		}
+	}
+
+	private void doWork(ByteBuffer work) {
+		final ReentrantLock runLock = this.runLock;
+		runLock.lock();
+
+		try {
+			while (work.hasRemaining())
+				channel.write(work);
+		} catch (IOException e) {
+			LOG.error("I/O error: " + e.getMessage());
+		} finally {
+			runLock.unlock();
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.common.concurrent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+import org.citygml4j.util.xml.SAXEventBuffer;
+import org.citygml4j.util.xml.SAXWriter;
+import org.citygml4j.xml.CityGMLNamespaceContext;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import de.tub.citydb.api.concurrent.Worker;
+import de.tub.citydb.api.concurrent.WorkerPool;
+import de.tub.citydb.api.concurrent.WorkerPool.WorkQueue;
+import de.tub.citydb.log.Logger;
+
+public class IOSegmentWriterWorker implements Worker<SAXEventBuffer> {
+	private final Logger LOG = Logger.getInstance();
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	private static final byte[] LINE_SEPARATOR = System.getProperty("line.separator").getBytes(CHARSET);
+
+	// instance members needed for WorkPool
+	private volatile boolean shouldRun = true;
+	private ReentrantLock runLock = new ReentrantLock();
+	private WorkQueue<SAXEventBuffer> workQueue = null;
+	private SAXEventBuffer firstWork;
+	private Thread workerThread = null;
+
+	// instance members needed to do work
+	private final WorkerPool<ByteBuffer> sinkPool;
+	private final SegmentOutputStream segment;
+	private final SAXWriter saxWriter;
+
+	public IOSegmentWriterWorker(SAXWriter template, WorkerPool<ByteBuffer> sinkPool, QName... context) throws SAXException {
+		this.sinkPool = sinkPool;
+
+		segment = new SegmentOutputStream();
+		saxWriter = new SAXWriter();
+		saxWriter.setIndentString(template.getIndentString());
+
+		try {
+			saxWriter.setOutput(segment, CHARSET.name());
+		} catch (IOException e) {
+			throw new SAXException(e);
+		}
+
+		CityGMLNamespaceContext namespaces = template.getNamespaceContext();
+		Iterator<String> iter = namespaces.getNamespaceURIs();
+		while (iter.hasNext()) {
+			String namespaceURI = iter.next();
+			String prefix = namespaces.getPrefix(namespaceURI);
+
+			if (prefix == null)
+				continue;
+			else if (XMLConstants.DEFAULT_NS_PREFIX.equals(prefix))
+				saxWriter.setDefaultNamespace(namespaceURI);
+			else
+				saxWriter.setPrefix(prefix, namespaceURI);
+		}
+
+		// move the writer into the same element context as the target document. 
+		// this way, namespace declarations and indentation of the serialized
+		// segments match the output of a single writer. the dummy element makes
+		// sure that every segment starts with a line break.
+		for (QName element : context)
+			saxWriter.startElement(element.getNamespaceURI(), element.getLocalPart(), element.getLocalPart(), new AttributesImpl());
+
+		QName dummy = context.length > 0 ? context[context.length - 1] : new QName("segment");
+		saxWriter.startElement(dummy.getNamespaceURI(), dummy.getLocalPart(), dummy.getLocalPart(), new AttributesImpl());
+		saxWriter.endElement(dummy.getNamespaceURI(), dummy.getLocalPart(), dummy.getLocalPart());
+		saxWriter.flush();
+		segment.reset();
+	}
+
+	@Override
+	public Thread getThread() {
+		return workerThread;
+	}
+
+	@Override
+	public void interrupt() {
+		shouldRun = false;
+		workerThread.interrupt();
+	}
+
+	@Override
+	public void interruptIfIdle() {
+		final ReentrantLock runLock = this.runLock;
+		shouldRun = false;
+
+		if (runLock.tryLock()) {
+			try {
+				workerThread.interrupt();
+			} finally {
+				runLock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public void setFirstWork(SAXEventBuffer firstWork) {
+		this.firstWork = firstWork;
+	}
+
+	@Override
+	public void setThread(Thread workerThread) {
+		this.workerThread = workerThread;
+	}
+
+	@Override
+	public void setWorkQueue(WorkQueue<SAXEventBuffer> workQueue) {
+		this.workQueue = workQueue;
+	}
+
+	@Override
+	public void run() {
+		if (firstWork != null && shouldRun) {
+			doWork(firstWork);
+			firstWork = null;
+		}
+
+		while (shouldRun) {
+			try {
+				SAXEventBuffer work = workQueue.take();
+				doWork(work);
+			} catch (InterruptedException ie) {
+				// re-check state
+			}
+		}
+	}
+
+	private void doWork(SAXEventBuffer work) {
+		final ReentrantLock runLock = this.runLock;
+		runLock.lock();
+
+		try {
+			work.send(saxWriter, true);
+			saxWriter.flush();
+
+			if (segment.size() > 0) {
+				// segments are written as "<indent><element/><line break>" so that
+				// they can be appended to the output in any order
+				segment.write(LINE_SEPARATOR);
+				sinkPool.addWork(segment.toSegment());
+			}
+		} catch (SAXException e) {
+			LOG.error("XML error: " + e.getMessage());
+		} catch (IOException e) {
+			LOG.error("I/O error: " + e.getMessage());
+		} finally {
+			segment.reset();
+			runLock.unlock();
+		}
+	}
+
+	private static final class SegmentOutputStream extends ByteArrayOutputStream {
+		private static final int INITIAL_SIZE = 8192;
+		private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+		private SegmentOutputStream() {
+			super(INITIAL_SIZE);
+		}
+
+		@Override
+		public synchronized void reset() {
+			super.reset();
+
+			// do not keep the memory of huge features
+			if (buf.length > MAX_RETAINED_SIZE)
+				buf = new byte[INITIAL_SIZE];
+		}
+
+		private ByteBuffer toSegment() {
+			int offset = startsWithLineSeparator() ? LINE_SEPARATOR.length : 0;
+			byte[] bytes = new byte[count - offset];
+			System.arraycopy(buf, offset, bytes, 0, bytes.length);
+
+			return ByteBuffer.wrap(bytes);
+		}
+
+		private boolean startsWithLineSeparator() {
+			if (count < LINE_SEPARATOR.length)
+				return false;
+
+			for (int i = 0; i < LINE_SEPARATOR.length; i++)
+				if (buf[i] != LINE_SEPARATOR[i])
+					return false;
+
+			return true;
+		}
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.common.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.tub.citydb.api.concurrent.PoolSizeAdaptationStrategy;
+import de.tub.citydb.api.concurrent.WorkerPool;
+import de.tub.citydb.log.Logger;
+
+public class WorkerPoolTuner implements Runnable {
+	private final Logger LOG = Logger.getInstance();
+
+	// queue occupancy and idle workers are sampled several times per
+	// tuning interval. at most one thread is moved per interval
+	private final long SAMPLE_INTERVAL = 250;
+	private final int SAMPLES_PER_TUNING = 8;
+	private final double BUSY_OCCUPANCY = 0.75;
+	private final double BUSY_IDLE_RATIO = 0.1;
+	private final double DONOR_IDLE_RATIO = 0.3;
+
+	private final List<Stage> stages = new ArrayList<Stage>();
+	private Thread tunerThread;
+	private volatile boolean shouldRun;
+	private int threadBudget;
+
+	public void register(WorkerPool<?> pool) {
+		// the hooks of the adaptive strategy give back single threads
+		// if a stage cannot create a worker, e.g. because the database
+		// connection pool is exhausted
+		pool.setPoolSizeAdaptationStrategy(PoolSizeAdaptationStrategy.STEPWISE);
+
+		synchronized (stages) {
+			stages.add(new Stage(pool));
+			threadBudget += pool.getMaximumPoolSize();
+		}
+	}
+
+	public void start() {
+		if (tunerThread != null)
+			return;
+
+		shouldRun = true;
+		tunerThread = new Thread(this);
+		tunerThread.setName("worker_pool_tuner");
+		tunerThread.setDaemon(true);
+		tunerThread.start();
+	}
+
+	public void stop() {
+		if (tunerThread == null)
+			return;
+
+		shouldRun = false;
+		tunerThread.interrupt();
+
+		try {
+			tunerThread.join();
+		} catch (InterruptedException e) {
+			//
+		}
+
+		tunerThread = null;
+	}
+
+	@Override
+	public void run() {
+		int samples = 0;
+
+		while (shouldRun) {
+			try {
+				Thread.sleep(SAMPLE_INTERVAL);
+			} catch (InterruptedException e) {
+				continue;
+			}
+
+			synchronized (stages) {
+				for (Stage stage : stages)
+					stage.sample();
+
+				if (++samples == SAMPLES_PER_TUNING) {
+					tune();
+					samples = 0;
+				}
+			}
+		}
+	}
+
+	private void tune() {
+		Stage bottleneck = null;
+		Stage donor = null;
+
+		for (Stage stage : stages) {
+			stage.complete();
+			if (!stage.isActive())
+				continue;
+
+			// the bottleneck stage has a full queue and no idle worker
+			if (stage.occupancy >= BUSY_OCCUPANCY && stage.idleRatio <= BUSY_IDLE_RATIO
+					&& (bottleneck == null || stage.occupancy > bottleneck.occupancy))
+				bottleneck = stage;
+		}
+
+		if (bottleneck == null || bottleneck.pool.getMaximumPoolSize() >= threadBudget - stages.size() + 1)
+			return;
+
+		// take the thread from the stage with most idle workers
+		for (Stage stage : stages) {
+			if (stage == bottleneck || !stage.isActive() || stage.pool.getMaximumPoolSize() <= 1)
+				continue;
+
+			if (stage.idleRatio >= DONOR_IDLE_RATIO && (donor == null || stage.idleRatio > donor.idleRatio))
+				donor = stage;
+		}
+
+		if (donor == null)
+			return;
+
+		try {
+			int maximumPoolSize = donor.pool.getMaximumPoolSize() - 1;
+			if (donor.pool.getCorePoolSize() > maximumPoolSize)
+				donor.pool.setCorePoolSize(maximumPoolSize);
+
+			donor.pool.setMaximumPoolSize(maximumPoolSize);
+
+			// the bottleneck stage starts the additional worker 
+			// as soon as its queue does not accept further work
+			bottleneck.pool.setMaximumPoolSize(bottleneck.pool.getMaximumPoolSize() + 1);
+
+			LOG.debug("Moved worker from " + donor.pool.getName() + " (" + donor.pool.getMaximumPoolSize() + " max) to " + 
+					bottleneck.pool.getName() + " (" + bottleneck.pool.getMaximumPoolSize() + " max).");
+		} catch (IllegalArgumentException e) {
+			// pool sizes have been adapted concurrently
+		}
+	}
+
+	private final class Stage {
+		private final WorkerPool<?> pool;
+		private double occupancySum;
+		private double idleSum;
+		private int samples;
+		private double occupancy;
+		private double idleRatio;
+
+		private Stage(WorkerPool<?> pool) {
+			this.pool = pool;
+		}
+
+		private boolean isActive() {
+			return !pool.isTerminating() && !pool.isTerminated();
+		}
+
+		private void sample() {
+			int poolSize = pool.getPoolSize();
+
+			occupancySum += pool.getWorkQueue().occupancy();
+			// workers waiting for a subsequent stage are as useless as idle ones
+			int stalled = pool.getIdleWorkerCount() + pool.getBlockedWorkerCount();
+			idleSum += poolSize > 0 ? Math.min(1, (double)stalled / poolSize) : 1;
+			samples++;
+		}
+
+		private void complete() {
+			if (samples > 0) {
+				occupancy = occupancySum / samples;
+				idleRatio = idleSum / samples;
+			}
+
+			occupancySum = idleSum = 0;
+			samples = 0;
+		}
+	}
+
+}
@@ -34,6 +34,7 @@ import de.tub.citydb.modules.common.filter.feature.BoundingBoxFilter;
 import de.tub.citydb.modules.common.filter.feature.FeatureClassFilter;
 import de.tub.citydb.modules.common.filter.feature.GmlIdFilter;
 import de.tub.citydb.modules.common.filter.feature.GmlNameFilter;
+import de.tub.citydb.modules.common.filter.feature.ModificationDateFilter;
 import de.tub.citydb.modules.common.filter.statistic.FeatureCounterFilter;
 
 public class ExportFilter {
@@ -42,6 +43,7 @@ public class ExportFilter {
 	private GmlIdFilter gmlIdFilter;
 	private GmlNameFilter gmlNameFilter;
 	private BoundingBoxFilter boundingBoxFilter;
+	private ModificationDateFilter modificationDateFilter;
 	
 	public ExportFilter(Config config) {
 		featureClassFilter = new FeatureClassFilter(config, FilterMode.EXPORT);
@@ -49,6 +51,7 @@ public class ExportFilter {
 		gmlIdFilter = new GmlIdFilter(config, FilterMode.EXPORT);
 		gmlNameFilter = new GmlNameFilter(config, FilterMode.EXPORT);
 		boundingBoxFilter = new BoundingBoxFilter(config, FilterMode.EXPORT);
+		modificationDateFilter = new ModificationDateFilter(config, FilterMode.EXPORT);
 	}
 
 	public ExportFilter(Config config, FilterMode filterMode) {
@@ -57,6 +60,7 @@ public class ExportFilter {
 		gmlIdFilter = new GmlIdFilter(config, filterMode);
 		gmlNameFilter = new GmlNameFilter(config, filterMode);
 		boundingBoxFilter = new BoundingBoxFilter(config, filterMode);
+		modificationDateFilter = new ModificationDateFilter(config, filterMode);
 	}
 
 	public FeatureClassFilter getFeatureClassFilter() {
@@ -78,5 +82,9 @@ public class ExportFilter {
 	public BoundingBoxFilter getBoundingBoxFilter() {
 		return boundingBoxFilter;
 	}
+
+	public ModificationDateFilter getModificationDateFilter() {
+		return modificationDateFilter;
+	}
 	
 }
@@ -0,0 +1,171 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.common.filter.feature;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Properties;
+
+import de.tub.citydb.config.Config;
+import de.tub.citydb.config.project.exporter.ExportFilterConfig;
+import de.tub.citydb.config.project.filter.DeltaExport;
+import de.tub.citydb.modules.common.filter.Filter;
+import de.tub.citydb.modules.common.filter.FilterMode;
+
+public class ModificationDateFilter implements Filter<Date> {
+	private final String WATERMARK_KEY = "lastExport";
+	private final String OBJECT_COUNT_KEY = "objectCount.";
+	private final ExportFilterConfig filterConfig;
+
+	private boolean isActive;
+	private DeltaExport deltaExport;
+	private Date since;
+	private Properties objectCounts = new Properties();
+
+	public ModificationDateFilter(Config config, FilterMode mode) {
+		if (mode == FilterMode.EXPORT)
+			filterConfig = config.getProject().getExporter().getFilter();
+		else if (mode == FilterMode.KML_EXPORT)
+			filterConfig = config.getProject().getKmlExporter().getFilter();
+		else
+			filterConfig = null;
+
+		init();
+	}
+
+	private void init() {
+		isActive = filterConfig != null && 
+			filterConfig.isSetComplexFilter() &&
+			filterConfig.getComplexFilter().getDeltaExport().isSet();
+
+		if (isActive) {
+			deltaExport = filterConfig.getComplexFilter().getDeltaExport();
+			since = deltaExport.getSince();
+		} else
+			since = null;
+
+		objectCounts = new Properties();
+	}
+
+	@Override
+	public boolean isActive() {
+		return isActive;
+	}
+
+	public void reset() {
+		init();
+	}
+
+	public boolean filter(Date lastModification) {
+		if (isActive && since != null)
+			return lastModification == null || lastModification.before(since);
+
+		return false;
+	}
+
+	public Date getFilterState() {
+		return isActive ? since : null;
+	}
+
+	public boolean isSetWatermark() {
+		return isActive && deltaExport.isSetUseWatermark();
+	}
+
+	public boolean loadWatermark(File watermarkFile) throws IOException {
+		if (!isSetWatermark() || !watermarkFile.isFile())
+			return false;
+
+		InputStream stream = null;
+		try {
+			stream = new FileInputStream(watermarkFile);
+			Properties properties = new Properties();
+			properties.load(stream);
+
+			String value = properties.getProperty(WATERMARK_KEY);
+			if (value == null)
+				return false;
+
+			for (String key : properties.stringPropertyNames()) {
+				if (key.startsWith(OBJECT_COUNT_KEY))
+					objectCounts.setProperty(key, properties.getProperty(key));
+			}
+
+			since = new Date(Long.parseLong(value.trim()));
+			return true;
+		} catch (NumberFormatException e) {
+			throw new IOException("Illegal watermark in file '" + watermarkFile.getName() + "'.");
+		} finally {
+			if (stream != null)
+				stream.close();
+		}
+	}
+
+	// the number of city objects within the extent of an output file is kept
+	// with the watermark, since hard deletes cannot be found otherwise
+	public Long getObjectCount(File file) {
+		String value = objectCounts.getProperty(OBJECT_COUNT_KEY + file.getAbsolutePath());
+		if (value != null) {
+			try {
+				return Long.valueOf(value.trim());
+			} catch (NumberFormatException e) {
+				//
+			}
+		}
+
+		return null;
+	}
+
+	public void setObjectCount(File file, long objectCount) {
+		objectCounts.setProperty(OBJECT_COUNT_KEY + file.getAbsolutePath(), String.valueOf(objectCount));
+	}
+
+	public void storeWatermark(File watermarkFile, Date exportTime) throws IOException {
+		if (!isSetWatermark())
+			return;
+
+		OutputStream stream = null;
+		try {
+			stream = new FileOutputStream(watermarkFile);
+			Properties properties = new Properties();
+			properties.putAll(objectCounts);
+			properties.setProperty(WATERMARK_KEY, String.valueOf(exportTime.getTime()));
+			properties.store(stream, "Start of last export: " + exportTime);
+		} finally {
+			if (stream != null)
+				stream.close();
+		}
+	}
+
+}
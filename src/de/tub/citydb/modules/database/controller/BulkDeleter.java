@@ -0,0 +1,657 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.database.controller;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.citygml4j.util.gmlid.DefaultGMLIdManager;
+
+import de.tub.citydb.config.Config;
+import de.tub.citydb.config.project.database.DBOperation;
+import de.tub.citydb.config.project.database.Workspace;
+import de.tub.citydb.database.DatabaseConnectionPool;
+import de.tub.citydb.database.IndexStatusInfo;
+import de.tub.citydb.database.IndexStatusInfo.IndexInfoObject;
+import de.tub.citydb.database.IndexStatusInfo.IndexStatus;
+import de.tub.citydb.database.IndexStatusInfo.IndexType;
+import de.tub.citydb.database.adapter.AbstractDatabaseAdapter;
+import de.tub.citydb.database.adapter.AbstractSQLAdapter;
+import de.tub.citydb.log.Logger;
+
+public class BulkDeleter {
+	private final Logger LOG = Logger.getInstance();
+	private static final int TILE_SIZE = 1000;
+
+	private final DatabaseConnectionPool dbPool;
+	private final AbstractDatabaseAdapter databaseAdapter;
+	private final Workspace workspace;
+	private final DBOperation operation;
+
+	private final List<DeleteWorker> workers = new ArrayList<DeleteWorker>();
+	private volatile boolean shouldRun = true;
+	private volatile boolean isInterrupted;
+	private volatile Statement mainStatement;
+
+	private String idTable;
+	private String geometryTable;
+
+	private enum Kind {
+		BUILDING(1, "BUILDING", "LOD1_GEOMETRY_ID", "LOD2_GEOMETRY_ID", "LOD3_GEOMETRY_ID", "LOD4_GEOMETRY_ID"),
+		ROOM(2, "ROOM", "LOD4_GEOMETRY_ID"),
+		BUILDING_INSTALLATION(3, "BUILDING_INSTALLATION", "LOD2_GEOMETRY_ID", "LOD3_GEOMETRY_ID", "LOD4_GEOMETRY_ID"),
+		BUILDING_FURNITURE(4, "BUILDING_FURNITURE", "LOD4_GEOMETRY_ID"),
+		THEMATIC_SURFACE(5, "THEMATIC_SURFACE", "LOD2_MULTI_SURFACE_ID", "LOD3_MULTI_SURFACE_ID", "LOD4_MULTI_SURFACE_ID"),
+		OPENING(6, "OPENING", "LOD3_MULTI_SURFACE_ID", "LOD4_MULTI_SURFACE_ID"),
+		APPEARANCE(7, "APPEARANCE"),
+		SURFACE_DATA(8, "SURFACE_DATA"),
+		ADDRESS(9, "ADDRESS");
+
+		private final int value;
+		private final String table;
+		private final String[] geometryColumns;
+
+		private Kind(int value, String table, String... geometryColumns) {
+			this.value = value;
+			this.table = table;
+			this.geometryColumns = geometryColumns;
+		}
+	}
+
+	public BulkDeleter(DatabaseConnectionPool dbPool, Config config) {
+		this.dbPool = dbPool;
+		databaseAdapter = dbPool.getActiveDatabaseAdapter();
+		workspace = config.getProject().getDatabase().getWorkspaces().getOperationWorkspace();
+		operation = config.getProject().getDatabase().getOperation();
+	}
+
+	public long deleteBuildingsByLineage(String lineage) throws SQLException {
+		try {
+			return deleteBuildings(lineage);
+		} catch (SQLException e) {
+			if (isInterrupted)
+				return -1;
+
+			throw e;
+		}
+	}
+
+	private long deleteBuildings(String lineage) throws SQLException {
+		Connection conn = null;
+		List<IndexType> droppedIndexes = new ArrayList<IndexType>();
+		long buildings = 0;
+
+		try {
+			conn = dbPool.getConnection();
+			conn.setAutoCommit(false);
+			if (databaseAdapter.hasVersioningSupport())
+				databaseAdapter.getWorkspaceManager().gotoWorkspace(conn, workspace);
+
+			// the target ids are selected only once. like the DELETE_BY_LINEAGE script, only
+			// root buildings are matched against the lineage. building parts follow their 
+			// root building, so every tile holds complete building aggregates 
+			LOG.info("Selecting buildings with lineage '" + lineage + "'.");
+			createTables(conn);
+
+			int tiles = (int)Math.ceil(countRootBuildings(conn, lineage) / (double)TILE_SIZE);
+			if (tiles == 0) {
+				LOG.info("No buildings found for lineage '" + lineage + "'.");
+				return 0;
+			}
+
+			collectIds(conn, lineage, tiles);
+			if (isInterrupted)
+				return -1;
+
+			buildings = count(conn, Kind.BUILDING);
+			LOG.info("Deleting " + buildings + " building(s) in " + tiles + " tile(s).");
+
+			if (operation.isSetDeleteDeactivateIndexes())
+				dropIndexes(droppedIndexes);
+
+			int threads = operation.isSetDeleteThreads() ?
+					operation.getDeleteThreads() : Math.min(Runtime.getRuntime().availableProcessors(), 4);
+
+			deleteTiles(1, tiles, Math.min(threads, tiles));
+
+			// objects shared between tiles are deleted after all tiles
+			if (shouldRun)
+				new DeleteWorker(conn, new AtomicInteger(0), 0).call();
+
+			// remove global appearances, city models and implicit geometries that
+			// are no longer referenced, as done by the DELETE_BY_LINEAGE script
+			if (shouldRun)
+				cleanup(conn);
+
+			if (isInterrupted)
+				return -1;
+
+			LOG.info(buildings + " building(s) successfully deleted.");
+			return buildings;
+		} finally {
+			if (conn != null) {
+				try {
+					dropTables(conn);
+				} catch (SQLException e) {
+					LOG.warn("Failed to drop temporary tables: " + e.getMessage());
+				}
+
+				try {
+					conn.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+
+			if (!droppedIndexes.isEmpty())
+				createIndexes(droppedIndexes);
+		}
+	}
+
+	public void interrupt() {
+		isInterrupted = true;
+		shouldRun = false;
+
+		try {
+			if (mainStatement != null)
+				mainStatement.cancel();
+		} catch (SQLException e) {
+			//
+		}
+
+		synchronized (workers) {
+			for (DeleteWorker worker : workers)
+				worker.cancel();
+		}
+	}
+
+	private void deleteTiles(int firstTile, int lastTile, int threads) throws SQLException {
+		List<Connection> connections = new ArrayList<Connection>();
+		ExecutorService service = null;
+
+		try {
+			for (int i = 0; i < threads; i++) {
+				try {
+					Connection tileConnection = dbPool.getConnection();
+					tileConnection.setAutoCommit(false);
+					connections.add(tileConnection);
+
+					if (databaseAdapter.hasVersioningSupport())
+						databaseAdapter.getWorkspaceManager().gotoWorkspace(tileConnection, workspace);
+				} catch (SQLException e) {
+					if (connections.isEmpty())
+						throw e;
+
+					LOG.warn("Failed to acquire database connection for parallel delete: " + e.getMessage());
+					LOG.warn("Continuing with " + connections.size() + " connection(s).");
+					break;
+				}
+			}
+
+			service = Executors.newFixedThreadPool(connections.size(), new ThreadFactory() {
+				private int threadNo;
+
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r);
+					t.setName("bulk_delete " + threadNo++);
+					t.setDaemon(true);
+					return t;
+				}
+			});
+
+			AtomicInteger nextTile = new AtomicInteger(firstTile);
+			List<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (Connection tileConnection : connections)
+				results.add(service.submit(new DeleteWorker(tileConnection, nextTile, lastTile)));
+
+			for (Future<Void> result : results)
+				result.get();
+
+		} catch (InterruptedException e) {
+			shouldRun = false;
+		} catch (ExecutionException e) {
+			shouldRun = false;
+			if (e.getCause() instanceof SQLException)
+				throw (SQLException)e.getCause();
+
+			throw new SQLException(e.getCause());
+		} finally {
+			if (service != null)
+				service.shutdown();
+
+			for (Connection tileConnection : connections) {
+				try {
+					tileConnection.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+		}
+	}
+
+	private void createTables(Connection conn) throws SQLException {
+		AbstractSQLAdapter sqlAdapter = databaseAdapter.getSQLAdapter();
+		String suffix = String.valueOf(Math.abs(DefaultGMLIdManager.getInstance().generateUUID().hashCode()));
+		idTable = "TMP_DEL" + suffix;
+		geometryTable = "TMP_DELG" + suffix;
+
+		execute(conn, sqlAdapter.getCreateUnloggedTable(idTable, new StringBuilder("(")
+		.append("ID ").append(sqlAdapter.getInteger()).append(", ")
+		.append("KIND ").append(sqlAdapter.getNumeric(2)).append(", ")
+		.append("TILE ").append(sqlAdapter.getInteger())
+		.append(")").toString()));
+
+		execute(conn, sqlAdapter.getCreateUnloggedTable(geometryTable, new StringBuilder("(")
+		.append("ID ").append(sqlAdapter.getInteger()).append(", ")
+		.append("TILE ").append(sqlAdapter.getInteger())
+		.append(")").toString()));
+
+		conn.commit();
+	}
+
+	private void dropTables(Connection conn) throws SQLException {
+		conn.rollback();
+
+		if (idTable != null) {
+			execute(conn, "drop table " + idTable);
+			idTable = null;
+		}
+
+		if (geometryTable != null) {
+			execute(conn, "drop table " + geometryTable);
+			geometryTable = null;
+		}
+
+		conn.commit();
+	}
+
+	private long countRootBuildings(Connection conn, String lineage) throws SQLException {
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			stmt = conn.prepareStatement("select count(distinct b.BUILDING_ROOT_ID) from BUILDING b, CITYOBJECT co where b.ID = co.ID and b.BUILDING_PARENT_ID is null and co.LINEAGE = ?");
+			stmt.setString(1, lineage);
+			rs = stmt.executeQuery();
+
+			return rs.next() ? rs.getLong(1) : 0;
+		} finally {
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+
+			if (stmt != null) {
+				try {
+					stmt.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+		}
+	}
+
+	private long count(Connection conn, Kind kind) throws SQLException {
+		Statement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			stmt = conn.createStatement();
+			rs = stmt.executeQuery("select count(*) from " + idTable + " where KIND = " + kind.value);
+
+			return rs.next() ? rs.getLong(1) : 0;
+		} finally {
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+
+			if (stmt != null) {
+				try {
+					stmt.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+		}
+	}
+
+	private void collectIds(Connection conn, String lineage, int tiles) throws SQLException {
+		PreparedStatement stmt = null;
+
+		try {
+			// root buildings are split into id ranges of about TILE_SIZE aggregates
+			stmt = conn.prepareStatement(new StringBuilder("insert into ").append(idTable).append(" (ID, KIND, TILE) ")
+			.append("select b.ID, ").append(Kind.BUILDING.value).append(", r.TILE from BUILDING b, ")
+			.append("(select ROOT_ID, ntile(").append(tiles).append(") over (order by ROOT_ID) as TILE from ")
+			.append("(select distinct b.BUILDING_ROOT_ID as ROOT_ID from BUILDING b, CITYOBJECT co where b.ID = co.ID and b.BUILDING_PARENT_ID is null and co.LINEAGE = ?) roots) r ")
+			.append("where b.BUILDING_ROOT_ID = r.ROOT_ID").toString());
+			stmt.setString(1, lineage);
+			mainStatement = stmt;
+			stmt.executeUpdate();
+		} finally {
+			mainStatement = null;
+			if (stmt != null) {
+				try {
+					stmt.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+		}
+
+		collectChildren(conn, Kind.ROOM, new String[]{ "BUILDING_ID" }, new Kind[]{ Kind.BUILDING });
+		collectChildren(conn, Kind.BUILDING_INSTALLATION, new String[]{ "BUILDING_ID", "ROOM_ID" }, new Kind[]{ Kind.BUILDING, Kind.ROOM });
+		collectChildren(conn, Kind.BUILDING_FURNITURE, new String[]{ "ROOM_ID" }, new Kind[]{ Kind.ROOM });
+		collectChildren(conn, Kind.THEMATIC_SURFACE, new String[]{ "BUILDING_ID", "ROOM_ID" }, new Kind[]{ Kind.BUILDING, Kind.ROOM });
+
+		// objects referenced through link tables are only deleted if all their references 
+		// are deleted as well. if the references span several tiles, they are moved to tile 0
+		collectShared(conn, Kind.OPENING, "OPENING_TO_THEM_SURFACE", "OPENING_ID", "THEMATIC_SURFACE_ID", Kind.THEMATIC_SURFACE);
+
+		execute(conn, new StringBuilder("insert into ").append(idTable).append(" (ID, KIND, TILE) ")
+		.append("select a.ID, ").append(Kind.APPEARANCE.value).append(", t.TILE from APPEARANCE a, ").append(idTable).append(" t ")
+		.append("where a.CITYOBJECT_ID = t.ID and t.KIND between ").append(Kind.BUILDING.value).append(" and ").append(Kind.OPENING.value).toString());
+
+		collectShared(conn, Kind.SURFACE_DATA, "APPEAR_TO_SURFACE_DATA", "SURFACE_DATA_ID", "APPEARANCE_ID", Kind.APPEARANCE);
+
+		// addresses may also be referenced by openings of the tile 0
+		execute(conn, new StringBuilder("insert into ").append(idTable).append(" (ID, KIND, TILE) ")
+		.append("select a.ADDRESS_ID, ").append(Kind.ADDRESS.value).append(", 0 from ADDRESS_TO_BUILDING a, ").append(idTable).append(" t ")
+		.append("where a.BUILDING_ID = t.ID and t.KIND = ").append(Kind.BUILDING.value).append(" ")
+		.append("and not exists (select 1 from OPENING o where o.ADDRESS_ID = a.ADDRESS_ID ")
+		.append("and o.ID not in (select ID from ").append(idTable).append(" where KIND = ").append(Kind.OPENING.value).append(")) ")
+		.append("group by a.ADDRESS_ID ")
+		.append("having count(*) = (select count(*) from ADDRESS_TO_BUILDING a2 where a2.ADDRESS_ID = a.ADDRESS_ID)").toString());
+
+		for (Kind kind : Kind.values()) {
+			for (String column : kind.geometryColumns) {
+				execute(conn, new StringBuilder("insert into ").append(geometryTable).append(" (ID, TILE) ")
+				.append("select c.").append(column).append(", t.TILE from ").append(kind.table).append(" c, ").append(idTable).append(" t ")
+				.append("where c.ID = t.ID and t.KIND = ").append(kind.value).append(" and c.").append(column).append(" is not null").toString());
+			}
+		}
+
+		String indexProperty = databaseAdapter.getSQLAdapter().getUnloggedIndexProperty();
+		execute(conn, "create index " + idTable + "_IDX on " + idTable + " (TILE, KIND, ID) " + indexProperty);
+		execute(conn, "create index " + geometryTable + "_IDX on " + geometryTable + " (TILE, ID) " + indexProperty);
+
+		conn.commit();
+	}
+
+	private void collectChildren(Connection conn, Kind kind, String[] columns, Kind[] parents) throws SQLException {
+		StringBuilder query = new StringBuilder("insert into ").append(idTable).append(" (ID, KIND, TILE) ")
+		.append("select ID, ").append(kind.value).append(", max(TILE) from (");
+
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0)
+				query.append(" union all ");
+
+			query.append("select c.ID, t.TILE from ").append(kind.table).append(" c, ").append(idTable).append(" t ")
+			.append("where c.").append(columns[i]).append(" = t.ID and t.KIND = ").append(parents[i].value);
+		}
+
+		query.append(") children group by ID");
+		execute(conn, query.toString());
+	}
+
+	private void collectShared(Connection conn, Kind kind, String linkTable, String column, String parentColumn, Kind parent) throws SQLException {
+		execute(conn, new StringBuilder("insert into ").append(idTable).append(" (ID, KIND, TILE) ")
+		.append("select l.").append(column).append(", ").append(kind.value).append(", ")
+		.append("case when min(t.TILE) = max(t.TILE) then min(t.TILE) else 0 end ")
+		.append("from ").append(linkTable).append(" l, ").append(idTable).append(" t ")
+		.append("where l.").append(parentColumn).append(" = t.ID and t.KIND = ").append(parent.value).append(" ")
+		.append("group by l.").append(column).append(" ")
+		.append("having count(*) = (select count(*) from ").append(linkTable).append(" l2 where l2.").append(column).append(" = l.").append(column).append(")").toString());
+	}
+
+	private void cleanup(Connection conn) throws SQLException {
+		AbstractSQLAdapter sqlAdapter = databaseAdapter.getSQLAdapter();
+		String[] calls = new String[]{
+				sqlAdapter.resolveDatabaseOperationName("geodb_delete.cleanup_implicitgeometries") + "()",
+				sqlAdapter.resolveDatabaseOperationName("geodb_delete.cleanup_appearances") + "(1)",
+				sqlAdapter.resolveDatabaseOperationName("geodb_delete.cleanup_citymodels") + "()"
+		};
+
+		for (String call : calls) {
+			CallableStatement stmt = null;
+
+			try {
+				stmt = conn.prepareCall("{call " + call + "}");
+				mainStatement = stmt;
+				stmt.execute();
+			} finally {
+				mainStatement = null;
+				if (stmt != null) {
+					try {
+						stmt.close();
+					} catch (SQLException e) {
+						//
+					}
+				}
+			}
+		}
+
+		conn.commit();
+	}
+
+	private void execute(Connection conn, String sql) throws SQLException {
+		Statement stmt = null;
+
+		try {
+			stmt = conn.createStatement();
+			mainStatement = stmt;
+			stmt.executeUpdate(sql);
+		} finally {
+			mainStatement = null;
+			if (stmt != null) {
+				try {
+					stmt.close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+		}
+	}
+
+	private void dropIndexes(List<IndexType> droppedIndexes) throws SQLException {
+		for (IndexType type : IndexType.values()) {
+			IndexStatusInfo status = databaseAdapter.getUtil().getIndexStatus(type);
+			if (status.getIndexObjects(IndexStatus.VALID).isEmpty())
+				continue;
+
+			LOG.info("Deactivating " + type.name().toLowerCase() + " indexes...");
+			droppedIndexes.add(type);
+
+			status = type == IndexType.SPATIAL ? databaseAdapter.getUtil().dropSpatialIndexes() : databaseAdapter.getUtil().dropNormalIndexes();
+			for (IndexInfoObject index : status.getIndexObjects()) {
+				if (index.getStatus() != IndexStatus.DROPPED)
+					LOG.warn("Failed to deactivate index: " + index.toString());
+			}
+		}
+	}
+
+	private void createIndexes(List<IndexType> droppedIndexes) throws SQLException {
+		for (IndexType type : droppedIndexes) {
+			LOG.info("Reactivating " + type.name().toLowerCase() + " indexes...");
+
+			IndexStatusInfo status = type == IndexType.SPATIAL ? databaseAdapter.getUtil().createSpatialIndexes() : databaseAdapter.getUtil().createNormalIndexes();
+			for (IndexInfoObject index : status.getIndexObjects()) {
+				if (index.getStatus() != IndexStatus.VALID)
+					LOG.error("Failed to reactivate index: " + index.toString());
+			}
+		}
+	}
+
+	private final class DeleteWorker implements Callable<Void> {
+		private final Connection conn;
+		private final AtomicInteger nextTile;
+		private final int lastTile;
+		private volatile Statement current;
+
+		private DeleteWorker(Connection conn, AtomicInteger nextTile, int lastTile) {
+			this.conn = conn;
+			this.nextTile = nextTile;
+			this.lastTile = lastTile;
+		}
+
+		public Void call() throws SQLException {
+			synchronized (workers) {
+				workers.add(this);
+			}
+
+			List<PreparedStatement> stmts = new ArrayList<PreparedStatement>();
+			List<Integer> parameterCounts = new ArrayList<Integer>();
+
+			try {
+				for (String sql : getDeleteStatements()) {
+					stmts.add(conn.prepareStatement(sql));
+					parameterCounts.add(sql.length() - sql.replace("?", "").length());
+				}
+
+				int tile = 0;
+				while (shouldRun && (tile = nextTile.getAndIncrement()) <= lastTile) {
+					for (int i = 0; i < stmts.size() && shouldRun; i++) {
+						PreparedStatement stmt = stmts.get(i);
+
+						// every statement only refers to the tile parameter
+						for (int j = 1; j <= parameterCounts.get(i); j++)
+							stmt.setInt(j, tile);
+
+						current = stmt;
+						stmt.executeUpdate();
+						current = null;
+					}
+
+					if (shouldRun) {
+						conn.commit();
+						LOG.debug("Deleted tile " + tile + ".");
+					}
+				}
+
+				if (!shouldRun)
+					conn.rollback();
+
+				return null;
+			} catch (SQLException e) {
+				shouldRun = false;
+
+				try {
+					conn.rollback();
+				} catch (SQLException sqlEx) {
+					//
+				}
+
+				throw e;
+			} finally {
+				current = null;
+				synchronized (workers) {
+					workers.remove(this);
+				}
+
+				for (PreparedStatement stmt : stmts) {
+					try {
+						stmt.close();
+					} catch (SQLException e) {
+						//
+					}
+				}
+			}
+		}
+
+		private void cancel() {
+			try {
+				Statement stmt = current;
+				if (stmt != null)
+					stmt.cancel();
+			} catch (SQLException e) {
+				//
+			}
+		}
+	}
+
+	private List<String> getDeleteStatements() {
+		String cityObjects = new StringBuilder("select ID from ").append(idTable)
+		.append(" where TILE = ? and KIND between ").append(Kind.BUILDING.value).append(" and ").append(Kind.OPENING.value).toString();
+		String geometries = "select sg.ID from SURFACE_GEOMETRY sg where sg.ROOT_ID in (select ID from " + geometryTable + " where TILE = ?)";
+
+		List<String> stmts = new ArrayList<String>();
+
+		// link tables and dependent rows come first, feature tables 
+		// are deleted from leaf to root, city objects are deleted last
+		stmts.add("delete from TEXTUREPARAM where SURFACE_GEOMETRY_ID in (" + geometries + ")");
+		stmts.add("delete from TEXTUREPARAM where SURFACE_DATA_ID in (" + ids(Kind.SURFACE_DATA) + ")");
+		stmts.add("delete from APPEAR_TO_SURFACE_DATA where APPEARANCE_ID in (" + ids(Kind.APPEARANCE) + ")");
+		stmts.add("delete from SURFACE_DATA where ID in (" + ids(Kind.SURFACE_DATA) + ")");
+		stmts.add("delete from APPEARANCE where ID in (" + ids(Kind.APPEARANCE) + ")");
+		stmts.add("delete from CITYOBJECT_MEMBER where CITYOBJECT_ID in (" + cityObjects + ")");
+		stmts.add("delete from GROUP_TO_CITYOBJECT where CITYOBJECT_ID in (" + cityObjects + ")");
+		stmts.add("delete from GENERALIZATION where GENERALIZES_TO_ID in (" + cityObjects + ")");
+		stmts.add("delete from GENERALIZATION where CITYOBJECT_ID in (" + cityObjects + ")");
+		stmts.add("delete from EXTERNAL_REFERENCE where CITYOBJECT_ID in (" + cityObjects + ")");
+		stmts.add("delete from CITYOBJECT_GENERICATTRIB where CITYOBJECT_ID in (" + cityObjects + ")");
+		stmts.add("update CITYOBJECTGROUP set PARENT_CITYOBJECT_ID = null where PARENT_CITYOBJECT_ID in (" + cityObjects + ")");
+		stmts.add("delete from OPENING_TO_THEM_SURFACE where THEMATIC_SURFACE_ID in (" + ids(Kind.THEMATIC_SURFACE) + ")");
+		stmts.add("delete from OPENING_TO_THEM_SURFACE where OPENING_ID in (" + ids(Kind.OPENING) + ")");
+		stmts.add("delete from ADDRESS_TO_BUILDING where BUILDING_ID in (" + ids(Kind.BUILDING) + ")");
+
+		for (Kind kind : new Kind[]{ Kind.OPENING, Kind.BUILDING_FURNITURE, Kind.BUILDING_INSTALLATION, Kind.THEMATIC_SURFACE, Kind.ROOM, Kind.BUILDING, Kind.ADDRESS })
+			stmts.add("delete from " + kind.table + " where ID in (" + ids(kind) + ")");
+
+		stmts.add("delete from SURFACE_GEOMETRY where ROOT_ID in (select ID from " + geometryTable + " where TILE = ?)");
+		stmts.add("delete from CITYOBJECT where ID in (" + cityObjects + ")");
+
+		return stmts;
+	}
+
+	private String ids(Kind kind) {
+		return "select ID from " + idTable + " where TILE = ? and KIND = " + kind.value;
+	}
+
+}
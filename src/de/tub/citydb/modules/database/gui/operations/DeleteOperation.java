@@ -0,0 +1,276 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.database.gui.operations;
+
+import java.awt.Component;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.swing.Icon;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+
+import de.tub.citydb.api.controller.ViewController;
+import de.tub.citydb.api.registry.ObjectRegistry;
+import de.tub.citydb.config.Config;
+import de.tub.citydb.config.internal.Internal;
+import de.tub.citydb.config.project.database.DBOperationType;
+import de.tub.citydb.config.project.database.Workspace;
+import de.tub.citydb.database.DatabaseConnectionPool;
+import de.tub.citydb.gui.components.StatusDialog;
+import de.tub.citydb.gui.factory.PopupMenuDecorator;
+import de.tub.citydb.log.Logger;
+import de.tub.citydb.modules.database.controller.BulkDeleter;
+import de.tub.citydb.util.gui.GuiUtil;
+
+public class DeleteOperation extends DatabaseOperationView {
+	private final ReentrantLock mainLock = new ReentrantLock();
+	private final Logger LOG = Logger.getInstance();
+	private final DatabaseOperationsPanel parent;
+	private final ViewController viewController;
+	private final DatabaseConnectionPool dbConnectionPool;
+	private final Config config;
+
+	private JPanel component;
+	private JLabel lineageLabel;
+	private JTextField lineage;
+	private JCheckBox deactivateIndexes;
+	private JButton deleteButton;
+
+	public DeleteOperation(DatabaseOperationsPanel parent, Config config) {
+		this.parent = parent;
+		this.config = config;
+		viewController = ObjectRegistry.getInstance().getViewController();
+		dbConnectionPool = DatabaseConnectionPool.getInstance();
+
+		init();
+	}
+
+	private void init() {
+		component = new JPanel();
+		component.setLayout(new GridBagLayout());
+
+		lineageLabel = new JLabel();
+		lineage = new JTextField();
+		deactivateIndexes = new JCheckBox();
+		deactivateIndexes.setIconTextGap(10);
+		deleteButton = new JButton();
+
+		component.add(lineageLabel, GuiUtil.setConstraints(0,0,0.0,0.0,GridBagConstraints.BOTH,10,5,0,5));
+		component.add(lineage, GuiUtil.setConstraints(1,0,1.0,0.0,GridBagConstraints.BOTH,10,5,0,5));
+
+		GridBagConstraints c = GuiUtil.setConstraints(0,1,0.0,0.0,GridBagConstraints.BOTH,5,5,0,5);
+		c.gridwidth = 2;
+		component.add(deactivateIndexes, c);
+
+		c = GuiUtil.setConstraints(0,2,1.0,0.0,GridBagConstraints.NONE,10,5,5,5);
+		c.gridwidth = 2;
+		component.add(deleteButton, c);
+
+		PopupMenuDecorator.getInstance().decorate(lineage);
+
+		deleteButton.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				Thread thread = new Thread() {
+					public void run() {
+						doOperation();
+					}
+				};
+				thread.setDaemon(true);
+				thread.start();
+			}
+		});
+	}
+
+	@Override
+	public String getLocalizedTitle() {
+		return Internal.I18N.getString("db.label.operation.delete");
+	}
+
+	@Override
+	public Component getViewComponent() {
+		return component;
+	}
+
+	@Override
+	public String getToolTip() {
+		return null;
+	}
+
+	@Override
+	public Icon getIcon() {
+		return null;
+	}
+
+	@Override
+	public DBOperationType getType() {
+		return DBOperationType.DELETE;
+	}
+
+	@Override
+	public void doTranslation() {
+		lineageLabel.setText(Internal.I18N.getString("db.label.operation.delete.lineage"));
+		deactivateIndexes.setText(Internal.I18N.getString("db.label.operation.delete.indexes"));
+		deleteButton.setText(Internal.I18N.getString("db.button.delete.lineage"));
+	}
+
+	@Override
+	public void setEnabled(boolean enable) {
+		lineageLabel.setEnabled(enable);
+		lineage.setEnabled(enable);
+		deactivateIndexes.setEnabled(enable);
+		deleteButton.setEnabled(enable);
+	}
+
+	@Override
+	public void loadSettings() {
+		lineage.setText(config.getProject().getDatabase().getOperation().getDeleteLineage());
+		deactivateIndexes.setSelected(config.getProject().getDatabase().getOperation().isSetDeleteDeactivateIndexes());
+	}
+
+	@Override
+	public void setSettings() {
+		config.getProject().getDatabase().getOperation().setDeleteLineage(lineage.getText().trim());
+		config.getProject().getDatabase().getOperation().setDeleteDeactivateIndexes(deactivateIndexes.isSelected());
+	}
+
+	private void doOperation() {
+		final ReentrantLock lock = this.mainLock;
+		lock.lock();
+
+		try {
+			Workspace workspace = parent.getWorkspace();
+			if (workspace == null)
+				return;
+
+			String lineageValue = config.getProject().getDatabase().getOperation().getDeleteLineage();
+			if (lineageValue.length() == 0) {
+				JOptionPane.showMessageDialog(
+						viewController.getTopFrame(), 
+						Internal.I18N.getString("db.dialog.error.delete.lineage"), 
+						Internal.I18N.getString("db.dialog.error.operation.incompleteData"), 
+						JOptionPane.ERROR_MESSAGE);
+
+				return;
+			}
+
+			int res = JOptionPane.showConfirmDialog(
+					viewController.getTopFrame(), 
+					MessageFormat.format(Internal.I18N.getString("db.dialog.delete.lineage.msg"), new Object[]{ lineageValue }), 
+					Internal.I18N.getString("db.dialog.delete.lineage.title"), 
+					JOptionPane.YES_NO_OPTION);
+
+			if (res != JOptionPane.YES_OPTION)
+				return;
+
+			viewController.clearConsole();
+			viewController.setStatusText(Internal.I18N.getString("main.status.database.delete.label"));
+
+			LOG.info("Deleting buildings by lineage...");
+			if (dbConnectionPool.getActiveDatabaseAdapter().hasVersioningSupport() && !parent.existsWorkspace())
+				return;
+
+			final BulkDeleter deleter = new BulkDeleter(dbConnectionPool, config);
+			final StatusDialog deleteDialog = new StatusDialog(viewController.getTopFrame(), 
+					Internal.I18N.getString("db.dialog.delete.window"), 
+					Internal.I18N.getString("db.dialog.delete.title"), 
+					null,
+					Internal.I18N.getString("db.dialog.delete.details"), 
+					true);
+
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					deleteDialog.setLocationRelativeTo(viewController.getTopFrame());
+					deleteDialog.setVisible(true);
+				}
+			});
+
+			deleteDialog.getButton().addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					Thread thread = new Thread() {
+						public void run() {
+							deleter.interrupt();
+						}
+					};
+					thread.setDaemon(true);
+					thread.start();
+				}
+			});
+
+			try {
+				long buildings = deleter.deleteBuildingsByLineage(lineageValue);
+				if (buildings < 0)
+					LOG.warn("Deletion of buildings aborted.");
+
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						deleteDialog.dispose();
+					}
+				});
+
+			} catch (SQLException sqlEx) {
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						deleteDialog.dispose();
+					}
+				});
+
+				String dbSqlEx = sqlEx.getMessage().trim();
+				String text = Internal.I18N.getString("db.dialog.error.delete");
+				Object[] args = new Object[]{ dbSqlEx };
+				String result = MessageFormat.format(text, args);
+
+				JOptionPane.showMessageDialog(
+						viewController.getTopFrame(), 
+						result, 
+						Internal.I18N.getString("common.dialog.error.db.title"),
+						JOptionPane.ERROR_MESSAGE);
+
+				LOG.error("SQL error: " + dbSqlEx);
+			} finally {			
+				viewController.setStatusText(Internal.I18N.getString("main.status.ready.label"));
+			}
+
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
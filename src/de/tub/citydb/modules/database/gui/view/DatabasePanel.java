@@ -75,6 +75,7 @@ import de.tub.citydb.api.registry.ObjectRegistry;
 import de.tub.citydb.config.Config;
 import de.tub.citydb.config.internal.Internal;
 import de.tub.citydb.config.project.database.DBConnection;
+import de.tub.citydb.config.project.database.DBReplica;
 import de.tub.citydb.config.project.database.Database;
 import de.tub.citydb.database.ConnectionStateEnum;
 import de.tub.citydb.database.ConnectionViewHandler;
@@ -522,6 +523,8 @@ public class DatabasePanel extends JPanel implements ConnectionViewHandler, Even
 
 		connCombo.setSelectedItem(dbConnection);
 		dbConnection.setInternalPassword(dbConnection.getPassword());
+		for (DBReplica replica : dbConnection.getReplicas())
+			replica.setInternalPassword(replica.getPassword());
 
 		operationsPanel.loadSettings();
 
@@ -556,6 +559,10 @@ public class DatabasePanel extends JPanel implements ConnectionViewHandler, Even
 			dbConnection.setPassword(new String(passwordText.getPassword()));
 		else
 			dbConnection.setPassword("");
+
+		// replica passwords are only saved together with the password of the connection
+		for (DBReplica replica : dbConnection.getReplicas())
+			replica.setPassword(passwordCheck.isSelected() ? replica.getInternalPassword() : null);
 	}
 
 	private void getDbConnection(DBConnection dbConnection) {
@@ -574,6 +581,11 @@ public class DatabasePanel extends JPanel implements ConnectionViewHandler, Even
 		if (dbConnection.getInternalPassword() == null)
 			dbConnection.setInternalPassword(dbConnection.getPassword());
 
+		for (DBReplica replica : dbConnection.getReplicas()) {
+			if (!replica.isSetInternalPassword())
+				replica.setInternalPassword(replica.getPassword());
+		}
+
 		Integer port = dbConnection.getPort();
 		if (port == null || port == 0) {
 			port = 1521;
@@ -0,0 +1,151 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.kml.concurrent;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.tub.citydb.api.concurrent.Worker;
+import de.tub.citydb.api.concurrent.WorkerPool.WorkQueue;
+import de.tub.citydb.config.project.kmlExporter.ColladaOptions;
+import de.tub.citydb.config.project.kmlExporter.ModelFormat;
+import de.tub.citydb.log.Logger;
+import de.tub.citydb.modules.kml.database.ColladaBundle;
+import de.tub.citydb.modules.kml.database.ColladaImageJob;
+import de.tub.citydb.modules.kml.database.KmlGenericObject;
+
+public class ColladaImageWorker implements Worker<ColladaImageJob> {
+	private final Logger LOG = Logger.getInstance();
+
+	// instance members needed for WorkPool
+	private volatile boolean shouldRun = true;
+	private ReentrantLock runLock = new ReentrantLock();
+	private WorkQueue<ColladaImageJob> workQueue = null;
+	private ColladaImageJob firstWork;
+	private Thread workerThread = null;
+
+	@Override
+	public Thread getThread() {
+		return workerThread;
+	}
+
+	@Override
+	public void interrupt() {
+		shouldRun = false;
+		workerThread.interrupt();
+	}
+
+	@Override
+	public void interruptIfIdle() {
+		final ReentrantLock runLock = this.runLock;
+		shouldRun = false;
+
+		if (runLock.tryLock()) {
+			try {
+				workerThread.interrupt();
+			} finally {
+				runLock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public void setFirstWork(ColladaImageJob firstWork) {
+		this.firstWork = firstWork;
+	}
+
+	@Override
+	public void setThread(Thread workerThread) {
+		this.workerThread = workerThread;
+	}
+
+	@Override
+	public void setWorkQueue(WorkQueue<ColladaImageJob> workQueue) {
+		this.workQueue = workQueue;
+	}
+
+	@Override
+	public void run() {
+		if (firstWork != null && shouldRun) {
+			doWork(firstWork);
+			firstWork = null;
+		}
+
+		while (shouldRun) {
+			try {
+				ColladaImageJob work = workQueue.take();
+				doWork(work);
+			} catch (InterruptedException ie) {
+				// re-check state
+			}
+		}
+	}
+
+	private void doWork(ColladaImageJob work) {
+		final ReentrantLock runLock = this.runLock;
+		runLock.lock();
+
+		try {
+			KmlGenericObject objectGroup = work.getObjectGroup();
+			ColladaBundle colladaBundle = work.getColladaBundle();
+
+			double imageScaleFactor = 1;
+			ColladaOptions colladaOptions = objectGroup.getColladaOptions();
+			if (colladaOptions.isGenerateTextureAtlases()) {
+				if (colladaOptions.isScaleImages()) {
+					imageScaleFactor = colladaOptions.getImageScaleFactor();
+				}
+				objectGroup.createTextureAtlas(colladaOptions.getPackingAlgorithm(),
+						imageScaleFactor,
+						colladaOptions.isTextureAtlasPots());
+			}
+			else if (colladaOptions.isScaleImages()) {
+				imageScaleFactor = colladaOptions.getImageScaleFactor();
+				if (imageScaleFactor < 1) {
+					objectGroup.resizeAllImagesByFactor(imageScaleFactor);
+				}
+			}
+
+			if (objectGroup.getModelFormat() == ModelFormat.GLB)
+				colladaBundle.setGlb(objectGroup.generateGlb());
+			else
+				colladaBundle.setCollada(objectGroup.generateColladaTree());
+
+			colladaBundle.setTexImages(objectGroup.getTexImages());
+			colladaBundle.setUnsupportedTexImageIds(objectGroup.getUnsupportedTexImageIds());
+			work.setSuccess(true);
+		} catch (Exception e) {
+			LOG.error("Failed to process texture images of object '" + work.getColladaBundle().getGmlId() + "': " + e.getMessage());
+		} finally {
+			// hand the job back to the export worker which writes the bundle
+			work.getResultQueue().add(work);
+			runLock.unlock();
+		}
+	}
+}
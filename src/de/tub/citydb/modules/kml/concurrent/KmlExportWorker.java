@@ -33,6 +33,9 @@ import java.io.File;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.EnumMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 import javax.xml.bind.JAXBContext;
@@ -49,6 +52,7 @@ import de.tub.citydb.api.event.EventDispatcher;
 import de.tub.citydb.config.Config;
 import de.tub.citydb.config.project.database.Database;
 import de.tub.citydb.config.project.exporter.ExportFilterConfig;
+import de.tub.citydb.config.project.kmlExporter.AltitudeOffsetMode;
 import de.tub.citydb.config.project.kmlExporter.Balloon;
 import de.tub.citydb.config.project.kmlExporter.BalloonContentMode;
 import de.tub.citydb.config.project.kmlExporter.ColladaOptions;
@@ -56,13 +60,17 @@ import de.tub.citydb.config.project.kmlExporter.DisplayForm;
 import de.tub.citydb.database.DatabaseConnectionPool;
 import de.tub.citydb.database.adapter.AbstractDatabaseAdapter;
 import de.tub.citydb.database.adapter.TextureImageExportAdapter;
+import de.tub.citydb.log.Logger;
 import de.tub.citydb.modules.kml.database.BalloonTemplateHandlerImpl;
 import de.tub.citydb.modules.kml.database.Building;
 import de.tub.citydb.modules.kml.database.CityFurniture;
 import de.tub.citydb.modules.kml.database.CityObjectGroup;
 import de.tub.citydb.modules.kml.database.ColladaBundle;
+import de.tub.citydb.modules.kml.database.ColladaImageJob;
+import de.tub.citydb.modules.kml.database.ElevationProvider;
 import de.tub.citydb.modules.kml.database.ElevationServiceHandler;
 import de.tub.citydb.modules.kml.database.GenericCityObject;
+import de.tub.citydb.modules.kml.database.GoogleElevationProvider;
 import de.tub.citydb.modules.kml.database.KmlExporterManager;
 import de.tub.citydb.modules.kml.database.KmlGenericObject;
 import de.tub.citydb.modules.kml.database.KmlSplittingResult;
@@ -72,6 +80,9 @@ import de.tub.citydb.modules.kml.database.Relief;
 import de.tub.citydb.modules.kml.database.SolitaryVegetationObject;
 import de.tub.citydb.modules.kml.database.Transportation;
 import de.tub.citydb.modules.kml.database.WaterBody;
+import de.tub.citydb.modules.kml.util.KmzArchiveWriter;
+import de.tub.citydb.modules.kml.util.StatementCache;
+import de.tub.citydb.modules.kml.util.TextureImageCache;
 
 public class KmlExportWorker implements Worker<KmlSplittingResult> {
 
@@ -90,9 +101,15 @@ public class KmlExportWorker implements Worker<KmlSplittingResult> {
 	private final EventDispatcher eventDispatcher;
 
 	private Connection connection;
+	private StatementCache statementCache;
 	private ExportFilterConfig filterConfig;
 	private KmlExporterManager kmlExporterManager;
 
+	// image processing of COLLADA models is done by a separate worker pool
+	private final WorkerPool<ColladaImageJob> imageWorkerPool;
+	private final BlockingQueue<ColladaImageJob> completedImageJobs = new LinkedBlockingQueue<ColladaImageJob>();
+	private int pendingImageJobs = 0;
+
 	private KmlGenericObject singleObject = null;
 
 	private EnumMap<CityGMLClass, Integer>objectGroupCounter = new EnumMap<CityGMLClass, Integer>(CityGMLClass.class);
@@ -106,14 +123,26 @@ public class KmlExportWorker implements Worker<KmlSplittingResult> {
 			JAXBContext jaxbColladaContext,
 			DatabaseConnectionPool dbConnectionPool,
 			WorkerPool<SAXEventBuffer> ioWriterPool,
+			WorkerPool<ColladaImageJob> imageWorkerPool,
+			TextureImageCache textureImageCache,
+			ElevationProvider demElevationProvider,
+			KmzArchiveWriter kmzArchive,
 			ObjectFactory kmlFactory,
 			Config config,
 			EventDispatcher eventDispatcher) throws SQLException {
+		this.imageWorkerPool = imageWorkerPool;
 		this.kmlFactory = kmlFactory;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 
-		connection = dbConnectionPool.getConnection();
+		// zOffsets queried from the elevation service are written back to the database, 
+		// so the worker has to stay on the primary database in this case
+		de.tub.citydb.config.project.kmlExporter.KmlExporter kmlExporterConfig = config.getProject().getKmlExporter();
+		if (kmlExporterConfig.getAltitudeOffsetMode() == AltitudeOffsetMode.GENERIC_ATTRIBUTE && kmlExporterConfig.isCallGElevationService())
+			connection = dbConnectionPool.getConnection();
+		else
+			connection = dbConnectionPool.getReadOnlyConnection();
+
 		connection.setAutoCommit(false);
 		// try and change workspace if needed
 		if (dbConnectionPool.getActiveDatabaseAdapter().hasVersioningSupport()) {
@@ -121,6 +150,10 @@ public class KmlExportWorker implements Worker<KmlSplittingResult> {
 			dbConnectionPool.getActiveDatabaseAdapter().getWorkspaceManager().gotoWorkspace(connection, 
 					database.getWorkspaces().getKmlExportWorkspace());
 		}
+
+		// statements are prepared once per worker and reused for all objects and tiles
+		statementCache = new StatementCache(connection);
+		connection = statementCache.getConnection();
 		
 		databaseAdapter = dbConnectionPool.getActiveDatabaseAdapter();
 		textureExportAdapter = databaseAdapter.getSQLAdapter().getTextureImageExportAdapter(connection);
@@ -130,9 +163,14 @@ public class KmlExportWorker implements Worker<KmlSplittingResult> {
 				ioWriterPool,
 				kmlFactory,
 				textureExportAdapter,
+				textureImageCache,
+				kmzArchive,
 				config);
 		
-		elevationServiceHandler = new ElevationServiceHandler();
+		// the local DEM is shared by all workers, Google's elevation API is queried per worker
+		elevationServiceHandler = new ElevationServiceHandler(demElevationProvider != null ? demElevationProvider : new GoogleElevationProvider(), 
+				connection, 
+				databaseAdapter.getSQLAdapter());
 		
 		filterConfig = config.getProject().getKmlExporter().getFilter();
 		ColladaOptions colladaOptions = null; 
@@ -290,6 +328,9 @@ public class KmlExportWorker implements Worker<KmlSplittingResult> {
 					objectGroupCounter.put(cityObjectType, 0);
 				}
 			}
+
+			// wait for the image processing of our COLLADA models to finish
+			printColladaBundles(true);
 		}
 		finally {
 			if (textureExportAdapter != null) {
@@ -300,6 +341,15 @@ public class KmlExportWorker implements Worker<KmlSplittingResult> {
 				}
 			}
 			
+			try {
+				elevationServiceHandler.close();
+			} catch (SQLException e) {
+				// 
+			}
+
+			for (BalloonTemplateHandlerImpl currentBalloonTemplateHandler : balloonTemplateHandler.values())
+				currentBalloonTemplateHandler.close();
+
 			if (connection != null) {
 				try {
 					connection.commit(); // for all possible GE_LoDn_zOffset values
@@ -308,6 +358,8 @@ public class KmlExportWorker implements Worker<KmlSplittingResult> {
 				catch (SQLException e) {}
 
 				connection = null;
+				Logger.getInstance().debug("Statement cache of " + workerThread.getName() + ": " 
+						+ statementCache.getHits() + " hits, " + statementCache.getMisses() + " misses.");
 			}
 		}
 	}
@@ -318,6 +370,10 @@ public class KmlExportWorker implements Worker<KmlSplittingResult> {
 
 		CityGMLClass featureClass = work.getCityObjectType();
 		try {
+			BalloonTemplateHandlerImpl currentBalloonTemplateHandler = getBalloonTemplateHandler(featureClass);
+			if (currentBalloonTemplateHandler != null)
+				currentBalloonTemplateHandler.setBalloonBatch(work.getBalloonBatch());
+
 			switch (featureClass) {
 			case BUILDING:
 				singleObject = new Building(connection,
@@ -492,6 +548,8 @@ public class KmlExportWorker implements Worker<KmlSplittingResult> {
 					objectGroupCounter.put(featureClass, 0);
 				}
 			}
+
+			printColladaBundles(false);
 		}
 		finally {
 			runLock.unlock();
@@ -500,50 +558,71 @@ public class KmlExportWorker implements Worker<KmlSplittingResult> {
 
 	private void sendGroupToFile(KmlGenericObject objectGroup) {
 		try {
-			double imageScaleFactor = 1;
-			ColladaOptions colladaOptions = objectGroup.getColladaOptions();
-			if (colladaOptions.isGenerateTextureAtlases()) {
-				//				eventDispatcher.triggerEvent(new StatusDialogMessage(Internal.I18N.getString("kmlExport.dialog.creatingAtlases")));
-				if (colladaOptions.isScaleImages()) {
-					imageScaleFactor = colladaOptions.getImageScaleFactor();
-				}
-				objectGroup.createTextureAtlas(colladaOptions.getPackingAlgorithm(),
-						imageScaleFactor,
-						colladaOptions.isTextureAtlasPots());
-			}
-			else if (colladaOptions.isScaleImages()) {
-				imageScaleFactor = colladaOptions.getImageScaleFactor();
-				if (imageScaleFactor < 1) {
-					objectGroup.resizeAllImagesByFactor(imageScaleFactor);
-				}
-			}
-
+			// the placemark requires database access and is therefore created here.
+			// texture atlases, image scaling and the COLLADA tree are left to the image workers
 			ColladaBundle colladaBundle = new ColladaBundle();
-			colladaBundle.setCollada(objectGroup.generateColladaTree());
-			colladaBundle.setTexImages(objectGroup.getTexImages());
-			colladaBundle.setUnsupportedTexImageIds(objectGroup.getUnsupportedTexImageIds());
 			colladaBundle.setPlacemark(objectGroup.createPlacemarkForColladaModel());
 			colladaBundle.setGmlId(objectGroup.getGmlId());
 
-			kmlExporterManager.print(colladaBundle,
-					objectGroup.getId(),					
-					objectGroup.getBalloonSettings().isBalloonContentInSeparateFile());
+			imageWorkerPool.addWork(new ColladaImageJob(objectGroup, colladaBundle, completedImageJobs));
+			pendingImageJobs++;
 		}
 		catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 
+	private void printColladaBundles(boolean waitForPendingJobs) {
+		while (pendingImageJobs > 0) {
+			ColladaImageJob imageJob = null;
+
+			try {
+				imageJob = waitForPendingJobs ? 
+						completedImageJobs.poll(1, TimeUnit.SECONDS) : completedImageJobs.poll();
+			} catch (InterruptedException e) {
+				// re-check state
+			}
+
+			if (imageJob == null) {
+				// stop waiting if the image workers have been shut down
+				if (!waitForPendingJobs || imageWorkerPool.isTerminated())
+					break;
+
+				continue;
+			}
+
+			pendingImageJobs--;
+			if (!imageJob.isSuccess())
+				continue;
+
+			try {
+				KmlGenericObject objectGroup = imageJob.getObjectGroup();
+				kmlExporterManager.print(imageJob.getColladaBundle(),
+						objectGroup.getId(),					
+						objectGroup.getBalloonSettings().isBalloonContentInSeparateFile());
+			}
+			catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
 	private BalloonTemplateHandlerImpl getBalloonTemplateHandler(CityGMLClass cityObjectType) {
 		BalloonTemplateHandlerImpl currentBalloonTemplateHandler = balloonTemplateHandler.get(cityObjectType);
 
 		if (currentBalloonTemplateHandler == null) {
 			Balloon balloonSettings = getBalloonSettings(cityObjectType);
-			if (balloonSettings != null &&	balloonSettings.isIncludeDescription() &&
-					balloonSettings.getBalloonContentMode() != BalloonContentMode.GEN_ATTRIB) {
-				String balloonTemplateFilename = balloonSettings.getBalloonContentTemplateFile();
-				if (balloonTemplateFilename != null && balloonTemplateFilename.length() > 0) {
-					currentBalloonTemplateHandler = new BalloonTemplateHandlerImpl(new File(balloonTemplateFilename), connection);
+			if (balloonSettings != null &&	balloonSettings.isIncludeDescription()) {
+				if (balloonSettings.getBalloonContentMode() != BalloonContentMode.GEN_ATTRIB) {
+					String balloonTemplateFilename = balloonSettings.getBalloonContentTemplateFile();
+					if (balloonTemplateFilename != null && balloonTemplateFilename.length() > 0) {
+						currentBalloonTemplateHandler = new BalloonTemplateHandlerImpl(new File(balloonTemplateFilename), connection);
+						balloonTemplateHandler.put(cityObjectType, currentBalloonTemplateHandler);
+					}
+				}
+				else {
+					// templates are taken from generic attributes and cached by the handler
+					currentBalloonTemplateHandler = new BalloonTemplateHandlerImpl((File) null, connection);
 					balloonTemplateHandler.put(cityObjectType, currentBalloonTemplateHandler);
 				}
 			}
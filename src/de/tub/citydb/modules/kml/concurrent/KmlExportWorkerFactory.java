@@ -44,7 +44,11 @@ import de.tub.citydb.api.event.EventDispatcher;
 import de.tub.citydb.config.Config;
 import de.tub.citydb.database.DatabaseConnectionPool;
 import de.tub.citydb.log.Logger;
+import de.tub.citydb.modules.kml.database.ColladaImageJob;
+import de.tub.citydb.modules.kml.database.ElevationProvider;
 import de.tub.citydb.modules.kml.database.KmlSplittingResult;
+import de.tub.citydb.modules.kml.util.KmzArchiveWriter;
+import de.tub.citydb.modules.kml.util.TextureImageCache;
 
 public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult> {
 	private final Logger LOG = Logger.getInstance();
@@ -53,6 +57,10 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 	private final JAXBContext jaxbColladaContext;
 	private final DatabaseConnectionPool dbConnectionPool;
 	private final WorkerPool<SAXEventBuffer> ioWriterPool;
+	private final WorkerPool<ColladaImageJob> imageWorkerPool;
+	private final TextureImageCache textureImageCache;
+	private final ElevationProvider demElevationProvider;
+	private final KmzArchiveWriter kmzArchive;
 	private final ObjectFactory kmlFactory;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
@@ -62,6 +70,10 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 			JAXBContext jaxbColladaContext,
 			DatabaseConnectionPool dbConnectionPool,
 			WorkerPool<SAXEventBuffer> ioWriterPool,
+			WorkerPool<ColladaImageJob> imageWorkerPool,
+			TextureImageCache textureImageCache,
+			ElevationProvider demElevationProvider,
+			KmzArchiveWriter kmzArchive,
 			ObjectFactory kmlFactory,
 			Config config,
 			EventDispatcher eventDispatcher) {
@@ -69,6 +81,10 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 		this.jaxbColladaContext = jaxbColladaContext;
 		this.dbConnectionPool = dbConnectionPool;
 		this.ioWriterPool = ioWriterPool;
+		this.imageWorkerPool = imageWorkerPool;
+		this.textureImageCache = textureImageCache;
+		this.demElevationProvider = demElevationProvider;
+		this.kmzArchive = kmzArchive;
 		this.kmlFactory = kmlFactory;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
@@ -84,6 +100,10 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 					jaxbColladaContext,
 					dbConnectionPool,
 					ioWriterPool,
+					imageWorkerPool,
+					textureImageCache,
+					demElevationProvider,
+					kmzArchive,
 					kmlFactory,
 					config,
 					eventDispatcher);
@@ -30,21 +30,29 @@
 package de.tub.citydb.modules.kml.controller;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
@@ -99,13 +107,19 @@ import de.tub.citydb.config.project.filter.FeatureClass;
 import de.tub.citydb.config.project.filter.TiledBoundingBox;
 import de.tub.citydb.config.project.filter.Tiling;
 import de.tub.citydb.config.project.filter.TilingMode;
+import de.tub.citydb.config.project.kmlExporter.AltitudeOffsetMode;
 import de.tub.citydb.config.project.kmlExporter.Balloon;
 import de.tub.citydb.config.project.kmlExporter.BalloonContentMode;
 import de.tub.citydb.config.project.kmlExporter.DisplayForm;
+import de.tub.citydb.config.project.system.ThreadPool;
+import de.tub.citydb.config.project.system.ThreadPoolConfig;
 import de.tub.citydb.database.DatabaseConnectionPool;
 import de.tub.citydb.database.TypeAttributeValueEnum;
 import de.tub.citydb.log.Logger;
+import de.tub.citydb.modules.common.concurrent.IOSegmentSinkWorkerFactory;
+import de.tub.citydb.modules.common.concurrent.IOSegmentWriterWorkerFactory;
 import de.tub.citydb.modules.common.concurrent.IOWriterWorkerFactory;
+import de.tub.citydb.modules.common.concurrent.WorkerPoolTuner;
 import de.tub.citydb.modules.common.event.CounterEvent;
 import de.tub.citydb.modules.common.event.CounterType;
 import de.tub.citydb.modules.common.event.EventType;
@@ -114,10 +128,14 @@ import de.tub.citydb.modules.common.event.StatusDialogMessage;
 import de.tub.citydb.modules.common.event.StatusDialogTitle;
 import de.tub.citydb.modules.common.filter.ExportFilter;
 import de.tub.citydb.modules.common.filter.FilterMode;
+import de.tub.citydb.modules.common.filter.feature.ModificationDateFilter;
+import de.tub.citydb.modules.kml.concurrent.ColladaImageWorkerFactory;
 import de.tub.citydb.modules.kml.concurrent.KmlExportWorkerFactory;
 import de.tub.citydb.modules.kml.database.Building;
 import de.tub.citydb.modules.kml.database.CityFurniture;
 import de.tub.citydb.modules.kml.database.CityObjectGroup;
+import de.tub.citydb.modules.kml.database.ColladaImageJob;
+import de.tub.citydb.modules.kml.database.DEMElevationProvider;
 import de.tub.citydb.modules.kml.database.GenericCityObject;
 import de.tub.citydb.modules.kml.database.KmlSplitter;
 import de.tub.citydb.modules.kml.database.KmlSplittingResult;
@@ -128,6 +146,9 @@ import de.tub.citydb.modules.kml.database.SolitaryVegetationObject;
 import de.tub.citydb.modules.kml.database.Transportation;
 import de.tub.citydb.modules.kml.database.WaterBody;
 import de.tub.citydb.modules.kml.util.CityObject4JSON;
+import de.tub.citydb.modules.kml.util.KmzArchiveWriter;
+import de.tub.citydb.modules.kml.util.RegionQuadtree;
+import de.tub.citydb.modules.kml.util.TextureImageCache;
 
 public class KmlExporter implements EventHandler {
 	private final JAXBContext jaxbKmlContext;
@@ -138,7 +159,10 @@ public class KmlExporter implements EventHandler {
 
 	private ObjectFactory kmlFactory; 
 	private WorkerPool<KmlSplittingResult> kmlWorkerPool;
-	private SingleWorkerPool<SAXEventBuffer> ioWriterPool;
+	private WorkerPool<SAXEventBuffer> ioWriterPool;
+	private SingleWorkerPool<ByteBuffer> ioSinkPool;
+	private WorkerPool<ColladaImageJob> imageWorkerPool;
+	private WorkerPoolTuner poolTuner;
 	private KmlSplitter kmlSplitter;
 
 	private volatile boolean shouldRun = true;
@@ -148,7 +172,7 @@ public class KmlExporter implements EventHandler {
 
 	private static final String ENCODING = "UTF-8";
 	private static final Charset CHARSET = Charset.forName(ENCODING);
-	private static final String TEMP_FOLDER = "__temp";
+	private static final char[] LINE_SEPARATOR = System.getProperty("line.separator").toCharArray();
 
 	private final DatabaseSrs WGS84_2D = Database.PREDEFINED_SRS.get(PredefinedSrsName.WGS84_2D);
 
@@ -167,7 +191,7 @@ public class KmlExporter implements EventHandler {
 	private EnumMap<CityGMLClass, Long>featureCounterMap = new EnumMap<CityGMLClass, Long>(CityGMLClass.class);
 	private long geometryCounter;
 
-	private File lastTempFolder;
+	private RegionQuadtree regionQuadtree;
 	private static HashMap<Long, CityObject4JSON> alreadyExported;
 
 	public KmlExporter (JAXBContext jaxbKmlContext,
@@ -195,8 +219,32 @@ public class KmlExporter implements EventHandler {
 		de.tub.citydb.config.project.system.System system = config.getProject().getKmlExporter().getSystem();
 
 		// worker pool settings
-		int minThreads = system.getThreadPool().getDefaultPool().getMinThreads();
-		int maxThreads = system.getThreadPool().getDefaultPool().getMaxThreads();
+		ThreadPool threadPool = system.getThreadPool();
+		ThreadPoolConfig databasePool = threadPool.isSetDatabasePool() ? threadPool.getDatabasePool() : threadPool.getDefaultPool();
+		int minThreads = databasePool.getMinThreads();
+		int maxThreads = databasePool.getMaxThreads();
+
+		// the writer stage defaults to half of the database workers
+		int minWriterThreads = threadPool.isSetWriterPool() ? threadPool.getWriterPool().getMinThreads() : 1;
+		int maxWriterThreads = threadPool.isSetWriterPool() ? threadPool.getWriterPool().getMaxThreads() : Math.max(1, maxThreads / 2);
+
+		// decoded and resized texture images are shared by all workers
+		TextureImageCache textureImageCache = new TextureImageCache(Runtime.getRuntime().maxMemory() / 8);
+
+		// terrain heights for zOffset calculation may be sampled from a local DEM
+		DEMElevationProvider demElevationProvider = null;
+		de.tub.citydb.config.project.kmlExporter.KmlExporter kmlExporterConfig = config.getProject().getKmlExporter();
+		if (kmlExporterConfig.getAltitudeOffsetMode() == AltitudeOffsetMode.GENERIC_ATTRIBUTE &&
+				kmlExporterConfig.isCallGElevationService() && 
+				kmlExporterConfig.isUseLocalDEM()) {
+			try {
+				demElevationProvider = new DEMElevationProvider(new File(kmlExporterConfig.getLocalDEMPath()));
+				Logger.getInstance().info("Using local DEM with " + demElevationProvider.getNumberOfTiles() + " tile(s) for zOffset calculation.");
+			} catch (IOException e) {
+				Logger.getInstance().error("Failed to load local DEM: " + e.getMessage());
+				return false;
+			}
+		}
 
 		// adding listener
 		eventDispatcher.addEventHandler(EventType.COUNTER, this);
@@ -299,6 +347,11 @@ public class KmlExporter implements EventHandler {
 				Logger.getInstance().info(String.valueOf(rows * columns * activeDisplayFormsAmount) +
 					 	" (" + rows + "x" + columns + "x" + activeDisplayFormsAmount +
 					 	") tiles will be generated."); 
+
+				if (config.getProject().getKmlExporter().isRegionation()) {
+					regionQuadtree = new RegionQuadtree(rows, columns);
+					Logger.getInstance().info("Arranging tiles in a region quadtree of depth " + regionQuadtree.getDepth() + ".");
+				}
 			}
 			catch (Exception ex) {
 				ex.printStackTrace();
@@ -310,98 +363,234 @@ public class KmlExporter implements EventHandler {
 			columns = 1;
 		}
 
+		// delta export: only tiles containing modified or terminated city objects are regenerated
+		ModificationDateFilter modificationDateFilter = exportFilter.getModificationDateFilter();
+		File watermarkFile = new File(path + File.separator + filename + ".watermark");
+		Date exportTime = null;
+		int skippedFiles = 0;
+
+		if (modificationDateFilter.isActive()) {
+			try {
+				exportTime = dbPool.getActiveDatabaseAdapter().getUtil().getCurrentDateAndTime();
+				if (modificationDateFilter.loadWatermark(watermarkFile))
+					Logger.getInstance().info("Using watermark of previous export from file '" + watermarkFile.getName() + "'.");
+			} catch (SQLException e) {
+				Logger.getInstance().error("Database error while querying the current date and time: " + e.getMessage());
+				return false;
+			} catch (IOException e) {
+				Logger.getInstance().error("Failed to read watermark file '" + watermarkFile.getName() + "': " + e.getMessage());
+				return false;
+			}
+
+			if (modificationDateFilter.getFilterState() != null)
+				Logger.getInstance().info("Only exporting tiles containing city objects modified since " + modificationDateFilter.getFilterState() + ".");
+			else
+				Logger.getInstance().info("No previous export found. All tiles will be exported.");
+		}
+
 		for (DisplayForm displayForm : config.getProject().getKmlExporter().getBuildingDisplayForms()) {
 			if (!displayForm.isActive()) continue;
 
 			alreadyExported = new HashMap<Long, CityObject4JSON>();
 
-			for (int i = 0; shouldRun && i < rows; i++) {
-				for (int j = 0; shouldRun && j < columns; j++) {
+			// the tiles of a quadtree node are visited one after the other. coarse display forms
+			// write the objects of all these tiles to a single file of that node
+			List<int[]> tiles = new ArrayList<int[]>();
+			int level = 0;
+			int depth = 0;
+			if (regionQuadtree != null) {
+				tiles = regionQuadtree.getTileOrder();
+				level = regionQuadtree.getLevel(displayForm);
+				depth = regionQuadtree.getDepth();
+			} else {
+				for (int i = 0; i < rows; i++)
+					for (int j = 0; j < columns; j++)
+						tiles.add(new int[]{i, j});
+			}
 
-					if (lastTempFolder != null && lastTempFolder.exists()) deleteFolder(lastTempFolder); // just in case
+			File file = null;
+			OutputStreamWriter fileWriter = null;
+			KmzArchiveWriter kmzArchive = null;
+			WritableByteChannel channel = null;
+			SAXFragmentWriter fragmentWriter = null;
+			JAXBElement<KmlType> kml = null;
+			Marshaller marshaller = null;
+
+			for (int t = 0; shouldRun && t < tiles.size(); t++) {
+				int i = tiles.get(t)[0];
+				int j = tiles.get(t)[1];
+
+				boolean isFirstTile = true;
+				boolean isLastTile = true;
+				if (level < depth) {
+					int nodeRow = regionQuadtree.getNodeRow(i, level);
+					int nodeColumn = regionQuadtree.getNodeColumn(j, level);
+					isFirstTile = t == 0 
+							|| regionQuadtree.getNodeRow(tiles.get(t - 1)[0], level) != nodeRow
+							|| regionQuadtree.getNodeColumn(tiles.get(t - 1)[1], level) != nodeColumn;
+					isLastTile = t == tiles.size() - 1 
+							|| regionQuadtree.getNodeRow(tiles.get(t + 1)[0], level) != nodeRow
+							|| regionQuadtree.getNodeColumn(tiles.get(t + 1)[1], level) != nodeColumn;
+				}
 
-					File file = null;
-					OutputStreamWriter fileWriter = null;
-					ZipOutputStream zipOut = null;
+				try {
+					if (isBBoxActive && tiling.getMode() != TilingMode.NO_TILING)
+						exportFilter.getBoundingBoxFilter().setActiveTile(i, j);
 
-					try {
+					if (isFirstTile) {
 						String fileExtension = config.getProject().getKmlExporter().isExportAsKmz() ? ".kmz" : ".kml";
-						if (isBBoxActive && tiling.getMode() != TilingMode.NO_TILING) {
-							exportFilter.getBoundingBoxFilter().setActiveTile(i, j);
+						if (level < depth) {
+							file = new File(path + File.separator + filename + "_Level_" + level + "_" 
+									+ regionQuadtree.getNodeRow(i, level) + "_" + regionQuadtree.getNodeColumn(j, level) 
+									+ "_" + displayForm.getName() + fileExtension);
+						}
+						else if (isBBoxActive && tiling.getMode() != TilingMode.NO_TILING) {
 							file = new File(path + File.separator + filename + "_Tile_"
-									 	 	+ i + "_" + j + "_" + displayForm.getName() + fileExtension);
+									+ i + "_" + j + "_" + displayForm.getName() + fileExtension);
 						}
 						else {
 							file = new File(path + File.separator + filename + "_" + displayForm.getName() + fileExtension);
 						}
 
+						// leave tiles untouched which do not contain modified city objects. hard deletes are detected by
+						// comparing the number of city objects with the one of the previous export.
+						// files aggregating several tiles are always regenerated
+						Date since = modificationDateFilter.getFilterState();
+						if (modificationDateFilter.isActive() && isLastTile) {
+							try {
+								BoundingBox tile = isBBoxActive ? exportFilter.getBoundingBoxFilter().getFilterState() : null;
+								boolean unmodified = since != null && file.exists();
+
+								if (modificationDateFilter.isSetWatermark()) {
+									long objectCount = dbPool.getActiveDatabaseAdapter().getUtil().countCityObjects(tile, workspace);
+									unmodified &= Long.valueOf(objectCount).equals(modificationDateFilter.getObjectCount(file));
+									modificationDateFilter.setObjectCount(file, objectCount);
+								}
+
+								if (unmodified && !dbPool.getActiveDatabaseAdapter().getUtil().containsModifiedCityObjects(since, tile, workspace)) {
+									Logger.getInstance().debug("Skipping unmodified tile '" + file.getName() + "'.");
+									skippedFiles++;
+									continue;
+								}
+							} catch (SQLException e) {
+								Logger.getInstance().error("Database error while querying modified city objects: " + e.getMessage());
+								return false;
+							}
+						}
+
 						eventDispatcher.triggerEvent(new StatusDialogTitle(file.getName(), this));
 
 						// open file for writing
 						try {
 							if (config.getProject().getKmlExporter().isExportAsKmz()) { 
-								zipOut = new ZipOutputStream(new FileOutputStream(file));
-								ZipEntry zipEntry = new ZipEntry("doc.kml");
-								zipOut.putNextEntry(zipEntry);
-								fileWriter = new OutputStreamWriter(zipOut, CHARSET);
+								// models, images and balloons are added to the archive by the export workers
+								kmzArchive = new KmzArchiveWriter(file);
+								OutputStream document = kmzArchive.getDocumentStream("doc.kml");
+								fileWriter = new OutputStreamWriter(document, CHARSET);
+								channel = Channels.newChannel(document);
 							}
 							else {
-								fileWriter = new OutputStreamWriter(new FileOutputStream(file), CHARSET);
+								FileOutputStream outputStream = new FileOutputStream(file);
+								fileWriter = new OutputStreamWriter(outputStream, CHARSET);
+								channel = outputStream.getChannel();
 							}
-								
+							
 							// set output for SAXWriter
 							saxWriter.setOutput(fileWriter);	
 						} catch (IOException ioE) {
 							Logger.getInstance().error("Failed to open file '" + file.getName() + "' for writing: " + ioE.getMessage());
 							return false;
 						}
+					}
 
-						// create worker pools
-						// here we have an open issue: queue sizes are fix...
-						ioWriterPool = new SingleWorkerPool<SAXEventBuffer>(
-								"kml_writer_pool",
-								new IOWriterWorkerFactory(saxWriter),
-								100,
-								true);
-
-						kmlWorkerPool = new WorkerPool<KmlSplittingResult>(
-								"db_exporter_pool",
-								minThreads,
-								maxThreads,
-								PoolSizeAdaptationStrategy.AGGRESSIVE,
-								new KmlExportWorkerFactory(
-										jaxbKmlContext,
-										jaxbColladaContext,
-										dbPool,
-										ioWriterPool,
-										kmlFactory,
-										config,
-										eventDispatcher),
-										300,
-										false);
-						
-						// prestart pool workers
-						ioWriterPool.prestartCoreWorkers();
-						kmlWorkerPool.prestartCoreWorkers();
-						
-						// fail if we could not start a single import worker
-						if (kmlWorkerPool.getPoolSize() == 0) {
-							Logger.getInstance().error("Failed to start database export worker pool. Check the database connection pool settings.");
-							return false;
-						}
+					// create worker pools
+					// here we have an open issue: queue sizes are fix...
+					ioSinkPool = new SingleWorkerPool<ByteBuffer>(
+							"kml_sink_pool",
+							new IOSegmentSinkWorkerFactory(channel),
+							100,
+							true);
+
+					ioWriterPool = new WorkerPool<SAXEventBuffer>(
+							"kml_writer_pool",
+							minWriterThreads,
+							maxWriterThreads,
+							PoolSizeAdaptationStrategy.AGGRESSIVE,
+							new IOSegmentWriterWorkerFactory(
+									saxWriter,
+									ioSinkPool,
+									kmlFactory.createKml(null).getName(),
+									kmlFactory.createDocument(null).getName()),
+									100,
+									true);
+
+					imageWorkerPool = new WorkerPool<ColladaImageJob>(
+							"kml_image_pool",
+							1,
+							Math.max(1, Runtime.getRuntime().availableProcessors()),
+							PoolSizeAdaptationStrategy.AGGRESSIVE,
+							new ColladaImageWorkerFactory(),
+							maxThreads * 2,
+							false);
+
+					kmlWorkerPool = new WorkerPool<KmlSplittingResult>(
+							"db_exporter_pool",
+							minThreads,
+							maxThreads,
+							PoolSizeAdaptationStrategy.AGGRESSIVE,
+							new KmlExportWorkerFactory(
+									jaxbKmlContext,
+									jaxbColladaContext,
+									dbPool,
+									ioWriterPool,
+									imageWorkerPool,
+									textureImageCache,
+									demElevationProvider,
+									kmzArchive,
+									kmlFactory,
+									config,
+									eventDispatcher),
+									300,
+									false);
+					
+					// prestart pool workers
+					ioSinkPool.prestartCoreWorkers();
+					ioWriterPool.prestartCoreWorkers();
+					imageWorkerPool.prestartCoreWorkers();
+					kmlWorkerPool.prestartCoreWorkers();
+					
+					// fail if we could not start a single import worker
+					if (kmlWorkerPool.getPoolSize() == 0) {
+						Logger.getInstance().error("Failed to start database export worker pool. Check the database connection pool settings.");
+						return false;
+					}
 
+					// move threads between the stages while exporting
+					if (threadPool.isSetUseAutoTuning()) {
+						poolTuner = new WorkerPoolTuner();
+						poolTuner.register(kmlWorkerPool);
+						poolTuner.register(imageWorkerPool);
+						poolTuner.register(ioWriterPool);
+						poolTuner.start();
+					}
+
+					if (isFirstTile) {
 						// create file header writer
-						SAXFragmentWriter fragmentWriter = new SAXFragmentWriter(kmlFactory.createDocument(null).getName(), saxWriter);
-						
+						fragmentWriter = new SAXFragmentWriter(kmlFactory.createDocument(null).getName(), saxWriter);
+
 						// ok, preparations done. inform user...
 						Logger.getInstance().info("Exporting to file: " + file.getAbsolutePath());
 
 						// create kml root element
 						KmlType kmlType = kmlFactory.createKmlType();
-						JAXBElement<KmlType> kml = kmlFactory.createKml(kmlType);
+						kml = kmlFactory.createKml(kmlType);
 
 						DocumentType document = kmlFactory.createDocumentType();
-						if (isBBoxActive &&	tiling.getMode() != TilingMode.NO_TILING) {
+						if (level < depth) {
+							document.setName(filename + "_Level_" + level + "_" + regionQuadtree.getNodeRow(i, level) + "_" 
+									+ regionQuadtree.getNodeColumn(j, level) + "_" + displayForm.getName());
+						}
+						else if (isBBoxActive &&	tiling.getMode() != TilingMode.NO_TILING) {
 							document.setName(filename + "_Tile_" + i + "_" + j + "_" + displayForm.getName());
 						}
 						else {
@@ -410,7 +599,6 @@ public class KmlExporter implements EventHandler {
 						document.setOpen(false);
 						kmlType.setAbstractFeatureGroup(kmlFactory.createDocument(document));
 
-						Marshaller marshaller = null;						
 						try {
 							marshaller = jaxbKmlContext.createMarshaller();
 							marshaller.setProperty(Marshaller.JAXB_FRAGMENT, new Boolean(true));
@@ -422,11 +610,10 @@ public class KmlExporter implements EventHandler {
 						try {
 							fragmentWriter.setWriteMode(WriteMode.HEAD);
 							marshaller.marshal(kml, fragmentWriter);
-							saxWriter.flush();
 
-							if (isBBoxActive &&	tiling.getMode() != TilingMode.NO_TILING) {
-								addBorder(i, j);
-							}
+							// terminate header so that segments can be appended
+							saxWriter.characters(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+							saxWriter.flush();
 						} catch (JAXBException jaxBE) {
 							Logger.getInstance().error("I/O error: " + jaxBE.getMessage());
 							return false;
@@ -434,52 +621,78 @@ public class KmlExporter implements EventHandler {
 							Logger.getInstance().error("I/O error: " + saxE.getMessage());
 							return false;
 						}
+					}
 
-						// get database splitter and start query
-						kmlSplitter = null;
+					if (isBBoxActive &&	tiling.getMode() != TilingMode.NO_TILING) {
 						try {
-							kmlSplitter = new KmlSplitter(
-									dbPool,
-									kmlWorkerPool,
-									exportFilter,
-									displayForm,
-									config);
-
-							if (shouldRun)
-								kmlSplitter.startQuery();
-						} catch (SQLException sqlE) {
-							Logger.getInstance().error("SQL error: " + sqlE.getMessage());
-							Logger.getInstance().error("Failed to query the database. Check the database connection pool settings.");
+							addBorder(i, j);
+						} catch (JAXBException jaxBE) {
+							Logger.getInstance().error("I/O error: " + jaxBE.getMessage());
 							return false;
 						}
+					}
 
-						try {
-							kmlWorkerPool.shutdownAndWait();
-
-							if (!featureCounterMap.isEmpty() &&
-									(!config.getProject().getKmlExporter().isOneFilePerObject() ||
-									  config.getProject().getKmlExporter().getFilter().isSetSimpleFilter())) {
-								for (CityGMLClass type : featureCounterMap.keySet()) {
-									if (featureCounterMap.get(type) > 0)
-										addStyle(displayForm, type);
-								}
-							}
+					// get database splitter and start query
+					kmlSplitter = null;
+					try {
+						kmlSplitter = new KmlSplitter(
+								dbPool,
+								kmlWorkerPool,
+								exportFilter,
+								displayForm,
+								config);
+
+						if (shouldRun)
+							kmlSplitter.startQuery();
+					} catch (SQLException sqlE) {
+						Logger.getInstance().error("SQL error: " + sqlE.getMessage());
+						Logger.getInstance().error("Failed to query the database. Check the database connection pool settings.");
+						return false;
+					}
 
-							ioWriterPool.shutdownAndWait();
-						} catch (InterruptedException e) {
-							System.out.println(e.getMessage());
-						} catch (JAXBException jaxBE) {
-							Logger.getInstance().error("I/O error: " + jaxBE.getMessage());
-							return false;
+					if (poolTuner != null) {
+						poolTuner.stop();
+						poolTuner = null;
+					}
+
+					try {
+						kmlWorkerPool.shutdownAndWait();
+						imageWorkerPool.shutdownAndWait();
+
+						// styles are added once when the file is completed
+						if ((isLastTile || !shouldRun) && !featureCounterMap.isEmpty() &&
+								(!config.getProject().getKmlExporter().isOneFilePerObject() ||
+								  config.getProject().getKmlExporter().getFilter().isSetSimpleFilter())) {
+							for (CityGMLClass type : featureCounterMap.keySet()) {
+								if (featureCounterMap.get(type) > 0)
+									addStyle(displayForm, type);
+							}
 						}
 
+						ioWriterPool.shutdownAndWait();
+						ioSinkPool.shutdownAndWait();
+					} catch (InterruptedException e) {
+						System.out.println(e.getMessage());
+					} catch (JAXBException jaxBE) {
+						Logger.getInstance().error("I/O error: " + jaxBE.getMessage());
+						return false;
+					}
+
+					if (isLastTile || !shouldRun) {
 						// write footer element
 						try {
+							// indent end tag of document element after the appended segments
+							char[] indent = saxWriter.getIndentString().toCharArray();
+							saxWriter.characters(indent, 0, indent.length);
+
 							fragmentWriter.setWriteMode(WriteMode.TAIL);
 							marshaller.marshal(kml, fragmentWriter);
 						} catch (JAXBException jaxBE) {
 							Logger.getInstance().error("I/O error: " + jaxBE.getMessage());
 							return false;
+						} catch (SAXException saxE) {
+							Logger.getInstance().error("I/O error: " + saxE.getMessage());
+							return false;
 						}
 
 						eventDispatcher.triggerEvent(new StatusDialogMessage(Internal.I18N.getString("kmlExport.dialog.writingToFile"), this));
@@ -488,37 +701,9 @@ public class KmlExporter implements EventHandler {
 						try {
 							saxWriter.flush();
 							if (config.getProject().getKmlExporter().isExportAsKmz()) { 
-								zipOut.closeEntry();
-
-								List<File> filesToZip = new ArrayList<File>();
-								File tempFolder = new File(path, TEMP_FOLDER);
-								lastTempFolder = tempFolder;
-								int indexOfZipFilePath = tempFolder.getCanonicalPath().length() + 1;
-
-								if (tempFolder.exists()) { // !config.getProject().getKmlExporter().isOneFilePerObject()
-									Logger.getInstance().info("Zipping to kmz archive from temporary folder...");
-									getAllFiles(tempFolder, filesToZip);
-									for (File fileToZip : filesToZip) {
-										if (!fileToZip.isDirectory()) {
-											FileInputStream inputStream = new FileInputStream(fileToZip);
-											String zipEntryName = fileToZip.getCanonicalPath().substring(indexOfZipFilePath);
-											zipEntryName = zipEntryName.replace(File.separator, "/"); // MUST
-											ZipEntry zipEntry = new ZipEntry(zipEntryName);
-											zipOut.putNextEntry(zipEntry);
-	
-											byte[] bytes = new byte[64*1024]; // 64K should be enough for most
-											int length;
-											while ((length = inputStream.read(bytes)) >= 0) {
-												zipOut.write(bytes, 0, length);
-											}
-											inputStream.close();
-											zipOut.closeEntry();
-										}
-									}
-									Logger.getInstance().info("Removing temporary folder...");
-									deleteFolder(tempFolder);
-								}
-								zipOut.close();
+								// the entries have already been compressed by the export workers
+								kmzArchive.close();
+								kmzArchive = null;
 							}
 							fileWriter.close();
 						}
@@ -526,40 +711,55 @@ public class KmlExporter implements EventHandler {
 							Logger.getInstance().error("I/O error: " + ioe.getMessage());
 							try {
 								fileWriter.close();
+								if (kmzArchive != null)
+									kmzArchive.close();
 							}
 							catch (Exception e) {}
 							return false;
 						}
+					}
 
-						eventDispatcher.triggerEvent(new StatusDialogMessage(" ", this));
+					eventDispatcher.triggerEvent(new StatusDialogMessage(" ", this));
 
-						// finally join eventDispatcher
-						try {
-							eventDispatcher.flushEvents();
-						} catch (InterruptedException iE) {
-							Logger.getInstance().error("Internal error: " + iE.getMessage());
-							return false;
-						}
-					}
-/*
-					catch (FileNotFoundException fnfe) {
-						Logger.getInstance().error("Path \"" + path + "\" not found.");
+					// finally join eventDispatcher
+					try {
+						eventDispatcher.flushEvents();
+					} catch (InterruptedException iE) {
+						Logger.getInstance().error("Internal error: " + iE.getMessage());
 						return false;
 					}
+				}
+/*
+				catch (FileNotFoundException fnfe) {
+					Logger.getInstance().error("Path \"" + path + "\" not found.");
+					return false;
+				}
 */
-					finally {
-						// clean up
-						if (ioWriterPool != null && !ioWriterPool.isTerminated())
-							ioWriterPool.shutdownNow();
-
-						if (kmlWorkerPool != null && !kmlWorkerPool.isTerminated())
-							kmlWorkerPool.shutdownNow();
-
-						// set null
-						ioWriterPool = null;
-						kmlWorkerPool = null;
-						kmlSplitter = null;
+				finally {
+					// clean up
+					if (poolTuner != null) {
+						poolTuner.stop();
+						poolTuner = null;
 					}
+
+					if (ioWriterPool != null && !ioWriterPool.isTerminated())
+						ioWriterPool.shutdownNow();
+
+					if (ioSinkPool != null && !ioSinkPool.isTerminated())
+						ioSinkPool.shutdownNow();
+
+					if (imageWorkerPool != null && !imageWorkerPool.isTerminated())
+						imageWorkerPool.shutdownNow();
+
+					if (kmlWorkerPool != null && !kmlWorkerPool.isTerminated())
+						kmlWorkerPool.shutdownNow();
+
+					// set null
+					ioWriterPool = null;
+					ioSinkPool = null;
+					imageWorkerPool = null;
+					kmlWorkerPool = null;
+					kmlSplitter = null;
 				}
 			}
 		}
@@ -569,6 +769,8 @@ public class KmlExporter implements EventHandler {
 				eventDispatcher.triggerEvent(new StatusDialogTitle(filename + ".kml", this));
 				eventDispatcher.triggerEvent(new StatusDialogMessage(Internal.I18N.getString("kmlExport.dialog.writingMainFile"), this));
 				generateMasterFile();
+				if (regionQuadtree != null)
+					generateRegionFiles();
 			}
 			catch (Exception ex) {
 				ex.printStackTrace();
@@ -576,7 +778,13 @@ public class KmlExporter implements EventHandler {
 			}
 		}
 
-		if (config.getProject().getKmlExporter().isWriteJSONFile()) {
+		if (skippedFiles > 0)
+			Logger.getInstance().info(skippedFiles + " tile(s) without modified city objects have been left untouched.");
+
+		// the JSON file cannot be completed from unmodified tiles
+		if (config.getProject().getKmlExporter().isWriteJSONFile() && skippedFiles > 0)
+			Logger.getInstance().info("Leaving file " + filename + ".json untouched.");
+		else if (config.getProject().getKmlExporter().isWriteJSONFile()) {
 			try {
 				Logger.getInstance().info("Writing file: " + filename + ".json");
 				File jsonFile = new File(path + File.separator + filename + ".json");
@@ -618,7 +826,14 @@ public class KmlExporter implements EventHandler {
 		}
 		Logger.getInstance().info("Processed geometry objects: " + geometryCounter);
 
-		if (lastTempFolder != null && lastTempFolder.exists()) deleteFolder(lastTempFolder); // just in case
+		// remember the start of this export for the next delta export
+		if (shouldRun && exportTime != null) {
+			try {
+				modificationDateFilter.storeWatermark(watermarkFile, exportTime);
+			} catch (IOException e) {
+				Logger.getInstance().error("Failed to write watermark file '" + watermarkFile.getName() + "': " + e.getMessage());
+			}
+		}
 		
 		return shouldRun;
 	}
@@ -812,65 +1027,73 @@ public class KmlExporter implements EventHandler {
 				ioWriterPool.addWork(tmp);
 			}
 
-			for (int i = 0; i < rows; i++) {
-				for (int j = 0; j < columns; j++) {
-
-					// must be done like this to avoid non-matching tile limits
-					double wgs84TileSouthLimit = wgs84TileMatrix.getLowerLeftCorner().getY() + (i * wgs84DeltaLatitude); 
-					double wgs84TileNorthLimit = wgs84TileMatrix.getLowerLeftCorner().getY() + ((i+1) * wgs84DeltaLatitude); 
-					double wgs84TileWestLimit = wgs84TileMatrix.getLowerLeftCorner().getX() + (j * wgs84DeltaLongitude); 
-					double wgs84TileEastLimit = wgs84TileMatrix.getLowerLeftCorner().getX() + ((j+1) * wgs84DeltaLongitude); 
+			if (regionQuadtree != null) {
+				// the master file only links to the root of the region quadtree
+				SAXEventBuffer tmp = new SAXEventBuffer();
+				marshaller.marshal(kmlFactory.createNetworkLink(createRegionLink(0, 0, 0)), tmp);
+				ioWriterPool.addWork(tmp);
+			}
+			else {
+				for (int i = 0; i < rows; i++) {
+					for (int j = 0; j < columns; j++) {
+
+						// must be done like this to avoid non-matching tile limits
+						double wgs84TileSouthLimit = wgs84TileMatrix.getLowerLeftCorner().getY() + (i * wgs84DeltaLatitude); 
+						double wgs84TileNorthLimit = wgs84TileMatrix.getLowerLeftCorner().getY() + ((i+1) * wgs84DeltaLatitude); 
+						double wgs84TileWestLimit = wgs84TileMatrix.getLowerLeftCorner().getX() + (j * wgs84DeltaLongitude); 
+						double wgs84TileEastLimit = wgs84TileMatrix.getLowerLeftCorner().getX() + ((j+1) * wgs84DeltaLongitude); 
+
+						// tileName should not contain special characters,
+						// since it will be used as filename for all displayForm files
+						String tileName = filename;
+						if (tilingMode != TilingMode.NO_TILING) {
+							tileName = tileName + "_Tile_" + i + "_" + j;
+						}
+						FolderType folderType = kmlFactory.createFolderType();
+						folderType.setName(tileName);
 
-					// tileName should not contain special characters,
-					// since it will be used as filename for all displayForm files
-					String tileName = filename;
-					if (tilingMode != TilingMode.NO_TILING) {
-						tileName = tileName + "_Tile_" + i + "_" + j;
-					}
-					FolderType folderType = kmlFactory.createFolderType();
-					folderType.setName(tileName);
+						for (DisplayForm displayForm : config.getProject().getKmlExporter().getBuildingDisplayForms()) {
 
-					for (DisplayForm displayForm : config.getProject().getKmlExporter().getBuildingDisplayForms()) {
+							if (!displayForm.isActive()) continue;
 
-						if (!displayForm.isActive()) continue;
+							String fileExtension = config.getProject().getKmlExporter().isExportAsKmz() ? ".kmz" : ".kml";
+							String tilenameForDisplayForm = tileName + "_" + displayForm.getName() + fileExtension; 
 
-						String fileExtension = config.getProject().getKmlExporter().isExportAsKmz() ? ".kmz" : ".kml";
-						String tilenameForDisplayForm = tileName + "_" + displayForm.getName() + fileExtension; 
+							NetworkLinkType networkLinkType = kmlFactory.createNetworkLinkType();
+							networkLinkType.setName("Display as " + displayForm.getName());
 
-						NetworkLinkType networkLinkType = kmlFactory.createNetworkLinkType();
-						networkLinkType.setName("Display as " + displayForm.getName());
+							RegionType regionType = kmlFactory.createRegionType();
 
-						RegionType regionType = kmlFactory.createRegionType();
+							LatLonAltBoxType latLonAltBoxType = kmlFactory.createLatLonAltBoxType();
+							latLonAltBoxType.setNorth(wgs84TileNorthLimit);
+							latLonAltBoxType.setSouth(wgs84TileSouthLimit);
+							latLonAltBoxType.setEast(wgs84TileEastLimit);
+							latLonAltBoxType.setWest(wgs84TileWestLimit);
 
-						LatLonAltBoxType latLonAltBoxType = kmlFactory.createLatLonAltBoxType();
-						latLonAltBoxType.setNorth(wgs84TileNorthLimit);
-						latLonAltBoxType.setSouth(wgs84TileSouthLimit);
-						latLonAltBoxType.setEast(wgs84TileEastLimit);
-						latLonAltBoxType.setWest(wgs84TileWestLimit);
+							LodType lodType = kmlFactory.createLodType();
+							lodType.setMinLodPixels((double)displayForm.getVisibleFrom());
+							lodType.setMaxLodPixels((double)displayForm.getVisibleUpTo());
 
-						LodType lodType = kmlFactory.createLodType();
-						lodType.setMinLodPixels((double)displayForm.getVisibleFrom());
-						lodType.setMaxLodPixels((double)displayForm.getVisibleUpTo());
+							regionType.setLatLonAltBox(latLonAltBoxType);
+							regionType.setLod(lodType);
 
-						regionType.setLatLonAltBox(latLonAltBoxType);
-						regionType.setLod(lodType);
+							LinkType linkType = kmlFactory.createLinkType();
+							linkType.setHref(tilenameForDisplayForm);
+							linkType.setViewRefreshMode(ViewRefreshModeEnumType.fromValue(config.getProject().getKmlExporter().getViewRefreshMode()));
+							linkType.setViewFormat("");
+							if (linkType.getViewRefreshMode() == ViewRefreshModeEnumType.ON_STOP) {
+								linkType.setViewRefreshTime(config.getProject().getKmlExporter().getViewRefreshTime());
+							}
 
-						LinkType linkType = kmlFactory.createLinkType();
-						linkType.setHref(tilenameForDisplayForm);
-						linkType.setViewRefreshMode(ViewRefreshModeEnumType.fromValue(config.getProject().getKmlExporter().getViewRefreshMode()));
-						linkType.setViewFormat("");
-						if (linkType.getViewRefreshMode() == ViewRefreshModeEnumType.ON_STOP) {
-							linkType.setViewRefreshTime(config.getProject().getKmlExporter().getViewRefreshTime());
+							// confusion between atom:link and kml:Link in ogckml22.xsd
+							networkLinkType.getRest().add(kmlFactory.createLink(linkType));
+							networkLinkType.setRegion(regionType);
+							folderType.getAbstractFeatureGroup().add(kmlFactory.createNetworkLink(networkLinkType));
 						}
-
-						// confusion between atom:link and kml:Link in ogckml22.xsd
-						networkLinkType.getRest().add(kmlFactory.createLink(linkType));
-						networkLinkType.setRegion(regionType);
-						folderType.getAbstractFeatureGroup().add(kmlFactory.createNetworkLink(networkLinkType));
+						SAXEventBuffer tmp = new SAXEventBuffer();
+						marshaller.marshal(kmlFactory.createFolder(folderType), tmp);
+						ioWriterPool.addWork(tmp);
 					}
-					SAXEventBuffer tmp = new SAXEventBuffer();
-					marshaller.marshal(kmlFactory.createFolder(folderType), tmp);
-					ioWriterPool.addWork(tmp);
 				}
 			}
 
@@ -892,6 +1115,154 @@ public class KmlExporter implements EventHandler {
 		
 	}
 
+	private void generateRegionFiles() throws InterruptedException {
+		final List<int[]> nodes = new ArrayList<int[]>();
+		for (int level = 0; level <= regionQuadtree.getDepth(); level++) {
+			int size = 1 << level;
+			for (int r = 0; r < size; r++)
+				for (int c = 0; c < size; c++)
+					if (regionQuadtree.hasNode(level, r, c))
+						nodes.add(new int[]{level, r, c});
+		}
+
+		Logger.getInstance().info("Writing " + nodes.size() + " region file(s).");
+
+		// region files do not depend on each other, so all levels are written at once
+		int threads = Math.max(1, Math.min(nodes.size(), Runtime.getRuntime().availableProcessors()));
+		ExecutorService service = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private int threadNo;
+
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r);
+				t.setName("kml_region_writer " + threadNo++);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		try {
+			List<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (final int[] node : nodes) {
+				results.add(service.submit(new Callable<Void>() {
+					public Void call() throws Exception {
+						writeRegionFile(node[0], node[1], node[2]);
+						return null;
+					}
+				}));
+			}
+
+			for (Future<Void> result : results) {
+				try {
+					result.get();
+				} catch (ExecutionException e) {
+					Logger.getInstance().error("Failed to write region file: " + e.getCause().getMessage());
+				}
+			}
+		} finally {
+			service.shutdownNow();
+		}
+	}
+
+	private void writeRegionFile(int level, int nodeRow, int nodeColumn) throws JAXBException, IOException, SAXException {
+		KmlType kmlType = kmlFactory.createKmlType();
+		DocumentType document = kmlFactory.createDocumentType();
+		document.setName(filename + "_Region_" + level + "_" + nodeRow + "_" + nodeColumn);
+		document.setOpen(false);
+		kmlType.setAbstractFeatureGroup(kmlFactory.createDocument(document));
+
+		// display forms aggregated at this level
+		String fileExtension = config.getProject().getKmlExporter().isExportAsKmz() ? ".kmz" : ".kml";
+		for (DisplayForm displayForm : config.getProject().getKmlExporter().getBuildingDisplayForms()) {
+			if (!displayForm.isActive() || regionQuadtree.getLevel(displayForm) != level) continue;
+
+			String href = level < regionQuadtree.getDepth() ?
+					filename + "_Level_" + level + "_" + nodeRow + "_" + nodeColumn + "_" + displayForm.getName() + fileExtension :
+						filename + "_Tile_" + nodeRow + "_" + nodeColumn + "_" + displayForm.getName() + fileExtension;
+
+			LodType lodType = kmlFactory.createLodType();
+			lodType.setMinLodPixels((double)displayForm.getVisibleFrom());
+			lodType.setMaxLodPixels((double)displayForm.getVisibleUpTo());
+
+			NetworkLinkType networkLinkType = createNetworkLink("Display as " + displayForm.getName(), href, 
+					createLatLonAltBox(level, nodeRow, nodeColumn), lodType);
+			document.getAbstractFeatureGroup().add(kmlFactory.createNetworkLink(networkLinkType));
+		}
+
+		// child nodes
+		if (level < regionQuadtree.getDepth()) {
+			for (int r = 2 * nodeRow; r <= 2 * nodeRow + 1; r++) {
+				for (int c = 2 * nodeColumn; c <= 2 * nodeColumn + 1; c++) {
+					if (regionQuadtree.hasNode(level + 1, r, c))
+						document.getAbstractFeatureGroup().add(kmlFactory.createNetworkLink(createRegionLink(level + 1, r, c)));
+				}
+			}
+		}
+
+		SAXWriter saxWriter = new SAXWriter();
+		saxWriter.setIndentString("  ");
+		saxWriter.setDefaultNamespace("http://www.opengis.net/kml/2.2"); // default namespace
+		saxWriter.setPrefix("gx", "http://www.google.com/kml/ext/2.2");
+		saxWriter.setPrefix("atom", "http://www.w3.org/2005/Atom");
+		saxWriter.setPrefix("xal", "urn:oasis:names:tc:ciq:xsdschema:xAL:2.0");
+
+		FileOutputStream outputStream = new FileOutputStream(new File(path + File.separator + document.getName() + ".kml"));
+		try {
+			saxWriter.setOutput(outputStream, ENCODING);
+			Marshaller marshaller = jaxbKmlContext.createMarshaller();
+			marshaller.marshal(kmlFactory.createKml(kmlType), saxWriter);
+			saxWriter.flush();
+		} finally {
+			outputStream.close();
+		}
+	}
+
+	private NetworkLinkType createRegionLink(int level, int nodeRow, int nodeColumn) {
+		// children become active as soon as the first display form may be visible
+		int minLodPixels = Integer.MAX_VALUE;
+		for (DisplayForm displayForm : config.getProject().getKmlExporter().getBuildingDisplayForms())
+			if (displayForm.isActive())
+				minLodPixels = Math.min(minLodPixels, Math.max(displayForm.getVisibleFrom(), 0));
+
+		LodType lodType = kmlFactory.createLodType();
+		lodType.setMinLodPixels((double)(minLodPixels == Integer.MAX_VALUE ? 0 : minLodPixels));
+		lodType.setMaxLodPixels(-1.0);
+
+		String name = filename + "_Region_" + level + "_" + nodeRow + "_" + nodeColumn;
+		return createNetworkLink(name, name + ".kml", createLatLonAltBox(level, nodeRow, nodeColumn), lodType);
+	}
+
+	private NetworkLinkType createNetworkLink(String name, String href, LatLonAltBoxType latLonAltBoxType, LodType lodType) {
+		NetworkLinkType networkLinkType = kmlFactory.createNetworkLinkType();
+		networkLinkType.setName(name);
+
+		RegionType regionType = kmlFactory.createRegionType();
+		regionType.setLatLonAltBox(latLonAltBoxType);
+		regionType.setLod(lodType);
+
+		LinkType linkType = kmlFactory.createLinkType();
+		linkType.setHref(href);
+		linkType.setViewRefreshMode(ViewRefreshModeEnumType.fromValue(config.getProject().getKmlExporter().getViewRefreshMode()));
+		linkType.setViewFormat("");
+		if (linkType.getViewRefreshMode() == ViewRefreshModeEnumType.ON_STOP) {
+			linkType.setViewRefreshTime(config.getProject().getKmlExporter().getViewRefreshTime());
+		}
+
+		// confusion between atom:link and kml:Link in ogckml22.xsd
+		networkLinkType.getRest().add(kmlFactory.createLink(linkType));
+		networkLinkType.setRegion(regionType);
+		return networkLinkType;
+	}
+
+	private LatLonAltBoxType createLatLonAltBox(int level, int nodeRow, int nodeColumn) {
+		// must be done like this to avoid non-matching tile limits
+		LatLonAltBoxType latLonAltBoxType = kmlFactory.createLatLonAltBoxType();
+		latLonAltBoxType.setSouth(wgs84TileMatrix.getLowerLeftCorner().getY() + (regionQuadtree.getFirstTileRow(level, nodeRow) * wgs84DeltaLatitude));
+		latLonAltBoxType.setNorth(wgs84TileMatrix.getLowerLeftCorner().getY() + (regionQuadtree.getLastTileRow(level, nodeRow) * wgs84DeltaLatitude));
+		latLonAltBoxType.setWest(wgs84TileMatrix.getLowerLeftCorner().getX() + (regionQuadtree.getFirstTileColumn(level, nodeColumn) * wgs84DeltaLongitude));
+		latLonAltBoxType.setEast(wgs84TileMatrix.getLowerLeftCorner().getX() + (regionQuadtree.getLastTileColumn(level, nodeColumn) * wgs84DeltaLongitude));
+		return latLonAltBoxType;
+	}
+
 	private void addStyle(DisplayForm currentDisplayForm, CityGMLClass featureClass) throws JAXBException {
 		if (!currentDisplayForm.isActive()) return;
 		switch (featureClass) {
@@ -1328,29 +1699,6 @@ public class KmlExporter implements EventHandler {
 		return true;
 	}
 
-	private static void getAllFiles(File startFolder, List<File> fileList) {
-		File[] files = startFolder.listFiles();
-		for (File file : files) {
-			fileList.add(file);
-			if (file.isDirectory())
-				getAllFiles(file, fileList);
-		}
-	}
-
-	private static void deleteFolder(File folder) {
-	    if (folder == null) return;
-	    File[] files = folder.listFiles();
-	    if (files != null) {
-	        for (File f: files) {
-	            if (f.isDirectory())
-	                deleteFolder(f);
-	            else
-	                f.delete();
-	        }
-	    }
-	    folder.delete();
-	}
-
 	@Override
 	public void handleEvent(Event e) throws Exception {
 
@@ -1420,8 +1768,6 @@ public class KmlExporter implements EventHandler {
 				if (kmlWorkerPool != null) {
 					kmlWorkerPool.drainWorkQueue();
 				}
-
-				if (lastTempFolder != null && lastTempFolder.exists()) deleteFolder(lastTempFolder); // just in case
 			}
 		}
 	}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.kml.database;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+public class BalloonBatch {
+	public static final int BATCH_SIZE = 100;
+
+	private final long[] ids;
+	private final HashMap<Long, Integer> positions;
+	private final ConcurrentHashMap<String, FutureTask<Map<Long, String>>> results;
+
+	public interface BatchLoader {
+		public Map<Long, String> load(long[] ids) throws Exception;
+	}
+
+	public BalloonBatch(long[] ids) {
+		this.ids = ids;
+		positions = new HashMap<Long, Integer>(ids.length * 2);
+		results = new ConcurrentHashMap<String, FutureTask<Map<Long, String>>>();
+
+		for (int i = 0; i < ids.length; i++)
+			positions.put(ids[i], i);
+	}
+
+	public boolean contains(long id) {
+		return positions.containsKey(id);
+	}
+
+	public String getResult(String sqlStatement, long id, final BatchLoader loader) throws Exception {
+		Integer position = positions.get(id);
+		if (position == null)
+			return null;
+
+		int batchNo = position / BATCH_SIZE;
+		String key = sqlStatement + '#' + batchNo;
+
+		FutureTask<Map<Long, String>> task = results.get(key);
+		if (task == null) {
+			// the ids of a batch are padded with its last id so that every
+			// batch binds the same number of parameters
+			final long[] batchIds = new long[BATCH_SIZE];
+			int offset = batchNo * BATCH_SIZE;
+			for (int i = 0; i < BATCH_SIZE; i++)
+				batchIds[i] = ids[Math.min(offset + i, ids.length - 1)];
+
+			FutureTask<Map<Long, String>> newTask = new FutureTask<Map<Long, String>>(new Callable<Map<Long, String>>() {
+				public Map<Long, String> call() throws Exception {
+					return loader.load(batchIds);
+				}
+			});
+
+			task = results.putIfAbsent(key, newTask);
+			if (task == null) {
+				task = newTask;
+				task.run();
+			}
+		}
+
+		try {
+			// every result is handed out once to keep the batch small
+			return task.get().remove(id);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception)
+				throw (Exception)e.getCause();
+
+			throw e;
+		}
+	}
+
+}
@@ -40,11 +40,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.citygml4j.model.citygml.CityGMLClass;
 
@@ -733,10 +736,34 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 	private Connection connection;
 	private CityGMLClass cityGMLClassForBalloonHandler = null;
 
+	private static final int MAX_CACHED_TEMPLATES = 64;
+	private static final int MAX_CACHED_STATEMENTS = 128;
+
 	private AbstractDatabaseAdapter databaseAdapter;
 	List<BalloonStatement> statementList = null;
 	List<String> htmlChunkList = null;
 
+	private BalloonBatch balloonBatch;
+	private HashMap<String, Integer> parameterCounts = new HashMap<String, Integer>();
+
+	private LinkedHashMap<String, PreparedStatement> preparedStatements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+			if (size() > MAX_CACHED_STATEMENTS) {
+				parameterCounts.remove(eldest.getKey());
+				try { eldest.getValue().close(); } catch (SQLException e) {}
+				return true;
+			}
+
+			return false;
+		}
+	};
+
+	private LinkedHashMap<String, ParsedTemplate> parsedTemplates = new LinkedHashMap<String, ParsedTemplate>(16, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<String, ParsedTemplate> eldest) {
+			return size() > MAX_CACHED_TEMPLATES;
+		}
+	};
+
 	public BalloonTemplateHandlerImpl() {
 		databaseAdapter = DatabaseConnectionPool.getInstance().getActiveDatabaseAdapter();		
 	}
@@ -757,6 +784,19 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 		this.connection = connection;
 	}
 
+	public void setBalloonBatch(BalloonBatch balloonBatch) {
+		this.balloonBatch = balloonBatch;
+	}
+
+	public void close() {
+		for (PreparedStatement preparedStatement : preparedStatements.values()) {
+			try { preparedStatement.close(); } catch (SQLException e) {}
+		}
+
+		preparedStatements.clear();
+		parameterCounts.clear();
+	}
+
 	private void setTemplate(File templateFile) {
 		statementList = new ArrayList<BalloonStatement>();
 		htmlChunkList = new ArrayList<String>();
@@ -810,10 +850,20 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 		String balloonContent = "";
 		List<BalloonStatement> statementListBackup = statementList;
 		List<String> htmlChunkListBackup = htmlChunkList;
-		statementList = new ArrayList<BalloonStatement>();
-		htmlChunkList = new ArrayList<String>();
 		try {
-			fillStatementAndHtmlChunkList(template);
+			// templates taken from generic attributes are parsed once and reused
+			ParsedTemplate parsedTemplate = parsedTemplates.get(template);
+			if (parsedTemplate == null) {
+				statementList = new ArrayList<BalloonStatement>();
+				htmlChunkList = new ArrayList<String>();
+				fillStatementAndHtmlChunkList(template);
+				parsedTemplates.put(template, new ParsedTemplate(statementList, htmlChunkList));
+			}
+			else {
+				statementList = parsedTemplate.statementList;
+				htmlChunkList = parsedTemplate.htmlChunkList;
+			}
+
 			balloonContent = getBalloonContent(id, lod);
 		}
 		catch (Exception e) {
@@ -829,12 +879,10 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 		if (connection == null) throw new SQLException("Null or invalid connection");
 		if (statementList == null && htmlChunkList == null) throw new Exception("Invalid template file"); 
 
-		StringBuffer balloonContent = new StringBuffer();
+		StringBuilder balloonContent = new StringBuilder();
 
 		if (statementList != null) {
-			// when properly initialized this happens only at the first object
-			// otherwise it avoids problems from lousy initialization of BalloonTemplateHandlers in threads
-			// at the cost of performance
+			// statements are converted once per object class and lod and cached afterwards
 
 			CityGMLClass cityObjectTypeForGmlId = null;
 			long id = -1;
@@ -842,7 +890,7 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 			ResultSet rs = null;
 			PreparedStatement query = null;
 			try {
-				query = connection.prepareStatement(Queries.GET_ID_AND_OBJECTCLASS_FROM_GMLID);
+				query = getPreparedStatement(Queries.GET_ID_AND_OBJECTCLASS_FROM_GMLID);
 				query.setString(1, gmlId);
 				rs = query.executeQuery();
 
@@ -857,19 +905,9 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 					try { rs.close(); }	catch (SQLException sqlEx) {}
 					rs = null;
 				}
-
-				if (query != null) {
-					try { query.close(); } catch (SQLException sqlEx) {}
-					query = null;
-				}
 			}
 
-			if (cityGMLClassForBalloonHandler != cityObjectTypeForGmlId) {
-				for (BalloonStatement statement: statementList) {
-					statement.setConversionTried(false);
-				}
-				cityGMLClassForBalloonHandler = cityObjectTypeForGmlId;
-			}
+			cityGMLClassForBalloonHandler = cityObjectTypeForGmlId;
 
 			List<String> resultList = new ArrayList<String>();
 			for (BalloonStatement statement: statementList) {
@@ -893,19 +931,17 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 		if (connection == null) throw new SQLException("Null or invalid connection");
 		if (statementList == null && htmlChunkList == null) throw new Exception("Invalid template file"); 
 
-		StringBuffer balloonContent = new StringBuffer();
+		StringBuilder balloonContent = new StringBuilder();
 
 		if (statementList != null) {
-			// when properly initialized this happens only at the first object
-			// otherwise it avoids problems from lousy initialization of BalloonTemplateHandlers in threads
-			// at the cost of performance
+			// statements are converted once per object class and lod and cached afterwards
 
 			CityGMLClass cityObjectTypeForId = null;
 
 			ResultSet rs = null;
 			PreparedStatement query = null;
 			try {
-				query = connection.prepareStatement(Queries.GET_GMLID_AND_OBJECTCLASS_FROM_ID);
+				query = getPreparedStatement(Queries.GET_GMLID_AND_OBJECTCLASS_FROM_ID);
 				query.setLong(1, id);
 				rs = query.executeQuery();
 
@@ -919,19 +955,9 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 					try { rs.close(); }	catch (SQLException sqlEx) {}
 					rs = null;
 				}
-
-				if (query != null) {
-					try { query.close(); } catch (SQLException sqlEx) {}
-					query = null;
-				}
 			}
 
-			if (cityGMLClassForBalloonHandler != cityObjectTypeForId) {
-				for (BalloonStatement statement: statementList) {
-					statement.setConversionTried(false);
-				}
-				cityGMLClassForBalloonHandler = cityObjectTypeForId;
-			}
+			cityGMLClassForBalloonHandler = cityObjectTypeForId;
 
 			List<String> resultList = new ArrayList<String>();
 			for (BalloonStatement statement: statementList) {
@@ -952,15 +978,15 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 	}
 
 	private String executeStatement(BalloonStatement statement, long id, int lod) {
-		String result = "";
+		StringBuilder result = new StringBuilder();
 		if (statement != null) {
-			PreparedStatement preparedStatement = null;
 			ResultSet rs = null;
 			try {
 				if (statement.isForeach()) {
 					return executeForeachStatement(statement, id, lod);
 				}
 
+				PreparedStatement preparedStatement = null;
 				if (statement.isNested()) {
 					String rawStatement = statement.getRawStatement();
 					List<String> textBetweenNestedStatements = new ArrayList<String>();
@@ -1015,53 +1041,30 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 					}
 
 					BalloonStatement dummy = new BalloonStatement(notNestedAnymore.toString());
-					preparedStatement = connection.prepareStatement(dummy.getProperSQLStatement(lod));
+					preparedStatement = getPreparedStatement(dummy.getProperSQLStatement(lod), id);
 				}
 				else { // not nested
 					if (statement.getProperSQLStatement(lod) == null) {
 						// malformed expression between proper START_TAG and END_TAG
-						return result; // skip db call, rs and preparedStatement are currently null
+						return ""; // skip db call, rs and preparedStatement are currently null
 					}
-					preparedStatement = connection.prepareStatement(statement.getProperSQLStatement(lod));
-				}
 
-				for (int i = 1; i <= preparedStatement.getParameterMetaData().getParameterCount(); i++) {
-					preparedStatement.setLong(i, id);
+					String batchResult = getBatchResult(statement, id, lod);
+					if (batchResult != null) {
+						return batchResult;
+					}
+
+					preparedStatement = getPreparedStatement(statement.getProperSQLStatement(lod), id);
 				}
+
 				rs = preparedStatement.executeQuery();
 				while (rs.next()) {
 					if (rs.getRow() > 1) {
-						result = result + ", ";
+						result.append(", ");
 					}
 					Object object = rs.getObject(1);
 					if (!rs.wasNull() && object != null) {
-						GeometryObject geomObj = databaseAdapter.getGeometryConverter().getGeometry(object);
-						if (geomObj != null) {
-							int dimension = geomObj.getDimension();
-
-							result = result + "(";
-							for (int ringNo = 0; ringNo < geomObj.getNumElements(); ringNo++) {
-								double[] ring = geomObj.getCoordinates(ringNo);
-
-								for (int i = 0; i < ring.length; i = i + dimension) {
-									for (int j = 0; j < dimension; j++) {
-										result = result + ring[i+j];
-										if (j < dimension - 1) 
-											result = result + ",";
-									}
-
-									if (i+dimension < ring.length)
-										result = result + " ";
-								}	
-
-								if (ringNo < geomObj.getNumElements() - 1)
-									result = result + " ";
-							}
-							result = result + ")";
-						}
-						else {
-							result = result + rs.getObject(1).toString().replaceAll("\"", "&quot;"); // workaround, the JAXB KML marshaler does not escape " properly;
-						}
+						appendValue(result, object);
 					}
 				}
 			}
@@ -1073,68 +1076,38 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 			finally {
 				try {
 					if (rs != null) rs.close();
-					if (preparedStatement != null) preparedStatement.close();
 				}
 				catch (Exception e2) {}
 			}
 		}
-		return result;
+		return result.toString();
 	}
 
 	private String executeForeachStatement(BalloonStatement statement, long id, int lod) {
-		String resultBody = "";
-		PreparedStatement preparedStatement = null;
+		StringBuilder resultBody = new StringBuilder();
 		ResultSet rs = null;
 		try {
 			if (statement != null && statement.getProperSQLStatement(lod) != null) {
-				preparedStatement = connection.prepareStatement(statement.getProperSQLStatement(lod));
-				for (int i = 1; i <= preparedStatement.getParameterMetaData().getParameterCount(); i++) {
-					preparedStatement.setLong(i, id);
-				}
+				PreparedStatement preparedStatement = getPreparedStatement(statement.getProperSQLStatement(lod), id);
 
 				rs = preparedStatement.executeQuery();
+				StringBuilder columnValue = new StringBuilder();
 				while (rs.next()) {
 					String iterationBody = statement.getForeachBody();
 					for (int n = 0; n <= statement.getColumnAmount(); n++) {
-						String columnValue = "";
+						columnValue.setLength(0);
 						if (n == 0) {
-							columnValue = String.valueOf(rs.getRow());
+							columnValue.append(rs.getRow());
 						}
 						else {
 							Object object = rs.getObject(n);
 							if (!rs.wasNull() && object != null) {
-								GeometryObject geomObj = databaseAdapter.getGeometryConverter().getGeometry(object);
-								if (geomObj != null) {
-									int dimension = geomObj.getDimension();
-
-									columnValue = columnValue + "(";
-									for (int ringNo = 0; ringNo < geomObj.getNumElements(); ringNo++) {
-										double[] ring = geomObj.getCoordinates(ringNo);
-
-										for (int i = 0; i < ring.length; i = i + dimension) {
-											for (int j = 0; j < dimension; j++) {
-												columnValue = columnValue + ring[i+j];
-												if (j < dimension - 1) 
-													columnValue = columnValue + ",";
-											}
-
-											if (i+dimension < ring.length)
-												columnValue = columnValue + " ";
-										}	
-
-										if (ringNo < geomObj.getNumElements() - 1)
-											columnValue = columnValue + " ";
-									}
-									columnValue = columnValue + ")";
-								}
-								else {
-									columnValue = rs.getObject(n).toString().replaceAll("\"", "&quot;"); // workaround, the JAXB KML marshaler does not escape " properly
-								}
+								appendValue(columnValue, object);
 							}
 						}
-						iterationBody = iterationBody.replaceAll("%" + n, columnValue);
+						iterationBody = iterationBody.replace("%" + n, columnValue);
 					}
-					resultBody = resultBody + iterationBody;
+					resultBody.append(iterationBody);
 				}
 			}
 		}
@@ -1144,11 +1117,136 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 		finally {
 			try {
 				if (rs != null) rs.close();
-				if (preparedStatement != null) preparedStatement.close();
 			}
 			catch (Exception e2) {}
 		}
-		return resultBody;
+		return resultBody.toString();
+	}
+
+	private String getBatchResult(final BalloonStatement statement, long id, int lod) {
+		if (balloonBatch == null || !balloonBatch.contains(id)) {
+			return null;
+		}
+
+		try {
+			final String batchSQLStatement = statement.getBatchSQLStatement(lod);
+			if (batchSQLStatement == null) {
+				return null;
+			}
+
+			return balloonBatch.getResult(batchSQLStatement, id, new BalloonBatch.BatchLoader() {
+				public Map<Long, String> load(long[] ids) throws Exception {
+					return executeBatchStatement(batchSQLStatement, ids, statement.isCountAggregate() ? "0" : "");
+				}
+			});
+		}
+		catch (Exception e) {
+			// fall back to querying the object on its own
+			return null;
+		}
+	}
+
+	private Map<Long, String> executeBatchStatement(String batchSQLStatement, long[] ids, String defaultValue) throws Exception {
+		Map<Long, String> results = new ConcurrentHashMap<Long, String>();
+		PreparedStatement preparedStatement = getPreparedStatement(batchSQLStatement);
+		ResultSet rs = null;
+		try {
+			for (int i = 0; i < ids.length; i++) {
+				preparedStatement.setLong(i + 1, ids[i]);
+			}
+
+			rs = preparedStatement.executeQuery();
+			StringBuilder result = null;
+			long currentId = 0;
+			while (rs.next()) {
+				long id = rs.getLong(1);
+				if (result == null || id != currentId) {
+					if (result != null) {
+						results.put(currentId, result.toString());
+					}
+					result = new StringBuilder();
+					currentId = id;
+				}
+				else {
+					result.append(", ");
+				}
+
+				Object object = rs.getObject(2);
+				if (!rs.wasNull() && object != null) {
+					appendValue(result, object);
+				}
+			}
+
+			if (result != null) {
+				results.put(currentId, result.toString());
+			}
+		}
+		finally {
+			try {
+				if (rs != null) rs.close();
+			}
+			catch (Exception e2) {}
+		}
+
+		// objects without matching rows still get a result
+		for (long id: ids) {
+			if (!results.containsKey(id)) {
+				results.put(id, defaultValue);
+			}
+		}
+
+		return results;
+	}
+
+	private void appendValue(StringBuilder result, Object object) throws SQLException {
+		GeometryObject geomObj = databaseAdapter.getGeometryConverter().getGeometry(object);
+		if (geomObj != null) {
+			int dimension = geomObj.getDimension();
+
+			result.append('(');
+			for (int ringNo = 0; ringNo < geomObj.getNumElements(); ringNo++) {
+				double[] ring = geomObj.getCoordinates(ringNo);
+
+				for (int i = 0; i < ring.length; i = i + dimension) {
+					for (int j = 0; j < dimension; j++) {
+						result.append(ring[i+j]);
+						if (j < dimension - 1) 
+							result.append(',');
+					}
+
+					if (i+dimension < ring.length)
+						result.append(' ');
+				}	
+
+				if (ringNo < geomObj.getNumElements() - 1)
+					result.append(' ');
+			}
+			result.append(')');
+		}
+		else {
+			result.append(object.toString().replaceAll("\"", "&quot;")); // workaround, the JAXB KML marshaler does not escape " properly
+		}
+	}
+
+	private PreparedStatement getPreparedStatement(String sqlStatement) throws SQLException {
+		PreparedStatement preparedStatement = preparedStatements.get(sqlStatement);
+		if (preparedStatement == null) {
+			preparedStatement = connection.prepareStatement(sqlStatement);
+			parameterCounts.put(sqlStatement, preparedStatement.getParameterMetaData().getParameterCount());
+			preparedStatements.put(sqlStatement, preparedStatement);
+		}
+
+		return preparedStatement;
+	}
+
+	private PreparedStatement getPreparedStatement(String sqlStatement, long id) throws SQLException {
+		PreparedStatement preparedStatement = getPreparedStatement(sqlStatement);
+		int parameterCount = parameterCounts.get(sqlStatement);
+		for (int i = 1; i <= parameterCount; i++) {
+			preparedStatement.setLong(i, id);
+		}
+
+		return preparedStatement;
 	}
 
 	private void fillStatementAndHtmlChunkList(String template) throws Exception {
@@ -1206,11 +1304,24 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 	}
 
 
+	private class ParsedTemplate {
+		private final List<BalloonStatement> statementList;
+		private final List<String> htmlChunkList;
+
+		ParsedTemplate (List<BalloonStatement> statementList, List<String> htmlChunkList) {
+			this.statementList = statementList;
+			this.htmlChunkList = htmlChunkList;
+		}
+	}
+
 	private class BalloonStatement {
 		private String rawStatement;
 		private boolean nested = false;
 		private String properSQLStatement = null;
-		private boolean conversionTried = false;
+		private String batchSQLStatement = null;
+		private HashMap<String, String> properSQLStatements = new HashMap<String, String>();
+		private HashMap<String, String> batchSQLStatements = new HashMap<String, String>();
+		private boolean countAggregate = false;
 		private int columnAmount;
 		private boolean foreach = false;
 		private String foreachBody;
@@ -1243,15 +1354,24 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 		}
 
 		private String getProperSQLStatement(int lod) throws Exception {
-			if (!conversionTried && properSQLStatement == null) {
+			String key = cityGMLClassForBalloonHandler + "_" + lod;
+			if (!properSQLStatements.containsKey(key)) {
+				properSQLStatement = null;
+				batchSQLStatement = null;
 				this.convertStatementToProperSQL(lod);
-				conversionTried = true;
+				properSQLStatements.put(key, properSQLStatement);
+				batchSQLStatements.put(key, batchSQLStatement);
 			}
-			return properSQLStatement;
+			return properSQLStatements.get(key);
 		}
 
-		private void setConversionTried(boolean conversionTried) {
-			this.conversionTried = conversionTried;
+		private String getBatchSQLStatement(int lod) throws Exception {
+			getProperSQLStatement(lod);
+			return batchSQLStatements.get(cityGMLClassForBalloonHandler + "_" + lod);
+		}
+
+		private boolean isCountAggregate() {
+			return countAggregate;
 		}
 
 		private boolean isForeach() {
@@ -1517,11 +1637,56 @@ public class BalloonTemplateHandlerImpl implements BalloonTemplateHandler {
 					}
 					// no ORDER by for MAX, MIN, AVG, COUNT, SUM
 				}
+
+				if (!isForeach() && rownum == 0 && (aggregateFunction == null || aggregateString.length() > 0) 
+						&& (condition == null || condition.indexOf('?') == -1)) {
+					batchSQLStatement = toBatchSQLStatement(sqlStatement, aggregateString.length() > 0);
+					countAggregate = COUNT.equalsIgnoreCase(aggregateFunction);
+				}
 			}
 
 			setProperSQLStatement(sqlStatement);
 		}
 
+		private String toBatchSQLStatement(String sqlStatement, boolean aggregate) {
+			// only plain statements without subqueries are rewritten to fetch a whole batch of objects
+			int fromIndex = sqlStatement.indexOf(" FROM ");
+			int whereIndex = sqlStatement.indexOf(" WHERE ");
+			if (!sqlStatement.startsWith("SELECT ") ||
+					sqlStatement.indexOf("SELECT ", 1) != -1 ||
+					fromIndex == -1 ||
+					whereIndex < fromIndex ||
+					sqlStatement.indexOf('?') == -1) {
+				return null;
+			}
+
+			StringBuilder batchStatement = new StringBuilder("SELECT ids.ID, ")
+			.append(sqlStatement.substring("SELECT ".length(), fromIndex))
+			.append(" FROM CITYOBJECT ids, ")
+			.append(sqlStatement.substring(fromIndex + " FROM ".length(), whereIndex))
+			.append(" WHERE ids.ID IN (");
+			for (int i = 0; i < BalloonBatch.BATCH_SIZE; i++) {
+				batchStatement.append(i == 0 ? "?" : ",?");
+			}
+			batchStatement.append(") AND ");
+
+			String whereClause = sqlStatement.substring(whereIndex + " WHERE ".length()).replace("?", "ids.ID");
+			int orderByIndex = whereClause.lastIndexOf(" ORDER by ");
+			if (aggregate) {
+				batchStatement.append(whereClause).append(" GROUP BY ids.ID");
+			}
+			else if (orderByIndex != -1) {
+				batchStatement.append(whereClause.substring(0, orderByIndex))
+				.append(" ORDER BY ids.ID, ")
+				.append(whereClause.substring(orderByIndex + " ORDER by ".length()));
+			}
+			else {
+				batchStatement.append(whereClause).append(" ORDER BY ids.ID");
+			}
+
+			return batchStatement.toString();
+		}
+
 		private String sqlStatementForBuilding(String table,
 				List<String> columns,
 				String aggregateString,
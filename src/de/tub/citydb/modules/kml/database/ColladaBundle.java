@@ -47,6 +47,7 @@ public class ColladaBundle {
 
 	private COLLADA collada;
 	private String colladaAsString;
+	private byte[] glb;
 	private PlacemarkType placemark;
 	private String gmlId;
 	private String externalBalloonFileContent;
@@ -75,6 +76,14 @@ public class ColladaBundle {
 		return collada;
 	}
 
+	public void setGlb(byte[] glb) {
+		this.glb = glb;
+	}
+
+	public byte[] getGlb() {
+		return glb;
+	}
+
 	public void setPlacemark(PlacemarkType placemark) {
 		this.placemark = placemark;
 	}
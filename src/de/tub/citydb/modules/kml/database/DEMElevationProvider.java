@@ -0,0 +1,337 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.kml.database;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+public class DEMElevationProvider implements ElevationProvider {
+	private static final int MAX_OPEN_TILES = 16;
+
+	private final List<DEMTile> tiles;
+	private final LinkedHashMap<DEMTile, FloatBuffer> openTiles;
+	private final File cacheFolder;
+
+	public DEMElevationProvider(File demFolder) throws IOException {
+		if (!demFolder.isDirectory())
+			throw new IOException("The DEM folder '" + demFolder.getAbsolutePath() + "' does not exist.");
+
+		// every ESRI ASCII grid file in the folder is a DEM tile
+		tiles = new ArrayList<DEMTile>();
+		File[] files = demFolder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.isFile() && file.getName().toLowerCase().endsWith(".asc"))
+					tiles.add(new DEMTile(file, tiles.size()));
+			}
+		}
+
+		if (tiles.isEmpty())
+			throw new IOException("The DEM folder '" + demFolder.getAbsolutePath() + "' does not contain ESRI ASCII grid files.");
+
+		// tiles are converted to binary grids that can be memory-mapped
+		cacheFolder = File.createTempFile("dem", "");
+		if (!cacheFolder.delete() || !cacheFolder.mkdir())
+			throw new IOException("Failed to create temporary DEM folder '" + cacheFolder.getAbsolutePath() + "'.");
+
+		cacheFolder.deleteOnExit();
+
+		openTiles = new LinkedHashMap<DEMTile, FloatBuffer>(MAX_OPEN_TILES, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<DEMTile, FloatBuffer> eldest) {
+				return size() > MAX_OPEN_TILES;
+			}
+		};
+	}
+
+	public int getNumberOfTiles() {
+		return tiles.size();
+	}
+
+	@Override
+	public String getName() {
+		return "local DEM";
+	}
+
+	@Override
+	public double[] getElevations(double[] coords) throws IOException {
+		double[] elevations = new double[coords.length / 3];
+		DEMTile tile = null;
+		FloatBuffer data = null;
+
+		for (int i = 0, j = 0; j < elevations.length; i += 3, j++) {
+			double x = coords[i];
+			double y = coords[i + 1];
+
+			// neighbouring points are very likely to be located on the same tile
+			if (tile == null || !tile.contains(x, y)) {
+				tile = findTile(x, y);
+				data = tile != null ? getData(tile) : null;
+			}
+
+			elevations[j] = tile != null ? tile.sample(data, x, y) : Double.NaN;
+		}
+
+		return elevations;
+	}
+
+	private DEMTile findTile(double x, double y) {
+		for (DEMTile tile : tiles) {
+			if (tile.contains(x, y))
+				return tile;
+		}
+
+		return null;
+	}
+
+	private FloatBuffer getData(DEMTile tile) throws IOException {
+		FloatBuffer data = null;
+
+		synchronized (openTiles) {
+			data = openTiles.get(tile);
+			if (data != null)
+				return data;
+		}
+
+		synchronized (tile) {
+			data = tile.map(cacheFolder);
+		}
+
+		synchronized (openTiles) {
+			openTiles.put(tile, data);
+		}
+
+		return data;
+	}
+
+	private static final class DEMTile {
+		private final File file;
+		private final int index;
+		private int headerLines;
+		private int ncols;
+		private int nrows;
+		private double xMin;
+		private double yMin;
+		private double xMax;
+		private double yMax;
+		private double cellSize;
+		private float noData = -9999;
+		private File gridFile;
+
+		private DEMTile(File file, int index) throws IOException {
+			this.file = file;
+			this.index = index;
+
+			boolean isCenter = false;
+			BufferedReader reader = new BufferedReader(new FileReader(file));
+
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					StringTokenizer tokenizer = new StringTokenizer(line);
+					if (!tokenizer.hasMoreTokens())
+						break;
+
+					String key = tokenizer.nextToken().toLowerCase();
+					if (!Character.isLetter(key.charAt(0)) || !tokenizer.hasMoreTokens())
+						break;
+
+					double value = Double.parseDouble(tokenizer.nextToken());
+					if (key.equals("ncols"))
+						ncols = (int)value;
+					else if (key.equals("nrows"))
+						nrows = (int)value;
+					else if (key.equals("xllcorner"))
+						xMin = value;
+					else if (key.equals("yllcorner"))
+						yMin = value;
+					else if (key.equals("xllcenter")) {
+						xMin = value;
+						isCenter = true;
+					} else if (key.equals("yllcenter")) {
+						yMin = value;
+						isCenter = true;
+					} else if (key.equals("cellsize"))
+						cellSize = value;
+					else if (key.equals("nodata_value"))
+						noData = (float)value;
+
+					headerLines++;
+				}
+			} catch (NumberFormatException e) {
+				throw new IOException("Failed to parse header of DEM file '" + file.getName() + "'.");
+			} finally {
+				reader.close();
+			}
+
+			if (ncols <= 0 || nrows <= 0 || cellSize <= 0)
+				throw new IOException("Invalid header of DEM file '" + file.getName() + "'.");
+
+			if (isCenter) {
+				xMin -= cellSize / 2;
+				yMin -= cellSize / 2;
+			}
+
+			xMax = xMin + ncols * cellSize;
+			yMax = yMin + nrows * cellSize;
+		}
+
+		private boolean contains(double x, double y) {
+			return x >= xMin && x <= xMax && y >= yMin && y <= yMax;
+		}
+
+		private double sample(FloatBuffer data, double x, double y) {
+			// grid values refer to cell centers, rows run from north to south
+			double fx = (x - xMin) / cellSize - 0.5;
+			double fy = (yMax - y) / cellSize - 0.5;
+
+			int col = Math.max(0, Math.min(ncols - 2, (int)Math.floor(fx)));
+			int row = Math.max(0, Math.min(nrows - 2, (int)Math.floor(fy)));
+			int nextCol = Math.min(ncols - 1, col + 1);
+			int nextRow = Math.min(nrows - 1, row + 1);
+
+			double tx = Math.max(0, Math.min(1, fx - col));
+			double ty = Math.max(0, Math.min(1, fy - row));
+
+			// bilinear interpolation skipping cells without data
+			double sum = 0;
+			double weights = 0;
+
+			double weight = (1 - tx) * (1 - ty);
+			float value = data.get(row * ncols + col);
+			if (value != noData) {
+				sum += weight * value;
+				weights += weight;
+			}
+
+			weight = tx * (1 - ty);
+			value = data.get(row * ncols + nextCol);
+			if (value != noData) {
+				sum += weight * value;
+				weights += weight;
+			}
+
+			weight = (1 - tx) * ty;
+			value = data.get(nextRow * ncols + col);
+			if (value != noData) {
+				sum += weight * value;
+				weights += weight;
+			}
+
+			weight = tx * ty;
+			value = data.get(nextRow * ncols + nextCol);
+			if (value != noData) {
+				sum += weight * value;
+				weights += weight;
+			}
+
+			return weights > 0 ? sum / weights : Double.NaN;
+		}
+
+		private FloatBuffer map(File cacheFolder) throws IOException {
+			if (gridFile == null) {
+				File tmp = new File(cacheFolder, index + ".grid");
+				tmp.deleteOnExit();
+				convert(tmp);
+				gridFile = tmp;
+			}
+
+			RandomAccessFile randomAccessFile = new RandomAccessFile(gridFile, "r");
+			try {
+				FileChannel channel = randomAccessFile.getChannel();
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				return buffer.order(ByteOrder.nativeOrder()).asFloatBuffer();
+			} finally {
+				randomAccessFile.close();
+			}
+		}
+
+		private void convert(File target) throws IOException {
+			BufferedReader reader = new BufferedReader(new FileReader(file));
+			FileOutputStream outputStream = new FileOutputStream(target);
+
+			try {
+				FileChannel channel = outputStream.getChannel();
+				ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.nativeOrder());
+				long expected = (long)ncols * nrows;
+				long count = 0;
+
+				for (int i = 0; i < headerLines; i++)
+					reader.readLine();
+
+				String line;
+				while (count < expected && (line = reader.readLine()) != null) {
+					StringTokenizer tokenizer = new StringTokenizer(line);
+					while (count < expected && tokenizer.hasMoreTokens()) {
+						if (buffer.remaining() < 4) {
+							buffer.flip();
+							while (buffer.hasRemaining())
+								channel.write(buffer);
+
+							buffer.clear();
+						}
+
+						buffer.putFloat(Float.parseFloat(tokenizer.nextToken()));
+						count++;
+					}
+				}
+
+				buffer.flip();
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+
+				if (count < expected)
+					throw new IOException("The DEM file '" + file.getName() + "' contains less than " + expected + " values.");
+			} catch (NumberFormatException e) {
+				throw new IOException("Failed to parse values of DEM file '" + file.getName() + "'.");
+			} finally {
+				reader.close();
+				outputStream.close();
+			}
+		}
+	}
+
+}
@@ -52,7 +52,6 @@ import net.opengis.kml._2.MultiGeometryType;
 import net.opengis.kml._2.PlacemarkType;
 import net.opengis.kml._2.PolygonType;
 
-import org.citygml.textureAtlas.image.ImageReader;
 import org.citygml.textureAtlas.model.TextureImage;
 import org.citygml4j.geometry.Matrix;
 import org.citygml4j.model.citygml.appearance.X3DMaterial;
@@ -412,11 +411,11 @@ public class GenericCityObject extends KmlGenericObject{
 				!config.getProject().getKmlExporter().isExportAsKmz() &&
 				config.getProject().getKmlExporter().getFilter().getComplexFilter().getTiledBoundingBox().getActive().booleanValue())
 		{
-			link.setHref(getGmlId() + ".dae");
+			link.setHref(getGmlId() + getModelFileExtension());
 		}
 		else {
 			// File.separator would be wrong here, it MUST be "/"
-			link.setHref(getGmlId() + "/" + getGmlId() + ".dae");
+			link.setHref(getGmlId() + "/" + getGmlId() + getModelFileExtension());
 		}
 		model.setLink(link);
 
@@ -518,7 +517,7 @@ public class GenericCityObject extends KmlGenericObject{
 									// not already marked as wrapping texture && not already read in
 									TextureImage texImage = null;
 									try {
-										texImage = ImageReader.read(textureExportAdapter.getInStream(rs2, "tex_image", texImageUri));
+										texImage = readTexImage(rs2, texImageUri, surfaceDataId);
 									}
 									catch (IOException ioe) {}
 									if (texImage != null) { // image in JPEG, PNG or another usual format
@@ -30,6 +30,7 @@
 package de.tub.citydb.modules.kml.database;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -65,10 +66,12 @@ import org.citygml4j.util.xml.SAXEventBuffer;
 import de.tub.citydb.api.concurrent.WorkerPool;
 import de.tub.citydb.config.Config;
 import de.tub.citydb.config.project.kmlExporter.DisplayForm;
+import de.tub.citydb.config.project.kmlExporter.ModelFormat;
 import de.tub.citydb.database.adapter.TextureImageExportAdapter;
-import de.tub.citydb.log.Logger;
 import de.tub.citydb.modules.kml.controller.KmlExporter;
 import de.tub.citydb.modules.kml.util.CityObject4JSON;
+import de.tub.citydb.modules.kml.util.KmzArchiveWriter;
+import de.tub.citydb.modules.kml.util.TextureImageCache;
 
 public class KmlExporterManager {
 	private final JAXBContext jaxbKmlContext;
@@ -76,6 +79,8 @@ public class KmlExporterManager {
 	private final WorkerPool<SAXEventBuffer> ioWriterPool;
 	private final ObjectFactory kmlFactory; 
 	private final TextureImageExportAdapter textureExportAdapter;
+	private final TextureImageCache textureImageCache;
+	private final KmzArchiveWriter kmzArchive;
 	private final Config config;
 	
 	private boolean isBBoxActive;
@@ -83,19 +88,22 @@ public class KmlExporterManager {
 	
 	private static final String ENCODING = "UTF-8";
 	private static final Charset CHARSET = Charset.forName(ENCODING);
-	private static final String TEMP_FOLDER = "__temp";
 
 	public KmlExporterManager(JAXBContext jaxbKmlContext,
 							  JAXBContext jaxbColladaContext,
 							  WorkerPool<SAXEventBuffer> ioWriterPool,
 							  ObjectFactory kmlFactory,
 							  TextureImageExportAdapter textureExportAdapter,
+							  TextureImageCache textureImageCache,
+							  KmzArchiveWriter kmzArchive,
 							  Config config) {
 		this.jaxbKmlContext = jaxbKmlContext;
 		this.jaxbColladaContext = jaxbColladaContext;
 		this.ioWriterPool = ioWriterPool;
 		this.kmlFactory = kmlFactory;
 		this.textureExportAdapter = textureExportAdapter;
+		this.textureImageCache = textureImageCache;
+		this.kmzArchive = kmzArchive;
 		this.config = config;
 
 		isBBoxActive = config.getProject().getKmlExporter().getFilter().getComplexFilter().getTiledBoundingBox().getActive().booleanValue();
@@ -116,6 +124,10 @@ public class KmlExporterManager {
 		mainFilename = mainFilename + ".kml";
 	}
 
+	public TextureImageCache getTextureImageCache() {
+		return textureImageCache;
+	}
+
 
 	public void print(List<PlacemarkType> placemarkList,
 					  KmlSplittingResult work,
@@ -168,17 +180,7 @@ public class KmlExporterManager {
     						path = path.substring(0, path.lastIndexOf(File.separator));
     						File directory =  new File(path);
 
-							if (config.getProject().getKmlExporter().isExportAsKmz()) {
-								if (!isBBoxActive || !config.getProject().getKmlExporter().isOneFilePerObject()) {
-        							// export temporarily as kml, it will be later added to kmz if needed
-    								directory = new File(path, TEMP_FOLDER);
-    								if (!directory.exists()) {
-    									Logger.getInstance().info("Creating temporary folder...");
-    									directory.mkdir();
-    								}
-    							}
-							}
-							else { // export as kml
+							if (!config.getProject().getKmlExporter().isExportAsKmz()) {
 								if (config.getProject().getKmlExporter().isOneFilePerObject()) {
 									directory = new File(path, work.getGmlId());
 		        					if (!directory.exists()) {
@@ -187,7 +189,19 @@ public class KmlExporterManager {
     							}
     						}
 
-    						if (!config.getProject().getKmlExporter().isOneFilePerObject() || !config.getProject().getKmlExporter().isExportAsKmz()) {
+							if (config.getProject().getKmlExporter().isExportAsKmz()) {
+								if (!config.getProject().getKmlExporter().isOneFilePerObject()) {
+									// the balloon is compressed here and directly added to the kmz archive
+									try {
+										kmzArchive.addEntry(BalloonTemplateHandlerImpl.balloonDirectoryName + "/" + placemark.getName() + ".html", 
+												placemarkDescription.getBytes(CHARSET));
+									}
+									catch (IOException ioe) {
+										ioe.printStackTrace();
+									}
+								}
+							}
+							else {
 	       						try {
 	       							File balloonsDirectory = new File(directory, BalloonTemplateHandlerImpl.balloonDirectoryName);
 	       							if (!balloonsDirectory.exists()) {
@@ -470,17 +484,28 @@ public class KmlExporterManager {
 
 		if (config.getProject().getKmlExporter().isExportAsKmz() &&	isBBoxActive
 				&& config.getProject().getKmlExporter().isOneFilePerObject()) {
-			// marshalling in parallel threads should save some time
-	        StringWriter sw = new StringWriter();
-	        colladaMarshaller.marshal(colladaBundle.getCollada(), sw);
-	        colladaBundle.setColladaAsString(sw.toString());
-	        colladaBundle.setCollada(null); // free heap space
-
-	        // ----------------- model saving -----------------
-	        ZipEntry zipEntry = new ZipEntry(colladaBundle.getGmlId() + "/" + colladaBundle.getGmlId() + ".dae");
-	        zipOut.putNextEntry(zipEntry);
-	        zipOut.write(colladaBundle.getColladaAsString().getBytes(CHARSET));
-	        zipOut.closeEntry();
+	        ZipEntry zipEntry = null;
+	        if (colladaBundle.getGlb() != null) {
+		        // ----------------- model saving -----------------
+	        	zipEntry = new ZipEntry(colladaBundle.getGmlId() + "/" + colladaBundle.getGmlId() + ModelFormat.GLB.getFileExtension());
+	        	zipOut.putNextEntry(zipEntry);
+	        	zipOut.write(colladaBundle.getGlb());
+	        	zipOut.closeEntry();
+	        	colladaBundle.setGlb(null); // free heap space
+	        }
+	        else {
+	        	// marshalling in parallel threads should save some time
+	        	StringWriter sw = new StringWriter();
+	        	colladaMarshaller.marshal(colladaBundle.getCollada(), sw);
+	        	colladaBundle.setColladaAsString(sw.toString());
+	        	colladaBundle.setCollada(null); // free heap space
+
+	        	// ----------------- model saving -----------------
+	        	zipEntry = new ZipEntry(colladaBundle.getGmlId() + "/" + colladaBundle.getGmlId() + ModelFormat.COLLADA.getFileExtension());
+	        	zipOut.putNextEntry(zipEntry);
+	        	zipOut.write(colladaBundle.getColladaAsString().getBytes(CHARSET));
+	        	zipOut.closeEntry();
+	        }
 
 	        // ----------------- image saving -----------------
 	        if (colladaBundle.getUnsupportedTexImageIds() != null) {
@@ -531,18 +556,54 @@ public class KmlExporterManager {
 
 			zipOut.close();
 		}
+		else if (config.getProject().getKmlExporter().isExportAsKmz()) {
+			// entries are compressed by this worker thread and directly appended to the kmz archive
+			String modelFilename = colladaBundle.getGmlId() + "/" + colladaBundle.getGmlId();
+
+			// ----------------- model saving -----------------
+			if (colladaBundle.getGlb() != null) {
+				kmzArchive.addEntry(modelFilename + ModelFormat.GLB.getFileExtension(), colladaBundle.getGlb());
+				colladaBundle.setGlb(null); // free heap space
+			}
+			else {
+				StringWriter sw = new StringWriter();
+				colladaMarshaller.marshal(colladaBundle.getCollada(), sw);
+				colladaBundle.setCollada(null); // free heap space
+				kmzArchive.addEntry(modelFilename + ModelFormat.COLLADA.getFileExtension(), sw.toString().getBytes(CHARSET));
+			}
+
+			// ----------------- image saving -----------------
+			if (colladaBundle.getUnsupportedTexImageIds() != null) {
+				for (String imageFilename : colladaBundle.getUnsupportedTexImageIds().keySet()) {
+					byte[] ordImageBytes = textureExportAdapter.getInByteArray(colladaBundle.getUnsupportedTexImageIds().get(imageFilename), imageFilename, imageFilename);
+					kmzArchive.addEntry(imageFilename.startsWith("..") ?
+							imageFilename.substring(3): // skip .. and File.separator
+								colladaBundle.getGmlId() + "/" + imageFilename, ordImageBytes);
+				}
+			}
+
+			if (colladaBundle.getTexImages() != null) {
+				for (String imageFilename : colladaBundle.getTexImages().keySet()) {
+					BufferedImage texImage = colladaBundle.getTexImages().get(imageFilename).getBufferedImage();
+					String imageType = imageFilename.substring(imageFilename.lastIndexOf('.') + 1);
+
+					ByteArrayOutputStream imageBytes = new ByteArrayOutputStream();
+					ImageIO.write(texImage, imageType, imageBytes);
+					kmzArchive.addEntry(imageFilename.startsWith("..") ?
+							imageFilename.substring(3): // skip .. and File.separator
+								colladaBundle.getGmlId() + "/" + imageFilename, imageBytes.toByteArray());
+				}
+			}
+
+			// ----------------- balloon saving -----------------
+			if (colladaBundle.getExternalBalloonFileContent() != null) {
+				kmzArchive.addEntry(BalloonTemplateHandlerImpl.balloonDirectoryName + "/" + placemark.getName() + ".html", 
+						colladaBundle.getExternalBalloonFileContent().getBytes(CHARSET));
+			}
+		}
 		else {
 			String path = config.getInternal().getExportFileName().trim();
 			path = path.substring(0, path.lastIndexOf(File.separator));
-			if (config.getProject().getKmlExporter().isExportAsKmz()) {
-				// export temporarily as kml, it will be later added to kmz if needed
-				File tempFolder = new File(path, TEMP_FOLDER);
-				if (!tempFolder.exists()) {
-					Logger.getInstance().info("Creating temporary folder...");
-					tempFolder.mkdir();
-				}
-				path = path + File.separator + TEMP_FOLDER;
-			}
 
 			// --------------- create subfolder ---------------
 			File buildingDirectory = new File(path, colladaBundle.getGmlId());
@@ -551,10 +612,18 @@ public class KmlExporterManager {
 			}
 
 			// ----------------- model saving -----------------
-			File buildingModelFile = new File(buildingDirectory, colladaBundle.getGmlId() + ".dae");
-			FileOutputStream fos = new FileOutputStream(buildingModelFile);
-	        colladaMarshaller.marshal(colladaBundle.getCollada(), fos);
-	        fos.close();
+			if (colladaBundle.getGlb() != null) {
+				File buildingModelFile = new File(buildingDirectory, colladaBundle.getGmlId() + ModelFormat.GLB.getFileExtension());
+				FileOutputStream fos = new FileOutputStream(buildingModelFile);
+				fos.write(colladaBundle.getGlb());
+				fos.close();
+			}
+			else {
+				File buildingModelFile = new File(buildingDirectory, colladaBundle.getGmlId() + ModelFormat.COLLADA.getFileExtension());
+				FileOutputStream fos = new FileOutputStream(buildingModelFile);
+				colladaMarshaller.marshal(colladaBundle.getCollada(), fos);
+				fos.close();
+			}
 
 			// ----------------- image saving -----------------
 
@@ -33,6 +33,7 @@ import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.Transparency;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigInteger;
@@ -45,11 +46,13 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.StringTokenizer;
 
+import javax.imageio.ImageIO;
 import javax.media.j3d.GeometryArray;
 import javax.vecmath.Point3d;
 import javax.xml.datatype.DatatypeConfigurationException;
@@ -132,6 +135,7 @@ import de.tub.citydb.config.project.kmlExporter.Balloon;
 import de.tub.citydb.config.project.kmlExporter.ColladaOptions;
 import de.tub.citydb.config.project.kmlExporter.DisplayForm;
 import de.tub.citydb.config.project.kmlExporter.KmlExporter;
+import de.tub.citydb.config.project.kmlExporter.ModelFormat;
 import de.tub.citydb.database.TypeAttributeValueEnum;
 import de.tub.citydb.database.adapter.AbstractDatabaseAdapter;
 import de.tub.citydb.database.adapter.TextureImageExportAdapter;
@@ -139,6 +143,8 @@ import de.tub.citydb.log.Logger;
 import de.tub.citydb.modules.common.event.CounterEvent;
 import de.tub.citydb.modules.common.event.CounterType;
 import de.tub.citydb.modules.common.event.GeometryCounterEvent;
+import de.tub.citydb.modules.kml.util.GlbBuilder;
+import de.tub.citydb.modules.kml.util.TextureImageCache;
 import de.tub.citydb.util.Util;
 
 public abstract class KmlGenericObject {
@@ -171,6 +177,9 @@ public abstract class KmlGenericObject {
 	private HashMap<Object, String> texImageUris = new HashMap<Object, String>();
 	// key is imageUri
 	private HashMap<String, TextureImage> texImages = new HashMap<String, TextureImage>();
+	// surface data the images have been read from, used as key for the texture image cache
+	// key is imageUri
+	private HashMap<String, Long> texImageSurfaceDataIds = new HashMap<String, Long>();
 	// for images in unusual formats or wrapping textures. Most times it will be null.
 	// key is imageUri
 	private HashMap<String, Long> unsupportedTexImageIds = null;
@@ -639,57 +648,7 @@ public abstract class KmlGenericObject {
 			}
 
 			// --------------------------- geometry (variable part) ---------------------------
-			GeometryInfo ginfo = geometryInfos.get(surfaceId);
-			int outerRingCount = ginfo.getStripCounts()[0];
-			ginfo.convertToIndexedTriangles();
-
-			/*
-			// the following seems to be buggy, so don't do it for now
-			// generate normals, currently not used, but this is the recommended order
-			NormalGenerator ng = new NormalGenerator();
-			ng.generateNormals(ginfo);
-			// stripify: merge triangles together into bigger triangles when possible
-			Stripifier st = new Stripifier();
-			st.stripify(ginfo);
-			 */
-
-			// fix a reversed orientation of the triangulated surface 
-			// idea: get the first triangle edge on the outer ring and
-			// check whether the order of the vertex indices is correct			
-			int[] indexes = ginfo.getCoordinateIndices();
-			byte[] edges = {0, 1, 1, 2, 2, 0};			
-			boolean hasFound = false;
-
-			for (int i = 0; !hasFound && i < indexes.length; i += 3) {			
-				for (int j = 0; j < edges.length; j += 2) {
-					int first = i + edges[j];
-					int second = i + edges[j + 1]; 
-
-					if (indexes[first] < outerRingCount && indexes[second] < outerRingCount && Math.abs(indexes[first] - indexes[second]) == 1) {
-						hasFound = true;
-						if (indexes[first] > indexes[second])
-							ginfo.reverse();
-						break;
-					}
-				}
-			}
-
-			GeometryArray gArray = ginfo.getGeometryArray();
-			Point3d coordPoint = new Point3d();
-			for(int i = 0; i < gArray.getVertexCount(); i++){
-				gArray.getCoordinate(i, coordPoint);
-
-				VertexInfo vertexInfo = getVertexInfoForXYZ(coordPoint.x, coordPoint.y, coordPoint.z);
-				if (vertexInfo == null || (surfaceTextured && vertexInfo.getTexCoords(surfaceId) == null)) {
-					// no node or wrong node found
-					// use best fit only in extreme cases (it is slow)
-					if (surfaceTextured) {
-						vertexInfo = getVertexInfoBestFitForXYZ(coordPoint.x, coordPoint.y, coordPoint.z, surfaceId);
-					}
-					else  {
-						vertexInfo = getVertexInfoBestFitForXYZ(coordPoint.x, coordPoint.y, coordPoint.z);
-					}
-				}
+			for (VertexInfo vertexInfo : getTriangleVertices(surfaceId, surfaceTextured)) {
 				triangles.getP().add(vertexInfo.getVertexId());
 
 				if (surfaceTextured) {
@@ -711,9 +670,7 @@ public abstract class KmlGenericObject {
 					}
 					else { // should never happen
 						triangles.getP().add(texCoordsCounter); // wrong data is better than triangles out of sync
-						Logger.getInstance().log(LogLevel.DEBUG, 
-								"texCoords not found for (" + coordPoint.x + ", " + coordPoint.y + ", "
-										+ coordPoint.z + "). TOLERANCE = " + TOLERANCE_AFTER_TRIANGULATION);
+						logMissingTexCoords(vertexInfo);
 					}
 				}
 			}
@@ -770,6 +727,195 @@ public abstract class KmlGenericObject {
 		return collada;
 	}
 
+	// triangulates the surface and returns the vertices of its triangles in a consistent orientation
+	private List<VertexInfo> getTriangleVertices(Long surfaceId, boolean surfaceTextured) {
+		GeometryInfo ginfo = geometryInfos.get(surfaceId);
+		int outerRingCount = ginfo.getStripCounts()[0];
+		ginfo.convertToIndexedTriangles();
+
+		/*
+		// the following seems to be buggy, so don't do it for now
+		// generate normals, currently not used, but this is the recommended order
+		NormalGenerator ng = new NormalGenerator();
+		ng.generateNormals(ginfo);
+		// stripify: merge triangles together into bigger triangles when possible
+		Stripifier st = new Stripifier();
+		st.stripify(ginfo);
+		 */
+
+		// fix a reversed orientation of the triangulated surface 
+		// idea: get the first triangle edge on the outer ring and
+		// check whether the order of the vertex indices is correct			
+		int[] indexes = ginfo.getCoordinateIndices();
+		byte[] edges = {0, 1, 1, 2, 2, 0};			
+		boolean hasFound = false;
+
+		for (int i = 0; !hasFound && i < indexes.length; i += 3) {			
+			for (int j = 0; j < edges.length; j += 2) {
+				int first = i + edges[j];
+				int second = i + edges[j + 1]; 
+
+				if (indexes[first] < outerRingCount && indexes[second] < outerRingCount && Math.abs(indexes[first] - indexes[second]) == 1) {
+					hasFound = true;
+					if (indexes[first] > indexes[second])
+						ginfo.reverse();
+					break;
+				}
+			}
+		}
+
+		List<VertexInfo> triangleVertices = new ArrayList<VertexInfo>();
+		GeometryArray gArray = ginfo.getGeometryArray();
+		Point3d coordPoint = new Point3d();
+		for(int i = 0; i < gArray.getVertexCount(); i++){
+			gArray.getCoordinate(i, coordPoint);
+
+			VertexInfo vertexInfo = getVertexInfoForXYZ(coordPoint.x, coordPoint.y, coordPoint.z);
+			if (vertexInfo == null || (surfaceTextured && vertexInfo.getTexCoords(surfaceId) == null)) {
+				// no node or wrong node found
+				// use best fit only in extreme cases (it is slow)
+				if (surfaceTextured) {
+					vertexInfo = getVertexInfoBestFitForXYZ(coordPoint.x, coordPoint.y, coordPoint.z, surfaceId);
+				}
+				else  {
+					vertexInfo = getVertexInfoBestFitForXYZ(coordPoint.x, coordPoint.y, coordPoint.z);
+				}
+			}
+
+			triangleVertices.add(vertexInfo);
+		}
+
+		return triangleVertices;
+	}
+
+	private void logMissingTexCoords(VertexInfo vertexInfo) {
+		Logger.getInstance().log(LogLevel.DEBUG, 
+				"texCoords not found for (" + vertexInfo.getX() + ", " + vertexInfo.getY() + ", "
+						+ vertexInfo.getZ() + "). TOLERANCE = " + TOLERANCE_AFTER_TRIANGULATION);
+	}
+
+	public byte[] generateGlb() throws IOException {
+		GlbBuilder glb = new GlbBuilder(gmlId, this.getClass().getPackage().getImplementationTitle() + ", version " +
+				this.getClass().getPackage().getImplementationVersion());
+
+		HashMap<String, GlbBuilder.Primitive> primitivesByTexImageName = new HashMap<String, GlbBuilder.Primitive>();
+		Set<String> embeddedTexImages = new HashSet<String>();
+
+		// geometryInfos contains all surfaces, textured or not
+		for (Long surfaceId : geometryInfos.keySet()) {
+			String texImageName = texImageUris.get(surfaceId);
+			X3DMaterial x3dMaterial = getX3dMaterial(surfaceId);
+			boolean surfaceTextured = true;
+			if (texImageName == null) {
+				surfaceTextured = false;
+				texImageName = (x3dMaterial != null) ?
+						buildNameFromX3dMaterial(x3dMaterial):
+							NO_TEXIMAGE; // <- should never happen
+			}
+
+			GlbBuilder.Primitive primitive = primitivesByTexImageName.get(texImageName);
+			if (primitive == null) { // never worked on this image or material before
+				int material = -1;
+
+				if (surfaceTextured) {
+					// png and jpeg images are embedded into the binary chunk, all others are referenced
+					TextureImage texImage = texImages.get(texImageName);
+					String imageType = texImageName.substring(texImageName.lastIndexOf('.') + 1).toLowerCase();
+					if (imageType.equals("jpg"))
+						imageType = "jpeg";
+
+					if (texImage != null && (imageType.equals("png") || imageType.equals("jpeg"))) {
+						ByteArrayOutputStream imageBytes = new ByteArrayOutputStream();
+						if (ImageIO.write(texImage.getBufferedImage(), imageType, imageBytes)) {
+							material = glb.addTextureMaterial(texImageName, imageBytes.toByteArray(), "image/" + imageType, ignoreSurfaceOrientation);
+							embeddedTexImages.add(texImageName);
+						}
+					}
+
+					if (material == -1)
+						material = glb.addTextureMaterial(texImageName, texImageName, ignoreSurfaceOrientation);
+				}
+				else if (x3dMaterial != null && x3dMaterial.isSetDiffuseColor()) {
+					Color diffuseColor = x3dMaterial.getDiffuseColor();
+					material = glb.addColorMaterial(texImageName, diffuseColor.getRed(), diffuseColor.getGreen(), diffuseColor.getBlue(), 
+							x3dMaterial.isSetTransparency() ? x3dMaterial.getTransparency() : 0, ignoreSurfaceOrientation);
+				}
+				else
+					material = glb.addColorMaterial(texImageName, 0.8, 0.8, 0.8, 0, ignoreSurfaceOrientation);
+
+				primitive = glb.addPrimitive(material, surfaceTextured);
+				primitivesByTexImageName.put(texImageName, primitive);
+			}
+
+			List<VertexInfo> triangleVertices = getTriangleVertices(surfaceId, surfaceTextured);
+
+			// flat normal of the planar surface
+			double nx = 0, ny = 0, nz = 0;
+			for (int i = 0; i + 2 < triangleVertices.size(); i += 3) {
+				VertexInfo a = triangleVertices.get(i);
+				VertexInfo b = triangleVertices.get(i + 1);
+				VertexInfo c = triangleVertices.get(i + 2);
+				double ux = b.getX() - a.getX(), uy = b.getY() - a.getY(), uz = b.getZ() - a.getZ();
+				double vx = c.getX() - a.getX(), vy = c.getY() - a.getY(), vz = c.getZ() - a.getZ();
+				nx += uy * vz - uz * vy;
+				ny += uz * vx - ux * vz;
+				nz += ux * vy - uy * vx;
+			}
+
+			double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+			if (length > 0) {
+				nx /= length;
+				ny /= length;
+				nz /= length;
+			}
+			else
+				nz = 1;
+
+			// weld the vertices of the surface, texture coordinates are unique per surface 
+			HashMap<VertexInfo, Integer> indexByVertexInfo = new HashMap<VertexInfo, Integer>();
+			for (VertexInfo vertexInfo : triangleVertices) {
+				Integer index = indexByVertexInfo.get(vertexInfo);
+				if (index == null) {
+					float s = 0, t = 0;
+					if (surfaceTextured) {
+						TexCoords texCoords = vertexInfo.getTexCoords(surfaceId);
+						if (texCoords != null) {
+							// glTF has its texture origin in the upper left corner
+							s = (float)texCoords.getS();
+							t = (float)(1 - texCoords.getT());
+						}
+						else
+							logMissingTexCoords(vertexInfo);
+					}
+
+					double x = reducePrecisionForXorY((vertexInfo.getX() - originX)/100);
+					double y = reducePrecisionForXorY((vertexInfo.getY() - originY)/100);
+					double z = reducePrecisionForZ((vertexInfo.getZ() - originZ)/100);
+
+					// glTF is y-up
+					index = primitive.addVertex((float)x, (float)z, (float)-y, (float)nx, (float)nz, (float)-ny, s, t);
+					indexByVertexInfo.put(vertexInfo, index);
+				}
+
+				primitive.addIndex(index);
+			}
+		}
+
+		// embedded images must not be written to separate files
+		for (String texImageName : embeddedTexImages)
+			removeTexImage(texImageName);
+
+		return glb.build();
+	}
+
+	public ModelFormat getModelFormat() {
+		return config.getProject().getKmlExporter().getModelFormat();
+	}
+
+	public String getModelFileExtension() {
+		return getModelFormat().getFileExtension();
+	}
+
 	private String replaceExtensionWithSuffix (String imageName, String suffix) {
 		int indexOfExtension = imageName.lastIndexOf('.');
 		if (indexOfExtension != -1) {
@@ -830,6 +976,23 @@ public abstract class KmlGenericObject {
 		}
 	}
 
+	protected TextureImage readTexImage(ResultSet rs, String texImageUri, long surfaceDataId) throws SQLException, IOException {
+		TextureImageCache textureImageCache = kmlExporterManager.getTextureImageCache();
+		BufferedImage image = textureImageCache.get(surfaceDataId, 1);
+		if (image == null) {
+			TextureImage texImage = ImageReader.read(textureExportAdapter.getInStream(rs, "tex_image", texImageUri));
+			if (texImage == null) { // image in an unsupported format
+				return null;
+			}
+			image = texImage.getBufferedImage();
+			textureImageCache.put(surfaceDataId, 1, image);
+		}
+
+		texImageSurfaceDataIds.put(texImageUri, surfaceDataId);
+		// every object needs its own wrapper since the texture atlas creator replaces wrapped images
+		return new TextureImage(image);
+	}
+
 	protected void removeTexImage(String texImageUri){
 		texImages.remove(texImageUri);
 	}
@@ -1044,6 +1207,10 @@ public abstract class KmlGenericObject {
 			String imageUri = objectToAppend.texImageUris.get(surfaceId);
 			this.addTexImageUri(surfaceId, imageUri);
 			this.addTexImage(imageUri, objectToAppend.getTexImage(imageUri));
+			Long surfaceDataId = objectToAppend.texImageSurfaceDataIds.get(imageUri);
+			if (surfaceDataId != null) {
+				this.texImageSurfaceDataIds.put(imageUri, surfaceDataId);
+			}
 			this.addUnsupportedTexImageId(imageUri, objectToAppend.getUnsupportedTexImageId(imageUri));
 			this.addGeometryInfo(surfaceId, objectToAppend.geometryInfos.get(surfaceId));
 		}
@@ -1149,6 +1316,7 @@ public abstract class KmlGenericObject {
 			return;
 		}
 
+		TextureImageCache textureImageCache = kmlExporterManager.getTextureImageCache();
 		Set<String> keySet = texImages.keySet();
 		Iterator<String> iterator = keySet.iterator();
 		while (iterator.hasNext()) {
@@ -1157,11 +1325,20 @@ public abstract class KmlGenericObject {
 			if (imageToResize.getWidth()*factor < 1 || imageToResize.getHeight()*factor < 1) {
 				continue;
 			}
-			BufferedImage resizedImage = getScaledInstance(imageToResize,
-					(int)(imageToResize.getWidth()*factor),
-					(int)(imageToResize.getHeight()*factor),
-					RenderingHints.VALUE_INTERPOLATION_BILINEAR,
-					true);
+
+			// images shared by neighbouring objects only have to be resized once
+			Long surfaceDataId = texImageSurfaceDataIds.get(imageName);
+			BufferedImage resizedImage = surfaceDataId != null ? textureImageCache.get(surfaceDataId, factor) : null;
+			if (resizedImage == null) {
+				resizedImage = getScaledInstance(imageToResize,
+						(int)(imageToResize.getWidth()*factor),
+						(int)(imageToResize.getHeight()*factor),
+						RenderingHints.VALUE_INTERPOLATION_BILINEAR,
+						true);
+				if (surfaceDataId != null) {
+					textureImageCache.put(surfaceDataId, factor, resizedImage);
+				}
+			}
 			texImages.put(imageName, new TextureImage(resizedImage));
 		}
 
@@ -1649,7 +1826,7 @@ public abstract class KmlGenericObject {
 									// not already marked as wrapping texture && not already read in
 									TextureImage texImage = null;
 									try {
-										texImage = ImageReader.read(textureExportAdapter.getInStream(rs2, "tex_image", texImageUri));
+										texImage = readTexImage(rs2, texImageUri, surfaceDataId);
 									}
 									catch (IOException ioe) {}
 									if (texImage != null) { // image in JPEG, PNG or another usual format
@@ -1799,11 +1976,11 @@ public abstract class KmlGenericObject {
 				!config.getProject().getKmlExporter().isExportAsKmz() &&
 				config.getProject().getKmlExporter().getFilter().getComplexFilter().getTiledBoundingBox().getActive().booleanValue())
 		{
-			link.setHref(getGmlId() + ".dae");
+			link.setHref(getGmlId() + getModelFileExtension());
 		}
 		else {
 			// File.separator would be wrong here, it MUST be "/"
-			link.setHref(getGmlId() + "/" + getGmlId() + ".dae");
+			link.setHref(getGmlId() + "/" + getGmlId() + getModelFileExtension());
 		}
 		model.setLink(link);
 
@@ -2079,12 +2256,6 @@ public abstract class KmlGenericObject {
 		double zOffset = 0;
 
 		if (config.getProject().getKmlExporter().isCallGElevationService()) { // allowed to query
-			PreparedStatement insertQuery = null;
-			ResultSet rs = null;
-			/*
-			PreparedStatement checkQuery = null;
-			ResultSet rs2 = null;
-			 */
 			try {
 				// convert candidate points to WGS84
 				double[] coords = new double[candidates.size()*3];
@@ -2097,45 +2268,16 @@ public abstract class KmlGenericObject {
 				GeometryObject geomObj = convertToWGS84(GeometryObject.createCurve(coords, 3, dbSrs.getSrid()));
 				coords = geomObj.getCoordinates(0);
 
-				Logger.getInstance().info("Getting zOffset from Google's elevation API for " + getGmlId() + " with " + candidates.size() + " points.");
+				Logger.getInstance().info("Getting zOffset from " + elevationServiceHandler.getProviderName() + " for " + getGmlId() + " with " + candidates.size() + " points.");
 				zOffset = elevationServiceHandler.getZOffset(coords);
-				/*
-				checkQuery = connection.prepareStatement(Queries.GET_ID_FROM_GMLID);
-				checkQuery.setString(1, gmlId);
-				rs2 = checkQuery.executeQuery();
-				rs2.next();
-				long id = rs2.getLong(1);
-
-				if (rs2.next()) {
-					Logger.getInstance().warn("gml:id value " + gmlId + " is used for more than one object in the 3DCityDB; zOffset was not stored.");
-			    }
-				else {
-				 */
-				// save result in DB for next time
+
+				// save result in DB for next time; written in batches by the handler
 				String genericAttribName = "GE_LoD" + currentLod + "_zOffset";
-				insertQuery = connection.prepareStatement(Queries.INSERT_GE_ZOFFSET(databaseAdapter.getSQLAdapter()));
-				insertQuery.setString(1, genericAttribName);
 				String strVal = "Auto|" + zOffset + "|" + dateFormatter.format(new Date(System.currentTimeMillis()));
-				insertQuery.setString(2, strVal);
-				insertQuery.setLong(3, id);
-				rs = insertQuery.executeQuery();
-				//				}
+				elevationServiceHandler.storeZOffset(id, genericAttribName, strVal);
 			}
 			catch (Exception e) {
-				//				if (e.getMessage().startsWith("ORA-01427")) { // single-row subquery returns more than one row 
-				//					Logger.getInstance().warn("gml:id value " + gmlId + " is used for more than one object in the 3DCityDB; zOffset was not stored.");
-				//				}
-			}
-			finally {
-				try {
-					if (rs != null) rs.close();
-					if (insertQuery != null) insertQuery.close();
-					/*
-					if (rs2 != null) rs2.close();
-					if (checkQuery != null) checkQuery.close();
-					 */
-				}
-				catch (Exception e2) {}
+				//
 			}
 		}
 
@@ -33,6 +33,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.HashSet;
 
 import org.citygml4j.model.citygml.CityGMLClass;
@@ -67,6 +68,7 @@ public class KmlSplitter {
 	private AbstractDatabaseAdapter databaseAdapter;
 	private Connection connection;
 	private DatabaseSrs dbSrs;
+	private BalloonBatch balloonBatch;
 
 	public KmlSplitter(DatabaseConnectionPool dbConnectionPool, 
 			WorkerPool<KmlSplittingResult> dbWorkerPool, 
@@ -135,7 +137,7 @@ public class KmlSplitter {
 		}
 
 		databaseAdapter = dbConnectionPool.getActiveDatabaseAdapter();
-		connection = dbConnectionPool.getConnection();
+		connection = dbConnectionPool.getReadOnlyConnection();
 		dbSrs = databaseAdapter.getConnectionMetaData().getReferenceSystem();
 
 		// try and change workspace for connection if needed
@@ -225,15 +227,34 @@ public class KmlSplitter {
 				 */
 				int objectCount = 0;
 
-				while (rs.next() && shouldRun) {
-					long id = rs.getLong("id");
-					String gmlId = rs.getString("gmlId");
-					CityGMLClass cityObjectType = Util.classId2cityObject(rs.getInt("class_id"));
-					addWorkToQueue(id, gmlId, cityObjectType, 
-							exportFilter.getBoundingBoxFilter().getTileRow(),
-							exportFilter.getBoundingBoxFilter().getTileColumn());
+				// the objects of the tile are dispatched in chunks of one balloon 
+				// batch so that balloon contents can be queried for several objects
+				long[] ids = new long[BalloonBatch.BATCH_SIZE];
+				String[] gmlIds = new String[BalloonBatch.BATCH_SIZE];
+				CityGMLClass[] cityObjectTypes = new CityGMLClass[BalloonBatch.BATCH_SIZE];
+				boolean hasNext = true;
+
+				while (hasNext && shouldRun) {
+					int size = 0;
+					while (size < ids.length && (hasNext = rs.next()) && shouldRun) {
+						ids[size] = rs.getLong("id");
+						gmlIds[size] = rs.getString("gmlId");
+						cityObjectTypes[size] = Util.classId2cityObject(rs.getInt("class_id"));
+						size++;
+					}
+
+					if (size == 0)
+						break;
+
+					balloonBatch = new BalloonBatch(Arrays.copyOf(ids, size));
 
-					objectCount++;
+					for (int i = 0; i < size && shouldRun; i++) {
+						addWorkToQueue(ids[i], gmlIds[i], cityObjectTypes[i], 
+								exportFilter.getBoundingBoxFilter().getTileRow(),
+								exportFilter.getBoundingBoxFilter().getTileColumn());
+
+						objectCount++;
+					}
 				}
 
 				Logger.getInstance().debug("Tile_" + exportFilter.getBoundingBoxFilter().getTileRow()
@@ -297,6 +318,10 @@ public class KmlSplitter {
 			cityObject4Json.setEnvelope(ordinatesArray);
 
 			KmlSplittingResult splitter = new KmlSplittingResult(id, gmlId, cityObjectType, displayForm);
+			splitter.setBalloonBatch(balloonBatch);
+			if (filterConfig.isSetComplexFilter() &&
+					filterConfig.getComplexFilter().getTiledBoundingBox().isSet())
+				splitter.setTile(exportFilter.getBoundingBoxFilter().getFilterState());
 			dbWorkerPool.addWork(splitter);
 			KmlExporter.getAlreadyExported().put(id, cityObject4Json);
 
@@ -30,6 +30,8 @@
 package de.tub.citydb.modules.kml.database;
 
 import org.citygml4j.model.citygml.CityGMLClass;
+
+import de.tub.citydb.api.geometry.BoundingBox;
 import de.tub.citydb.config.project.kmlExporter.DisplayForm;
 
 public class KmlSplittingResult {
@@ -38,6 +40,8 @@ public class KmlSplittingResult {
 	private String gmlId;
 	private DisplayForm displayForm;
 	private CityGMLClass cityObjectType;
+	private BalloonBatch balloonBatch;
+	private BoundingBox tile;
 
 	public KmlSplittingResult(long id, String gmlId, CityGMLClass cityObjectType, DisplayForm displayForm) {
 		this.setId(id);
@@ -77,7 +81,23 @@ public class KmlSplittingResult {
 	public void setCityObjectType(CityGMLClass cityObjectType) {
 		this.cityObjectType = cityObjectType;
 	}
+
+	public BalloonBatch getBalloonBatch() {
+		return balloonBatch;
+	}
+
+	public void setBalloonBatch(BalloonBatch balloonBatch) {
+		this.balloonBatch = balloonBatch;
+	}
 	
+	public BoundingBox getTile() {
+		return tile;
+	}
+
+	public void setTile(BoundingBox tile) {
+		this.tile = tile;
+	}
+
 	public boolean isBuilding() {
 		return getCityObjectType().compareTo(CityGMLClass.BUILDING) == 0;
 	}
@@ -1510,6 +1510,21 @@ public class Queries {
 					"AND rf2rc.relief_feature_id = rf.id " +
 					"AND tr.id = rf2rc.relief_component_id";
 
+	// most decimated TIN level whose tolerance fits the tile, the full TIN otherwise
+	private static final String RELIEF_DECIMATED_ROOT_ID =
+			"COALESCE((SELECT lod.surface_geometry_id FROM TIN_RELIEF_LOD lod " +
+					"WHERE lod.tin_relief_id = tr.id " +
+					"AND lod.lod_level = (SELECT MAX(l.lod_level) FROM TIN_RELIEF_LOD l " +
+					"WHERE l.tin_relief_id = tr.id AND l.tolerance <= <Tolerance>)), tr.surface_geometry_id)";
+
+	public static String getDecimatedReliefQuery (int lodToExportFrom, DisplayForm displayForm, int queryNumber, double tolerance) {
+		String query = getReliefQuery(lodToExportFrom, displayForm, queryNumber);
+		if (queryNumber == RELIEF_TIN_QUERY)
+			query = query.replace("tr.surface_geometry_id", RELIEF_DECIMATED_ROOT_ID.replace("<Tolerance>", String.valueOf(tolerance)));
+
+		return query;
+	}
+
 	public static String getReliefQuery (int lodToExportFrom, DisplayForm displayForm, int queryNumber) {
 		String query = null;
 		switch (queryNumber) {
@@ -49,6 +49,7 @@ import de.tub.citydb.database.adapter.TextureImageExportAdapter;
 import de.tub.citydb.log.Logger;
 import de.tub.citydb.modules.common.event.CounterEvent;
 import de.tub.citydb.modules.common.event.CounterType;
+import de.tub.citydb.util.Util;
 
 public class Relief extends KmlGenericObject{
 
@@ -136,7 +137,13 @@ public class Relief extends KmlGenericObject{
 				if(!work.getDisplayForm().isAchievableFromLoD(currentLod)) break;
 
 				try {
-					psQuery = connection.prepareStatement(Queries.getReliefQuery(currentLod, work.getDisplayForm(), reliefQueryNumber),
+					String query = null;
+					if (config.getProject().getKmlExporter().isUseDecimatedTinRelief() && work.getTile() != null)
+						query = Queries.getDecimatedReliefQuery(currentLod, work.getDisplayForm(), reliefQueryNumber, Util.getTinTolerance(work.getTile()));
+					else
+						query = Queries.getReliefQuery(currentLod, work.getDisplayForm(), reliefQueryNumber);
+
+					psQuery = connection.prepareStatement(query,
 							   							  ResultSet.TYPE_SCROLL_INSENSITIVE,
 							   							  ResultSet.CONCUR_READ_ONLY);
 
@@ -33,11 +33,14 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
 
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
+import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
@@ -65,6 +68,9 @@ public class AltitudePanel extends AbstractPreferencesComponent {
 	private JTextField constantOffsetText = new JTextField("", 3);
 	private JRadioButton genericAttributeRadioButton = new JRadioButton("");
 	private JCheckBox callGElevationService = new JCheckBox();
+	private JCheckBox useLocalDEM = new JCheckBox();
+	private JTextField localDEMPathText = new JTextField("");
+	private JButton localDEMPathButton = new JButton();
 	private JCheckBox useOriginalZCoords = new JCheckBox();
 	private JPanel offsetPanel; 
 
@@ -106,6 +112,12 @@ public class AltitudePanel extends AbstractPreferencesComponent {
 		if (callGElevationService.isSelected() != config.getProject().getKmlExporter().isCallGElevationService())
 			return true;
 
+		if (useLocalDEM.isSelected() != config.getProject().getKmlExporter().isUseLocalDEM())
+			return true;
+
+		if (!localDEMPathText.getText().trim().equals(config.getProject().getKmlExporter().getLocalDEMPath()))
+			return true;
+
 		if (useOriginalZCoords.isSelected() != config.getProject().getKmlExporter().isUseOriginalZCoords())
 			return true;
 
@@ -149,6 +161,37 @@ public class AltitudePanel extends AbstractPreferencesComponent {
 		GridBagConstraints cgesl = GuiUtil.setConstraints(0,3,0.0,1.0,GridBagConstraints.BOTH,0,28,0,BORDER_THICKNESS);
 		cgesl.gridwidth = 2;
 		offsetPanel.add(callGElevationService, cgesl);
+		GridBagConstraints uldem = GuiUtil.setConstraints(0,4,0.0,1.0,GridBagConstraints.BOTH,0,28,0,BORDER_THICKNESS);
+		uldem.gridwidth = 2;
+		offsetPanel.add(useLocalDEM, uldem);
+
+		JPanel localDEMPathPanel = new JPanel();
+		localDEMPathPanel.setLayout(new GridBagLayout());
+		localDEMPathPanel.add(localDEMPathText, GuiUtil.setConstraints(0,0,1.0,0.0,GridBagConstraints.HORIZONTAL,0,0,0,BORDER_THICKNESS));
+		localDEMPathPanel.add(localDEMPathButton, GuiUtil.setConstraints(1,0,0.0,0.0,GridBagConstraints.NONE,0,BORDER_THICKNESS,0,0));
+		GridBagConstraints ldemp = GuiUtil.setConstraints(0,5,1.0,1.0,GridBagConstraints.BOTH,0,50,BORDER_THICKNESS,BORDER_THICKNESS);
+		ldemp.gridwidth = 2;
+		offsetPanel.add(localDEMPathPanel, ldemp);
+
+		localDEMPathButton.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				String path = browseFile(Internal.I18N.getString("pref.kmlexport.altitude.label.localDEMPath"), localDEMPathText.getText());
+				if (!path.isEmpty())
+					localDEMPathText.setText(path);
+			}
+		});
+
+		callGElevationService.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				setEnabledComponents();
+			}
+		});
+
+		useLocalDEM.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				setEnabledComponents();
+			}
+		});
 
 
 		noOffsetRadioButton.addActionListener(new ActionListener() {
@@ -186,6 +229,8 @@ public class AltitudePanel extends AbstractPreferencesComponent {
 		constantOffsetRadioButton.setText(Internal.I18N.getString("pref.kmlexport.altitude.label.constantOffset"));
 		genericAttributeRadioButton.setText(Internal.I18N.getString("pref.kmlexport.altitude.label.genericAttributeOffset"));
 		callGElevationService.setText(Internal.I18N.getString("pref.kmlexport.altitude.label.callGElevationService"));
+		useLocalDEM.setText(Internal.I18N.getString("pref.kmlexport.altitude.label.useLocalDEM"));
+		localDEMPathButton.setText(Internal.I18N.getString("common.button.browse"));
 		useOriginalZCoords.setText(Internal.I18N.getString("pref.kmlexport.altitude.label.useOriginalZCoords"));
 	}
 
@@ -205,6 +250,8 @@ public class AltitudePanel extends AbstractPreferencesComponent {
 				break;
 		}
 		callGElevationService.setSelected(config.getProject().getKmlExporter().isCallGElevationService());
+		useLocalDEM.setSelected(config.getProject().getKmlExporter().isUseLocalDEM());
+		localDEMPathText.setText(config.getProject().getKmlExporter().getLocalDEMPath());
 		useOriginalZCoords.setSelected(config.getProject().getKmlExporter().isUseOriginalZCoords());
 		setEnabledComponents();
 	}
@@ -234,6 +281,8 @@ public class AltitudePanel extends AbstractPreferencesComponent {
 			config.getProject().getKmlExporter().setAltitudeOffsetMode(AltitudeOffsetMode.GENERIC_ATTRIBUTE);
 		}
 		config.getProject().getKmlExporter().setCallGElevationService(callGElevationService.isSelected());
+		config.getProject().getKmlExporter().setUseLocalDEM(useLocalDEM.isSelected());
+		config.getProject().getKmlExporter().setLocalDEMPath(localDEMPathText.getText().trim());
 		config.getProject().getKmlExporter().setUseOriginalZCoords(useOriginalZCoords.isSelected());
 	}
 	
@@ -245,6 +294,21 @@ public class AltitudePanel extends AbstractPreferencesComponent {
 	private void setEnabledComponents() {
 		constantOffsetText.setEnabled(constantOffsetRadioButton.isSelected());
 		callGElevationService.setEnabled(genericAttributeRadioButton.isSelected());
+		useLocalDEM.setEnabled(genericAttributeRadioButton.isSelected() && callGElevationService.isSelected());
+		localDEMPathText.setEnabled(useLocalDEM.isEnabled() && useLocalDEM.isSelected());
+		localDEMPathButton.setEnabled(localDEMPathText.isEnabled());
+	}
+
+	private String browseFile(String title, String oldDir) {
+		JFileChooser chooser = new JFileChooser();
+		chooser.setDialogTitle(title);
+		chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+		chooser.setCurrentDirectory(new File(oldDir));
+
+		int result = chooser.showOpenDialog(getTopLevelAncestor());
+		if (result != JFileChooser.APPROVE_OPTION) return "";
+		String browseString = chooser.getSelectedFile().toString();
+		return browseString;
 	}
 
 }
@@ -0,0 +1,306 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.kml.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// assembles a binary glTF 2.0 file (GLB) from indexed triangle primitives.
+// all arrays are written as little-endian data into a single binary chunk.
+public class GlbBuilder {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int GLB_MAGIC = 0x46546C67;
+	private static final int CHUNK_JSON = 0x4E4F534A;
+	private static final int CHUNK_BIN = 0x004E4942;
+
+	private static final int ARRAY_BUFFER = 34962;
+	private static final int ELEMENT_ARRAY_BUFFER = 34963;
+	private static final int FLOAT = 5126;
+	private static final int UNSIGNED_SHORT = 5123;
+	private static final int UNSIGNED_INT = 5125;
+
+	private final String name;
+	private final String generator;
+	private final ByteArrayOutputStream bin = new ByteArrayOutputStream();
+
+	private final List<String> bufferViews = new ArrayList<String>();
+	private final List<String> accessors = new ArrayList<String>();
+	private final List<String> images = new ArrayList<String>();
+	private final List<String> textures = new ArrayList<String>();
+	private final List<String> materials = new ArrayList<String>();
+	private final List<Primitive> primitives = new ArrayList<Primitive>();
+
+	public GlbBuilder(String name, String generator) {
+		this.name = name;
+		this.generator = generator;
+	}
+
+	public int addColorMaterial(String name, double red, double green, double blue, double transparency, boolean doubleSided) {
+		StringBuilder material = new StringBuilder("{\"name\":").append(quote(name))
+		.append(",\"pbrMetallicRoughness\":{\"baseColorFactor\":[")
+		.append((float)red).append(',').append((float)green).append(',').append((float)blue).append(',').append((float)(1 - transparency))
+		.append("],\"metallicFactor\":0,\"roughnessFactor\":1}");
+
+		if (transparency > 0)
+			material.append(",\"alphaMode\":\"BLEND\"");
+
+		materials.add(material.append(",\"doubleSided\":").append(doubleSided).append('}').toString());
+		return materials.size() - 1;
+	}
+
+	// the image is embedded into the binary chunk
+	public int addTextureMaterial(String name, byte[] image, String mimeType, boolean doubleSided) {
+		int bufferView = addBufferView(image, 0);
+		images.add("{\"bufferView\":" + bufferView + ",\"mimeType\":" + quote(mimeType) + "}");
+		return addTextureMaterial(name, doubleSided);
+	}
+
+	// the image is referenced relative to the GLB file
+	public int addTextureMaterial(String name, String uri, boolean doubleSided) {
+		images.add("{\"uri\":" + quote(uri) + "}");
+		return addTextureMaterial(name, doubleSided);
+	}
+
+	private int addTextureMaterial(String name, boolean doubleSided) {
+		textures.add("{\"sampler\":0,\"source\":" + (images.size() - 1) + "}");
+		materials.add("{\"name\":" + quote(name) 
+				+ ",\"pbrMetallicRoughness\":{\"baseColorTexture\":{\"index\":" + (textures.size() - 1) 
+				+ "},\"metallicFactor\":0,\"roughnessFactor\":1},\"doubleSided\":" + doubleSided + "}");
+		return materials.size() - 1;
+	}
+
+	public Primitive addPrimitive(int material, boolean textured) {
+		Primitive primitive = new Primitive(material, textured);
+		primitives.add(primitive);
+		return primitive;
+	}
+
+	// positions and normals have three, texture coordinates two components per vertex
+	private String writePrimitive(int material, float[] positions, float[] normals, float[] texCoords, int[] indices, int vertexCount, int indexCount) {
+
+		float[] min = new float[]{Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+		float[] max = new float[]{-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+		for (int i = 0; i < vertexCount * 3; i++) {
+			min[i % 3] = Math.min(min[i % 3], positions[i]);
+			max[i % 3] = Math.max(max[i % 3], positions[i]);
+		}
+
+		StringBuilder primitive = new StringBuilder("{\"attributes\":{\"POSITION\":")
+		.append(addAccessor(addBufferView(toBytes(positions, vertexCount * 3), ARRAY_BUFFER), FLOAT, vertexCount, "VEC3", 
+				",\"min\":[" + min[0] + ',' + min[1] + ',' + min[2] + "],\"max\":[" + max[0] + ',' + max[1] + ',' + max[2] + ']'));
+
+		if (normals != null)
+			primitive.append(",\"NORMAL\":").append(addAccessor(addBufferView(toBytes(normals, vertexCount * 3), ARRAY_BUFFER), FLOAT, vertexCount, "VEC3", ""));
+
+		if (texCoords != null)
+			primitive.append(",\"TEXCOORD_0\":").append(addAccessor(addBufferView(toBytes(texCoords, vertexCount * 2), ARRAY_BUFFER), FLOAT, vertexCount, "VEC2", ""));
+
+		// small primitives use 16 bit indices
+		byte[] indexBytes = null;
+		int componentType;
+		if (vertexCount <= 0xFFFF) {
+			ByteBuffer buffer = ByteBuffer.allocate(indexCount * 2).order(ByteOrder.LITTLE_ENDIAN);
+			for (int i = 0; i < indexCount; i++)
+				buffer.putShort((short)indices[i]);
+
+			indexBytes = buffer.array();
+			componentType = UNSIGNED_SHORT;
+		} else {
+			ByteBuffer buffer = ByteBuffer.allocate(indexCount * 4).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.asIntBuffer().put(indices, 0, indexCount);
+			indexBytes = buffer.array();
+			componentType = UNSIGNED_INT;
+		}
+
+		primitive.append("},\"indices\":").append(addAccessor(addBufferView(indexBytes, ELEMENT_ARRAY_BUFFER), componentType, indexCount, "SCALAR", ""))
+		.append(",\"material\":").append(material).append(",\"mode\":4}");
+
+		return primitive.toString();
+	}
+
+	public byte[] build() throws IOException {
+		List<String> meshPrimitives = new ArrayList<String>();
+		for (Primitive primitive : primitives) {
+			if (primitive.indexCount > 0)
+				meshPrimitives.add(primitive.write());
+		}
+
+		StringBuilder json = new StringBuilder("{\"asset\":{\"version\":\"2.0\",\"generator\":").append(quote(generator)).append('}')
+		.append(",\"scene\":0,\"scenes\":[{\"nodes\":[0]}]")
+		.append(",\"nodes\":[{\"name\":").append(quote(name)).append(",\"mesh\":0}]")
+		.append(",\"meshes\":[{\"name\":").append(quote(name)).append(",\"primitives\":").append(toArray(meshPrimitives)).append("}]");
+
+		if (!materials.isEmpty())
+			json.append(",\"materials\":").append(toArray(materials));
+
+		if (!textures.isEmpty()) {
+			json.append(",\"textures\":").append(toArray(textures))
+			.append(",\"images\":").append(toArray(images))
+			.append(",\"samplers\":[{\"wrapS\":10497,\"wrapT\":10497}]");
+		}
+
+		json.append(",\"accessors\":").append(toArray(accessors))
+		.append(",\"bufferViews\":").append(toArray(bufferViews))
+		.append(",\"buffers\":[{\"byteLength\":").append(bin.size()).append("}]}");
+
+		byte[] jsonBytes = pad(json.toString().getBytes(UTF8), (byte)' ');
+		byte[] binBytes = pad(bin.toByteArray(), (byte)0);
+
+		ByteBuffer glb = ByteBuffer.allocate(12 + 8 + jsonBytes.length + 8 + binBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		glb.putInt(GLB_MAGIC).putInt(2).putInt(glb.capacity());
+		glb.putInt(jsonBytes.length).putInt(CHUNK_JSON).put(jsonBytes);
+		glb.putInt(binBytes.length).putInt(CHUNK_BIN).put(binBytes);
+
+		return glb.array();
+	}
+
+	private int addBufferView(byte[] data, int target) {
+		int offset = bin.size();
+		bin.write(data, 0, data.length);
+
+		// keep every view aligned to four bytes
+		while (bin.size() % 4 != 0)
+			bin.write(0);
+
+		bufferViews.add("{\"buffer\":0,\"byteOffset\":" + offset + ",\"byteLength\":" + data.length 
+				+ (target != 0 ? ",\"target\":" + target : "") + "}");
+		return bufferViews.size() - 1;
+	}
+
+	private int addAccessor(int bufferView, int componentType, int count, String type, String bounds) {
+		accessors.add("{\"bufferView\":" + bufferView + ",\"componentType\":" + componentType 
+				+ ",\"count\":" + count + ",\"type\":\"" + type + "\"" + bounds + "}");
+		return accessors.size() - 1;
+	}
+
+	private byte[] toBytes(float[] values, int length) {
+		ByteBuffer buffer = ByteBuffer.allocate(length * 4).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.asFloatBuffer().put(values, 0, length);
+		return buffer.array();
+	}
+
+	private byte[] pad(byte[] data, byte value) {
+		if (data.length % 4 == 0)
+			return data;
+
+		byte[] padded = Arrays.copyOf(data, (data.length + 3) & ~3);
+		Arrays.fill(padded, data.length, padded.length, value);
+		return padded;
+	}
+
+	private String toArray(List<String> elements) {
+		StringBuilder array = new StringBuilder("[");
+		for (int i = 0; i < elements.size(); i++) {
+			if (i > 0)
+				array.append(',');
+
+			array.append(elements.get(i));
+		}
+
+		return array.append(']').toString();
+	}
+
+	private String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : (value != null ? value : "").toCharArray()) {
+			if (c == '"' || c == '\\')
+				quoted.append('\\').append(c);
+			else if (c < 0x20)
+				quoted.append(String.format("\\u%04x", (int)c));
+			else
+				quoted.append(c);
+		}
+
+		return quoted.append('"').toString();
+	}
+
+	public class Primitive {
+		private final int material;
+		private float[] positions = new float[3 * 64];
+		private float[] normals = new float[3 * 64];
+		private float[] texCoords;
+		private int[] indices = new int[3 * 64];
+		private int vertexCount;
+		private int indexCount;
+
+		private Primitive(int material, boolean textured) {
+			this.material = material;
+			if (textured)
+				texCoords = new float[2 * 64];
+		}
+
+		// returns the index of the new vertex
+		public int addVertex(float x, float y, float z, float nx, float ny, float nz, float s, float t) {
+			if (vertexCount * 3 == positions.length) {
+				positions = Arrays.copyOf(positions, positions.length * 2);
+				normals = Arrays.copyOf(normals, normals.length * 2);
+				if (texCoords != null)
+					texCoords = Arrays.copyOf(texCoords, texCoords.length * 2);
+			}
+
+			int offset = vertexCount * 3;
+			positions[offset] = x;
+			positions[offset + 1] = y;
+			positions[offset + 2] = z;
+			normals[offset] = nx;
+			normals[offset + 1] = ny;
+			normals[offset + 2] = nz;
+
+			if (texCoords != null) {
+				texCoords[vertexCount * 2] = s;
+				texCoords[vertexCount * 2 + 1] = t;
+			}
+
+			return vertexCount++;
+		}
+
+		public void addIndex(int index) {
+			if (indexCount == indices.length)
+				indices = Arrays.copyOf(indices, indices.length * 2);
+
+			indices[indexCount++] = index;
+		}
+
+		public int getVertexCount() {
+			return vertexCount;
+		}
+
+		private String write() {
+			return writePrimitive(material, positions, normals, texCoords, indices, vertexCount, indexCount);
+		}
+	}
+
+}
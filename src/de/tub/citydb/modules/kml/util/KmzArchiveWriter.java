@@ -0,0 +1,263 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.kml.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// writes a KMZ archive whose entries are compressed by the calling threads.
+// the compressed entries are appended by a single writer, the document itself
+// is deflated into a temporary file and added as last entry when closing the archive.
+public class KmzArchiveWriter {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+	private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+
+	private final OutputStream out;
+	private final File file;
+	private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+	private final Set<String> entryNames = new HashSet<String>();
+	private final int dosTime;
+
+	private long offset;
+	private long entryCount;
+	private String documentName;
+	private File documentFile;
+	private DocumentStream document;
+	private boolean closed;
+
+	public KmzArchiveWriter(File file) throws IOException {
+		this.file = file;
+		out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+
+		Calendar calendar = Calendar.getInstance();
+		dosTime = (calendar.get(Calendar.YEAR) - 1980) << 25
+				| (calendar.get(Calendar.MONTH) + 1) << 21
+				| calendar.get(Calendar.DAY_OF_MONTH) << 16
+				| calendar.get(Calendar.HOUR_OF_DAY) << 11
+				| calendar.get(Calendar.MINUTE) << 5
+				| calendar.get(Calendar.SECOND) >> 1;
+	}
+
+	public synchronized OutputStream getDocumentStream(String name) throws IOException {
+		if (document == null) {
+			documentName = name;
+			documentFile = File.createTempFile("kmz", ".tmp", file.getAbsoluteFile().getParentFile());
+			documentFile.deleteOnExit();
+			document = new DocumentStream(new BufferedOutputStream(new FileOutputStream(documentFile), 64 * 1024));
+			entryNames.add(name);
+		}
+
+		return document;
+	}
+
+	// entries are written once, later entries of the same name are skipped
+	public boolean addEntry(String name, byte[] data) throws IOException {
+		synchronized (this) {
+			if (closed)
+				throw new IOException("The archive '" + file.getName() + "' has already been closed.");
+
+			if (!entryNames.add(name))
+				return false;
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(data);
+
+		// compress on the calling thread
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 2 + 64);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			byte[] buffer = new byte[8 * 1024];
+			while (!deflater.finished()) {
+				int length = deflater.deflate(buffer);
+				compressed.write(buffer, 0, length);
+			}
+		} finally {
+			deflater.end();
+		}
+
+		// already compressed content like jpeg images is stored as is
+		if (compressed.size() < data.length)
+			writeEntry(name, DEFLATED, crc.getValue(), data.length, compressed.size(), new ByteArrayInputStream(compressed.toByteArray()));
+		else
+			writeEntry(name, STORED, crc.getValue(), data.length, data.length, new ByteArrayInputStream(data));
+
+		return true;
+	}
+
+	public synchronized void close() throws IOException {
+		if (closed)
+			return;
+
+		closed = true;
+		try {
+			if (document != null) {
+				document.close();
+				InputStream in = new BufferedInputStream(new FileInputStream(documentFile), 64 * 1024);
+				try {
+					writeEntry(documentName, DEFLATED, document.crc.getValue(), document.size, document.compressedSize, in);
+				} finally {
+					in.close();
+				}
+			}
+
+			long centralDirectoryOffset = offset;
+			centralDirectory.writeTo(out);
+			offset += centralDirectory.size();
+
+			if (entryCount >= 0xFFFF || centralDirectoryOffset >= ZIP64_LIMIT || centralDirectory.size() >= ZIP64_LIMIT) {
+				long zip64EndOffset = offset;
+
+				ByteBuffer zip64End = ByteBuffer.allocate(56 + 20).order(ByteOrder.LITTLE_ENDIAN);
+				zip64End.putInt(0x06064b50).putLong(44).putShort((short)45).putShort((short)45).putInt(0).putInt(0)
+				.putLong(entryCount).putLong(entryCount).putLong(centralDirectory.size()).putLong(centralDirectoryOffset);
+
+				// zip64 end of central directory locator
+				zip64End.putInt(0x07064b50).putInt(0).putLong(zip64EndOffset).putInt(1);
+				write(zip64End);
+			}
+
+			ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+			end.putInt(0x06054b50).putShort((short)0).putShort((short)0)
+			.putShort((short)Math.min(entryCount, 0xFFFF)).putShort((short)Math.min(entryCount, 0xFFFF))
+			.putInt((int)Math.min(centralDirectory.size(), ZIP64_LIMIT)).putInt((int)Math.min(centralDirectoryOffset, ZIP64_LIMIT))
+			.putShort((short)0);
+			write(end);
+		} finally {
+			out.close();
+			if (documentFile != null)
+				documentFile.delete();
+		}
+	}
+
+	private synchronized void writeEntry(String name, int method, long crc, long size, long compressedSize, InputStream data) throws IOException {
+		byte[] nameBytes = name.getBytes(UTF8);
+		long localHeaderOffset = offset;
+		boolean zip64Sizes = size >= ZIP64_LIMIT || compressedSize >= ZIP64_LIMIT;
+		short version = (short)(zip64Sizes || localHeaderOffset >= ZIP64_LIMIT ? 45 : 20);
+
+		// local file header
+		ByteBuffer header = ByteBuffer.allocate(30 + nameBytes.length + (zip64Sizes ? 20 : 0)).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(0x04034b50).putShort(version).putShort((short)0x0800).putShort((short)method).putInt(dosTime).putInt((int)crc)
+		.putInt((int)(zip64Sizes ? ZIP64_LIMIT : compressedSize)).putInt((int)(zip64Sizes ? ZIP64_LIMIT : size))
+		.putShort((short)nameBytes.length).putShort((short)(zip64Sizes ? 20 : 0)).put(nameBytes);
+
+		if (zip64Sizes)
+			header.putShort((short)0x0001).putShort((short)16).putLong(size).putLong(compressedSize);
+
+		write(header);
+
+		byte[] buffer = new byte[64 * 1024];
+		int length;
+		while ((length = data.read(buffer)) >= 0) {
+			out.write(buffer, 0, length);
+			offset += length;
+		}
+
+		// central directory record, zip64 values are only given if required
+		int extraLength = (zip64Sizes ? 16 : 0) + (localHeaderOffset >= ZIP64_LIMIT ? 8 : 0);
+		ByteBuffer record = ByteBuffer.allocate(46 + nameBytes.length + (extraLength > 0 ? 4 + extraLength : 0)).order(ByteOrder.LITTLE_ENDIAN);
+		record.putInt(0x02014b50).putShort(version).putShort(version).putShort((short)0x0800).putShort((short)method).putInt(dosTime).putInt((int)crc)
+		.putInt((int)(zip64Sizes ? ZIP64_LIMIT : compressedSize)).putInt((int)(zip64Sizes ? ZIP64_LIMIT : size))
+		.putShort((short)nameBytes.length).putShort((short)(extraLength > 0 ? 4 + extraLength : 0)).putShort((short)0)
+		.putShort((short)0).putShort((short)0).putInt(0).putInt((int)Math.min(localHeaderOffset, ZIP64_LIMIT)).put(nameBytes);
+
+		if (extraLength > 0) {
+			record.putShort((short)0x0001).putShort((short)extraLength);
+			if (zip64Sizes)
+				record.putLong(size).putLong(compressedSize);
+			if (localHeaderOffset >= ZIP64_LIMIT)
+				record.putLong(localHeaderOffset);
+		}
+
+		centralDirectory.write(record.array(), 0, record.position());
+		entryCount++;
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		out.write(buffer.array(), 0, buffer.position());
+		offset += buffer.position();
+	}
+
+	private class DocumentStream extends DeflaterOutputStream {
+		private final CRC32 crc = new CRC32();
+		private long size;
+		private long compressedSize;
+		private boolean closed;
+
+		private DocumentStream(OutputStream out) {
+			super(out, new Deflater(Deflater.DEFAULT_COMPRESSION, true), 64 * 1024);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			super.write(b, off, len);
+			crc.update(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed)
+				return;
+
+			closed = true;
+			try {
+				finish();
+				size = def.getBytesRead();
+				compressedSize = def.getBytesWritten();
+			} finally {
+				def.end();
+				out.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.kml.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import de.tub.citydb.config.project.kmlExporter.DisplayForm;
+
+public class RegionQuadtree {
+	private final int rows;
+	private final int columns;
+	private final int depth;
+
+	public RegionQuadtree(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+
+		int depth = 0;
+		while ((1 << depth) < Math.max(rows, columns))
+			depth++;
+
+		this.depth = depth;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	// footprints are aggregated two levels and extruded objects one level
+	// above the tiles. all other display forms stay with the tiles
+	public int getLevel(DisplayForm displayForm) {
+		switch (displayForm.getForm()) {
+		case DisplayForm.FOOTPRINT:
+			return Math.max(depth - 2, 0);
+		case DisplayForm.EXTRUDED:
+			return Math.max(depth - 1, 0);
+		default:
+			return depth;
+		}
+	}
+
+	public int getNodeRow(int tileRow, int level) {
+		return tileRow >> (depth - level);
+	}
+
+	public int getNodeColumn(int tileColumn, int level) {
+		return tileColumn >> (depth - level);
+	}
+
+	public boolean hasNode(int level, int nodeRow, int nodeColumn) {
+		return level >= 0 && level <= depth 
+				&& nodeRow >= 0 && getFirstTileRow(level, nodeRow) < rows
+				&& nodeColumn >= 0 && getFirstTileColumn(level, nodeColumn) < columns;
+	}
+
+	public int getFirstTileRow(int level, int nodeRow) {
+		return nodeRow << (depth - level);
+	}
+
+	public int getFirstTileColumn(int level, int nodeColumn) {
+		return nodeColumn << (depth - level);
+	}
+
+	// exclusive, nodes at the upper and right border may be cut off
+	public int getLastTileRow(int level, int nodeRow) {
+		return Math.min((nodeRow + 1) << (depth - level), rows);
+	}
+
+	public int getLastTileColumn(int level, int nodeColumn) {
+		return Math.min((nodeColumn + 1) << (depth - level), columns);
+	}
+
+	// tiles in Z-order, so that the tiles of every node are consecutive
+	public List<int[]> getTileOrder() {
+		List<int[]> tiles = new ArrayList<int[]>(rows * columns);
+		for (int i = 0; i < rows; i++)
+			for (int j = 0; j < columns; j++)
+				tiles.add(new int[]{i, j});
+
+		Collections.sort(tiles, new Comparator<int[]>() {
+			public int compare(int[] o1, int[] o2) {
+				long m1 = interleave(o1[0], o1[1]);
+				long m2 = interleave(o2[0], o2[1]);
+				return m1 < m2 ? -1 : (m1 > m2 ? 1 : 0);
+			}
+		});
+
+		return tiles;
+	}
+
+	private long interleave(int row, int column) {
+		long code = 0;
+		for (int bit = 0; bit < depth; bit++) {
+			code |= (long)((row >> bit) & 1) << (2 * bit + 1);
+			code |= (long)((column >> bit) & 1) << (2 * bit);
+		}
+
+		return code;
+	}
+
+}
@@ -0,0 +1,189 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.kml.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// caches the prepared statements of a connection by their SQL text. statements
+// handed out by the connection returned from getConnection() are not closed 
+// by the caller but given back to the cache for the next object.
+public class StatementCache {
+	private static final int MAX_CACHED_STATEMENTS = 64;
+
+	private final Connection connection;
+	private final Connection proxy;
+	private long hits;
+	private long misses;
+
+	private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+			if (size() > MAX_CACHED_STATEMENTS) {
+				eldest.getValue().evict();
+				return true;
+			}
+
+			return false;
+		}
+	};
+
+	public StatementCache(Connection connection) {
+		this.connection = connection;
+
+		proxy = (Connection)Proxy.newProxyInstance(
+				StatementCache.class.getClassLoader(), 
+				new Class<?>[]{ Connection.class }, 
+				new ConnectionHandler());
+	}
+
+	public Connection getConnection() {
+		return proxy;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	private synchronized Object prepareStatement(Method method, Object[] args) throws SQLException {
+		StringBuilder key = new StringBuilder((String)args[0]);
+		for (int i = 1; i < args.length; i++)
+			key.append('#').append(args[i]);
+
+		CachedStatement statement = statements.get(key.toString());
+		if (statement != null && !statement.inUse) {
+			hits++;
+			statement.inUse = true;
+			return statement.proxy;
+		}
+
+		misses++;
+		PreparedStatement preparedStatement = (PreparedStatement)invoke(method, connection, args);
+
+		// the same statement is still used by an enclosing query
+		if (statement != null)
+			return preparedStatement;
+
+		statement = new CachedStatement(preparedStatement);
+		statements.put(key.toString(), statement);
+		return statement.proxy;
+	}
+
+	private synchronized void close() {
+		for (CachedStatement statement : new ArrayList<CachedStatement>(statements.values()))
+			statement.evict();
+
+		statements.clear();
+	}
+
+	private static Object invoke(Method method, Object target, Object[] args) throws SQLException {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof SQLException)
+				throw (SQLException)e.getCause();
+
+			throw new SQLException(e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new SQLException(e);
+		}
+	}
+
+	private final class ConnectionHandler implements InvocationHandler {
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+
+			// only plain statements and statements with result set options are cached
+			if (name.equals("prepareStatement") && (args.length == 1 || 
+					(args.length == 3 && method.getParameterTypes()[1] == int.class && method.getParameterTypes()[2] == int.class)))
+				return prepareStatement(method, args);
+
+			if (name.equals("close"))
+				close();
+
+			return StatementCache.invoke(method, connection, args);
+		}
+	}
+
+	private final class CachedStatement implements InvocationHandler {
+		private final PreparedStatement statement;
+		private final PreparedStatement proxy;
+		private boolean inUse = true;
+		private boolean isEvicted;
+
+		private CachedStatement(PreparedStatement statement) {
+			this.statement = statement;
+
+			proxy = (PreparedStatement)Proxy.newProxyInstance(
+					StatementCache.class.getClassLoader(), 
+					new Class<?>[]{ PreparedStatement.class }, 
+					this);
+		}
+
+		private void evict() {
+			isEvicted = true;
+			if (!inUse) {
+				try { statement.close(); } catch (SQLException e) {}
+			}
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getName().equals("close") && args == null) {
+				synchronized (StatementCache.this) {
+					if (!inUse)
+						return null;
+
+					inUse = false;
+					if (!isEvicted)
+						return null;
+				}
+			}
+
+			return StatementCache.invoke(method, statement, args);
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of the 3D City Database Importer/Exporter.
+ * Copyright (c) 2007 - 2013
+ * Institute for Geodesy and Geoinformation Science
+ * Technische Universitaet Berlin, Germany
+ * http://www.gis.tu-berlin.de/
+ * 
+ * The 3D City Database Importer/Exporter program is free software:
+ * you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program. If not, see 
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * The development of the 3D City Database Importer/Exporter has 
+ * been financially supported by the following cooperation partners:
+ * 
+ * Business Location Center, Berlin <http://www.businesslocationcenter.de/>
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * Berlin Senate of Business, Technology and Women <http://www.berlin.de/sen/wtf/>
+ */
+package de.tub.citydb.modules.kml.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TextureImageCache {
+	private final long maxSize;
+	private final LinkedHashMap<CacheKey, BufferedImage> images;
+	private long size;
+
+	public TextureImageCache(long maxSize) {
+		this.maxSize = maxSize;
+
+		// access order makes the map iterate from the least recently used entry
+		images = new LinkedHashMap<CacheKey, BufferedImage>(16, 0.75f, true);
+	}
+
+	public synchronized BufferedImage get(long surfaceDataId, double scaleFactor) {
+		return images.get(new CacheKey(surfaceDataId, scaleFactor));
+	}
+
+	public synchronized void put(long surfaceDataId, double scaleFactor, BufferedImage image) {
+		long imageSize = getSize(image);
+		if (imageSize > maxSize)
+			return;
+
+		BufferedImage previous = images.put(new CacheKey(surfaceDataId, scaleFactor), image);
+		if (previous != null)
+			size -= getSize(previous);
+
+		size += imageSize;
+
+		// evict least recently used images until we are within budget
+		Iterator<Map.Entry<CacheKey, BufferedImage>> iter = images.entrySet().iterator();
+		while (size > maxSize && iter.hasNext()) {
+			size -= getSize(iter.next().getValue());
+			iter.remove();
+		}
+	}
+
+	public synchronized void clear() {
+		images.clear();
+		size = 0;
+	}
+
+	private long getSize(BufferedImage image) {
+		DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+		return (long)dataBuffer.getSize() * dataBuffer.getNumBanks() * DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+	}
+
+	private static final class CacheKey {
+		private final long surfaceDataId;
+		private final double scaleFactor;
+
+		private CacheKey(long surfaceDataId, double scaleFactor) {
+			this.surfaceDataId = surfaceDataId;
+			this.scaleFactor = scaleFactor;
+		}
+
+		@Override
+		public int hashCode() {
+			long bits = Double.doubleToLongBits(scaleFactor);
+			return (int)(surfaceDataId ^ (surfaceDataId >>> 32)) * 31 + (int)(bits ^ (bits >>> 32));
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+
+			if (!(obj instanceof CacheKey))
+				return false;
+
+			CacheKey other = (CacheKey)obj;
+			return surfaceDataId == other.surfaceDataId && 
+					Double.doubleToLongBits(scaleFactor) == Double.doubleToLongBits(other.scaleFactor);
+		}
+	}
+
+}
@@ -46,10 +46,13 @@ import org.citygml4j.model.gml.GMLClass;
 import org.citygml4j.model.gml.basicTypes.Code;
 import org.citygml4j.model.gml.feature.AbstractFeature;
 
+import de.tub.citydb.api.geometry.BoundingBox;
 import de.tub.citydb.config.internal.Internal;
 import de.tub.citydb.config.project.database.Workspace;
 
 public class Util {
+	// number of samples along the shorter side of a tile a decimated TIN must resolve
+	private static final int TIN_TILE_RESOLUTION = 512;
 
 	public static int cityObject2classId(CityGMLClass cityGMLClass) {
 		int classId = 0;
@@ -521,4 +524,11 @@ public class Util {
 		return null;
 	}
 
+	public static double getTinTolerance(BoundingBox tile) {
+		double width = tile.getUpperRightCorner().getX() - tile.getLowerLeftCorner().getX();
+		double height = tile.getUpperRightCorner().getY() - tile.getLowerLeftCorner().getY();
+
+		return Math.min(width, height) / TIN_TILE_RESOLUTION;
+	}
+
 }